@@ -56,6 +56,7 @@ import org.gradle.api.internal.externalresource.local.ivy.LocallyAvailableResour
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.IdentityFileResolver;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.filestore.PathKeyFileStore;
 import org.gradle.api.internal.filestore.UniquePathKeyFileStore;
 import org.gradle.api.internal.filestore.ivy.ArtifactRevisionIdFileStore;
@@ -344,7 +345,7 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                 ConfigurationResolver resolver = createDependencyResolver(getResolveRepositoryHandler());
                 configurationContainer = instantiator.newInstance(DefaultConfigurationContainer.class,
                         resolver, instantiator, domainObjectContext, parent.get(ListenerManager.class),
-                        dependencyMetaDataProvider);
+                        dependencyMetaDataProvider, parent.get(FileCollectionResolveStatistics.class));
             }
             return configurationContainer;
         }
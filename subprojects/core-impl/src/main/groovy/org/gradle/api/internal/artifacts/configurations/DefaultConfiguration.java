@@ -25,6 +25,8 @@ import org.gradle.api.internal.CompositeDomainObjectSet;
 import org.gradle.api.internal.DefaultDomainObjectSet;
 import org.gradle.api.internal.artifacts.*;
 import org.gradle.api.internal.file.AbstractFileCollection;
+import org.gradle.api.internal.file.MemoizableFileCollection;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.tasks.AbstractTaskDependency;
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
 import org.gradle.api.specs.Spec;
@@ -42,7 +44,7 @@ import java.util.*;
 
 import static org.apache.ivy.core.module.descriptor.Configuration.Visibility;
 
-public class DefaultConfiguration extends AbstractFileCollection implements ConfigurationInternal {
+public class DefaultConfiguration extends AbstractFileCollection implements ConfigurationInternal, MemoizableFileCollection {
     private final String path;
     private final String name;
 
@@ -68,12 +70,14 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
     private final Object lock = new Object();
     private State state = State.UNRESOLVED;
     private ResolverResults cachedResolverResults;
+    private Set<File> cachedFiles;
     private final ResolutionStrategyInternal resolutionStrategy;
+    private final FileCollectionResolveStatistics resolveStatistics;
 
     public DefaultConfiguration(String path, String name, ConfigurationsProvider configurationsProvider,
                                 ConfigurationResolver resolver, ListenerManager listenerManager,
                                 DependencyMetaDataProvider metaDataProvider,
-                                ResolutionStrategyInternal resolutionStrategy) {
+                                ResolutionStrategyInternal resolutionStrategy, FileCollectionResolveStatistics resolveStatistics) {
         this.path = path;
         this.name = name;
         this.configurationsProvider = configurationsProvider;
@@ -81,6 +85,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         this.listenerManager = listenerManager;
         this.metaDataProvider = metaDataProvider;
         this.resolutionStrategy = resolutionStrategy;
+        this.resolveStatistics = resolveStatistics;
 
         resolutionListenerBroadcast = listenerManager.createAnonymousBroadcaster(DependencyResolutionListener.class);
 
@@ -198,6 +203,10 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         return getFiles();
     }
 
+    public boolean isContentFinal() {
+        return getState() == State.RESOLVED;
+    }
+
     public Set<File> getFiles() {
         return fileCollection(Specs.SATISFIES_ALL).getFiles();
     }
@@ -362,7 +371,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
     private DefaultConfiguration createCopy(Set<Dependency> dependencies, boolean recursive) {
         DetachedConfigurationsProvider configurationsProvider = new DetachedConfigurationsProvider();
         DefaultConfiguration copiedConfiguration = new DefaultConfiguration(path + "Copy", name + "Copy",
-                configurationsProvider, resolver, listenerManager, metaDataProvider, resolutionStrategy.copy());
+                configurationsProvider, resolver, listenerManager, metaDataProvider, resolutionStrategy.copy(), resolveStatistics);
         configurationsProvider.setTheOnlyConfiguration(copiedConfiguration);
         // state, cachedResolvedConfiguration, and extendsFrom intentionally not copied - must re-resolve copy
         // copying extendsFrom could mess up dependencies when copy was re-resolved
@@ -422,7 +431,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         }
     }
 
-    class ConfigurationFileCollection extends AbstractFileCollection {
+    class ConfigurationFileCollection extends AbstractFileCollection implements MemoizableFileCollection {
         private Spec<? super Dependency> dependencySpec;
 
         private ConfigurationFileCollection(Spec<? super Dependency> dependencySpec) {
@@ -454,13 +463,26 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
             return String.format("%s dependencies", DefaultConfiguration.this);
         }
 
+        public boolean isContentFinal() {
+            return DefaultConfiguration.this.isContentFinal();
+        }
+
         public Set<File> getFiles() {
             synchronized (lock) {
+                // Once resolved, the complete set of files of the configuration cannot change, so is calculated only once
+                if (cachedFiles != null && dependencySpec == Specs.SATISFIES_ALL) {
+                    resolveStatistics.memoized();
+                    return new LinkedHashSet<File>(cachedFiles);
+                }
                 ResolvedConfiguration resolvedConfiguration = getResolvedConfiguration();
                 if (getState() == State.RESOLVED_WITH_FAILURES) {
                     resolvedConfiguration.rethrowFailure();
                 }
-                return resolvedConfiguration.getFiles(dependencySpec);
+                Set<File> files = resolvedConfiguration.getFiles(dependencySpec);
+                if (dependencySpec == Specs.SATISFIES_ALL) {
+                    cachedFiles = new LinkedHashSet<File>(files);
+                }
+                return files;
             }
         }
     }
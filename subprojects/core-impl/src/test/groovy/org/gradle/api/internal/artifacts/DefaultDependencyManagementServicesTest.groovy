@@ -26,6 +26,7 @@ import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultResolutionStrategy
 import org.gradle.api.internal.file.FileResolver
 import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.DirectoryCacheBuilder
 import org.gradle.cache.PersistentCache
@@ -67,6 +68,7 @@ class DefaultDependencyManagementServicesTest extends Specification {
         _ * parent.get(TimeProvider) >> Mock(TimeProvider)
         _ * parent.get(TemporaryFileProvider) >> Mock(TemporaryFileProvider)
         _ * parent.get(ProjectAccessListener) >> Mock(ProjectAccessListener)
+        _ * parent.get(FileCollectionResolveStatistics) >> new FileCollectionResolveStatistics()
     }
 
     private CacheRepository initCacheRepository() {
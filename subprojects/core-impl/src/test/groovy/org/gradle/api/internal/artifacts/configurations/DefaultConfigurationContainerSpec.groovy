@@ -21,6 +21,7 @@ import org.gradle.api.internal.artifacts.ConfigurationResolver
 import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultResolutionStrategy
 import org.gradle.internal.reflect.Instantiator
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import org.gradle.listener.ListenerManager
 import spock.lang.Specification
 
@@ -31,19 +32,20 @@ public class DefaultConfigurationContainerSpec extends Specification {
     private DomainObjectContext domainObjectContext = Mock()
     private ListenerManager listenerManager = Mock()
     private DependencyMetaDataProvider metaDataProvider = Mock()
+    private FileCollectionResolveStatistics resolveStatistics = new FileCollectionResolveStatistics()
 
     def ConfigurationInternal conf = Mock()
 
     private DefaultConfigurationContainer configurationContainer = new DefaultConfigurationContainer(
             resolver, instantiator, domainObjectContext,
-            listenerManager, metaDataProvider);
+            listenerManager, metaDataProvider, resolveStatistics);
 
     def "adds and gets"() {
         _ * conf.getName() >> "compile"
         1 * domainObjectContext.absoluteProjectPath("compile") >> ":compile"
         1 * instantiator.newInstance(DefaultResolutionStrategy.class) >> { new DefaultResolutionStrategy() }
         1 * instantiator.newInstance(DefaultConfiguration.class, ":compile", "compile", configurationContainer,
-                resolver, listenerManager, metaDataProvider, _ as ResolutionStrategyInternal) >> conf
+                resolver, listenerManager, metaDataProvider, _ as ResolutionStrategyInternal, resolveStatistics) >> conf
 
         when:
         def compile = configurationContainer.add("compile")
@@ -63,7 +65,7 @@ public class DefaultConfigurationContainerSpec extends Specification {
         1 * domainObjectContext.absoluteProjectPath("compile") >> ":compile"
         1 * instantiator.newInstance(DefaultResolutionStrategy.class) >> { new DefaultResolutionStrategy() }
         1 * instantiator.newInstance(DefaultConfiguration.class, ":compile", "compile", configurationContainer,
-                resolver, listenerManager, metaDataProvider, _ as ResolutionStrategyInternal) >> conf
+                resolver, listenerManager, metaDataProvider, _ as ResolutionStrategyInternal, resolveStatistics) >> conf
 
         when:
         def compile = configurationContainer.add("compile") {
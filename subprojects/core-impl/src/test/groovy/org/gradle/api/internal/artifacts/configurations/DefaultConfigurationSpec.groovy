@@ -23,6 +23,7 @@ import org.gradle.api.internal.artifacts.ResolverResults
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.listener.ListenerBroadcast
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import org.gradle.listener.ListenerManager
 import spock.lang.Specification
 import org.gradle.api.artifacts.*
@@ -34,9 +35,10 @@ class DefaultConfigurationSpec extends Specification {
     ListenerManager listenerManager = Mock()
     DependencyMetaDataProvider metaDataProvider = Mock()
     ResolutionStrategyInternal resolutionStrategy = Mock()
+    FileCollectionResolveStatistics resolveStatistics = new FileCollectionResolveStatistics()
 
     DefaultConfiguration conf(String confName = "conf", String path = ":conf") {
-        new DefaultConfiguration(path, confName, configurationsProvider, resolver, listenerManager, metaDataProvider, resolutionStrategy)
+        new DefaultConfiguration(path, confName, configurationsProvider, resolver, listenerManager, metaDataProvider, resolutionStrategy, resolveStatistics)
     }
 
     DefaultPublishArtifact artifact(String name) {
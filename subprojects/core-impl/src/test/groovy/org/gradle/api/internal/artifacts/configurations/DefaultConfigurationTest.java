@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.*;
 import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultResolutionStrategy;
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.TaskContainer;
@@ -57,6 +58,7 @@ public class DefaultConfigurationTest {
     private ConfigurationsProvider configurationContainer;
     private ListenerManager listenerManager = context.mock(ListenerManager.class);
     private DependencyMetaDataProvider metaDataProvider = context.mock(DependencyMetaDataProvider.class);
+    private FileCollectionResolveStatistics resolveStatistics = new FileCollectionResolveStatistics();
     private DefaultConfiguration configuration;
     private DependencyResolutionListener dependencyResolutionBroadcast = context.mock(DependencyResolutionListener.class);
     private ListenerBroadcast resolutionListenerBroadcast = context.mock(ListenerBroadcast.class); 
@@ -230,6 +232,23 @@ public class DefaultConfigurationTest {
         assertThat(configuration.getState(), equalTo(Configuration.State.RESOLVED));
     }
 
+    @Test
+    public void filesAreOnlyCalculatedOnceResolved() {
+        final Set<File> fileSet = toSet(new File("somePath"));
+        final ResolvedConfiguration resolvedConfiguration = context.mock(ResolvedConfiguration.class);
+        prepareResolve(resolvedConfiguration, false);
+        context.checking(new Expectations() {{
+            one(resolvedConfiguration).getFiles(Specs.SATISFIES_ALL);
+            will(returnValue(fileSet));
+        }});
+
+        assertThat(configuration.isContentFinal(), equalTo(false));
+        assertThat(configuration.getFiles(), equalTo(fileSet));
+        assertThat(configuration.getFiles(), equalTo(fileSet));
+        assertThat(configuration.isContentFinal(), equalTo(true));
+        assertThat(resolveStatistics.getMemoizedCount(), equalTo(1L));
+    }
+
     @Test
     public void filesWithDependencies() {
         final Set<File> fileSet = toSet(new File("somePath"));
@@ -352,12 +371,12 @@ public class DefaultConfigurationTest {
 
     private DefaultConfiguration createNamedConfiguration(String confName) {
         return new DefaultConfiguration(confName, confName, configurationContainer,
-                dependencyResolver, listenerManager, metaDataProvider, new DefaultResolutionStrategy());
+                dependencyResolver, listenerManager, metaDataProvider, new DefaultResolutionStrategy(), resolveStatistics);
     }
     
     private DefaultConfiguration createNamedConfiguration(String path, String confName) {
         return new DefaultConfiguration(path, confName, configurationContainer,
-                dependencyResolver, listenerManager, metaDataProvider, new DefaultResolutionStrategy());
+                dependencyResolver, listenerManager, metaDataProvider, new DefaultResolutionStrategy(), resolveStatistics);
     }
 
     @SuppressWarnings("unchecked")
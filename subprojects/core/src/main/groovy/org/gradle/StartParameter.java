@@ -74,6 +74,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean recompileScripts;
     private int parallelThreadCount;
     private boolean configureOnDemand;
+    private boolean parallelConfiguration;
     private boolean parallelThreadCountConfigured;
 
     /**
@@ -159,6 +160,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         p.refreshDependencies = refreshDependencies;
         p.parallelThreadCount = parallelThreadCount;
         p.configureOnDemand = configureOnDemand;
+        p.parallelConfiguration = parallelConfiguration;
 
         return p;
     }
@@ -669,6 +671,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", refreshDependencies=" + refreshDependencies
                 + ", parallelThreadCount=" + parallelThreadCount
                 + ", configureOnDemand=" + configureOnDemand
+                + ", parallelConfiguration=" + parallelConfiguration
                 + '}';
     }
 
@@ -683,4 +686,18 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     public void setConfigureOnDemand(boolean configureOnDemand) {
         this.configureOnDemand = configureOnDemand;
     }
+
+    /**
+     * If the parallel configuration mode is active. In this mode, the projects of the build are configured concurrently once the root project
+     * has been configured.
+     */
+    @Incubating
+    public boolean isParallelConfiguration() {
+        return parallelConfiguration;
+    }
+
+    @Incubating
+    public void setParallelConfiguration(boolean parallelConfiguration) {
+        this.parallelConfiguration = parallelConfiguration;
+    }
 }
\ No newline at end of file
@@ -17,10 +17,9 @@
 package org.gradle.api.internal;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimap;
 import groovy.lang.*;
-import org.apache.commons.collections.map.AbstractReferenceMap;
-import org.apache.commons.collections.map.ReferenceMap;
 import org.codehaus.groovy.reflection.CachedClass;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
@@ -31,9 +30,15 @@ import org.gradle.internal.reflect.Instantiator;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class AbstractClassGenerator implements ClassGenerator {
-    private static final Map<Class<?>, Map<Class<?>, Class<?>>> GENERATED_CLASSES = new HashMap<Class<?>, Map<Class<?>, Class<?>>>();
+    // Weak references are used for both the key and value of the mapping. A WeakHashMap won't work here, as it keeps a strong reference to the
+    // mapping value, which is the generated class in this case. However, the generated class has a strong reference to the source class (it
+    // extends it), so the keys would always be strongly reachable while the generated class is strongly reachable.
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Class<?>>> GENERATED_CLASSES = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Class<?>>>();
+    private static final ConcurrentMap<Class<?>, Object> GENERATION_LOCKS = new MapMaker().weakKeys().makeMap();
 
     public <T> T newInstance(Class<T> type, Object... parameters) {
         Instantiator instantiator = new DirectInstantiator();
@@ -41,19 +46,50 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
     }
 
     public <T> Class<? extends T> generate(Class<T> type) {
-        Map<Class<?>, Class<?>> cache = GENERATED_CLASSES.get(getClass());
-        if (cache == null) {
-            // WeakHashMap won't work here. It keeps a strong reference to the mapping value, which is the generated class in this case
-            // However, the generated class has a strong reference to the source class (it extends it), so the keys will always be
-            // strongly reachable while this Class is strongly reachable. Use weak references for both key and value of the mapping instead.
-            cache = new ReferenceMap(AbstractReferenceMap.WEAK, AbstractReferenceMap.WEAK);
-            GENERATED_CLASSES.put(getClass(), cache);
-        }
+        ConcurrentMap<Class<?>, Class<?>> cache = getGeneratedClasses();
         Class<?> generatedClass = cache.get(type);
         if (generatedClass != null) {
             return generatedClass.asSubclass(type);
         }
 
+        // Only one thread generates a given type, as the generated class can only be defined once
+        synchronized (getGenerationLock(type)) {
+            generatedClass = cache.get(type);
+            if (generatedClass != null) {
+                return generatedClass.asSubclass(type);
+            }
+            Class<? extends T> subclass = generateUnderLock(type);
+            cache.put(type, subclass);
+            cache.put(subclass, subclass);
+            return subclass;
+        }
+    }
+
+    private ConcurrentMap<Class<?>, Class<?>> getGeneratedClasses() {
+        ConcurrentMap<Class<?>, Class<?>> cache = GENERATED_CLASSES.get(getClass());
+        if (cache == null) {
+            ConcurrentMap<Class<?>, Class<?>> newCache = new MapMaker().weakKeys().weakValues().makeMap();
+            cache = GENERATED_CLASSES.putIfAbsent(getClass(), newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+        return cache;
+    }
+
+    private static Object getGenerationLock(Class<?> type) {
+        Object lock = GENERATION_LOCKS.get(type);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = GENERATION_LOCKS.putIfAbsent(type, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private <T> Class<? extends T> generateUnderLock(Class<T> type) {
         if (Modifier.isPrivate(type.getModifiers())) {
             throw new GradleException(String.format("Cannot create a proxy class for private class '%s'.",
                     type.getSimpleName()));
@@ -63,7 +99,11 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
                     type.getSimpleName()));
         }
 
-        Class<? extends T> subclass;
+        Class<? extends T> subclass = loadGenerated(type);
+        if (subclass != null) {
+            return subclass;
+        }
+
         try {
             ClassBuilder<T> builder = start(type);
 
@@ -200,12 +240,18 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         } catch (Throwable e) {
             throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
-
-        cache.put(type, subclass);
-        cache.put(subclass, subclass);
         return subclass;
     }
 
+    /**
+     * Loads a class which was generated for the given type by an earlier invocation of this generator, for example in another JVM.
+     *
+     * @return The generated class, or null when the class needs to be generated.
+     */
+    protected <T> Class<? extends T> loadGenerated(Class<T> type) {
+        return null;
+    }
+
     protected abstract <T> ClassBuilder<T> start(Class<T> type);
 
     protected interface ClassBuilder<T> {
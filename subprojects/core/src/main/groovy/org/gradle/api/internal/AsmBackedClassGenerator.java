@@ -17,6 +17,8 @@ package org.gradle.api.internal;
 
 import groovy.lang.*;
 import org.gradle.api.Transformer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.reflect.JavaReflectionUtil;
@@ -34,11 +36,70 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
+    private static final Logger LOGGER = Logging.getLogger(AsmBackedClassGenerator.class);
     private static final JavaMethod<ClassLoader, Class> DEFINE_CLASS_METHOD = JavaMethod.create(ClassLoader.class, Class.class, "defineClass", String.class, byte[].class, Integer.TYPE, Integer.TYPE);
+    private final GeneratedClassCache generatedClassCache;
+
+    public AsmBackedClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param generatedClassCache The persistent cache to load generated classes from and store them in. May be null.
+     */
+    public AsmBackedClassGenerator(GeneratedClassCache generatedClassCache) {
+        this.generatedClassCache = generatedClassCache;
+    }
+
+    @Override
+    protected <T> Class<? extends T> loadGenerated(Class<T> type) {
+        if (generatedClassCache == null) {
+            return null;
+        }
+        String key = generatedClassCache.getKey(getClass(), type);
+        if (key == null) {
+            return null;
+        }
+        byte[] bytecode = generatedClassCache.load(key);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            return defineClass(type, getGeneratedTypeName(type), bytecode);
+        } catch (Throwable e) {
+            LOGGER.debug(String.format("Could not load cached generated class for %s. Generating it instead.", type.getName()), e);
+            return null;
+        }
+    }
 
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type) {
-        return new ClassBuilderImpl<T>(type);
+        return new ClassBuilderImpl<T>(type, generatedClassCache == null ? null : new CacheEntry(generatedClassCache, getClass()));
+    }
+
+    private static String getGeneratedTypeName(Class<?> type) {
+        return type.getName() + "_Decorated";
+    }
+
+    private static <T> Class<? extends T> defineClass(Class<T> type, String typeName, byte[] bytecode) {
+        return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+    }
+
+    private static class CacheEntry {
+        private final GeneratedClassCache cache;
+        private final Class<?> generator;
+
+        private CacheEntry(GeneratedClassCache cache, Class<?> generator) {
+            this.cache = cache;
+            this.generator = generator;
+        }
+
+        void store(Class<?> type, byte[] bytecode) {
+            String key = cache.getKey(generator, type);
+            if (key != null) {
+                cache.store(key, bytecode);
+            }
+        }
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -58,12 +119,14 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final Type conventionMappingType = Type.getType(ConventionMapping.class);
         private final Type groovyObjectType = Type.getType(GroovyObject.class);
         private final Type conventionType = Type.getType(Convention.class);
+        private final CacheEntry cacheEntry;
 
-        private ClassBuilderImpl(Class<T> type) {
+        private ClassBuilderImpl(Class<T> type, CacheEntry cacheEntry) {
             this.type = type;
+            this.cacheEntry = cacheEntry;
 
             visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-            typeName = type.getName() + "_Decorated";
+            typeName = getGeneratedTypeName(type);
             generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
             superclassType = Type.getType(type);
         }
@@ -816,7 +879,11 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             visitor.visitEnd();
 
             byte[] bytecode = visitor.toByteArray();
-            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            Class<? extends T> generatedClass = defineClass(type, typeName, bytecode);
+            if (cacheEntry != null) {
+                cacheEntry.store(type, bytecode);
+            }
+            return generatedClass;
         }
     }
 
@@ -33,6 +33,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
     private final boolean includeProperties;
     private final DynamicObject delegate;
     private final boolean implementsMissing;
+    private volatile BoundLookups lookups;
 
     public BeanDynamicObject(Object bean) {
         this(bean, true);
@@ -82,6 +83,15 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
     }
 
+    private MetaClassLookups getLookups(MetaClass metaClass) {
+        BoundLookups lookups = this.lookups;
+        if (lookups == null || lookups.metaClass != metaClass) {
+            lookups = new BoundLookups(metaClass, MetaClassLookups.of(metaClass));
+            this.lookups = lookups;
+        }
+        return lookups.lookups;
+    }
+
     @Override
     public boolean isMayImplementMissingMethods() {
         return implementsMissing && delegate.isMayImplementMissingMethods();
@@ -125,7 +135,11 @@ public class BeanDynamicObject extends AbstractDynamicObject {
     private class MetaClassAdapter implements DynamicObject {
 
         public boolean hasProperty(String name) {
-            return includeProperties && getMetaClass().hasProperty(bean, name) != null;
+            if (!includeProperties) {
+                return false;
+            }
+            MetaClass metaClass = getMetaClass();
+            return getLookups(metaClass).getProperty(metaClass, bean, name) != null;
         }
 
         public Object getProperty(String name) throws MissingPropertyException {
@@ -133,9 +147,10 @@ public class BeanDynamicObject extends AbstractDynamicObject {
                 throw propertyMissingException(name);
             }
 
-            MetaProperty property = getMetaClass().hasProperty(bean, name);
+            MetaClass metaClass = getMetaClass();
+            MetaProperty property = getLookups(metaClass).getProperty(metaClass, bean, name);
             if (property == null) {
-                return getMetaClass().invokeMissingProperty(bean, name, null, true);
+                return metaClass.invokeMissingProperty(bean, name, null, true);
             }
             if (property instanceof MetaBeanProperty && ((MetaBeanProperty) property).getGetter() == null) {
                 throw new GroovyRuntimeException(String.format(
@@ -158,7 +173,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             }
 
             MetaClass metaClass = getMetaClass();
-            MetaProperty property = metaClass.hasProperty(bean, name);
+            MetaProperty property = getLookups(metaClass).getProperty(metaClass, bean, name);
             if (property == null) {
                 if (property == null) {
                     getMetaClass().invokeMissingProperty(bean, name, null, false);
@@ -190,7 +205,8 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             }
 
             Map<String, Object> properties = new HashMap<String, Object>();
-            List<MetaProperty> classProperties = getMetaClass().getProperties();
+            MetaClass metaClass = getMetaClass();
+            List<MetaProperty> classProperties = getLookups(metaClass).getProperties(metaClass);
             for (MetaProperty metaProperty : classProperties) {
                 if (metaProperty.getName().equals("properties")) {
                     properties.put("properties", properties);
@@ -208,7 +224,8 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         public boolean hasMethod(String name, Object... arguments) {
-            return !getMetaClass().respondsTo(bean, name, arguments).isEmpty();
+            MetaClass metaClass = getMetaClass();
+            return getLookups(metaClass).hasMethod(metaClass, bean, name, arguments);
         }
 
         public Object invokeMethod(String name, Object... arguments) throws MissingMethodException {
@@ -267,4 +284,14 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             }
         }
     }
+
+    private static class BoundLookups {
+        private final MetaClass metaClass;
+        private final MetaClassLookups lookups;
+
+        private BoundLookups(MetaClass metaClass, MetaClassLookups lookups) {
+            this.metaClass = metaClass;
+            this.lookups = lookups;
+        }
+    }
 }
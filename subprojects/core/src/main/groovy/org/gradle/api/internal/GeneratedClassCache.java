@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal;
+
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.util.GradleVersion;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * A persistent cache of the bytecode of generated classes, so that a class only needs to be generated once rather than in every JVM.
+ *
+ * <p>The bytecode of a generated class is kept in a file named after the hash of the Gradle version and the bytecode of every class the generated
+ * class depends on: the generator and its nested classes, the source class with all of its superclasses and interfaces, and the types of the fields
+ * and the parameter and return types of the methods of those classes, with all of their superclasses and interfaces. A file never changes once it has been published, so no lock is taken to read or publish a file. Bytecode is
+ * written to a temporary file which is then renamed into place, so that a partially written file is never read.</p>
+ */
+public class GeneratedClassCache {
+    private static final Logger LOGGER = Logging.getLogger(GeneratedClassCache.class);
+    private final CacheRepository cacheRepository;
+    private PersistentCache cache;
+
+    public GeneratedClassCache(CacheRepository cacheRepository) {
+        this.cacheRepository = cacheRepository;
+    }
+
+    private synchronized File getBaseDir() {
+        if (cache == null) {
+            cache = cacheRepository.store("generatedClasses")
+                    .withDisplayName("generated class cache")
+                    .withLockMode(FileLockManager.LockMode.None)
+                    .open();
+        }
+        return cache.getBaseDir();
+    }
+
+    /**
+     * Returns the key for the class generated from the given type, or null when the bytecode of one of the classes the generated class depends on
+     * is not available, in which case the generated class cannot be cached.
+     */
+    public String getKey(Class<?> generator, Class<?> type) {
+        Map<String, Class<?>> dependencies = new TreeMap<String, Class<?>>();
+        try {
+            for (Class<?> current = generator; current != null; current = current.getSuperclass()) {
+                addHierarchy(current, dependencies);
+                for (Class<?> nested : current.getDeclaredClasses()) {
+                    addHierarchy(nested, dependencies);
+                }
+            }
+            Set<Class<?>> typeHierarchy = new HashSet<Class<?>>();
+            addHierarchy(type, typeHierarchy);
+            for (Class<?> current : typeHierarchy) {
+                addHierarchy(current, dependencies);
+                for (Field field : current.getDeclaredFields()) {
+                    addHierarchy(field.getType(), dependencies);
+                }
+                for (Method method : current.getDeclaredMethods()) {
+                    addHierarchy(method.getReturnType(), dependencies);
+                    for (Class<?> parameterType : method.getParameterTypes()) {
+                        addHierarchy(parameterType, dependencies);
+                    }
+                }
+            }
+        } catch (LinkageError e) {
+            // one of the classes refers to a class which cannot be loaded
+            return null;
+        }
+
+        StringBuilder identity = new StringBuilder();
+        identity.append(GradleVersion.current().getVersion()).append('\n');
+        for (Class<?> dependency : dependencies.values()) {
+            InputStream bytecode = dependency.getClassLoader().getResourceAsStream(dependency.getName().replace('.', '/') + ".class");
+            if (bytecode == null) {
+                return null;
+            }
+            identity.append(dependency.getName()).append(':').append(HashUtil.sha1(bytecode).asCompactString()).append('\n');
+        }
+        return HashUtil.createCompactMD5(identity.toString());
+    }
+
+    private static void addHierarchy(Class<?> type, Map<String, Class<?>> classes) {
+        Set<Class<?>> hierarchy = new HashSet<Class<?>>();
+        addHierarchy(type, hierarchy);
+        for (Class<?> current : hierarchy) {
+            classes.put(current.getName(), current);
+        }
+    }
+
+    /**
+     * Adds the given type and all of its superclasses and interfaces, except those loaded by the bootstrap class loader, which only change with the
+     * JVM.
+     */
+    private static void addHierarchy(Class<?> type, Set<Class<?>> classes) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive() || type.getClassLoader() == null || !classes.add(type)) {
+            return;
+        }
+        if (type.getSuperclass() != null) {
+            addHierarchy(type.getSuperclass(), classes);
+        }
+        for (Class<?> superInterface : type.getInterfaces()) {
+            addHierarchy(superInterface, classes);
+        }
+    }
+
+    /**
+     * Returns the bytecode for the given key, or null when it has not been cached.
+     */
+    public byte[] load(String key) {
+        File file = new File(getBaseDir(), key + ".class");
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.toByteArray(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores the bytecode for the given key. Does nothing if another thread or process has already stored it.
+     */
+    public void store(String key, byte[] bytecode) {
+        File baseDir = getBaseDir();
+        File file = new File(baseDir, key + ".class");
+        File tmpFile = new File(baseDir, String.format("%s-%s.tmp", key, UUID.randomUUID()));
+        try {
+            Files.write(bytecode, tmpFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!tmpFile.renameTo(file)) {
+            LOGGER.debug("Discarding generated class {} as it has already been cached.", key);
+            tmpFile.delete();
+        }
+    }
+}
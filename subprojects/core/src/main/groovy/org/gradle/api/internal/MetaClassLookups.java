@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal;
+
+import groovy.lang.ExpandoMetaClass;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaProperty;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The property and method lookups made against a {@link MetaClass}, including those which find nothing. Lookups are cached for plain {@link
+ * MetaClassImpl} instances, which is what decorated types use, as the properties and methods of these do not change. Lookups against any other kind
+ * of meta-class, such as an {@link ExpandoMetaClass} which can be modified at any time, are not cached. Replacing the meta-class of a
+ * type, for example with an {@code ExpandoMetaClass}, means the lookups cached for the old meta-class are no longer used.
+ */
+abstract class MetaClassLookups {
+    private static final Map<MetaClass, SoftReference<MetaClassLookups>> CACHED = new WeakHashMap<MetaClass, SoftReference<MetaClassLookups>>();
+    private static final MetaClassLookups UNCACHED = new UncachedLookups();
+
+    public static MetaClassLookups of(MetaClass metaClass) {
+        if (!(metaClass instanceof MetaClassImpl) || metaClass instanceof ExpandoMetaClass) {
+            return UNCACHED;
+        }
+        synchronized (CACHED) {
+            SoftReference<MetaClassLookups> reference = CACHED.get(metaClass);
+            MetaClassLookups lookups = reference == null ? null : reference.get();
+            if (lookups == null) {
+                lookups = new CachedLookups();
+                CACHED.put(metaClass, new SoftReference<MetaClassLookups>(lookups));
+            }
+            return lookups;
+        }
+    }
+
+    /**
+     * Returns the property with the given name, or null when there is no such property. Equivalent to {@link MetaClass#hasProperty(Object, String)}.
+     */
+    public abstract MetaProperty getProperty(MetaClass metaClass, Object bean, String name);
+
+    /**
+     * Returns true when the bean has a method which accepts the given arguments. Equivalent to {@link MetaClass#respondsTo(Object, String,
+     * Object[])}.
+     */
+    public abstract boolean hasMethod(MetaClass metaClass, Object bean, String name, Object... arguments);
+
+    /**
+     * Returns the properties of the bean. Equivalent to {@link MetaClass#getProperties()}.
+     */
+    public abstract List<MetaProperty> getProperties(MetaClass metaClass);
+
+    private static class UncachedLookups extends MetaClassLookups {
+        @Override
+        public MetaProperty getProperty(MetaClass metaClass, Object bean, String name) {
+            return metaClass.hasProperty(bean, name);
+        }
+
+        @Override
+        public boolean hasMethod(MetaClass metaClass, Object bean, String name, Object... arguments) {
+            return !metaClass.respondsTo(bean, name, arguments).isEmpty();
+        }
+
+        @Override
+        public List<MetaProperty> getProperties(MetaClass metaClass) {
+            return metaClass.getProperties();
+        }
+    }
+
+    private static class CachedLookups extends MetaClassLookups {
+        private static final Object MISSING = new Object();
+        private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+        private final ConcurrentMap<List<Object>, Boolean> methods = new ConcurrentHashMap<List<Object>, Boolean>();
+        private volatile List<MetaProperty> allProperties;
+
+        @Override
+        public MetaProperty getProperty(MetaClass metaClass, Object bean, String name) {
+            Object property = properties.get(name);
+            if (property == null) {
+                property = metaClass.hasProperty(bean, name);
+                properties.put(name, property == null ? MISSING : property);
+            }
+            return property == MISSING ? null : (MetaProperty) property;
+        }
+
+        @Override
+        public boolean hasMethod(MetaClass metaClass, Object bean, String name, Object... arguments) {
+            List<Object> key = new ArrayList<Object>(arguments.length + 1);
+            key.add(name);
+            for (Object argument : arguments) {
+                // Mirrors how respondsTo() determines the parameter types from the arguments
+                key.add(argument == null || argument instanceof Class ? argument : argument.getClass());
+            }
+            Boolean found = methods.get(key);
+            if (found == null) {
+                found = !metaClass.respondsTo(bean, name, arguments).isEmpty();
+                methods.put(key, found);
+            }
+            return found;
+        }
+
+        @Override
+        public List<MetaProperty> getProperties(MetaClass metaClass) {
+            List<MetaProperty> properties = allProperties;
+            if (properties == null) {
+                properties = Collections.unmodifiableList(new ArrayList<MetaProperty>(metaClass.getProperties()));
+                allProperties = properties;
+            }
+            return properties;
+        }
+    }
+}
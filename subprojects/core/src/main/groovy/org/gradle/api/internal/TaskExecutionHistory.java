@@ -22,4 +22,11 @@ public interface TaskExecutionHistory {
      * Returns the set of output files which the task produced.
      */
     FileCollection getOutputFiles();
+
+    /**
+     * Returns the input files which have been added, changed or removed since the task was last executed. Files which have been removed no longer
+     * exist. Returns null when the task is out-of-date
+     * for some other reason, or when the changes are not known, in which case the task should assume that all of its inputs have changed.
+     */
+    FileCollection getChangedInputFiles();
 }
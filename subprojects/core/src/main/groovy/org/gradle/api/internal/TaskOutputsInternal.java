@@ -25,5 +25,10 @@ public interface TaskOutputsInternal extends TaskOutputs {
 
     FileCollection getPreviousFiles();
 
+    /**
+     * Returns the execution history for this task, or null if history is not currently available for this task.
+     */
+    TaskExecutionHistory getHistory();
+
     void setHistory(TaskExecutionHistory history);
 }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.messaging.serialize.DataStreamBackedSerializer;
 
@@ -44,6 +45,10 @@ public class CachingHasher implements Hasher {
         return hash;
     }
 
+    public byte[] hash(FileTreeElement element) {
+        return hasher.hash(element);
+    }
+
     public static class FileInfo implements Serializable {
         private final byte[] hash;
         private final long timestamp;
@@ -17,10 +17,8 @@ package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.internal.TaskInternal;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.io.File;
+import java.util.*;
 
 public class CompositeUpToDateRule implements UpToDateRule {
     private final List<UpToDateRule> rules;
@@ -35,11 +33,18 @@ public class CompositeUpToDateRule implements UpToDateRule {
             states.add(rule.create(task, previousExecution, currentExecution));
         }
         return new TaskUpToDateState() {
+            private boolean checked;
+            private TaskUpToDateState outOfDateState;
+
             public void checkUpToDate(Collection<String> messages) {
                 for (int i = 0; messages.isEmpty() && i < states.size(); i++) {
                     TaskUpToDateState state = states.get(i);
                     state.checkUpToDate(messages);
+                    if (!messages.isEmpty()) {
+                        outOfDateState = state;
+                    }
                 }
+                checked = true;
             }
 
             public void snapshotAfterTask() {
@@ -47,6 +52,16 @@ public class CompositeUpToDateRule implements UpToDateRule {
                     state.snapshotAfterTask();
                 }
             }
+
+            public Set<File> getChangedInputFiles() {
+                if (!checked) {
+                    return null;
+                }
+                if (outOfDateState == null) {
+                    return Collections.emptySet();
+                }
+                return outOfDateState.getChangedInputFiles();
+            }
         };
     }
 }
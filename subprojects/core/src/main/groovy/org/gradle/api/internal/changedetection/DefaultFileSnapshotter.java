@@ -16,7 +16,10 @@
 
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.file.archive.ArchiveEntryDetails;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
@@ -38,16 +41,26 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
     }
 
     public FileCollectionSnapshot snapshot(FileCollection sourceFiles) {
-        Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
-        for (File file : sourceFiles.getAsFileTree()) {
-            if (file.isFile()) {
-                snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(file)));
-            } else if (file.isDirectory()) {
-                snapshots.put(file.getAbsolutePath(), new DirSnapshot());
-            } else {
-                snapshots.put(file.getAbsolutePath(), new MissingFileSnapshot());
+        final Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
+        sourceFiles.getAsFileTree().visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                if (fileDetails instanceof ArchiveEntryDetails) {
+                    // Hash the content of the entry in place, rather than extracting it
+                    File file = ((ArchiveEntryDetails) fileDetails).getExtractedFile();
+                    snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(fileDetails)));
+                    return;
+                }
+                File file = fileDetails.getFile();
+                if (file.isFile()) {
+                    snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(file)));
+                } else if (file.isDirectory()) {
+                    snapshots.put(file.getAbsolutePath(), new DirSnapshot());
+                } else {
+                    snapshots.put(file.getAbsolutePath(), new MissingFileSnapshot());
+                }
             }
-        }
+        });
         return new FileCollectionSnapshotImpl(snapshots);
     }
 
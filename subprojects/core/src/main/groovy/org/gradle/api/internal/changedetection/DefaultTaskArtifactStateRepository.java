@@ -23,9 +23,11 @@ import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Collections.singletonList;
 
@@ -54,6 +56,8 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         boolean snapshot();
 
         FileCollection getPreviousOutputFiles();
+
+        FileCollection getChangedInputFiles();
     }
 
     private static class HistoricExecution implements TaskExecutionState {
@@ -84,6 +88,14 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return lastExecution != null && lastExecution.getOutputFilesSnapshot() != null ? lastExecution.getOutputFilesSnapshot().getFiles() : new SimpleFileCollection();
         }
 
+        public FileCollection getChangedInputFiles() {
+            if (lastExecution == null || upToDateState == null) {
+                return null;
+            }
+            Set<File> changedInputFiles = upToDateState.getChangedInputFiles();
+            return changedInputFiles == null ? null : new SimpleFileCollection(changedInputFiles);
+        }
+
         public List<String> isUpToDate() {
             calcCurrentState();
 
@@ -149,6 +161,10 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return execution.getPreviousOutputFiles();
         }
 
+        public FileCollection getChangedInputFiles() {
+            return execution.getChangedInputFiles();
+        }
+
         public TaskExecutionHistory getExecutionHistory() {
             return this;
         }
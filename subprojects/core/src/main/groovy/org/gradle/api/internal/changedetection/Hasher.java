@@ -15,8 +15,15 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.api.file.FileTreeElement;
+
 import java.io.File;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Hashes the content of the given element, reading it through {@link FileTreeElement#open()} rather than from the file system.
+     */
+    byte[] hash(FileTreeElement element);
 }
@@ -20,6 +20,8 @@ import org.gradle.util.ChangeListener;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * A rule which marks a task out-of-date when its input files change.
@@ -35,29 +37,40 @@ public class InputFilesChangedUpToDateRule implements UpToDateRule {
         final FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(task.getInputs().getFiles());
 
         return new TaskUpToDateState() {
+            private Set<File> changedInputFiles;
+
             public void checkUpToDate(final Collection<String> messages) {
                 if (previousExecution.getInputFilesSnapshot() == null) {
                     messages.add(String.format("Input file history is not available for %s.", task));
                     return;
                 }
+                final Set<File> changed = new LinkedHashSet<File>();
                 inputFilesSnapshot.changesSince(previousExecution.getInputFilesSnapshot(), new ChangeListener<File>() {
                     public void added(File file) {
                         messages.add(String.format("Input file %s for %s added.", file, task));
+                        changed.add(file);
                     }
 
                     public void removed(File file) {
                         messages.add(String.format("Input file %s for %s removed.", file, task));
+                        changed.add(file);
                     }
 
                     public void changed(File file) {
                         messages.add(String.format("Input file %s for %s has changed.", file, task));
+                        changed.add(file);
                     }
                 });
+                changedInputFiles = changed;
             }
 
             public void snapshotAfterTask() {
                 currentExecution.setInputFilesSnapshot(inputFilesSnapshot);
             }
+
+            public Set<File> getChangedInputFiles() {
+                return changedInputFiles;
+            }
         };
     }
 }
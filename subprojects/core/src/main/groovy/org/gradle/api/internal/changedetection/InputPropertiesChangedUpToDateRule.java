@@ -19,9 +19,11 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.DiffUtil;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A rule which marks a task out-of-date when its input properties change.
@@ -50,6 +52,10 @@ public class InputPropertiesChangedUpToDateRule implements UpToDateRule {
 
             public void snapshotAfterTask() {
             }
+
+            public Set<File> getChangedInputFiles() {
+                return null;
+            }
         };
     }
 }
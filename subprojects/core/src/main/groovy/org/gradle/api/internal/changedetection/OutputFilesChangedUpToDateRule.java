@@ -20,6 +20,7 @@ import org.gradle.util.ChangeListener;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * A rule which marks a task out-of-date when its output files change.
@@ -80,6 +81,10 @@ public class OutputFilesChangedUpToDateRule implements UpToDateRule {
                 FileCollectionSnapshot outputFilesAfter = outputFilesSnapshotter.snapshot(task.getOutputs().getFiles());
                 currentExecution.setOutputFilesSnapshot(outputFilesAfter.changesSince(outputFilesBefore).applyTo(newOutputFiles));
             }
+
+            public Set<File> getChangedInputFiles() {
+                return null;
+            }
         };
     }
 }
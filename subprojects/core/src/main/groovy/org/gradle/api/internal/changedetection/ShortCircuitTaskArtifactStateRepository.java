@@ -62,6 +62,10 @@ public class ShortCircuitTaskArtifactStateRepository implements TaskArtifactStat
         public FileCollection getOutputFiles() {
             throw new UnsupportedOperationException();
         }
+
+        public FileCollection getChangedInputFiles() {
+            return null;
+        }
     }
 
     private class ShortCircuitArtifactState implements TaskArtifactState {
@@ -18,7 +18,9 @@ package org.gradle.api.internal.changedetection;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.internal.TaskInternal;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * A rule which marks a task out-of-date when its implementation class changes.
@@ -37,6 +39,10 @@ public class TaskTypeChangedUpToDateRule implements UpToDateRule {
 
             public void snapshotAfterTask() {
             }
+
+            public Set<File> getChangedInputFiles() {
+                return null;
+            }
         };
     }
 }
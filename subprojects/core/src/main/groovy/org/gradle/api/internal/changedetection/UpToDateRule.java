@@ -17,7 +17,9 @@ package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.internal.TaskInternal;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Set;
 
 public interface UpToDateRule {
     /**
@@ -44,5 +46,11 @@ public interface UpToDateRule {
          * passed to {@link UpToDateRule#create}.
          */
         void snapshotAfterTask();
+
+        /**
+         * Returns the input files which have been added, changed or removed since the previous execution, when these changes are the only reason for the task to be out-of-date.
+         * Returns null when this state cannot describe why the task is out-of-date in terms of changed input files, or when {@link #checkUpToDate} has not been called.
+         */
+        Set<File> getChangedInputFiles();
     }
 }
@@ -21,9 +21,11 @@ import org.gradle.api.PathValidation;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.ProcessOperations;
 import org.gradle.api.internal.file.archive.TarFileTree;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
 import org.gradle.api.internal.file.archive.ZipFileTree;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileCollection;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileTree;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.file.collections.FileTreeAdapter;
 import org.gradle.api.internal.file.copy.*;
 import org.gradle.api.internal.resources.DefaultResourceHandler;
@@ -49,13 +51,18 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
     private final FileResolver fileResolver;
     private final TaskResolver taskResolver;
     private final TemporaryFileProvider temporaryFileProvider;
+    private final ZipCentralDirectoryCache zipCentralDirectoryCache;
+    private final FileCollectionResolveStatistics resolveStatistics;
     private DeleteAction deleteAction;
     private final DefaultResourceHandler resourceHandler;
 
-    public DefaultFileOperations(FileResolver fileResolver, TaskResolver taskResolver, TemporaryFileProvider temporaryFileProvider) {
+    public DefaultFileOperations(FileResolver fileResolver, TaskResolver taskResolver, TemporaryFileProvider temporaryFileProvider, ZipCentralDirectoryCache zipCentralDirectoryCache,
+                                 FileCollectionResolveStatistics resolveStatistics) {
         this.fileResolver = fileResolver;
         this.taskResolver = taskResolver;
         this.temporaryFileProvider = temporaryFileProvider;
+        this.zipCentralDirectoryCache = zipCentralDirectoryCache;
+        this.resolveStatistics = resolveStatistics;
         this.deleteAction = new DeleteActionImpl(fileResolver);
         this.resourceHandler = new DefaultResourceHandler(fileResolver);
     }
@@ -73,7 +80,7 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
     }
     
     public ConfigurableFileCollection files(Object... paths) {
-        return new DefaultConfigurableFileCollection(fileResolver, taskResolver, paths);
+        return new DefaultConfigurableFileCollection("file collection", fileResolver, taskResolver, resolveStatistics, paths);
     }
 
     public ConfigurableFileCollection files(Object paths, Closure configureClosure) {
@@ -98,7 +105,7 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
     }
 
     public FileTree zipTree(Object zipPath) {
-        return new FileTreeAdapter(new ZipFileTree(file(zipPath), getExpandDir()));
+        return new FileTreeAdapter(new ZipFileTree(file(zipPath), getExpandDir(), zipCentralDirectoryCache));
     }
 
     public FileTree tarTree(Object tarPath) {
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file;
+
+import org.gradle.api.file.FileCollection;
+
+/**
+ * A {@link FileCollection} whose contents may become fixed, for example a configuration once it has been resolved. Collections which contain
+ * such a collection may reuse its files once they are fixed, rather than resolving them again.
+ */
+public interface MemoizableFileCollection extends FileCollection {
+    /**
+     * Returns true when the contents of this collection can no longer change.
+     */
+    boolean isContentFinal();
+}
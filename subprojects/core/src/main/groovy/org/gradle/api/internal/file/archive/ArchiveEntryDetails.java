@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.file.FileVisitDetails;
+
+import java.io.File;
+
+/**
+ * The details of an entry of an archive. The entry is only extracted to the file system when {@link #getFile()} is called, so consumers which only
+ * need the content of the entry should use {@link #open()} or {@link #copyTo(java.io.OutputStream)} instead.
+ */
+public interface ArchiveEntryDetails extends FileVisitDetails {
+    /**
+     * Returns the file that {@link #getFile()} extracts this entry to, without extracting it.
+     */
+    File getExtractedFile();
+}
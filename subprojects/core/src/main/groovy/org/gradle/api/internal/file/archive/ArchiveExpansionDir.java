@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
+
+/**
+ * The directory that the entries of an archive are extracted into. When the hash of the archive is known, there is a separate directory for each
+ * version of the archive, so that entries extracted by earlier builds are reused for as long as the archive does not change.
+ * Directories for older versions are not removed here, as another build may still be reading from them. They are removed along with
+ * the other temporary files of the build.
+ */
+class ArchiveExpansionDir {
+    private final File baseDir;
+
+    /**
+     * @param tmpDir The directory to create the expansion directory in.
+     * @param baseName The base name of the archive.
+     * @param uri A string which uniquely identifies the archive.
+     */
+    ArchiveExpansionDir(File tmpDir, String baseName, String uri) {
+        this.baseDir = new File(tmpDir, String.format("%s_%s", baseName, HashUtil.createCompactMD5(uri)));
+    }
+
+    /**
+     * Returns the directory for the given version of the archive.
+     *
+     * @param archiveHash The hash of the archive. May be null, in which case the entries are always extracted again.
+     */
+    File getDir(String archiveHash) {
+        return archiveHash == null ? baseDir : new File(baseDir, archiveHash);
+    }
+
+    /**
+     * Returns the file that the given entry is extracted to. Does not extract the entry.
+     */
+    File getLocation(File dir, FileTreeElement entry) {
+        return entry.getRelativePath().getFile(dir);
+    }
+
+    /**
+     * Extracts the given entry into the given directory, unless it has already been extracted there for the same version of the archive.
+     */
+    File extract(File dir, FileTreeElement entry) {
+        File file = getLocation(dir, entry);
+        if (!dir.equals(baseDir) && isExtracted(file, entry)) {
+            return file;
+        }
+        entry.copyTo(file);
+        if (!entry.isDirectory()) {
+            // Set the timestamp only once the content has been completely written, so that a partially extracted file is never reused
+            file.setLastModified(entry.getLastModified());
+        }
+        return file;
+    }
+
+    private boolean isExtracted(File file, FileTreeElement entry) {
+        if (entry.isDirectory()) {
+            return file.isDirectory();
+        }
+        return file.isFile() && file.length() == entry.getSize() && file.lastModified() == entry.getLastModified();
+    }
+}
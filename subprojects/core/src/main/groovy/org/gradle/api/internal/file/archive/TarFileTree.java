@@ -19,7 +19,6 @@ import org.apache.tools.tar.TarEntry;
 import org.apache.tools.tar.TarInputStream;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
-import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
@@ -36,16 +35,17 @@ import org.gradle.util.hash.HashUtil;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree {
     private final ReadableResource resource;
-    private final File tmpDir;
+    private final ArchiveExpansionDir expansionDir;
 
     public TarFileTree(ReadableResource resource, File tmpDir) {
         this.resource = resource;
-        String expandDirName = String.format("%s_%s", resource.getBaseName(), HashUtil.createCompactMD5(resource.getURI().toString()));
-        this.tmpDir = new File(tmpDir, expandDirName);
+        this.expansionDir = new ArchiveExpansionDir(tmpDir, resource.getBaseName(), resource.getURI().toString());
     }
 
     public String getDisplayName() {
@@ -53,7 +53,31 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     }
 
     public DirectoryFileTree getMirror() {
-        return new DirectoryFileTree(tmpDir);
+        return new DirectoryFileTree(getExpandDir());
+    }
+
+    /**
+     * Tar files have no index to hash cheaply, so a local tar file is identified by its size and timestamp instead. Entries of other resources are
+     * always extracted again.
+     */
+    private File getExpandDir() {
+        File tarFile = getLocalFile(resource.getURI());
+        if (tarFile == null || !tarFile.isFile()) {
+            return expansionDir.getDir(null);
+        }
+        return expansionDir.getDir(HashUtil.createCompactMD5(String.format("%s:%s", tarFile.length(), tarFile.lastModified())));
+    }
+
+    private static File getLocalFile(URI uri) {
+        // Compressed resources use URIs such as gzip:file:/some/file.tgz
+        try {
+            while (uri.isOpaque() && !"file".equals(uri.getScheme())) {
+                uri = new URI(uri.getSchemeSpecificPart());
+            }
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        return "file".equals(uri.getScheme()) && !uri.isOpaque() ? new File(uri) : null;
     }
 
     public void visit(FileVisitor visitor) {
@@ -87,28 +111,31 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
     private void visitImpl(FileVisitor visitor, InputStream inputStream) throws IOException {
         AtomicBoolean stopFlag = new AtomicBoolean();
+        File expandDir = getExpandDir();
         NoCloseTarInputStream tar = new NoCloseTarInputStream(inputStream);
         TarEntry entry;
         while (!stopFlag.get() && (entry = tar.getNextEntry()) != null) {
             if (entry.isDirectory()) {
-                visitor.visitDir(new DetailsImpl(entry, tar, stopFlag));
+                visitor.visitDir(new DetailsImpl(entry, tar, expandDir, stopFlag));
             } else {
-                visitor.visitFile(new DetailsImpl(entry, tar, stopFlag));
+                visitor.visitFile(new DetailsImpl(entry, tar, expandDir, stopFlag));
             }
 
         }
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
+    private class DetailsImpl extends AbstractFileTreeElement implements ArchiveEntryDetails {
         private final TarEntry entry;
         private final NoCloseTarInputStream tar;
+        private final File expandDir;
         private final AtomicBoolean stopFlag;
         private File file;
         private boolean read;
 
-        public DetailsImpl(TarEntry entry, NoCloseTarInputStream tar, AtomicBoolean stopFlag) {
+        public DetailsImpl(TarEntry entry, NoCloseTarInputStream tar, File expandDir, AtomicBoolean stopFlag) {
             this.entry = entry;
             this.tar = tar;
+            this.expandDir = expandDir;
             this.stopFlag = stopFlag;
         }
 
@@ -122,12 +149,16 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         public File getFile() {
             if (file == null) {
-                file = new File(tmpDir, entry.getName());
-                copyTo(file);
+                file = expansionDir.extract(expandDir, this);
+                read = true;
             }
             return file;
         }
 
+        public File getExtractedFile() {
+            return expansionDir.getLocation(expandDir, this);
+        }
+
         public long getLastModified() {
             return entry.getModTime().getTime();
         }
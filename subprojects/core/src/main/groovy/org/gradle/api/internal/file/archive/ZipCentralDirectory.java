@@ -0,0 +1,430 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.util.hash.HashUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * The parsed central directory of a ZIP file. Provides the information needed to locate and copy the raw (still compressed) data of each entry.
+ *
+ * <p>ZIP64 archives are not supported. Reading such an archive fails with an {@link UnsupportedFormatException}, so that the caller can fall back to
+ * reading it using a {@link java.util.zip.ZipFile}.</p>
+ */
+public class ZipCentralDirectory {
+    static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG = 0x07064b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH = 20;
+    static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    static final int CENTRAL_FILE_HEADER_LENGTH = 46;
+    static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    static final int UTF8_FLAG = 1 << 11;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int ENTRY_OVERHEAD = 120;
+    private static final int ZIP64_MAGIC_SHORT = 0xffff;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+
+    private final File zipFile;
+    private final Map<String, Entry> entries;
+    private final String contentHash;
+    private final long estimatedSize;
+    private volatile List<Entry> sortedEntries;
+
+    private ZipCentralDirectory(File zipFile, Map<String, Entry> entries, String contentHash, long estimatedSize) {
+        this.zipFile = zipFile;
+        this.entries = entries;
+        this.contentHash = contentHash;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Reads the central directory of the given ZIP file. Entry names which are not flagged as UTF-8 are decoded using the given charset.
+     */
+    public static ZipCentralDirectory read(File zipFile, Charset defaultCharset) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(zipFile, "r");
+        try {
+            long endOfCentralDirectory = findEndOfCentralDirectory(file);
+            if (endOfCentralDirectory < 0) {
+                throw new IOException(String.format("Could not locate the central directory of ZIP file '%s'.", zipFile));
+            }
+            byte[] end = new byte[END_OF_CENTRAL_DIRECTORY_LENGTH];
+            file.seek(endOfCentralDirectory);
+            file.readFully(end);
+            int entryCount = readShort(end, 10);
+            long centralDirectoryLength = readInt(end, 12);
+            long centralDirectoryOffset = readInt(end, 16);
+            if (entryCount == ZIP64_MAGIC_SHORT || centralDirectoryLength == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC
+                    || hasZip64Locator(file, endOfCentralDirectory)) {
+                throw new UnsupportedFormatException(String.format("ZIP file '%s' uses the ZIP64 format, which is not supported.", zipFile));
+            }
+
+            byte[] centralDirectory = new byte[(int) centralDirectoryLength];
+            file.seek(centralDirectoryOffset);
+            file.readFully(centralDirectory);
+
+            Map<String, Entry> entries = new LinkedHashMap<String, Entry>(entryCount * 2);
+            long estimatedSize = 0;
+            int pos = 0;
+            for (int i = 0; i < entryCount; i++) {
+                if (readInt(centralDirectory, pos) != CENTRAL_FILE_HEADER_SIG) {
+                    throw new IOException(String.format("Corrupt central directory in ZIP file '%s'.", zipFile));
+                }
+                int nameLength = readShort(centralDirectory, pos + 28);
+                int extraLength = readShort(centralDirectory, pos + 30);
+                int commentLength = readShort(centralDirectory, pos + 32);
+                int flags = readShort(centralDirectory, pos + 8);
+                Charset charset = (flags & UTF8_FLAG) != 0 ? Charset.forName("UTF-8") : defaultCharset;
+                String name = new String(centralDirectory, pos + CENTRAL_FILE_HEADER_LENGTH, nameLength, charset);
+                Entry entry = new Entry(
+                        name,
+                        readShort(centralDirectory, pos + 4),
+                        flags,
+                        readShort(centralDirectory, pos + 10),
+                        readInt(centralDirectory, pos + 12),
+                        readInt(centralDirectory, pos + 16),
+                        readInt(centralDirectory, pos + 20),
+                        readInt(centralDirectory, pos + 24),
+                        readInt(centralDirectory, pos + 38),
+                        readInt(centralDirectory, pos + 42));
+                if (entry.getCompressedSize() == ZIP64_MAGIC || entry.getSize() == ZIP64_MAGIC || entry.getLocalHeaderOffset() == ZIP64_MAGIC) {
+                    throw new UnsupportedFormatException(String.format("Entry '%s' in ZIP file '%s' uses the ZIP64 format, which is not supported.", name, zipFile));
+                }
+                entries.put(name, entry);
+                estimatedSize += ENTRY_OVERHEAD + 2 * name.length();
+                pos += CENTRAL_FILE_HEADER_LENGTH + nameLength + extraLength + commentLength;
+            }
+            String contentHash = HashUtil.createHash(new ByteArrayInputStream(centralDirectory), "MD5").asCompactString();
+            return new ZipCentralDirectory(zipFile, entries, contentHash, estimatedSize);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static long findEndOfCentralDirectory(RandomAccessFile file) throws IOException {
+        long length = file.length();
+        long minPos = Math.max(0, length - END_OF_CENTRAL_DIRECTORY_LENGTH - MAX_COMMENT_LENGTH);
+        int bufferLength = (int) (length - minPos);
+        byte[] buffer = new byte[bufferLength];
+        file.seek(minPos);
+        file.readFully(buffer);
+        for (int pos = bufferLength - END_OF_CENTRAL_DIRECTORY_LENGTH; pos >= 0; pos--) {
+            if (readInt(buffer, pos) == END_OF_CENTRAL_DIRECTORY_SIG) {
+                return minPos + pos;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasZip64Locator(RandomAccessFile file, long endOfCentralDirectory) throws IOException {
+        if (endOfCentralDirectory < ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH) {
+            return false;
+        }
+        byte[] signature = new byte[4];
+        file.seek(endOfCentralDirectory - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH);
+        file.readFully(signature);
+        return readInt(signature, 0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG;
+    }
+
+    static int readShort(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8);
+    }
+
+    static long readInt(byte[] buffer, int offset) {
+        return (readShort(buffer, offset) | ((long) readShort(buffer, offset + 2) << 16)) & 0xffffffffL;
+    }
+
+    public File getZipFile() {
+        return zipFile;
+    }
+
+    /**
+     * Returns a hash of the central directory. As the central directory contains the name, size, timestamp and CRC of each entry, the hash identifies
+     * the content of the archive without having to read all of it.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Returns the entry with the given name, or null if there is no such entry.
+     */
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Returns the entries of this directory, in the order they are stored in the archive.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<Entry>(entries.values()));
+    }
+
+    /**
+     * Returns the entries of this directory, sorted by name.
+     */
+    public List<Entry> getSortedEntries() {
+        List<Entry> result = sortedEntries;
+        if (result == null) {
+            List<Entry> sorted = new ArrayList<Entry>(entries.values());
+            Collections.sort(sorted, new Comparator<Entry>() {
+                public int compare(Entry entry1, Entry entry2) {
+                    return entry1.getName().compareTo(entry2.getName());
+                }
+            });
+            result = Collections.unmodifiableList(sorted);
+            sortedEntries = result;
+        }
+        return result;
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap used by this directory.
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Opens the uncompressed content of the given entry. The ZIP file is opened by the returned stream, and closed when the stream is closed.
+     */
+    public InputStream open(Entry entry) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(zipFile, "r");
+        try {
+            return open(file, entry, true);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the uncompressed content of the given entry, reading from the given ZIP file. The file is not closed when the stream is closed, so that it
+     * can be shared by the streams of several entries.
+     */
+    public InputStream open(RandomAccessFile file, Entry entry) throws IOException {
+        return open(file, entry, false);
+    }
+
+    private InputStream open(RandomAccessFile file, Entry entry, boolean closeFile) throws IOException {
+        byte[] header = new byte[LOCAL_FILE_HEADER_LENGTH];
+        file.seek(entry.getLocalHeaderOffset());
+        file.readFully(header);
+        if (readInt(header, 0) != LOCAL_FILE_HEADER_SIG) {
+            throw new IOException(String.format("Corrupt entry '%s' in ZIP file '%s'.", entry.getName(), zipFile));
+        }
+        long dataOffset = entry.getLocalHeaderOffset() + LOCAL_FILE_HEADER_LENGTH + readShort(header, 26) + readShort(header, 28);
+        switch (entry.getMethod()) {
+            case ZipEntry.STORED:
+                return new EntryDataInputStream(file, dataOffset, entry.getCompressedSize(), false, closeFile);
+            case ZipEntry.DEFLATED:
+                final Inflater inflater = new Inflater(true);
+                return new InflaterInputStream(new EntryDataInputStream(file, dataOffset, entry.getCompressedSize(), true, closeFile), inflater) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                throw new IOException(String.format("Unsupported compression method %s for entry '%s' in ZIP file '%s'.", entry.getMethod(), entry.getName(), zipFile));
+        }
+    }
+
+    /**
+     * Reads the raw data of an entry. Seeks before each read, so that several streams can share the same file. When the data is to be inflated, a
+     * trailing dummy byte is supplied, as required by {@link Inflater} in 'nowrap' mode.
+     */
+    private static class EntryDataInputStream extends InputStream {
+        private final RandomAccessFile file;
+        private final boolean closeFile;
+        private long pos;
+        private long remaining;
+        private boolean dummyByte;
+
+        EntryDataInputStream(RandomAccessFile file, long pos, long length, boolean dummyByte, boolean closeFile) {
+            this.file = file;
+            this.pos = pos;
+            this.remaining = length;
+            this.dummyByte = dummyByte;
+            this.closeFile = closeFile;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                if (dummyByte) {
+                    dummyByte = false;
+                    buffer[offset] = 0;
+                    return 1;
+                }
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            file.seek(pos);
+            count = file.read(buffer, offset, count);
+            if (count < 0) {
+                throw new IOException("Unexpected end of ZIP file.");
+            }
+            pos += count;
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeFile) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Thrown when a ZIP file uses a format that cannot be read by {@link ZipCentralDirectory}.
+     */
+    public static class UnsupportedFormatException extends IOException {
+        public UnsupportedFormatException(String message) {
+            super(message);
+        }
+    }
+
+    public static class Entry {
+        private final String name;
+        private final int versionMadeBy;
+        private final int flags;
+        private final int method;
+        private final long dosTime;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long externalAttributes;
+        private final long localHeaderOffset;
+
+        Entry(String name, int versionMadeBy, int flags, int method, long dosTime, long crc, long compressedSize, long size, long externalAttributes, long localHeaderOffset) {
+            this.name = name;
+            this.versionMadeBy = versionMadeBy;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.externalAttributes = externalAttributes;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public int getVersionMadeBy() {
+            return versionMadeBy;
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        /**
+         * Returns the last modified time of this entry, in MS-DOS format.
+         */
+        public long getDosTime() {
+            return dosTime;
+        }
+
+        /**
+         * Returns the last modified time of this entry, in milliseconds since the epoch.
+         */
+        public long getLastModified() {
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980,
+                    (int) ((dosTime >> 21) & 0x0f) - 1,
+                    (int) ((dosTime >> 16) & 0x1f),
+                    (int) ((dosTime >> 11) & 0x1f),
+                    (int) ((dosTime >> 5) & 0x3f),
+                    (int) ((dosTime << 1) & 0x3e));
+            return calendar.getTimeInMillis();
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getExternalAttributes() {
+            return externalAttributes;
+        }
+
+        /**
+         * Returns the Unix permissions of this entry, or 0 if the entry was not created on a Unix platform.
+         */
+        public int getUnixMode() {
+            return (versionMadeBy >> 8) == ZipRawEntryWriter.PLATFORM_UNIX ? (int) ((externalAttributes >> 16) & 0xffff) : 0;
+        }
+
+        public long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of parsed ZIP central directories, shared by all builds run by the process. When running in the daemon, this means the same archives are not parsed again by each
+ * build. An entry is reused for as long as the length and last modified time of the ZIP file do not change. The least recently used entries are
+ * discarded when the estimated size of the cache exceeds its limit.
+ */
+public class ZipCentralDirectoryCache {
+    private static final Logger LOGGER = Logging.getLogger(ZipCentralDirectoryCache.class);
+
+    private final long maxSize;
+    private final Map<String, CachedDirectory> directories = new LinkedHashMap<String, CachedDirectory>(16, 0.75f, true);
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize The maximum estimated number of bytes of heap to use.
+     */
+    public ZipCentralDirectoryCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the central directory of the given ZIP file, reading it if it is not cached or the file has changed since it was cached. Entry names
+     * which are not flagged as UTF-8 are decoded using the platform default charset.
+     */
+    public ZipCentralDirectory get(File zipFile) throws IOException {
+        String key = zipFile.getAbsolutePath();
+        long length = zipFile.length();
+        long lastModified = zipFile.lastModified();
+        synchronized (this) {
+            CachedDirectory cached = directories.get(key);
+            if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+                hits++;
+                return cached.directory;
+            }
+            misses++;
+        }
+
+        ZipCentralDirectory directory = ZipCentralDirectory.read(zipFile, Charset.defaultCharset());
+
+        synchronized (this) {
+            CachedDirectory previous = directories.put(key, new CachedDirectory(directory, length, lastModified));
+            if (previous != null) {
+                size -= previous.directory.getEstimatedSize();
+            }
+            size += directory.getEstimatedSize();
+            Iterator<CachedDirectory> iterator = directories.values().iterator();
+            while (size > maxSize && directories.size() > 1) {
+                CachedDirectory eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.directory.getEstimatedSize();
+                evictions++;
+            }
+        }
+        LOGGER.debug("Read central directory of {}. {}", zipFile, getStatistics());
+        return directory;
+    }
+
+    /**
+     * Discards all cached directories. Does not reset the statistics.
+     */
+    public synchronized void clear() {
+        directories.clear();
+        size = 0;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, directories.size(), size);
+    }
+
+    private static class CachedDirectory {
+        private final ZipCentralDirectory directory;
+        private final long length;
+        private final long lastModified;
+
+        private CachedDirectory(ZipCentralDirectory directory, long length, long lastModified) {
+            this.directory = directory;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int cachedCount;
+        private final long cachedSize;
+
+        private Statistics(long hits, long misses, long evictions, int cachedCount, long cachedSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.cachedCount = cachedCount;
+            this.cachedSize = cachedSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getCachedCount() {
+            return cachedCount;
+        }
+
+        public long getCachedSize() {
+            return cachedSize;
+        }
+
+        /**
+         * Returns the proportion of requests which were served from the cache, between 0 and 1.
+         */
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ZIP central directory cache: %d hits, %d misses (%.0f%% hit rate), %d evictions, %d directories cached (%d KB).",
+                    hits, misses, getHitRate() * 100, evictions, cachedCount, cachedSize / 1024);
+        }
+    }
+}
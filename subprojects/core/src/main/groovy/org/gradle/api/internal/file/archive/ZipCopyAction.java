@@ -15,10 +15,17 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.ZipCompressor;
 
 public interface ZipCopyAction extends ArchiveCopyAction {
 
     public ZipCompressor getCompressor();
+
+    /**
+     * Returns the input files which have changed since the archive was last built. Entries for all other files are copied from the existing archive
+     * without compressing them again. Returns null when the archive should be built from scratch.
+     */
+    public FileCollection getChangedInputFiles();
 }
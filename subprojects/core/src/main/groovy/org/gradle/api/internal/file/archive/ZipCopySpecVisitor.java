@@ -18,20 +18,40 @@ package org.gradle.api.internal.file.archive;
 import org.apache.tools.zip.*;
 import org.gradle.api.GradleException;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.file.copy.EmptyCopySpecVisitor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
 
 public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
+    private static final Logger LOGGER = Logging.getLogger(ZipCopySpecVisitor.class);
     private ZipOutputStream zipOutStr;
     private File zipFile;
 
+    // Incremental update state
+    private ZipRawEntryWriter writer;
+    private File tmpZipFile;
+    private ZipCentralDirectory previousEntries;
+    private RandomAccessFile previousZip;
+    private FileCollection changedInputFiles;
+    private int method;
+    private int reusedEntries;
+    private int compressedEntries;
+
     public void startVisit(CopyAction action) {
         ZipCopyAction archiveAction = (ZipCopyAction) action;
         zipFile = archiveAction.getArchivePath();
+        changedInputFiles = archiveAction.getChangedInputFiles();
+        if (changedInputFiles != null && zipFile.isFile() && startIncrementalUpdate(archiveAction)) {
+            return;
+        }
         try {
             zipOutStr = archiveAction.getCompressor().createArchiveOutputStream(zipFile);
         } catch (Exception e) {
@@ -39,7 +59,36 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
         }
     }
 
+    private boolean startIncrementalUpdate(ZipCopyAction archiveAction) {
+        // Entry names are encoded using the platform default encoding, as ZipOutputStream does
+        Charset charset = Charset.defaultCharset();
+        try {
+            previousEntries = ZipCentralDirectory.read(zipFile, charset);
+        } catch (IOException e) {
+            LOGGER.info("Could not read existing ZIP '{}', rebuilding it: {}", zipFile, e.getMessage());
+            return false;
+        }
+        method = archiveAction.getCompressor().getCompressedMethod();
+        tmpZipFile = new File(zipFile.getParentFile(), zipFile.getName() + ".tmp");
+        try {
+            previousZip = new RandomAccessFile(zipFile, "r");
+            writer = new ZipRawEntryWriter(tmpZipFile, method, charset);
+        } catch (Exception e) {
+            closeQuietly(previousZip);
+            previousZip = null;
+            tmpZipFile.delete();
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+        reusedEntries = 0;
+        compressedEntries = 0;
+        return true;
+    }
+
     public void endVisit() {
+        if (writer != null) {
+            endIncrementalUpdate();
+            return;
+        }
         try {
             zipOutStr.close();
         } catch (IOException e) {
@@ -49,8 +98,79 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
         }
     }
 
+    private void endIncrementalUpdate() {
+        try {
+            try {
+                writer.close();
+            } finally {
+                previousZip.close();
+            }
+            replace(tmpZipFile, zipFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer = null;
+            previousZip = null;
+            previousEntries = null;
+            tmpZipFile.delete();
+        }
+        LOGGER.info("Updated ZIP '{}': reused {} entries, compressed {} entries.", zipFile, reusedEntries, compressedEntries);
+    }
+
+    /**
+     * Discards the partially written ZIP, leaving the existing ZIP as it was.
+     */
+    private void abortIncrementalUpdate() {
+        try {
+            closeQuietly(previousZip);
+            writer.close();
+        } catch (IOException e) {
+            // Ignore, as the partially written ZIP is discarded
+        } finally {
+            writer = null;
+            previousZip = null;
+            previousEntries = null;
+            tmpZipFile.delete();
+        }
+    }
+
+    private static void closeQuietly(RandomAccessFile file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Replaces the target file with the source file. The target file is only removed once the source file is in its place.
+     */
+    private static void replace(File source, File target) throws IOException {
+        if (source.renameTo(target)) {
+            return;
+        }
+        // Some platforms cannot rename a file over an existing file, so move the existing file out of the way first
+        File backup = new File(target.getParentFile(), target.getName() + ".old");
+        backup.delete();
+        if (!target.renameTo(backup)) {
+            throw new IOException(String.format("Could not replace '%s' with '%s'.", target, source));
+        }
+        if (!source.renameTo(target)) {
+            backup.renameTo(target);
+            throw new IOException(String.format("Could not replace '%s' with '%s'.", target, source));
+        }
+        backup.delete();
+    }
+
     public void visitFile(FileVisitDetails fileDetails) {
         try {
+            if (writer != null) {
+                visitFileIncrementally(fileDetails);
+                return;
+            }
             ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
             archiveEntry.setTime(fileDetails.getLastModified());
             archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
@@ -58,19 +178,60 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
             fileDetails.copyTo(zipOutStr);
             zipOutStr.closeEntry();
         } catch (Exception e) {
+            if (writer != null) {
+                abortIncrementalUpdate();
+            }
             throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
         }
     }
 
+    private void visitFileIncrementally(FileVisitDetails fileDetails) throws IOException {
+        String name = fileDetails.getRelativePath().getPathString();
+        int unixMode = UnixStat.FILE_FLAG | fileDetails.getMode();
+        ZipCentralDirectory.Entry previous = previousEntries.getEntry(name);
+        if (previous != null && isUnchanged(fileDetails, name, unixMode, previous)) {
+            writer.copyEntry(previousZip, previous);
+            reusedEntries++;
+        } else {
+            fileDetails.copyTo(writer.putNextEntry(name, fileDetails.getLastModified(), unixMode));
+            writer.closeEntry();
+            compressedEntries++;
+        }
+    }
+
+    private boolean isUnchanged(FileVisitDetails fileDetails, String name, int unixMode, ZipCentralDirectory.Entry previous) {
+        File sourceFile;
+        try {
+            sourceFile = fileDetails.getFile();
+        } catch (UnsupportedOperationException e) {
+            // Content is filtered, so cannot be matched to an input file
+            return false;
+        }
+        return !changedInputFiles.contains(sourceFile)
+                && previous.getMethod() == method
+                && previous.getDosTime() == ZipRawEntryWriter.toDosTime(fileDetails.getLastModified())
+                && previous.getExternalAttributes() == ZipRawEntryWriter.toExternalAttributes(name, unixMode)
+                && previous.getSize() == fileDetails.getSize();
+    }
+
     public void visitDir(FileVisitDetails dirDetails) {
         try {
             // Trailing slash in name indicates that entry is a directory
-            ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
+            String name = dirDetails.getRelativePath().getPathString() + '/';
+            if (writer != null) {
+                writer.putNextEntry(name, dirDetails.getLastModified(), UnixStat.DIR_FLAG | dirDetails.getMode());
+                writer.closeEntry();
+                return;
+            }
+            ZipEntry archiveEntry = new ZipEntry(name);
             archiveEntry.setTime(dirDetails.getLastModified());
             archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
             zipOutStr.putNextEntry(archiveEntry);
             zipOutStr.closeEntry();
         } catch (Exception e) {
+            if (writer != null) {
+                abortIncrementalUpdate();
+            }
             throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
         }
     }
@@ -15,12 +15,9 @@
  */
 package org.gradle.api.internal.file.archive;
 
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.UncheckedIOException;
-import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
@@ -29,25 +26,28 @@ import org.gradle.api.internal.file.collections.FileSystemMirroringFileTree;
 import org.gradle.api.internal.file.collections.MinimalFileTree;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.util.DeprecationLogger;
-import org.gradle.util.hash.HashUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree {
     private final File zipFile;
-    private final File tmpDir;
+    private final ArchiveExpansionDir expansionDir;
+    private final ZipCentralDirectoryCache directoryCache;
 
-    public ZipFileTree(File zipFile, File tmpDir) {
+    public ZipFileTree(File zipFile, File tmpDir, ZipCentralDirectoryCache directoryCache) {
         this.zipFile = zipFile;
-        String expandDirName = String.format("%s_%s", zipFile.getName(), HashUtil.createCompactMD5(zipFile.getAbsolutePath()));
-        this.tmpDir = new File(tmpDir, expandDirName);
+        this.directoryCache = directoryCache;
+        this.expansionDir = new ArchiveExpansionDir(tmpDir, zipFile.getName(), zipFile.getAbsolutePath());
     }
 
     public String getDisplayName() {
@@ -55,7 +55,18 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     }
 
     public DirectoryFileTree getMirror() {
-        return new DirectoryFileTree(tmpDir);
+        return new DirectoryFileTree(getExpandDir());
+    }
+
+    private File getExpandDir() {
+        if (!zipFile.isFile()) {
+            return expansionDir.getDir(null);
+        }
+        try {
+            return expansionDir.getDir(directoryCache.get(zipFile).getContentHash());
+        } catch (IOException e) {
+            return expansionDir.getDir(null);
+        }
     }
 
     public void visit(FileVisitor visitor) {
@@ -72,23 +83,23 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         AtomicBoolean stopFlag = new AtomicBoolean();
 
         try {
-            ZipFile zip = new ZipFile(zipFile);
+            ZipCentralDirectory directory;
             try {
-                // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
-                // to us. So, collect the entries in a map and iterate over them in alphabetical order.
-                Map<String, ZipEntry> entriesByName = new TreeMap<String, ZipEntry>();
-                Enumeration entries = zip.getEntries();
-                while (entries.hasMoreElements()) {
-                    ZipEntry entry = (ZipEntry) entries.nextElement();
-                    entriesByName.put(entry.getName(), entry);
-                }
-                Iterator<ZipEntry> sortedEntries = entriesByName.values().iterator();
+                directory = directoryCache.get(zipFile);
+            } catch (ZipCentralDirectory.UnsupportedFormatException e) {
+                visitUsingZipFile(visitor, stopFlag);
+                return;
+            }
+            File expandDir = expansionDir.getDir(directory.getContentHash());
+            RandomAccessFile zip = new RandomAccessFile(zipFile, "r");
+            try {
+                Iterator<ZipCentralDirectory.Entry> sortedEntries = directory.getSortedEntries().iterator();
                 while (!stopFlag.get() && sortedEntries.hasNext()) {
-                    ZipEntry entry = sortedEntries.next();
+                    ZipCentralDirectory.Entry entry = sortedEntries.next();
                     if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, zip, stopFlag));
+                        visitor.visitDir(new DetailsImpl(entry, directory, zip, expandDir, stopFlag));
                     } else {
-                        visitor.visitFile(new DetailsImpl(entry, zip, stopFlag));
+                        visitor.visitFile(new DetailsImpl(entry, directory, zip, expandDir, stopFlag));
                     }
                 }
             } finally {
@@ -99,20 +110,53 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         }
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
-        private final ZipEntry entry;
-        private final ZipFile zip;
+    /**
+     * Visits the entries using a {@link ZipFile}, for archives whose central directory cannot be read by {@link ZipCentralDirectory}, such as ZIP64
+     * archives. The entries are always extracted again, as the content hash of the archive is not known. The Unix permissions of the entries are not
+     * available, so the default permissions are used.
+     */
+    private void visitUsingZipFile(FileVisitor visitor, AtomicBoolean stopFlag) throws IOException {
+        File expandDir = expansionDir.getDir(null);
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
+            // to us. So, collect the entries in a map and iterate over them in alphabetical order.
+            Map<String, ZipEntry> entriesByName = new TreeMap<String, ZipEntry>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                entriesByName.put(entry.getName(), entry);
+            }
+            Iterator<ZipEntry> sortedEntries = entriesByName.values().iterator();
+            while (!stopFlag.get() && sortedEntries.hasNext()) {
+                ZipEntry entry = sortedEntries.next();
+                if (entry.isDirectory()) {
+                    visitor.visitDir(new ZipFileDetailsImpl(entry, zip, expandDir, stopFlag));
+                } else {
+                    visitor.visitFile(new ZipFileDetailsImpl(entry, zip, expandDir, stopFlag));
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    private abstract class AbstractDetails extends AbstractFileTreeElement implements ArchiveEntryDetails {
+        private final File expandDir;
         private final AtomicBoolean stopFlag;
         private File file;
 
-        public DetailsImpl(ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag) {
-            this.entry = entry;
-            this.zip = zip;
+        protected AbstractDetails(File expandDir, AtomicBoolean stopFlag) {
+            this.expandDir = expandDir;
             this.stopFlag = stopFlag;
         }
 
+        protected abstract String getEntryName();
+
+        protected abstract int getUnixMode();
+
         public String getDisplayName() {
-            return String.format("zip entry %s!%s", zipFile, entry.getName());
+            return String.format("zip entry %s!%s", zipFile, getEntryName());
         }
 
         public void stopVisiting() {
@@ -121,14 +165,55 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         public File getFile() {
             if (file == null) {
-                file = new File(tmpDir, entry.getName());
-                copyTo(file);
+                file = expansionDir.extract(expandDir, this);
             }
             return file;
         }
 
+        public File getExtractedFile() {
+            return expansionDir.getLocation(expandDir, this);
+        }
+
+        public RelativePath getRelativePath() {
+            return new RelativePath(!isDirectory(), getEntryName().split("/"));
+        }
+
+        public int getMode() {
+            int unixMode = getUnixMode() & 0777;
+            if(unixMode == 0){
+                //no mode infos available - fall back to defaults
+                if(isDirectory()){
+                    unixMode = FileSystem.DEFAULT_DIR_MODE;
+                }else{
+                    unixMode = FileSystem.DEFAULT_FILE_MODE;
+                }
+            }
+            return unixMode;
+        }
+    }
+
+    private class DetailsImpl extends AbstractDetails {
+        private final ZipCentralDirectory.Entry entry;
+        private final ZipCentralDirectory directory;
+        private final RandomAccessFile zip;
+
+        public DetailsImpl(ZipCentralDirectory.Entry entry, ZipCentralDirectory directory, RandomAccessFile zip, File expandDir, AtomicBoolean stopFlag) {
+            super(expandDir, stopFlag);
+            this.entry = entry;
+            this.directory = directory;
+            this.zip = zip;
+        }
+
+        protected String getEntryName() {
+            return entry.getName();
+        }
+
+        protected int getUnixMode() {
+            return entry.getUnixMode();
+        }
+
         public long getLastModified() {
-            return entry.getTime();
+            return entry.getLastModified();
         }
 
         public boolean isDirectory() {
@@ -141,27 +226,49 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         public InputStream open()  {
             try {
-                return zip.getInputStream(entry);
+                return directory.open(zip, entry);
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
         }
+    }
 
-        public RelativePath getRelativePath() {
-            return new RelativePath(!entry.isDirectory(), entry.getName().split("/"));
+    private class ZipFileDetailsImpl extends AbstractDetails {
+        private final ZipEntry entry;
+        private final ZipFile zip;
+
+        public ZipFileDetailsImpl(ZipEntry entry, ZipFile zip, File expandDir, AtomicBoolean stopFlag) {
+            super(expandDir, stopFlag);
+            this.entry = entry;
+            this.zip = zip;
         }
 
-        public int getMode() {
-            int unixMode = entry.getUnixMode() & 0777;
-            if(unixMode == 0){
-                //no mode infos available - fall back to defaults
-                if(isDirectory()){
-                    unixMode = FileSystem.DEFAULT_DIR_MODE;
-                }else{
-                    unixMode = FileSystem.DEFAULT_FILE_MODE;
-                }
+        protected String getEntryName() {
+            return entry.getName();
+        }
+
+        protected int getUnixMode() {
+            return 0;
+        }
+
+        public long getLastModified() {
+            return entry.getTime();
+        }
+
+        public boolean isDirectory() {
+            return entry.isDirectory();
+        }
+
+        public long getSize() {
+            return entry.getSize();
+        }
+
+        public InputStream open()  {
+            try {
+                return zip.getInputStream(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            return unixMode;
         }
     }
 }
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import static org.gradle.api.internal.file.archive.ZipCentralDirectory.*;
+
+/**
+ * Writes a ZIP file, where each entry is either compressed from its content or copied as-is from another ZIP file, without inflating and deflating it
+ * again. Produces the same entry layout as {@link org.apache.tools.zip.ZipOutputStream} when writing to a file.
+ */
+public class ZipRawEntryWriter {
+    static final int PLATFORM_UNIX = 3;
+    private static final int VERSION_MADE_BY = (PLATFORM_UNIX << 8) | 20;
+    private static final int VERSION_NEEDED = 10;
+    private static final long DOSTIME_BEFORE_1980 = (1 << 21) | (1 << 16);
+    private static final int BUFFER_SIZE = 8192;
+
+    private final RandomAccessFile output;
+    private final int method;
+    private final Charset charset;
+    private final int flags;
+    private final List<CentralEntry> entries = new ArrayList<CentralEntry>();
+    private final CRC32 crc = new CRC32();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final EntryOutputStream entryOutputStream = new EntryOutputStream();
+    private CentralEntry current;
+
+    /**
+     * @param destination The file to write to.
+     * @param method The compression method to use for new entries, either {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+     * @param charset The charset to use to encode entry names.
+     */
+    public ZipRawEntryWriter(File destination, int method, Charset charset) throws IOException {
+        this.method = method;
+        this.charset = charset;
+        this.flags = charset.name().equals("UTF-8") ? UTF8_FLAG : 0;
+        output = new RandomAccessFile(destination, "rw");
+        output.setLength(0);
+    }
+
+    /**
+     * Starts a new entry, compressing its content. The content should be written to the returned stream, and the entry completed using {@link #closeEntry()}.
+     *
+     * @param name The name of the entry. Directory names end with a '/'.
+     * @param lastModified The last modified time of the entry, in milliseconds since the epoch.
+     * @param unixMode The Unix mode of the entry, including the file type flags.
+     */
+    public OutputStream putNextEntry(String name, long lastModified, int unixMode) throws IOException {
+        current = new CentralEntry(name.getBytes(charset), flags, method, toDosTime(lastModified), toExternalAttributes(name, unixMode), output.getFilePointer());
+        writeLocalFileHeader(current);
+        crc.reset();
+        deflater.reset();
+        return entryOutputStream;
+    }
+
+    /**
+     * Completes the current entry.
+     */
+    public void closeEntry() throws IOException {
+        if (method == ZipEntry.DEFLATED) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+        } else {
+            current.compressedSize = current.size;
+        }
+        current.crc = crc.getValue();
+
+        long end = output.getFilePointer();
+        output.seek(current.localHeaderOffset + 14);
+        byte[] sizes = new byte[12];
+        writeInt(sizes, 0, current.crc);
+        writeInt(sizes, 4, current.compressedSize);
+        writeInt(sizes, 8, current.size);
+        output.write(sizes);
+        output.seek(end);
+
+        entries.add(current);
+        current = null;
+    }
+
+    /**
+     * Copies the given entry from the given ZIP file, without inflating it. The entry keeps its name, compression method, time and attributes.
+     *
+     * @param source The ZIP file to copy from, whose central directory contains the entry.
+     * @param entry The entry to copy.
+     */
+    public void copyEntry(RandomAccessFile source, ZipCentralDirectory.Entry entry) throws IOException {
+        byte[] header = new byte[LOCAL_FILE_HEADER_LENGTH];
+        source.seek(entry.getLocalHeaderOffset());
+        source.readFully(header);
+        if (ZipCentralDirectory.readInt(header, 0) != LOCAL_FILE_HEADER_SIG) {
+            throw new IOException(String.format("Corrupt local header for ZIP entry '%s'.", entry.getName()));
+        }
+        long dataOffset = entry.getLocalHeaderOffset() + LOCAL_FILE_HEADER_LENGTH + ZipCentralDirectory.readShort(header, 26) + ZipCentralDirectory.readShort(header, 28);
+
+        // Sizes and CRC are always written to the local header, so the data descriptor flag is dropped
+        CentralEntry copy = new CentralEntry(entry.getName().getBytes(charset), flags, entry.getMethod(), entry.getDosTime(), entry.getExternalAttributes(), output.getFilePointer());
+        copy.crc = entry.getCrc();
+        copy.compressedSize = entry.getCompressedSize();
+        copy.size = entry.getSize();
+        writeLocalFileHeader(copy);
+
+        source.seek(dataOffset);
+        long remaining = entry.getCompressedSize();
+        while (remaining > 0) {
+            int count = source.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (count < 0) {
+                throw new IOException(String.format("Unexpected end of data for ZIP entry '%s'.", entry.getName()));
+            }
+            output.write(buffer, 0, count);
+            remaining -= count;
+        }
+        entries.add(copy);
+    }
+
+    /**
+     * Writes the central directory and closes the file.
+     */
+    public void close() throws IOException {
+        try {
+            long centralDirectoryOffset = output.getFilePointer();
+            for (CentralEntry entry : entries) {
+                writeCentralFileHeader(entry);
+            }
+            long centralDirectoryLength = output.getFilePointer() - centralDirectoryOffset;
+            byte[] end = new byte[END_OF_CENTRAL_DIRECTORY_LENGTH];
+            writeInt(end, 0, END_OF_CENTRAL_DIRECTORY_SIG);
+            writeShort(end, 8, entries.size());
+            writeShort(end, 10, entries.size());
+            writeInt(end, 12, centralDirectoryLength);
+            writeInt(end, 16, centralDirectoryOffset);
+            output.write(end);
+        } finally {
+            deflater.end();
+            output.close();
+        }
+    }
+
+    private void deflate() throws IOException {
+        int count = deflater.deflate(buffer, 0, buffer.length);
+        if (count > 0) {
+            output.write(buffer, 0, count);
+            current.compressedSize += count;
+        }
+    }
+
+    private void writeLocalFileHeader(CentralEntry entry) throws IOException {
+        byte[] header = new byte[LOCAL_FILE_HEADER_LENGTH + entry.name.length];
+        writeInt(header, 0, LOCAL_FILE_HEADER_SIG);
+        writeShort(header, 4, VERSION_NEEDED);
+        writeShort(header, 6, entry.flags);
+        writeShort(header, 8, entry.method);
+        writeInt(header, 10, entry.dosTime);
+        writeInt(header, 14, entry.crc);
+        writeInt(header, 18, entry.compressedSize);
+        writeInt(header, 22, entry.size);
+        writeShort(header, 26, entry.name.length);
+        System.arraycopy(entry.name, 0, header, LOCAL_FILE_HEADER_LENGTH, entry.name.length);
+        output.write(header);
+    }
+
+    private void writeCentralFileHeader(CentralEntry entry) throws IOException {
+        byte[] header = new byte[CENTRAL_FILE_HEADER_LENGTH + entry.name.length];
+        writeInt(header, 0, CENTRAL_FILE_HEADER_SIG);
+        writeShort(header, 4, VERSION_MADE_BY);
+        writeShort(header, 6, VERSION_NEEDED);
+        writeShort(header, 8, entry.flags);
+        writeShort(header, 10, entry.method);
+        writeInt(header, 12, entry.dosTime);
+        writeInt(header, 16, entry.crc);
+        writeInt(header, 20, entry.compressedSize);
+        writeInt(header, 24, entry.size);
+        writeShort(header, 28, entry.name.length);
+        writeInt(header, 38, entry.externalAttributes);
+        writeInt(header, 42, entry.localHeaderOffset);
+        System.arraycopy(entry.name, 0, header, CENTRAL_FILE_HEADER_LENGTH, entry.name.length);
+        output.write(header);
+    }
+
+    /**
+     * Calculates the external attributes for an entry, in the same way as {@link org.apache.tools.zip.ZipEntry#setUnixMode(int)}.
+     */
+    static long toExternalAttributes(String name, int unixMode) {
+        return ((long) unixMode << 16) | ((unixMode & 0200) == 0 ? 1 : 0) | (name.endsWith("/") ? 0x10 : 0);
+    }
+
+    /**
+     * Converts a Java time to a MS-DOS time, in the same way as {@link org.apache.tools.zip.ZipUtil#toDosTime(long)}.
+     */
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return DOSTIME_BEFORE_1980;
+        }
+        return ((long) (year - 1980) << 25)
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static void writeShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, long value) {
+        writeShort(buffer, offset, (int) (value & 0xffff));
+        writeShort(buffer, offset + 2, (int) ((value >> 16) & 0xffff));
+    }
+
+    private static class CentralEntry {
+        final byte[] name;
+        final int flags;
+        final int method;
+        final long dosTime;
+        final long externalAttributes;
+        final long localHeaderOffset;
+        long crc;
+        long compressedSize;
+        long size;
+
+        CentralEntry(byte[] name, int flags, int method, long dosTime, long externalAttributes, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.externalAttributes = externalAttributes;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    private class EntryOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            current.size += len;
+            if (method == ZipEntry.DEFLATED) {
+                deflater.setInput(b, off, len);
+                while (!deflater.needsInput()) {
+                    deflate();
+                }
+            } else {
+                output.write(b, off, len);
+            }
+        }
+    }
+}
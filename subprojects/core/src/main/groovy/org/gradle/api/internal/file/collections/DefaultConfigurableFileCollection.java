@@ -19,30 +19,47 @@ package org.gradle.api.internal.file.collections;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.internal.file.CompositeFileCollection;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.MemoizableFileCollection;
 import org.gradle.api.internal.tasks.DefaultTaskDependency;
 import org.gradle.api.internal.tasks.TaskResolver;
 import org.gradle.util.GUtil;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.io.File;
+import java.net.URI;
+import java.util.*;
 
 /**
  * A {@link org.gradle.api.file.FileCollection} which resolves a set of paths relative to a {@link org.gradle.api.internal.file.FileResolver}.
+ *
+ * <p>When each of the source paths is fixed, that is, a {@link File}, {@link String} or {@link URI}, or a {@link MemoizableFileCollection} whose
+ * content is final, the resolved files are memoized, and reused for as long as the source paths do not change.</p>
  */
 public class DefaultConfigurableFileCollection extends CompositeFileCollection implements ConfigurableFileCollection {
     private final Set<Object> files;
     private final String displayName;
     private final FileResolver resolver;
     private final DefaultTaskDependency buildDependency;
+    private final FileCollectionResolveStatistics statistics;
+    // the source paths and files are replaced together, so that a thread never sees the files of other source paths
+    private volatile MemoizedFiles memoized;
+    private volatile boolean resolved;
 
     public DefaultConfigurableFileCollection(FileResolver fileResolver, TaskResolver taskResolver, Object... files) {
         this("file collection", fileResolver, taskResolver, files);
     }
 
     public DefaultConfigurableFileCollection(String displayName, FileResolver fileResolver, TaskResolver taskResolver, Object... files) {
+        this(displayName, fileResolver, taskResolver, null, files);
+    }
+
+    /**
+     * @param statistics The statistics to record the resolution of this collection in. May be null.
+     */
+    public DefaultConfigurableFileCollection(String displayName, FileResolver fileResolver, TaskResolver taskResolver,
+                                             FileCollectionResolveStatistics statistics, Object... files) {
         this.displayName = displayName;
         this.resolver = fileResolver;
+        this.statistics = statistics;
         this.files = new LinkedHashSet<Object>(Arrays.asList(files));
         buildDependency = new DefaultTaskDependency(taskResolver);
     }
@@ -84,6 +101,41 @@ public class DefaultConfigurableFileCollection extends CompositeFileCollection i
         return this;
     }
 
+    @Override
+    public Set<File> getFiles() {
+        List<Object> from = new ArrayList<Object>(files);
+        MemoizedFiles memoized = this.memoized;
+        if (memoized != null && from.equals(memoized.from)) {
+            if (statistics != null) {
+                statistics.memoized();
+            }
+            return new LinkedHashSet<File>(memoized.files);
+        }
+
+        long start = System.nanoTime();
+        Set<File> result = super.getFiles();
+        if (statistics != null) {
+            statistics.resolved(resolved, System.nanoTime() - start);
+        }
+        resolved = true;
+
+        this.memoized = isFixed(from) ? new MemoizedFiles(from, result) : null;
+        return result;
+    }
+
+    private static boolean isFixed(Collection<?> from) {
+        for (Object element : from) {
+            if (element instanceof MemoizableFileCollection) {
+                if (!((MemoizableFileCollection) element).isContentFinal()) {
+                    return false;
+                }
+            } else if (!(element instanceof File || element instanceof String || element instanceof URI)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void resolve(FileCollectionResolveContext context) {
         FileCollectionResolveContext nested = context.push(resolver);
@@ -92,4 +144,14 @@ public class DefaultConfigurableFileCollection extends CompositeFileCollection i
         }
         nested.add(files);
     }
+
+    private static class MemoizedFiles {
+        private final List<Object> from;
+        private final Set<File> files;
+
+        private MemoizedFiles(List<Object> from, Set<File> files) {
+            this.from = from;
+            this.files = new LinkedHashSet<File>(files);
+        }
+    }
 }
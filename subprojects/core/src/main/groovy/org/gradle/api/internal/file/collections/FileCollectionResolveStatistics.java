@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.collections;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often file collections are resolved, how often the same collection is resolved again, and how long that takes. The counts are reset
+ * at the end of each build.
+ */
+public class FileCollectionResolveStatistics {
+    private final AtomicLong resolveCount = new AtomicLong();
+    private final AtomicLong repeatedResolveCount = new AtomicLong();
+    private final AtomicLong repeatedResolveNanos = new AtomicLong();
+    private final AtomicLong memoizedCount = new AtomicLong();
+
+    /**
+     * Records that a collection has been resolved.
+     *
+     * @param repeated true if the same collection has been resolved before.
+     * @param nanos The time taken to resolve the collection.
+     */
+    public void resolved(boolean repeated, long nanos) {
+        resolveCount.incrementAndGet();
+        if (repeated) {
+            repeatedResolveCount.incrementAndGet();
+            repeatedResolveNanos.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * Records that the memoized files of a collection have been used instead of resolving it again.
+     */
+    public void memoized() {
+        memoizedCount.incrementAndGet();
+    }
+
+    public long getResolveCount() {
+        return resolveCount.get();
+    }
+
+    public long getRepeatedResolveCount() {
+        return repeatedResolveCount.get();
+    }
+
+    public long getRepeatedResolveNanos() {
+        return repeatedResolveNanos.get();
+    }
+
+    public long getMemoizedCount() {
+        return memoizedCount.get();
+    }
+
+    public void reset() {
+        resolveCount.set(0);
+        repeatedResolveCount.set(0);
+        repeatedResolveNanos.set(0);
+        memoizedCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("File collections: %d resolved, %d resolved again (%d ms), %d served from memoized files.",
+                getResolveCount(), getRepeatedResolveCount(), TimeUnit.NANOSECONDS.toMillis(getRepeatedResolveNanos()), getMemoizedCount());
+    }
+}
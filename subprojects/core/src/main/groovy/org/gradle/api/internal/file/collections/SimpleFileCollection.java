@@ -15,11 +15,13 @@
  */
 package org.gradle.api.internal.file.collections;
 
+import org.gradle.api.internal.file.MemoizableFileCollection;
+
 import java.io.File;
 import java.io.Serializable;
 import java.util.Collection;
 
-public class SimpleFileCollection extends FileCollectionAdapter implements Serializable {
+public class SimpleFileCollection extends FileCollectionAdapter implements MemoizableFileCollection, Serializable {
     public SimpleFileCollection(File... files) {
         super(new ListBackedFileSet(files));
     }
@@ -27,4 +29,8 @@ public class SimpleFileCollection extends FileCollectionAdapter implements Seria
     public SimpleFileCollection(Collection<File> files) {
         super(new ListBackedFileSet(files));
     }
+
+    public boolean isContentFinal() {
+        return true;
+    }
 }
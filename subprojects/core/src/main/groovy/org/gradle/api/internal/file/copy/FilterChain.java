@@ -18,6 +18,7 @@ package org.gradle.api.internal.file.copy;
 import groovy.lang.Closure;
 import groovy.text.SimpleTemplateEngine;
 import groovy.text.Template;
+import org.apache.tools.ant.filters.ReplaceTokens;
 import org.apache.tools.ant.util.ReaderInputStream;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Transformer;
@@ -27,6 +28,7 @@ import org.gradle.util.ConfigureUtil;
 
 import java.io.*;
 import java.lang.reflect.Constructor;
+import java.util.HashMap;
 import java.util.Map;
 
 public class FilterChain implements Transformer<InputStream, InputStream> {
@@ -55,21 +57,84 @@ public class FilterChain implements Transformer<InputStream, InputStream> {
     }
 
     public void add(final Class<? extends FilterReader> filterType, final Map<String, ?> properties) {
+        if (filterType == ReplaceTokens.class && addTokenReplacement(properties)) {
+            return;
+        }
         transformers.add(new Transformer<Reader, Reader>() {
             public Reader transform(Reader original) {
-                try {
-                    Constructor<? extends FilterReader> constructor = filterType.getConstructor(Reader.class);
-                    FilterReader result = constructor.newInstance(original);
+                return createFilter(filterType, properties, original);
+            }
+        });
+    }
+
+    private static FilterReader createFilter(Class<? extends FilterReader> filterType, Map<String, ?> properties, Reader original) {
+        try {
+            Constructor<? extends FilterReader> constructor = filterType.getConstructor(Reader.class);
+            FilterReader result = constructor.newInstance(original);
 
-                    if (properties != null) {
-                        ConfigureUtil.configureByMap(properties, result);
+            if (properties != null) {
+                ConfigureUtil.configureByMap(properties, result);
+            }
+            return result;
+        } catch (Throwable th) {
+            throw new InvalidUserDataException("Error - Invalid filter specification for " + filterType.getName(), th);
+        }
+    }
+
+    /**
+     * Replaces a {@link ReplaceTokens} filter with a {@link TokenReplacingReader}, which produces the same output without reading the source one
+     * character at a time. Only done when the filter is configured with nothing but String tokens and single character delimiters.
+     */
+    private boolean addTokenReplacement(final Map<String, ?> properties) {
+        final Map<String, String> tokens = new HashMap<String, String>();
+        char beginToken = '@';
+        char endToken = '@';
+        if (properties != null) {
+            for (Map.Entry<String, ?> entry : properties.entrySet()) {
+                String name = entry.getKey();
+                Object value = entry.getValue();
+                if (name.equals("tokens") && value instanceof Map) {
+                    for (Map.Entry<?, ?> token : ((Map<?, ?>) value).entrySet()) {
+                        if (!(token.getKey() instanceof String) || !(token.getValue() instanceof String)) {
+                            return false;
+                        }
+                        tokens.put((String) token.getKey(), (String) token.getValue());
                     }
-                    return result;
-                } catch (Throwable th) {
-                    throw new InvalidUserDataException("Error - Invalid filter specification for " + filterType.getName(), th);
+                } else if (name.equals("beginToken") && toChar(value) != null) {
+                    beginToken = toChar(value);
+                } else if (name.equals("endToken") && toChar(value) != null) {
+                    endToken = toChar(value);
+                } else {
+                    return false;
                 }
             }
+        }
+
+        final char begin = beginToken;
+        final char end = endToken;
+        transformers.add(new Transformer<Reader, Reader>() {
+            private boolean validated;
+
+            public Reader transform(Reader original) {
+                if (!validated) {
+                    // Configure a real filter once, so that an invalid specification fails in the same way
+                    createFilter(ReplaceTokens.class, properties, new StringReader(""));
+                    validated = true;
+                }
+                return new TokenReplacingReader(original, tokens, begin, end);
+            }
         });
+        return true;
+    }
+
+    private static Character toChar(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        if (value instanceof String && ((String) value).length() == 1) {
+            return ((String) value).charAt(0);
+        }
+        return null;
     }
 
     public void add(final Closure closure) {
@@ -19,16 +19,23 @@ import groovy.lang.Closure;
 
 import org.gradle.internal.SystemProperties;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.CharBuffer;
 
+/**
+ * Passes each line of the source through a closure. The source is read in blocks into a {@link CharBuffer}, and transformed lines are copied to the
+ * caller in bulk, so that only the line passed to the closure and the transformed line are allocated for each line.
+ */
 public class LineFilter extends Reader {
+    private static final int BUFFER_SIZE = 8192;
     private final Closure closure;
+    private final CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+    private final String lineSeparator = SystemProperties.getLineSeparator();
+    private final Reader in;
+    private boolean endOfInput;
     private String transformedLine;
     private int transformedIndex;
-    private final BufferedReader bufferedIn;
-    private final Reader in;
 
     /**
      * Creates a new filtered reader.
@@ -38,50 +45,97 @@ public class LineFilter extends Reader {
      */
     public LineFilter(Reader in, Closure closure) {
         this.in = in;
-        this.bufferedIn = new BufferedReader(in);
         this.closure = closure;
+        buffer.flip();
+    }
+
+    /**
+     * Reads more of the source into the buffer, discarding the characters which have already been consumed.
+     *
+     * @return false when the end of the source has been reached.
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        buffer.compact();
+        try {
+            int count;
+            do {
+                count = in.read(buffer);
+            } while (count == 0);
+            if (count < 0) {
+                endOfInput = true;
+                return false;
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
     }
 
     private String getTransformedLine() throws IOException {
-        StringBuilder line = new StringBuilder();
+        StringBuilder partialLine = null;
+        String line = null;
         boolean eol = false;
-        int ch;
-        while (!eol && (ch = bufferedIn.read()) >= 0) {
-            if (ch == '\n') {
-                eol = true;
-            } else if (ch == '\r') {
-                eol = true;
-                bufferedIn.mark(1);
-                if (bufferedIn.read() != '\n') {
-                    bufferedIn.reset();
+        while (line == null) {
+            if (!buffer.hasRemaining() && !fill()) {
+                break;
+            }
+            char[] chars = buffer.array();
+            int start = buffer.position();
+            int end = start;
+            int limit = buffer.limit();
+            while (end < limit && chars[end] != '\n' && chars[end] != '\r') {
+                end++;
+            }
+            if (end == limit) {
+                // Line continues beyond the buffer
+                if (partialLine == null) {
+                    partialLine = new StringBuilder();
                 }
+                partialLine.append(chars, start, end - start);
+                buffer.position(end);
+                continue;
+            }
+            if (partialLine == null) {
+                line = new String(chars, start, end - start);
             } else {
-                line.append((char) ch);
+                line = partialLine.append(chars, start, end - start).toString();
+            }
+            eol = true;
+            buffer.position(end + 1);
+            if (chars[end] == '\r') {
+                if (!buffer.hasRemaining()) {
+                    fill();
+                }
+                if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+                    buffer.position(buffer.position() + 1);
+                }
             }
         }
-        if (line.length() == 0 && !eol) {
-            return null;
+        if (line == null) {
+            if (partialLine == null || partialLine.length() == 0) {
+                return null;
+            }
+            line = partialLine.toString();
         }
 
-        StringBuilder result = new StringBuilder();
-        result.append(closure.call(line.toString()).toString());
-        if (eol) {
-            result.append(SystemProperties.getLineSeparator());
-        }
-        return result.toString();
+        String transformed = closure.call(line).toString();
+        return eol ? transformed + lineSeparator : transformed;
     }
 
-    private void ensureData() throws IOException {
+    private boolean ensureData() throws IOException {
         if (transformedLine == null || transformedIndex >= transformedLine.length()) {
             transformedLine = getTransformedLine();
             transformedIndex = 0;
         }
+        return transformedLine != null && transformedLine.length() > 0;
     }
 
     @Override
     public int read() throws IOException {
-        ensureData();
-        if (transformedLine == null || transformedLine.length() == 0) {
+        if (!ensureData()) {
             return -1;
         }
         return transformedLine.charAt(transformedIndex++);
@@ -89,18 +143,14 @@ public class LineFilter extends Reader {
 
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-        for (int i = 0; i < len; i++) {
-            final int c = read();
-            if (c == -1) {
-                if (i == 0) {
-                    return -1;
-                } else {
-                    return i;
-                }
-            }
-            cbuf[off + i] = (char) c;
+        int count = 0;
+        while (count < len && ensureData()) {
+            int chunk = Math.min(len - count, transformedLine.length() - transformedIndex);
+            transformedLine.getChars(transformedIndex, transformedIndex + chunk, cbuf, off + count);
+            transformedIndex += chunk;
+            count += chunk;
         }
-        return len;
+        return count == 0 && len > 0 ? -1 : count;
     }
 
     public void close() throws IOException {
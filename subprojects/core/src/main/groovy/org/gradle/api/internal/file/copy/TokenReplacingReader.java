@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Map;
+
+/**
+ * Replaces tokens of the form {@code @name@} with their values, producing the same output as Ant's {@code ReplaceTokens} filter. The source is
+ * read in blocks into a {@link CharBuffer}, and text between tokens is copied to the caller in bulk.
+ *
+ * <p>As with {@code ReplaceTokens}, a begin token which does not start a known token is passed through, and scanning resumes at the character
+ * following it. Replacement values are not scanned for further tokens.</p>
+ */
+public class TokenReplacingReader extends Reader {
+    private static final int BUFFER_SIZE = 8192;
+    private final Reader in;
+    private final Map<String, String> tokens;
+    private final char beginToken;
+    private final char endToken;
+    private CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput;
+    private String replacement;
+    private int replacementIndex;
+
+    public TokenReplacingReader(Reader in, Map<String, String> tokens, char beginToken, char endToken) {
+        this.in = in;
+        this.tokens = tokens;
+        this.beginToken = beginToken;
+        this.endToken = endToken;
+        buffer.flip();
+    }
+
+    /**
+     * Reads more of the source into the buffer, discarding the characters which have already been consumed. Grows the buffer when it is full, so
+     * that a token can be longer than the buffer.
+     *
+     * @return false when the end of the source has been reached.
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            CharBuffer larger = CharBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        try {
+            int count;
+            do {
+                count = in.read(buffer);
+            } while (count == 0);
+            if (count < 0) {
+                endOfInput = true;
+                return false;
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] chars = new char[1];
+        return read(chars, 0, 1) < 0 ? -1 : chars[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int count = 0;
+        while (count < len) {
+            if (replacement != null) {
+                int chunk = Math.min(len - count, replacement.length() - replacementIndex);
+                replacement.getChars(replacementIndex, replacementIndex + chunk, cbuf, off + count);
+                replacementIndex += chunk;
+                count += chunk;
+                if (replacementIndex == replacement.length()) {
+                    replacement = null;
+                }
+                continue;
+            }
+            if (!buffer.hasRemaining() && !fill()) {
+                break;
+            }
+
+            char[] chars = buffer.array();
+            int start = buffer.position();
+            if (chars[start] != beginToken) {
+                int end = start + 1;
+                int limit = Math.min(buffer.limit(), start + len - count);
+                while (end < limit && chars[end] != beginToken) {
+                    end++;
+                }
+                buffer.get(cbuf, off + count, end - start);
+                count += end - start;
+                continue;
+            }
+
+            String value = replaceTokenAtPosition();
+            if (value == null) {
+                buffer.get();
+                cbuf[off + count] = beginToken;
+                count++;
+            } else if (value.length() > 0) {
+                replacement = value;
+                replacementIndex = 0;
+            }
+        }
+        return count == 0 && len > 0 ? -1 : count;
+    }
+
+    /**
+     * Attempts to replace the token which starts at the current position of the buffer. On success, skips the token and returns its value.
+     * Otherwise, returns null and leaves the buffer unchanged.
+     */
+    private String replaceTokenAtPosition() throws IOException {
+        int scanFrom = 1;
+        while (true) {
+            char[] chars = buffer.array();
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for (int i = start + scanFrom; i < limit; i++) {
+                if (chars[i] == endToken) {
+                    String value = tokens.get(new String(chars, start + 1, i - start - 1));
+                    if (value != null) {
+                        buffer.position(i + 1);
+                    }
+                    return value;
+                }
+            }
+            scanFrom = limit - start;
+            if (!fill()) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
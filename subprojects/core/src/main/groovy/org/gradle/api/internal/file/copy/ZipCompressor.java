@@ -23,4 +23,9 @@ import org.gradle.api.internal.file.archive.compression.ArchiveOutputStreamFacto
 public interface ZipCompressor extends ArchiveOutputStreamFactory {
 
     ZipOutputStream createArchiveOutputStream(File destination);
+
+    /**
+     * Returns the compression method used for the entries of the archive, either {@link ZipOutputStream#DEFLATED} or {@link ZipOutputStream#STORED}.
+     */
+    int getCompressedMethod();
 }
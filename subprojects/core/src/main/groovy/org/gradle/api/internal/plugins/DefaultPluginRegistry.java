@@ -76,7 +76,10 @@ public class DefaultPluginRegistry implements PluginRegistry {
             }
         }
 
-        Class<? extends Plugin> implClass = idMappings.get(pluginId);
+        Class<? extends Plugin> implClass;
+        synchronized (idMappings) {
+            implClass = idMappings.get(pluginId);
+        }
         if (implClass != null) {
             return implClass;
         }
@@ -106,7 +109,9 @@ public class DefaultPluginRegistry implements PluginRegistry {
                     resource), e);
         }
 
-        idMappings.put(pluginId, implClass);
+        synchronized (idMappings) {
+            idMappings.put(pluginId, implClass);
+        }
         return implClass;
     }
 }
\ No newline at end of file
@@ -22,11 +22,15 @@ import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.cache.internal.*;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.CachingScriptClassCompiler;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
+import org.gradle.initialization.GradleBuildEnvironment;
 import org.gradle.internal.Factory;
 import org.gradle.internal.nativeplatform.ProcessEnvironment;
 import org.gradle.internal.nativeplatform.services.NativeServices;
@@ -46,13 +50,25 @@ import org.gradle.util.DefaultClassLoaderFactory;
  * Contains the services shared by all builds in a given process.
  */
 public class GlobalServicesRegistry extends DefaultServiceRegistry {
+    private final boolean longLivingProcess;
+
     public GlobalServicesRegistry() {
         this(LoggingServiceRegistry.newProcessLogging());
     }
 
     public GlobalServicesRegistry(ServiceRegistry loggingServices) {
+        this(loggingServices, false);
+    }
+
+    public GlobalServicesRegistry(ServiceRegistry loggingServices, boolean longLivingProcess) {
         super(loggingServices);
+        this.longLivingProcess = longLivingProcess;
         add(NativeServices.getInstance());
+        add(new PluginServices(this) {
+            protected ServiceRegistry create(PluginServiceRegistry pluginServiceRegistry, ServiceRegistry services) {
+                return pluginServiceRegistry.createGlobalServices(services);
+            }
+        });
     }
 
     protected CommandLineConverter<StartParameter> createCommandLine2StartParameterConverter() {
@@ -110,4 +126,24 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
     protected FileLockManager createFileLockManager() {
         return new DefaultFileLockManager(new DefaultProcessMetaDataProvider(get(ProcessEnvironment.class)));
     }
+
+    protected CachingScriptClassCompiler.SharedClasses createSharedScriptClasses() {
+        return new CachingScriptClassCompiler.SharedClasses();
+    }
+
+    protected ZipCentralDirectoryCache createZipCentralDirectoryCache() {
+        return new ZipCentralDirectoryCache(Runtime.getRuntime().maxMemory() / 32);
+    }
+
+    protected FileCollectionResolveStatistics createFileCollectionResolveStatistics() {
+        return new FileCollectionResolveStatistics();
+    }
+
+    protected GradleBuildEnvironment createGradleBuildEnvironment() {
+        return new GradleBuildEnvironment() {
+            public boolean isLongLivingProcess() {
+                return longLivingProcess;
+            }
+        };
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.internal.service.ServiceRegistry;
+
+/**
+ * Contributes the services of the plugin modules. The implementation is located using the meta-data resource
+ * {@code META-INF/services/org.gradle.api.internal.project.PluginServiceRegistry} of the plugins ClassLoader.
+ */
+public interface PluginServiceRegistry {
+    /**
+     * Creates the services which are shared by all builds run by this process. Called once per process.
+     *
+     * @param globalServices The global services, which the returned services may use.
+     */
+    ServiceRegistry createGlobalServices(ServiceRegistry globalServices);
+
+    /**
+     * Creates the services for a single build. The returned services are closed when the build finishes.
+     *
+     * @param buildServices The build services, which the returned services may use.
+     */
+    ServiceRegistry createBuildServices(ServiceRegistry buildServices);
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.CompositeStoppable;
+import org.gradle.internal.Factory;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.service.AbstractServiceRegistry;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.service.ServiceLocator;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.service.UnknownServiceException;
+
+/**
+ * The services contributed by the plugin modules to a registry. The {@link PluginServiceRegistry} is located the first time a service is
+ * requested, so that the plugins ClassLoader is only created once it is needed. While the services are being created, no services are available
+ * from this registry, so that the services can be created using the registry this registry is added to.
+ */
+abstract class PluginServices extends AbstractServiceRegistry implements Stoppable {
+    private final ServiceRegistry services;
+    private ServiceRegistry pluginServices;
+    private boolean creating;
+
+    /**
+     * @param services The registry this registry is added to.
+     */
+    PluginServices(ServiceRegistry services) {
+        this.services = services;
+    }
+
+    protected <T> T doGet(Class<T> serviceType) {
+        return getPluginServices(serviceType).get(serviceType);
+    }
+
+    public <T> Factory<T> getFactory(Class<T> type) {
+        return getPluginServices(type).getFactory(type);
+    }
+
+    private synchronized ServiceRegistry getPluginServices(Class<?> type) {
+        if (creating) {
+            throw new UnknownServiceException(type, String.format("No service of type %s available in %s.", type.getSimpleName(), this));
+        }
+        if (pluginServices == null) {
+            creating = true;
+            try {
+                pluginServices = create(services);
+            } finally {
+                creating = false;
+            }
+        }
+        return pluginServices;
+    }
+
+    private ServiceRegistry create(ServiceRegistry services) {
+        ClassLoader pluginsClassLoader = services.get(ClassLoaderRegistry.class).getPluginsClassLoader();
+        ServiceLocator.ServiceFactory<PluginServiceRegistry> factory = new ServiceLocator(pluginsClassLoader).findFactory(PluginServiceRegistry.class);
+        if (factory == null) {
+            return new DefaultServiceRegistry();
+        }
+        return create(factory.create(), services);
+    }
+
+    protected abstract ServiceRegistry create(PluginServiceRegistry pluginServiceRegistry, ServiceRegistry services);
+
+    public void stop() {
+        ServiceRegistry pluginServices;
+        synchronized (this) {
+            pluginServices = this.pluginServices;
+            this.pluginServices = null;
+        }
+        CompositeStoppable.stoppable(pluginServices).stop();
+    }
+
+    @Override
+    public String toString() {
+        return "plugin services";
+    }
+}
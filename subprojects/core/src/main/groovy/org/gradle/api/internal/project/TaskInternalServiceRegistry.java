@@ -18,6 +18,7 @@ package org.gradle.api.internal.project;
 
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.tasks.DefaultTaskInputs;
 import org.gradle.api.internal.tasks.DefaultTaskOutputs;
 import org.gradle.api.internal.tasks.TaskStatusNagger;
@@ -40,11 +41,11 @@ public class TaskInternalServiceRegistry extends DefaultServiceRegistry implemen
     }
 
     protected TaskInputs createTaskInputs() {
-        return new DefaultTaskInputs(project.getFileResolver(), taskInternal, get(TaskStatusNagger.class));
+        return new DefaultTaskInputs(project.getFileResolver(), taskInternal, get(TaskStatusNagger.class), get(FileCollectionResolveStatistics.class));
     }
 
     protected TaskOutputsInternal createTaskOutputs() {
-        return new DefaultTaskOutputs(project.getFileResolver(), taskInternal, get(TaskStatusNagger.class));
+        return new DefaultTaskOutputs(project.getFileResolver(), taskInternal, get(TaskStatusNagger.class), get(FileCollectionResolveStatistics.class));
     }
 
     protected TaskStatusNagger createTaskStatusNagger() {
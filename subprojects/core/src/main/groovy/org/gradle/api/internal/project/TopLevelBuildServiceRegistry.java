@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.project;
 
+import org.gradle.CacheUsage;
 import org.gradle.StartParameter;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Module;
@@ -76,6 +77,11 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         super(parent);
         this.startParameter = startParameter;
         add(StartParameter.class, startParameter);
+        add(new PluginServices(this) {
+            protected ServiceRegistry create(PluginServiceRegistry pluginServiceRegistry, ServiceRegistry services) {
+                return pluginServiceRegistry.createBuildServices(services);
+            }
+        });
     }
 
     protected ImportsReader createImportsReader() {
@@ -133,6 +139,10 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                 startParameter.getCacheUsage(), factory);
     }
 
+    protected ClassGenerator createClassGenerator() {
+        return new AsmBackedClassGenerator(new GeneratedClassCache(get(CacheRepository.class)));
+    }
+
     protected ProjectEvaluator createProjectEvaluator() {
         return new LifecycleProjectEvaluator(
                 new BuildScriptProcessor(
@@ -146,23 +156,35 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                                 get(ClassGenerator.class))));
     }
 
-    protected ScriptCompilerFactory createScriptCompileFactory() {
-        ScriptExecutionListener scriptExecutionListener = get(ListenerManager.class).getBroadcaster(ScriptExecutionListener.class);
-        EmptyScriptGenerator emptyScriptGenerator = new AsmBackedEmptyScriptGenerator();
-        CacheValidator scriptCacheInvalidator = new CacheValidator() {
+    /**
+     * Cached script classes are not used when the scripts must be compiled again, or when the caches are to be rebuilt.
+     */
+    private CacheValidator getScriptCacheValidator() {
+        return new CacheValidator() {
             public boolean isValid() {
-                return !get(StartParameter.class).isRecompileScripts();
+                return !startParameter.isRecompileScripts() && startParameter.getCacheUsage() == CacheUsage.ON;
             }
         };
+    }
+
+    protected ScriptClassCompiler createScriptClassCompiler() {
+        EmptyScriptGenerator emptyScriptGenerator = new AsmBackedEmptyScriptGenerator();
+        return new ShortCircuitEmptyScriptCompiler(
+                new FileCacheBackedScriptClassCompiler(
+                        get(CacheRepository.class),
+                        getScriptCacheValidator(),
+                        new DefaultScriptCompilationHandler(
+                                emptyScriptGenerator)),
+                emptyScriptGenerator);
+    }
+
+    protected ScriptCompilerFactory createScriptCompileFactory() {
+        ScriptExecutionListener scriptExecutionListener = get(ListenerManager.class).getBroadcaster(ScriptExecutionListener.class);
         return new DefaultScriptCompilerFactory(
                 new CachingScriptClassCompiler(
-                        new ShortCircuitEmptyScriptCompiler(
-                                new FileCacheBackedScriptClassCompiler(
-                                        get(CacheRepository.class),
-                                        scriptCacheInvalidator,
-                                        new DefaultScriptCompilationHandler(
-                                                emptyScriptGenerator)),
-                                emptyScriptGenerator)),
+                        get(ScriptClassCompiler.class),
+                        get(CachingScriptClassCompiler.SharedClasses.class),
+                        getScriptCacheValidator()),
                 new DefaultScriptRunnerFactory(scriptExecutionListener));
     }
 
@@ -219,7 +241,14 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
 
     protected BuildConfigurer createBuildConfigurer() {
-        return new DefaultBuildConfigurer();
+        return new DefaultBuildConfigurer(
+                new BuildScriptPrecompiler(
+                        get(ScriptClassCompiler.class),
+                        get(ImportsReader.class),
+                        get(ExecutorFactory.class),
+                        Runtime.getRuntime().availableProcessors()),
+                new ParallelProjectConfigurer(
+                        get(ExecutorFactory.class)));
     }
 
     protected ProjectAccessListener createProjectAccessListener() {
@@ -21,6 +21,7 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.UnionFileCollection;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileCollection;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.tasks.TaskInputs;
 import org.gradle.internal.UncheckedException;
 
@@ -35,11 +36,11 @@ public class DefaultTaskInputs implements TaskInputs {
     private final TaskStatusNagger taskStatusNagger;
     private final Map<String, Object> properties = new HashMap<String, Object>();
 
-    public DefaultTaskInputs(FileResolver resolver, TaskInternal task, TaskStatusNagger taskStatusNagger) {
+    public DefaultTaskInputs(FileResolver resolver, TaskInternal task, TaskStatusNagger taskStatusNagger, FileCollectionResolveStatistics resolveStatistics) {
         this.resolver = resolver;
         this.taskStatusNagger = taskStatusNagger;
-        inputFiles = new DefaultConfigurableFileCollection(String.format("%s input files", task), resolver, null);
-        sourceFiles = new DefaultConfigurableFileCollection(String.format("%s source files", task), resolver, null);
+        inputFiles = new DefaultConfigurableFileCollection(String.format("%s input files", task), resolver, null, resolveStatistics);
+        sourceFiles = new DefaultConfigurableFileCollection(String.format("%s source files", task), resolver, null, resolveStatistics);
     }
 
     public boolean getHasInputs() {
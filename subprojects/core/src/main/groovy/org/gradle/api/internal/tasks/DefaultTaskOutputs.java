@@ -24,6 +24,7 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.TaskOutputsInternal;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileCollection;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.specs.AndSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskOutputs;
@@ -34,9 +35,9 @@ public class DefaultTaskOutputs implements TaskOutputsInternal {
     private TaskExecutionHistory history;
     private final TaskStatusNagger taskStatusNagger;
 
-    public DefaultTaskOutputs(FileResolver resolver, TaskInternal task, TaskStatusNagger taskStatusNagger) {
+    public DefaultTaskOutputs(FileResolver resolver, TaskInternal task, TaskStatusNagger taskStatusNagger, FileCollectionResolveStatistics resolveStatistics) {
         this.taskStatusNagger = taskStatusNagger;
-        outputFiles = new DefaultConfigurableFileCollection(String.format("%s output files", task), resolver, null);
+        outputFiles = new DefaultConfigurableFileCollection(String.format("%s output files", task), resolver, null, resolveStatistics);
         outputFiles.builtBy(task);
     }
 
@@ -87,6 +88,10 @@ public class DefaultTaskOutputs implements TaskOutputsInternal {
         return history.getOutputFiles();
     }
 
+    public TaskExecutionHistory getHistory() {
+        return history;
+    }
+
     public void setHistory(TaskExecutionHistory history) {
         this.history = history;
     }
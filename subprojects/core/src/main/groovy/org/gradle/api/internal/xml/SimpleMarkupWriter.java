@@ -157,17 +157,47 @@ public class SimpleMarkupWriter extends Writer {
     }
 
     private void writeCDATA(char[] cdata, int offset, int count) throws IOException {
+        // Write each run of characters which need no encoding with a single write
         int end = offset + count;
+        int runStart = offset;
         for (int i = offset; i < end; i++) {
-            writeCDATA(cdata[i]);
+            char ch = cdata[i];
+            if (isPlainCDATA(ch)) {
+                continue;
+            }
+            output.write(cdata, runStart, i - runStart);
+            writeCDATA(ch);
+            runStart = i + 1;
         }
+        output.write(cdata, runStart, end - runStart);
     }
 
     private void writeCDATA(CharSequence cdata) throws IOException {
-        int len = cdata.length();
+        String text = cdata.toString();
+        int len = text.length();
+        int runStart = 0;
         for (int i = 0; i < len; i++) {
-            writeCDATA(cdata.charAt(i));
+            char ch = text.charAt(i);
+            if (isPlainCDATA(ch)) {
+                continue;
+            }
+            output.write(text, runStart, i - runStart);
+            writeCDATA(ch);
+            runStart = i + 1;
+        }
+        output.write(text, runStart, len - runStart);
+    }
+
+    /**
+     * Returns true when the given character can be written to a CDATA node as is. Also resets the count of consecutive square brackets, as
+     * {@link #needsCDATAEscaping(char)} would do.
+     */
+    private boolean isPlainCDATA(char ch) {
+        if (ch == ']' || ch == '>' || !isLegalCharacter(ch) || isRestrictedCharacter(ch)) {
+            return false;
         }
+        squareBrackets = 0;
+        return true;
     }
 
     private void writeCDATA(char ch) throws IOException {
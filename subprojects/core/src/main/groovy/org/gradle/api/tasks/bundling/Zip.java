@@ -15,6 +15,8 @@
  */
 package org.gradle.api.tasks.bundling;
 
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopySpecVisitor;
@@ -36,6 +38,7 @@ public class Zip extends AbstractArchiveTask {
     public static final String ZIP_EXTENSION = "zip";
     private final ZipCopyActionImpl action;
     private ZipEntryCompression entryCompression = ZipEntryCompression.DEFLATED;
+    private boolean incremental;
 
     public Zip() {
         setExtension(ZIP_EXTENSION);
@@ -62,6 +65,27 @@ public class Zip extends AbstractArchiveTask {
         this.entryCompression = entryCompression;
     }
 
+    /**
+     * Returns whether this task updates an existing archive rather than rebuilding it. When set to {@code true}, the entries for the input files which
+     * have not changed since the archive was last built are copied from the existing archive as-is, and only the entries for new or changed files are
+     * compressed. The archive is rebuilt from scratch when anything other than the input files has changed. Defaults to {@code false}.
+     *
+     * @return true if the archive is updated incrementally.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets whether this task updates an existing archive rather than rebuilding it.
+     *
+     * @param incremental true to update the archive incrementally.
+     * @see #isIncremental()
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     protected ZipCopyActionImpl getCopyAction() {
         return action;
     }
@@ -88,5 +112,13 @@ public class Zip extends AbstractArchiveTask {
                     throw new IllegalArgumentException(String.format("Unknown Compression type %s", entryCompression));
             }
         }
+
+        public FileCollection getChangedInputFiles() {
+            if (!incremental) {
+                return null;
+            }
+            TaskExecutionHistory history = getOutputs().getHistory();
+            return history == null ? null : history.getChangedInputFiles();
+        }
     }
 }
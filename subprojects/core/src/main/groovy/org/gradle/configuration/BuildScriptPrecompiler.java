@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.initialization.dsl.ScriptHandler;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.groovy.scripts.CachingScriptSource;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.BuildScriptClasspathScriptTransformer;
+import org.gradle.groovy.scripts.internal.BuildScriptTransformer;
+import org.gradle.groovy.scripts.internal.ScriptClassCompiler;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Compiles the build scripts of the projects of a build on a thread pool, ahead of their evaluation, so that the scripts which are not yet in the
+ * script cache are compiled concurrently rather than one after another as each project is evaluated.
+ *
+ * <p>A script is only compiled ahead of its evaluation when the compiler would see the same classes as it does during evaluation. This is the case
+ * once the root project has been evaluated, for the scripts of the projects for which neither the project nor any of its ancestors below the root
+ * project declares a {@code buildscript} block, and which have no build script classpath. The scripts of other projects are compiled when they are
+ * evaluated, as before. Compilation failures are ignored here, and are reported when the project is evaluated.</p>
+ */
+public class BuildScriptPrecompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildScriptPrecompiler.class);
+    private static final String CLASSPATH_CLOSURE_NAME = "buildscript";
+    private final ScriptClassCompiler scriptClassCompiler;
+    private final ImportsReader importsReader;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public BuildScriptPrecompiler(ScriptClassCompiler scriptClassCompiler, ImportsReader importsReader, ExecutorFactory executorFactory, int maxThreads) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.importsReader = importsReader;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Compiles the build scripts of the child projects of the given root project, which must have been evaluated.
+     */
+    public void precompile(ProjectInternal rootProject) {
+        final ClassLoader classLoader = rootProject.getBuildscript().getClassLoader();
+        final Queue<ScriptSource> scripts = new ConcurrentLinkedQueue<ScriptSource>();
+        for (Project child : rootProject.getChildProjects().values()) {
+            collectScripts((ProjectInternal) child, scripts);
+        }
+        int threads = Math.min(maxThreads, scripts.size());
+        if (threads < 2) {
+            return;
+        }
+
+        LOGGER.debug("Compiling {} build scripts using {} threads.", scripts.size(), threads);
+        Clock clock = new Clock();
+        StoppableExecutor executor = executorFactory.create("build script compiler");
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        ScriptSource source;
+                        while ((source = scripts.poll()) != null) {
+                            compile(source, classLoader);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+        LOGGER.debug("Timing: Compiling build scripts ahead of evaluation took {}.", clock.getTime());
+    }
+
+    private void collectScripts(ProjectInternal project, Queue<ScriptSource> scripts) {
+        ScriptSource source = project.getBuildScriptSource();
+        String text = source.getResource().getText();
+        if (text != null && text.contains(CLASSPATH_CLOSURE_NAME)) {
+            // The script, and the scripts of the child projects, may be compiled with additional classes
+            return;
+        }
+        if (!hasEmptyClasspath(project)) {
+            return;
+        }
+        if (!project.getState().getExecuted() && !project.getState().getExecuting()) {
+            scripts.add(new CachingScriptSource(importsReader.withImports(source)));
+        }
+        for (Project child : project.getChildProjects().values()) {
+            collectScripts((ProjectInternal) child, scripts);
+        }
+    }
+
+    private boolean hasEmptyClasspath(ProjectInternal project) {
+        return project.getBuildscript().getConfigurations().getByName(ScriptHandler.CLASSPATH_CONFIGURATION).getDependencies().isEmpty();
+    }
+
+    private void compile(ScriptSource source, ClassLoader classLoader) {
+        try {
+            BuildScriptClasspathScriptTransformer classpathScriptTransformer = new BuildScriptClasspathScriptTransformer(CLASSPATH_CLOSURE_NAME);
+            scriptClassCompiler.compile(source, classLoader, classpathScriptTransformer, ProjectScript.class);
+            scriptClassCompiler.compile(source, classLoader, new BuildScriptTransformer(classpathScriptTransformer), ProjectScript.class);
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not compile %s ahead of evaluation.", source.getDisplayName()), e);
+        }
+    }
+}
@@ -15,12 +15,20 @@
  */
 package org.gradle.configuration;
 
+import org.gradle.StartParameter;
 import org.gradle.api.Action;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.util.SingleMessageLogger;
 
 public class DefaultBuildConfigurer implements BuildConfigurer {
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
+    private final ParallelProjectConfigurer parallelProjectConfigurer;
+
+    public DefaultBuildConfigurer(BuildScriptPrecompiler buildScriptPrecompiler, ParallelProjectConfigurer parallelProjectConfigurer) {
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
+        this.parallelProjectConfigurer = parallelProjectConfigurer;
+    }
 
     public void configure(GradleInternal gradle) {
         gradle.addProjectEvaluationListener(new ImplicitTasksConfigurer());
@@ -29,7 +37,16 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
             SingleMessageLogger.informAboutIncubating("Configuration on demand");
             gradle.getRootProject().evaluate();
         } else {
-            gradle.getRootProject().allprojects((Action) new ConfigureProject());
+            ProjectInternal rootProject = gradle.getRootProject();
+            rootProject.evaluate();
+            buildScriptPrecompiler.precompile(rootProject);
+            StartParameter startParameter = gradle.getStartParameter();
+            if (startParameter.isParallelConfiguration()) {
+                SingleMessageLogger.informAboutIncubating("Parallel configuration");
+                int threads = startParameter.getParallelThreadCount() > 0 ? startParameter.getParallelThreadCount() : Runtime.getRuntime().availableProcessors();
+                parallelProjectConfigurer.configure(rootProject, threads);
+            }
+            rootProject.allprojects((Action) new ConfigureProject());
         }
     }
 
@@ -15,37 +15,115 @@
  */
 package org.gradle.configuration;
 
+import org.gradle.api.CircularReferenceException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Manages lifecycle concerns while delegating actual evaluation to another evaluator
+ *
+ * <p>Projects may be evaluated by multiple threads. When a project is being evaluated by another thread, for example because it is the target of
+ * {@code evaluationDependsOn()}, the current thread waits until that evaluation has completed, including the after evaluate listeners. Waiting
+ * for a project whose evaluating thread is itself waiting, directly or indirectly, for a project being evaluated by the current thread is reported
+ * as a circular reference.</p>
  * 
  * @see org.gradle.api.internal.project.TopLevelBuildServiceRegistry#createProjectEvaluator()
  */
 public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private final ProjectEvaluator evaluator;
+    private final Object lock = new Object();
+    private final Map<ProjectStateInternal, Thread> evaluatingThreads = new HashMap<ProjectStateInternal, Thread>();
+    private final Map<Thread, ProjectStateInternal> waitingThreads = new HashMap<Thread, ProjectStateInternal>();
 
     public LifecycleProjectEvaluator(ProjectEvaluator evaluator) {
         this.evaluator = evaluator;
     }
 
     public void evaluate(ProjectInternal project, ProjectStateInternal state) {
-        //TODO this is one of the places to look into thread safety when we implement parallel configuration
-        if (state.getExecuted() || state.getExecuting()) {
+        if (!beginEvaluation(project, state)) {
             return;
         }
 
-        ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
-        listener.beforeEvaluate(project);
-        state.setExecuting(true);
         try {
-            evaluator.evaluate(project, state);
+            ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
+            listener.beforeEvaluate(project);
+            state.setExecuting(true);
+            try {
+                evaluator.evaluate(project, state);
+            } finally {
+                state.setExecuting(false);
+                state.executed();
+                listener.afterEvaluate(project, state);
+            }
         } finally {
-            state.setExecuting(false);
-            state.executed();
-            listener.afterEvaluate(project, state);
+            endEvaluation(state);
+        }
+    }
+
+    /**
+     * Claims the evaluation of the given project for the current thread, first waiting for any other thread which is evaluating the project.
+     *
+     * @return false when the project does not need to be evaluated by the current thread.
+     */
+    private boolean beginEvaluation(ProjectInternal project, ProjectStateInternal state) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            while (true) {
+                Thread evaluatingThread = evaluatingThreads.get(state);
+                if (evaluatingThread == currentThread) {
+                    return false;
+                }
+                if (evaluatingThread == null) {
+                    if (state.getExecuted() || state.getExecuting()) {
+                        return false;
+                    }
+                    evaluatingThreads.put(state, currentThread);
+                    return true;
+                }
+                if (isWaitingFor(evaluatingThread, currentThread)) {
+                    throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+                }
+                waitingThreads.put(currentThread, state);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } finally {
+                    waitingThreads.remove(currentThread);
+                }
+            }
+        }
+    }
+
+    private void endEvaluation(ProjectStateInternal state) {
+        synchronized (lock) {
+            evaluatingThreads.remove(state);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns true if the given thread is waiting, directly or indirectly, for a project which is being evaluated by the target thread.
+     */
+    private boolean isWaitingFor(Thread thread, Thread target) {
+        Thread current = thread;
+        while (true) {
+            ProjectStateInternal awaited = waitingThreads.get(current);
+            if (awaited == null) {
+                return false;
+            }
+            current = evaluatingThreads.get(awaited);
+            if (current == null) {
+                return false;
+            }
+            if (current == target) {
+                return true;
+            }
         }
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Evaluates the projects of a build on a thread pool. A project is only evaluated once its parent project has been evaluated, so that
+ * configuration which a parent project injects into its child projects is applied first, as it is when the projects are evaluated one after
+ * another. A project which calls {@code evaluationDependsOn()}, or which requests a task or a project dependency of another project, waits for
+ * that project to be evaluated.
+ *
+ * <p>Projects which configure other projects directly are not supported, as their evaluation would be concurrent with the evaluation of the
+ * projects they configure.</p>
+ */
+public class ParallelProjectConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelProjectConfigurer.class);
+    private final ExecutorFactory executorFactory;
+
+    public ParallelProjectConfigurer(ExecutorFactory executorFactory) {
+        this.executorFactory = executorFactory;
+    }
+
+    /**
+     * Evaluates the descendants of the given root project, which must have been evaluated. Stops scheduling projects on the first failure, and
+     * rethrows the failure of the first failed project in project order.
+     */
+    public void configure(ProjectInternal rootProject, int maxThreads) {
+        final Schedule schedule = new Schedule(rootProject);
+        Clock clock = new Clock();
+        StoppableExecutor executor = executorFactory.create("project configurer");
+        try {
+            for (int i = 0; i < maxThreads; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        ProjectInternal project;
+                        while ((project = schedule.next()) != null) {
+                            Clock clock = new Clock();
+                            Throwable failure = null;
+                            try {
+                                project.evaluate();
+                            } catch (Throwable t) {
+                                failure = t;
+                            }
+                            LOGGER.info("Configured {} in {}.", project, clock.getTime());
+                            schedule.finished(project, failure);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+        LOGGER.debug("Timing: Configuring projects using {} threads took {}.", maxThreads, clock.getTime());
+
+        for (Project project : rootProject.getAllprojects()) {
+            Throwable failure = schedule.getFailure(project);
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+    }
+
+    private static class Schedule {
+        private final LinkedList<ProjectInternal> ready = new LinkedList<ProjectInternal>();
+        private final Map<Project, Throwable> failures = new HashMap<Project, Throwable>();
+        private int running;
+
+        private Schedule(ProjectInternal rootProject) {
+            addChildren(rootProject);
+        }
+
+        synchronized ProjectInternal next() {
+            while (ready.isEmpty() && running > 0 && failures.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (ready.isEmpty() || !failures.isEmpty()) {
+                return null;
+            }
+            running++;
+            return ready.removeFirst();
+        }
+
+        synchronized void finished(ProjectInternal project, Throwable failure) {
+            running--;
+            if (failure != null) {
+                failures.put(project, failure);
+            } else {
+                addChildren(project);
+            }
+            notifyAll();
+        }
+
+        synchronized Throwable getFailure(Project project) {
+            return failures.get(project);
+        }
+
+        private void addChildren(ProjectInternal project) {
+            for (Project child : project.getChildProjects().values()) {
+                ready.add((ProjectInternal) child);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.internal.project.ProjectInternal;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * Evaluates the projects which the already evaluated projects of a build depend on, transitively. A project depends on the projects referenced by
+ * the project dependencies of its configurations. Projects referenced by {@code evaluationDependsOn()} are evaluated by the project itself, and are
+ * picked up here so that their own project dependencies are evaluated too.
+ */
+public class ProjectDependenciesEvaluator {
+
+    public void evaluateDependencies(ProjectInternal rootProject) {
+        Set<ProjectInternal> visited = new HashSet<ProjectInternal>();
+        LinkedList<ProjectInternal> queue = new LinkedList<ProjectInternal>();
+        while (true) {
+            for (Project project : rootProject.getAllprojects()) {
+                ProjectInternal projectInternal = (ProjectInternal) project;
+                if (projectInternal.getState().getExecuted() && visited.add(projectInternal)) {
+                    queue.add(projectInternal);
+                }
+            }
+            if (queue.isEmpty()) {
+                return;
+            }
+            while (!queue.isEmpty()) {
+                ProjectInternal project = queue.removeFirst();
+                for (Configuration configuration : project.getConfigurations()) {
+                    for (ProjectDependency dependency : configuration.getDependencies().withType(ProjectDependency.class)) {
+                        ProjectInternal dependencyProject = (ProjectInternal) dependency.getDependencyProject();
+                        dependencyProject.evaluate();
+                        if (visited.add(dependencyProject)) {
+                            queue.add(dependencyProject);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
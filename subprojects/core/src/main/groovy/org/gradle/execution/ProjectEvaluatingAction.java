@@ -22,20 +22,22 @@ import org.gradle.api.internal.project.ProjectInternal;
 import java.util.List;
 
 /**
- * Ensures that projects resolved from the command line task names are evaluated.
+ * Ensures that projects resolved from the command line task names are evaluated, along with the projects they depend on.
  *
  * by Szczepan Faber, created at: 11/22/12
  */
 public class ProjectEvaluatingAction implements BuildConfigurationAction {
 
     private final TaskPathProjectEvaluator evaluator;
+    private final ProjectDependenciesEvaluator dependenciesEvaluator;
 
     public ProjectEvaluatingAction() {
-        this(new TaskPathProjectEvaluator());
+        this(new TaskPathProjectEvaluator(), new ProjectDependenciesEvaluator());
     }
 
-    public ProjectEvaluatingAction(TaskPathProjectEvaluator evaluator) {
+    public ProjectEvaluatingAction(TaskPathProjectEvaluator evaluator, ProjectDependenciesEvaluator dependenciesEvaluator) {
         this.evaluator = evaluator;
+        this.dependenciesEvaluator = dependenciesEvaluator;
     }
 
     public void configure(BuildExecutionContext context) {
@@ -51,6 +53,7 @@ public class ProjectEvaluatingAction implements BuildConfigurationAction {
         for (String path : taskNames) {
             evaluator.evaluateByPath(project, path);
         }
+        dependenciesEvaluator.evaluateDependencies(context.getGradle().getRootProject());
         context.proceed();
     }
 }
\ No newline at end of file
@@ -26,6 +26,8 @@ import org.gradle.api.file.FileTree;
 import org.gradle.api.initialization.dsl.ScriptHandler;
 import org.gradle.api.internal.ProcessOperations;
 import org.gradle.api.internal.file.*;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.plugins.DefaultObjectConfigurationAction;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -58,10 +60,12 @@ public abstract class DefaultScript extends BasicScript {
             fileOperations = (FileOperations) target;
         } else if (getScriptSource().getResource().getFile() != null) {
             fileOperations = new DefaultFileOperations(
-                    new BaseDirFileResolver(FileSystems.getDefault(), getScriptSource().getResource().getFile().getParentFile()), null, null
+                    new BaseDirFileResolver(FileSystems.getDefault(), getScriptSource().getResource().getFile().getParentFile()), null, null,
+                    services.get(ZipCentralDirectoryCache.class), services.get(FileCollectionResolveStatistics.class)
             );
         } else {
-            fileOperations = new DefaultFileOperations(new IdentityFileResolver(), null, null);
+            fileOperations = new DefaultFileOperations(new IdentityFileResolver(), null, null, services.get(ZipCentralDirectoryCache.class),
+                    services.get(FileCollectionResolveStatistics.class));
         }
 
         processOperations = (ProcessOperations) fileOperations;
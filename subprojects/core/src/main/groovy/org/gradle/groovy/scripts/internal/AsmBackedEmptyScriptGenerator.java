@@ -29,12 +29,14 @@ public class AsmBackedEmptyScriptGenerator implements EmptyScriptGenerator {
     private static final Map<Class<?>, Class<?>> CACHED_CLASSES = new HashMap<Class<?>, Class<?>>();
 
     public <T extends Script> Class<? extends T> generate(Class<T> type) {
-        Class<?> subclass = CACHED_CLASSES.get(type);
-        if (subclass == null) {
-            subclass = generateEmptyScriptClass(type);
-            CACHED_CLASSES.put(type, subclass);
+        synchronized (CACHED_CLASSES) {
+            Class<?> subclass = CACHED_CLASSES.get(type);
+            if (subclass == null) {
+                subclass = generateEmptyScriptClass(type);
+                CACHED_CLASSES.put(type, subclass);
+            }
+            return subclass.asSubclass(type);
         }
-        return subclass.asSubclass(type);
     }
 
     private <T extends Script> Class<? extends T> generateEmptyScriptClass(Class<T> type) {
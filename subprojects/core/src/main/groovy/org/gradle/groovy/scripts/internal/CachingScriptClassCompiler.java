@@ -16,26 +16,74 @@
 package org.gradle.groovy.scripts.internal;
 
 import groovy.lang.Script;
+import org.gradle.cache.CacheValidator;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
+import org.gradle.util.hash.HashUtil;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
 
+/**
+ * A {@link ScriptClassCompiler} which caches the script classes for the current build in memory. Script classes are also shared with later builds
+ * run by the same process through {@link SharedClasses}, for as long as the script content and the parent class loader do not change. Shared classes
+ * are not used by a build for which the validator reports that cached classes cannot be used.
+ */
 public class CachingScriptClassCompiler implements ScriptClassCompiler {
     private final Map<Collection<Object>, Class<?>> cachedClasses = new HashMap<Collection<Object>, Class<?>>();
     private final ScriptClassCompiler scriptClassCompiler;
+    private final SharedClasses sharedClasses;
+    private final CacheValidator validator;
 
-    public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler) {
+    public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler, SharedClasses sharedClasses, CacheValidator validator) {
         this.scriptClassCompiler = scriptClassCompiler;
+        this.sharedClasses = sharedClasses;
+        this.validator = validator;
     }
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
         List<Object> key = Arrays.asList(source.getClassName(), classLoader, transformer.getId(), scriptBaseClass.getName());
-        Class<?> c = cachedClasses.get(key);
+        Class<?> c;
+        synchronized (cachedClasses) {
+            c = cachedClasses.get(key);
+        }
         if (c == null) {
-            c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
-            cachedClasses.put(key, c);
+            List<Object> sharedKey = Arrays.<Object>asList(source.getClassName(), HashUtil.createCompactMD5(source.getResource().getText()), transformer.getId(), scriptBaseClass.getName());
+            c = validator.isValid() ? sharedClasses.get(classLoader, sharedKey) : null;
+            if (c == null) {
+                c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
+                sharedClasses.put(classLoader, sharedKey, c);
+            }
+            synchronized (cachedClasses) {
+                cachedClasses.put(key, c);
+            }
         }
         return c.asSubclass(scriptBaseClass);
     }
+
+    /**
+     * The script classes shared by all builds run by the process, grouped by parent class loader. A script class refers to its parent class loader,
+     * so the classes are only softly referenced, to allow a class loader which is no longer used by any build to be collected.
+     */
+    public static class SharedClasses {
+        private final Map<ClassLoader, Map<List<Object>, SoftReference<Class<?>>>> classes = new WeakHashMap<ClassLoader, Map<List<Object>, SoftReference<Class<?>>>>();
+
+        synchronized Class<?> get(ClassLoader classLoader, List<Object> key) {
+            Map<List<Object>, SoftReference<Class<?>>> classesForLoader = classes.get(classLoader);
+            if (classesForLoader == null) {
+                return null;
+            }
+            SoftReference<Class<?>> reference = classesForLoader.get(key);
+            return reference == null ? null : reference.get();
+        }
+
+        synchronized void put(ClassLoader classLoader, List<Object> key, Class<?> c) {
+            Map<List<Object>, SoftReference<Class<?>>> classesForLoader = classes.get(classLoader);
+            if (classesForLoader == null) {
+                classesForLoader = new HashMap<List<Object>, SoftReference<Class<?>>>();
+                classes.put(classLoader, classesForLoader);
+            }
+            classesForLoader.put(key, new SoftReference<Class<?>>(c));
+        }
+    }
 }
@@ -16,25 +16,44 @@
 package org.gradle.groovy.scripts.internal;
 
 import groovy.lang.Script;
-import org.gradle.api.Action;
+import org.gradle.api.GradleException;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
+import org.gradle.internal.Factory;
+import org.gradle.util.GFileUtils;
 import org.gradle.util.hash.HashUtil;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
+ *
+ * <p>All scripts share a single cache store. The classes for a script are kept in a directory named after the hash of the script's identity and
+ * content, so a directory never changes once it has been published. This means that classes which are already in the cache are loaded without
+ * taking any lock. A script which is not in the cache is compiled into a temporary directory, and the cache lock is only held while the directory is
+ * moved into place.</p>
+ *
+ * <p>Published directories are never modified or removed, as other builds may be loading classes from them at the same time. When the scripts must
+ * be compiled again, the classes are published as a new generation of the directory, and the latest generation is used from then on. Directories
+ * of earlier versions and generations are left in place, to be removed along with the cache rather than while the cache is in use.</p>
+ *
+ * <p>A temporary directory is removed once its classes have been published, or when the compilation fails. Temporary directories left behind by a
+ * process which died are removed when the cache is opened, once they are old enough that no compilation can still be writing to them.</p>
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler {
+    private static final long STALE_TMP_DIR_AGE_MILLIS = 24 * 60 * 60 * 1000L;
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final CacheRepository cacheRepository;
     private final CacheValidator validator;
+    private final Set<String> recompiled = new HashSet<String>();
+    private PersistentCache cache;
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler) {
         this.cacheRepository = cacheRepository;
@@ -43,41 +62,115 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler {
     }
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
-        Map<String, Object> properties = new HashMap<String, Object>();
-        properties.put("source.filename", source.getFileName());
-        properties.put("source.hash", HashUtil.createCompactMD5(source.getResource().getText()));
-
-        String cacheName = String.format("scripts/%s/%s/%s", source.getClassName(), scriptBaseClass.getSimpleName(), transformer.getId());
-        PersistentCache cache = cacheRepository.cache(cacheName)
-                .withProperties(properties)
-                .withValidator(validator)
-                .withDisplayName(String.format("%s class cache for %s", transformer.getId(), source.getDisplayName()))
-                .withInitializer(new CacheInitializer(source, classLoader, transformer, scriptBaseClass)).open();
-
-        File classesDir = classesDir(cache);
+        String identity = String.format("%s/%s/%s", source.getClassName(), scriptBaseClass.getSimpleName(), transformer.getId());
+        String key = HashUtil.createCompactMD5(String.format("%s\n%s\n%s", identity, source.getFileName(), source.getResource().getText()));
+        PersistentCache cache = getCache();
+        File classesDir = findLatestClassesDir(cache.getBaseDir(), key);
+
+        if (classesDir == null || mustRecompile(key)) {
+            File tmpDir = new File(cache.getBaseDir(), String.format("%s-%s.tmp", key, UUID.randomUUID()));
+            try {
+                scriptCompilationHandler.compileToDir(source, classLoader, tmpDir, transformer, scriptBaseClass);
+                classesDir = cache.useCache(String.format("publish classes for %s", source.getDisplayName()), new PublishAction(source, key, tmpDir));
+            } finally {
+                // still there when the classes were not published
+                if (tmpDir.exists()) {
+                    GFileUtils.deleteQuietly(tmpDir);
+                }
+            }
+        }
         return scriptCompilationHandler.loadFromDir(source, classLoader, classesDir, scriptBaseClass);
     }
 
-    private File classesDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "classes");
+    private synchronized PersistentCache getCache() {
+        if (cache == null) {
+            cache = cacheRepository.store("scriptClasses")
+                    .withDisplayName("script class cache")
+                    .withLockMode(FileLockManager.LockMode.None)
+                    .open();
+            deleteStaleTmpDirs(cache.getBaseDir());
+        }
+        return cache;
+    }
+
+    private static void deleteStaleTmpDirs(File baseDir) {
+        File[] files = baseDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - STALE_TMP_DIR_AGE_MILLIS;
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp") && file.lastModified() < staleBefore) {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Scripts are compiled again, once per build, when the validator reports that the cached classes cannot be used.
+     */
+    private boolean mustRecompile(String key) {
+        if (validator.isValid()) {
+            return false;
+        }
+        synchronized (recompiled) {
+            return !recompiled.contains(key);
+        }
+    }
+
+    private static File getClassesDir(File baseDir, String key, int generation) {
+        return new File(baseDir, generation == 0 ? key : String.format("%s-%s", key, generation));
     }
 
-    private class CacheInitializer implements Action<PersistentCache> {
-        private final Class<? extends Script> scriptBaseClass;
-        private final ClassLoader classLoader;
-        private final Transformer transformer;
+    /**
+     * Returns the number of the latest generation of classes published for the given key, or -1 when none have been published.
+     */
+    private static int findLatestGeneration(File baseDir, String key) {
+        int generation = -1;
+        while (getClassesDir(baseDir, key, generation + 1).isDirectory()) {
+            generation++;
+        }
+        return generation;
+    }
+
+    private static File findLatestClassesDir(File baseDir, String key) {
+        int generation = findLatestGeneration(baseDir, key);
+        return generation < 0 ? null : getClassesDir(baseDir, key, generation);
+    }
+
+    /**
+     * Moves compiled classes into the cache. The classes are compiled without holding the cache lock, so that scripts can be compiled concurrently.
+     */
+    private class PublishAction implements Factory<File> {
         private final ScriptSource source;
+        private final String key;
+        private final File tmpDir;
 
-        private CacheInitializer(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<? extends Script> scriptBaseClass) {
+        private PublishAction(ScriptSource source, String key, File tmpDir) {
             this.source = source;
-            this.classLoader = classLoader;
-            this.transformer = transformer;
-            this.scriptBaseClass = scriptBaseClass;
+            this.key = key;
+            this.tmpDir = tmpDir;
         }
 
-        public void execute(PersistentCache cache) {
-            File classesDir = classesDir(cache);
-            scriptCompilationHandler.compileToDir(source, classLoader, classesDir, transformer, scriptBaseClass);
+        public File create() {
+            File baseDir = cache.getBaseDir();
+            int generation = findLatestGeneration(baseDir, key);
+            boolean recompile = mustRecompile(key);
+            if (generation >= 0 && !recompile) {
+                // Published by another thread or process in the meantime, the compiled classes are discarded
+                return getClassesDir(baseDir, key, generation);
+            }
+
+            File classesDir = getClassesDir(baseDir, key, generation + 1);
+            if (!tmpDir.renameTo(classesDir)) {
+                throw new GradleException(String.format("Could not move compiled classes for %s to %s.", source.getDisplayName(), classesDir));
+            }
+            if (recompile) {
+                synchronized (recompiled) {
+                    recompiled.add(key);
+                }
+            }
+            return classesDir;
         }
     }
 }
@@ -19,6 +19,8 @@ package org.gradle.initialization;
 import org.gradle.*;
 import org.gradle.api.internal.ExceptionAnalyser;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.project.GlobalServicesRegistry;
 import org.gradle.api.internal.project.TopLevelBuildServiceRegistry;
 import org.gradle.api.logging.Logging;
@@ -51,6 +53,13 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
     public DefaultGradleLauncherFactory(ServiceRegistry loggingServices) {
         this(new GlobalServicesRegistry(loggingServices));
     }
+
+    /**
+     * @param longLivingProcess Whether the process runs more than one build, such as a Gradle daemon.
+     */
+    public DefaultGradleLauncherFactory(ServiceRegistry loggingServices, boolean longLivingProcess) {
+        this(new GlobalServicesRegistry(loggingServices, longLivingProcess));
+    }
     
     public DefaultGradleLauncherFactory() {
         this(new GlobalServicesRegistry());
@@ -114,6 +123,8 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         listenerManager.useLogger(new TaskExecutionLogger(serviceRegistry.get(ProgressLoggerFactory.class)));
         if (tracker.getCurrentBuild() == null) {
             listenerManager.useLogger(new BuildLogger(Logging.getLogger(BuildLogger.class), serviceRegistry.get(StyledTextOutputFactory.class), startParameter, requestMetaData));
+            listenerManager.addListener(new CacheStatisticsReporter(serviceRegistry.get(ZipCentralDirectoryCache.class),
+                    serviceRegistry.get(FileCollectionResolveStatistics.class)));
         }
         listenerManager.addListener(tracker);
         listenerManager.addListener(new BuildCleanupListener(serviceRegistry));
@@ -163,4 +174,21 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         }
     }
 
+    private static class CacheStatisticsReporter extends BuildAdapter {
+        private final ZipCentralDirectoryCache zipCentralDirectoryCache;
+        private final FileCollectionResolveStatistics resolveStatistics;
+
+        private CacheStatisticsReporter(ZipCentralDirectoryCache zipCentralDirectoryCache, FileCollectionResolveStatistics resolveStatistics) {
+            this.zipCentralDirectoryCache = zipCentralDirectoryCache;
+            this.resolveStatistics = resolveStatistics;
+        }
+
+        @Override
+        public void buildFinished(BuildResult result) {
+            Logging.getLogger(ZipCentralDirectoryCache.class).info(zipCentralDirectoryCache.getStatistics().toString());
+            Logging.getLogger(FileCollectionResolveStatistics.class).info(resolveStatistics.toString());
+            resolveStatistics.reset();
+        }
+    }
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009 the original author or authors.
+ * Copyright 2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -14,11 +14,14 @@
  * limitations under the License.
  */
 
-package org.gradle.api.internal.tasks.testing.detection;
+package org.gradle.initialization;
 
 /**
- * @author Tom Eyckmans
+ * Information about the process in which builds are run.
  */
-public interface JarFilePackageListener {
-    void receivePackage(String packageName);
+public interface GradleBuildEnvironment {
+    /**
+     * Returns true when the process runs more than one build, for example when it is a Gradle daemon.
+     */
+    boolean isLongLivingProcess();
 }
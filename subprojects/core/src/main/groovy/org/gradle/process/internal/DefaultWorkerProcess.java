@@ -151,6 +151,15 @@ public class DefaultWorkerProcess implements WorkerProcess {
         }
     }
 
+    public boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public ExecResult waitForStop() {
         try {
             return execHandle.waitForFinish().assertNormalExitValue();
@@ -86,7 +86,7 @@ public class BuildProfile {
      * @param project to look up
      * @return
      */
-    public ProjectProfile getProjectProfile(Project project) {
+    public synchronized ProjectProfile getProjectProfile(Project project) {
         ProjectProfile result = projects.get(project);
         if (result == null) {
             result = new ProjectProfile(project);
@@ -99,11 +99,11 @@ public class BuildProfile {
      * Get a list of the profiling containers for all projects
      * @return list
      */
-    public List<ProjectProfile> getProjects() {
+    public synchronized List<ProjectProfile> getProjects() {
         return new ArrayList<ProjectProfile>(projects.values());
     }
 
-    public CompositeOperation<Operation> getProjectConfiguration() {
+    public synchronized CompositeOperation<Operation> getProjectConfiguration() {
         List<Operation> operations = new ArrayList<Operation>();
         for (ProjectProfile projectProfile : projects.values()) {
             operations.add(projectProfile.getEvaluation());
@@ -111,7 +111,7 @@ public class BuildProfile {
         return new CompositeOperation<Operation>(operations);
     }
 
-    public DependencyResolveProfile getDependencySetProfile(ResolvableDependencies dependencySet) {
+    public synchronized DependencyResolveProfile getDependencySetProfile(ResolvableDependencies dependencySet) {
         DependencyResolveProfile profile = dependencySets.get(dependencySet.getPath());
         if (profile == null) {
             profile = new DependencyResolveProfile(dependencySet);
@@ -120,7 +120,7 @@ public class BuildProfile {
         return profile;
     }
 
-    public CompositeOperation<DependencyResolveProfile> getDependencySets() {
+    public synchronized CompositeOperation<DependencyResolveProfile> getDependencySets() {
         return new CompositeOperation<DependencyResolveProfile>(dependencySets.values());
     }
 
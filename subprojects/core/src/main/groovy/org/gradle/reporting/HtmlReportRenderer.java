@@ -28,7 +28,7 @@ import java.util.Set;
 public class HtmlReportRenderer {
     private final Set<URL> resources = new HashSet<URL>();
 
-    public void requireResource(URL resource) {
+    public synchronized void requireResource(URL resource) {
         resources.add(resource);
     }
 
@@ -54,14 +54,21 @@ public class HtmlReportRenderer {
             @Override
             public void writeTo(T model, File file) {
                 super.writeTo(model, file);
-                for (URL resource : resources) {
-                    String name = StringUtils.substringAfterLast(resource.getPath(), "/");
-                    File destFile = new File(file.getParentFile(), name);
-                    if (!destFile.exists()) {
-                        GFileUtils.copyURLToFile(resource, destFile);
-                    }
-                }
+                copyResourcesTo(file.getParentFile());
             }
         };
     }
+
+    /**
+     * Copies the required resources into the given directory, if they are not already present. Reports may be written concurrently by several threads.
+     */
+    public synchronized void copyResourcesTo(File dir) {
+        for (URL resource : resources) {
+            String name = StringUtils.substringAfterLast(resource.getPath(), "/");
+            File destFile = new File(dir, name);
+            if (!destFile.exists()) {
+                GFileUtils.copyURLToFile(resource, destFile);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal
+
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.DirectoryCacheBuilder
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.FileLockManager
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class GeneratedClassCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final CacheRepository cacheRepository = Mock()
+    final DirectoryCacheBuilder cacheBuilder = Mock()
+    final PersistentCache persistentCache = Mock()
+    final GeneratedClassCache cache = new GeneratedClassCache(cacheRepository)
+    File cacheDir
+    int loaders
+
+    def setup() {
+        cacheDir = tmpDir.createDir("base-dir")
+        _ * cacheRepository.store("generatedClasses") >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withLockMode(FileLockManager.LockMode.None) >> cacheBuilder
+        _ * cacheBuilder.open() >> persistentCache
+        _ * persistentCache.baseDir >> cacheDir
+    }
+
+    def "key is determined by generator and type"() {
+        expect:
+        cache.getKey(AsmBackedClassGenerator, CachedBean) == cache.getKey(AsmBackedClassGenerator, CachedBean)
+        cache.getKey(AsmBackedClassGenerator, CachedBean) != cache.getKey(AsmBackedClassGenerator, CachedSubBean)
+        cache.getKey(AsmBackedClassGenerator, CachedBean) != cache.getKey(AbstractClassGenerator, CachedBean)
+    }
+
+    def "type cannot be cached when its bytecode is not available"() {
+        def generated = new AsmBackedClassGenerator().generate(CachedBean)
+
+        expect:
+        cache.getKey(AsmBackedClassGenerator, generated) == null
+    }
+
+    def "key changes when an interface of the type changes"() {
+        def original = loadBean(
+                "Bean": classBytes("Bean", "java/lang/Object", ["Marker"]),
+                "Marker": interfaceBytes("Marker", []))
+        def changed = loadBean(
+                "Bean": classBytes("Bean", "java/lang/Object", ["Marker"]),
+                "Marker": interfaceBytes("Marker", ["java/io/Serializable"]))
+
+        expect:
+        cache.getKey(AsmBackedClassGenerator, original) != null
+        cache.getKey(AsmBackedClassGenerator, original) != cache.getKey(AsmBackedClassGenerator, changed)
+    }
+
+    def "key changes when a property type changes"() {
+        def original = loadBean(
+                "Bean": classBytes("Bean", "java/lang/Object", [], "Value"),
+                "Value": classBytes("Value", "java/lang/Object", []))
+        def changed = loadBean(
+                "Bean": classBytes("Bean", "java/lang/Object", [], "Value"),
+                "Value": classBytes("Value", "java/lang/Object", ["java/lang/Iterable"]))
+
+        expect:
+        cache.getKey(AsmBackedClassGenerator, original) != null
+        cache.getKey(AsmBackedClassGenerator, original) != cache.getKey(AsmBackedClassGenerator, changed)
+    }
+
+    def "loads stored bytecode"() {
+        def bytecode = [1, 2, 3] as byte[]
+
+        expect:
+        cache.load("key") == null
+
+        when:
+        cache.store("key", bytecode)
+
+        then:
+        cache.load("key") == bytecode
+        cacheDir.list() as List == ["key.class"]
+    }
+
+    def "keeps bytecode stored by another thread or process"() {
+        given:
+        cache.store("key", [1, 2, 3] as byte[])
+
+        when:
+        cache.store("key", [1, 2, 3] as byte[])
+
+        then:
+        cache.load("key") == [1, 2, 3] as byte[]
+        cacheDir.list() as List == ["key.class"]
+    }
+
+    def "generator stores generated classes in cache"() {
+        def generatedClassCache = Mock(GeneratedClassCache)
+        def generator = new AsmBackedClassGenerator(generatedClassCache)
+
+        when:
+        def generated = generator.generate(CachedSubBean)
+
+        then:
+        generated.name == CachedSubBean.name + "_Decorated"
+        2 * generatedClassCache.getKey(AsmBackedClassGenerator, CachedSubBean) >> "key"
+        1 * generatedClassCache.load("key") >> null
+        1 * generatedClassCache.store("key", { it.length > 0 })
+    }
+
+    private Class<?> loadBean(Map<String, byte[]> classes) {
+        def dir = tmpDir.createDir("classes-${loaders++}")
+        classes.each { name, bytes -> dir.file("${name}.class").bytes = bytes }
+        return new URLClassLoader([dir.toURI().toURL()] as URL[], getClass().classLoader).loadClass("Bean")
+    }
+
+    private static byte[] interfaceBytes(String name, List<String> superInterfaces) {
+        ClassWriter writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, name, null, "java/lang/Object", superInterfaces as String[])
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static byte[] classBytes(String name, String superClass, List<String> interfaces, String propertyType = null) {
+        ClassWriter writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, name, null, superClass, interfaces as String[])
+        if (propertyType != null) {
+            writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "getProp", "()L${propertyType};", null, null).visitEnd()
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
+
+class CachedBean {
+    String prop
+}
+
+class CachedSubBean extends CachedBean {
+    String other
+}
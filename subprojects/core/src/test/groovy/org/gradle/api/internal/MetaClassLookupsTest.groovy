@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal
+
+import spock.lang.Specification
+
+class MetaClassLookupsTest extends Specification {
+    final bean = new LookupsBean()
+
+    def "reuses lookups for the same meta-class"() {
+        def metaClass = metaClassImpl(LookupsBean)
+
+        expect:
+        MetaClassLookups.of(metaClass).is(MetaClassLookups.of(metaClass))
+        !MetaClassLookups.of(metaClass).is(MetaClassLookups.of(metaClassImpl(LookupsBean)))
+    }
+
+    def "caches property lookups including missing properties"() {
+        def metaClass = Spy(MetaClassImpl, constructorArgs: [LookupsBean])
+        metaClass.initialize()
+        def lookups = MetaClassLookups.of(metaClass)
+
+        when:
+        def first = lookups.getProperty(metaClass, bean, "prop")
+        def second = lookups.getProperty(metaClass, bean, "prop")
+        def missing = lookups.getProperty(metaClass, bean, "unknown")
+        def missingAgain = lookups.getProperty(metaClass, bean, "unknown")
+
+        then:
+        first.name == "prop"
+        second.is(first)
+        missing == null
+        missingAgain == null
+        1 * metaClass.hasProperty(bean, "prop")
+        1 * metaClass.hasProperty(bean, "unknown")
+    }
+
+    def "caches method lookups by argument types"() {
+        def metaClass = Spy(MetaClassImpl, constructorArgs: [LookupsBean])
+        metaClass.initialize()
+        def lookups = MetaClassLookups.of(metaClass)
+
+        when:
+        def stringArg = lookups.hasMethod(metaClass, bean, "doSomething", "a")
+        def otherStringArg = lookups.hasMethod(metaClass, bean, "doSomething", "b")
+        def intArg = lookups.hasMethod(metaClass, bean, "doSomething", 12)
+        def unknown = lookups.hasMethod(metaClass, bean, "unknown")
+
+        then:
+        stringArg
+        otherStringArg
+        !intArg
+        !unknown
+        2 * metaClass.respondsTo(bean, "doSomething", *_)
+        1 * metaClass.respondsTo(bean, "unknown", *_)
+    }
+
+    def "does not cache lookups for expando meta-class"() {
+        def metaClass = new ExpandoMetaClass(LookupsBean, false, true)
+        metaClass.initialize()
+        def lookups = MetaClassLookups.of(metaClass)
+
+        expect:
+        lookups.getProperty(metaClass, bean, "added") == null
+        !lookups.hasMethod(metaClass, bean, "addedMethod")
+
+        when:
+        metaClass.added = "value"
+        metaClass.addedMethod = { -> "result" }
+
+        then:
+        lookups.getProperty(metaClass, bean, "added") != null
+        lookups.hasMethod(metaClass, bean, "addedMethod")
+    }
+
+    def "bean dynamic object sees properties added by a replacement meta-class"() {
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        dynamicObject.hasProperty("prop")
+        !dynamicObject.hasProperty("added")
+
+        when:
+        def metaClass = new ExpandoMetaClass(LookupsBean, false, true)
+        metaClass.added = "value"
+        metaClass.initialize()
+        bean.metaClass = metaClass
+
+        then:
+        dynamicObject.hasProperty("added")
+        dynamicObject.getProperty("added") == "value"
+    }
+
+    private static MetaClassImpl metaClassImpl(Class<?> type) {
+        def metaClass = new MetaClassImpl(type)
+        metaClass.initialize()
+        return metaClass
+    }
+}
+
+class LookupsBean {
+    String prop
+
+    void doSomething(String value) {
+    }
+}
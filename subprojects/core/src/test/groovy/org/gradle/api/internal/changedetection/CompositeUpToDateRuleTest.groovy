@@ -66,4 +66,41 @@ class CompositeUpToDateRuleTest extends Specification {
         1 * state1.checkUpToDate([]) >> { args -> args[0] << 'out-of-date' }
         0 * state2.checkUpToDate(_)
     }
+
+    def changedInputFilesAreProvidedByRuleWhichMarksTaskOutOfDate() {
+        def changed = [new File("changed")] as Set
+
+        when:
+        def state = rule.create(task, previous, current)
+        state.checkUpToDate([])
+        def result = state.changedInputFiles
+
+        then:
+        1 * rule1.create(task, previous, current) >> state1
+        1 * rule2.create(task, previous, current) >> state2
+        1 * state2.checkUpToDate([]) >> { args -> args[0] << 'out-of-date' }
+        1 * state2.changedInputFiles >> changed
+        0 * state1.changedInputFiles
+        result == changed
+    }
+
+    def changedInputFilesAreNotKnownBeforeCheckingTask() {
+        when:
+        def state = rule.create(task, previous, current)
+
+        then:
+        state.changedInputFiles == null
+    }
+
+    def noInputFilesHaveChangedWhenTaskIsUpToDate() {
+        when:
+        def state = rule.create(task, previous, current)
+        state.checkUpToDate([])
+        def result = state.changedInputFiles
+
+        then:
+        1 * rule1.create(task, previous, current) >> state1
+        1 * rule2.create(task, previous, current) >> state2
+        result.empty
+    }
 }
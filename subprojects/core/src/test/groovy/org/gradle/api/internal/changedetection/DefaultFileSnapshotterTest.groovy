@@ -17,6 +17,12 @@ package org.gradle.api.internal.changedetection
 
 import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache
+import org.gradle.api.internal.file.archive.ZipFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
@@ -26,6 +32,8 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 import static org.hamcrest.Matchers.equalTo
 import static org.hamcrest.Matchers.notNullValue
 import static org.junit.Assert.assertThat
@@ -316,13 +324,30 @@ public class DefaultFileSnapshotterTest {
         target.changesSince(snapshotter.emptySnapshot(), listener)
     }
 
+    @Test
+    public void snapshotsEntriesOfArchiveWithoutExtractingThem() {
+        TestFile zip = tmpDir.file('test.zip')
+        TestFile expandDir = tmpDir.file('expanded')
+        tmpDir.createFile('contents/file1').write('content')
+        tmpDir.file('contents').zipTo(zip)
+        FileTree tree = new FileTreeAdapter(new ZipFileTree(zip, expandDir, new ZipCentralDirectoryCache(1024 * 1024)))
+
+        FileCollectionSnapshot snapshot = snapshotter.snapshot(tree)
+
+        assertThat(snapshot.files.files.size(), equalTo(1))
+        assertThat(expandDir.exists(), equalTo(false))
+        snapshotter.snapshot(tree).changesSince(snapshot, listener)
+    }
+
     private FileCollection files(File... files) {
         FileTree collection = context.mock(FileTree.class)
         context.checking {
             allowing(collection).getAsFileTree()
             will(returnValue(collection))
-            allowing(collection).iterator()
-            will(returnIterator(files as List))
+            allowing(collection).visit(withParam(notNullValue()))
+            will { FileVisitor visitor ->
+                files.each { File file -> visitor.visitFile(new DefaultFileVisitDetails(file, new RelativePath(true, file.name), new AtomicBoolean())) }
+            }
         }
         return collection
     }
@@ -23,6 +23,8 @@ import org.gradle.api.PathValidation
 import org.gradle.api.file.ConfigurableFileCollection
 import org.gradle.api.file.FileTree
 import org.gradle.api.internal.file.archive.TarFileTree
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import org.gradle.api.internal.file.archive.ZipFileTree
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileCollection
 import org.gradle.api.internal.file.collections.FileTreeAdapter
@@ -43,7 +45,9 @@ public class DefaultFileOperationsTest extends Specification {
     private final FileResolver resolver = Mock()
     private final TaskResolver taskResolver = Mock()
     private final TemporaryFileProvider temporaryFileProvider = Mock()
-    private DefaultFileOperations fileOperations = new DefaultFileOperations(resolver, taskResolver, temporaryFileProvider)
+    private final ZipCentralDirectoryCache zipCentralDirectoryCache = new ZipCentralDirectoryCache(1024)
+    private final FileCollectionResolveStatistics resolveStatistics = new FileCollectionResolveStatistics()
+    private DefaultFileOperations fileOperations = new DefaultFileOperations(resolver, taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
 
@@ -240,7 +244,7 @@ public class DefaultFileOperationsTest extends Specification {
 
     def javaexec() {
         File testFile = tmpDir.file("someFile")
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
         List files = ClasspathUtil.getClasspath(getClass().classLoader)
 
         when:
@@ -256,7 +260,7 @@ public class DefaultFileOperationsTest extends Specification {
     }
 
     def javaexecWithNonZeroExitValueShouldThrowException() {
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
 
         when:
         fileOperations.javaexec {
@@ -268,7 +272,7 @@ public class DefaultFileOperationsTest extends Specification {
     }
 
     def javaexecWithNonZeroExitValueAndIgnoreExitValueShouldNotThrowException() {
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
 
         when:
         ExecResult result = fileOperations.javaexec {
@@ -285,7 +289,7 @@ public class DefaultFileOperationsTest extends Specification {
             return
         }
 
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
         File testFile = tmpDir.file("someFile")
 
         when:
@@ -304,7 +308,7 @@ public class DefaultFileOperationsTest extends Specification {
         if (OperatingSystem.current().isWindows()) {
             return
         }
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
 
         when:
         fileOperations.exec {
@@ -321,7 +325,7 @@ public class DefaultFileOperationsTest extends Specification {
         if (OperatingSystem.current().isWindows()) {
             return
         }
-        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider)
+        fileOperations = new DefaultFileOperations(resolver(), taskResolver, temporaryFileProvider, zipCentralDirectoryCache, resolveStatistics)
 
         when:
         ExecResult result = fileOperations.exec {
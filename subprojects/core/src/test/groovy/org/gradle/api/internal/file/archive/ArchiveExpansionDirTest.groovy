@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.RelativePath
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ArchiveExpansionDirTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final ArchiveExpansionDir expansionDir = new ArchiveExpansionDir(tmpDir.testDirectory, "test.zip", "uri")
+
+    def "reuses entry extracted for same version of archive"() {
+        def dir = expansionDir.getDir("hash")
+        def entry = entry("file.txt", "content", 4000L)
+
+        when:
+        def file = expansionDir.extract(dir, entry)
+
+        then:
+        1 * entry.copyTo(_ as File) >> { File target -> target.parentFile.mkdirs(); target.text = "content"; true }
+        file.text == "content"
+        file.lastModified() == 4000L
+
+        when:
+        expansionDir.extract(dir, entry)
+
+        then:
+        0 * entry.copyTo(_ as File)
+    }
+
+    def "extracts entry again when extracted file has a different timestamp"() {
+        def dir = expansionDir.getDir("hash")
+        def entry = entry("file.txt", "content", 4000L)
+        def file = new File(dir, "file.txt")
+        file.parentFile.mkdirs()
+        file.text = "CONTENT"
+
+        when:
+        expansionDir.extract(dir, entry)
+
+        then:
+        1 * entry.copyTo(_ as File) >> { File target -> target.parentFile.mkdirs(); target.text = "content"; true }
+        file.text == "content"
+        file.lastModified() == 4000L
+    }
+
+    def "extracts entry again when extracted file has a different length"() {
+        def dir = expansionDir.getDir("hash")
+        def entry = entry("file.txt", "content", 4000L)
+        def file = new File(dir, "file.txt")
+        file.parentFile.mkdirs()
+        file.text = "cont"
+        file.lastModified = 4000L
+
+        when:
+        expansionDir.extract(dir, entry)
+
+        then:
+        1 * entry.copyTo(_ as File) >> { File target -> target.parentFile.mkdirs(); target.text = "content"; true }
+        file.text == "content"
+    }
+
+    def "always extracts entry when archive version is not known"() {
+        def dir = expansionDir.getDir(null)
+        def entry = entry("file.txt", "content", 4000L)
+
+        when:
+        expansionDir.extract(dir, entry)
+        expansionDir.extract(dir, entry)
+
+        then:
+        2 * entry.copyTo(_ as File) >> { File target -> target.parentFile.mkdirs(); target.text = "content"; true }
+    }
+
+    def "does not remove directories of other versions of archive"() {
+        def oldDir = expansionDir.getDir("old")
+        def oldFile = new File(oldDir, "file.txt")
+        oldFile.parentFile.mkdirs()
+        oldFile.text = "old"
+        def entry = entry("file.txt", "content", 4000L)
+
+        when:
+        expansionDir.extract(expansionDir.getDir("new"), entry)
+
+        then:
+        1 * entry.copyTo(_ as File) >> { File target -> target.parentFile.mkdirs(); target.text = "content"; true }
+        oldFile.text == "old"
+    }
+
+    private FileTreeElement entry(String path, String content, long lastModified) {
+        def entry = Mock(FileTreeElement)
+        _ * entry.relativePath >> RelativePath.parse(true, path)
+        _ * entry.directory >> false
+        _ * entry.size >> content.length()
+        _ * entry.lastModified >> lastModified
+        return entry
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ZipCentralDirectoryCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final ZipCentralDirectoryCache cache = new ZipCentralDirectoryCache(1024 * 1024)
+
+    def "reuses directory while zip file is unchanged"() {
+        def zipFile = zip("test.zip", "file1.txt")
+
+        when:
+        def first = cache.get(zipFile)
+        def second = cache.get(zipFile)
+
+        then:
+        second.is(first)
+        first.sortedEntries*.name == ["dir/", "dir/file1.txt"]
+        cache.statistics.hits == 1
+        cache.statistics.misses == 1
+        cache.statistics.hitRate == 0.5d
+    }
+
+    def "reads directory again when zip file changes"() {
+        def zipFile = zip("test.zip", "file1.txt")
+        def first = cache.get(zipFile)
+
+        when:
+        zipFile.delete()
+        zip("test.zip", "file1.txt", "file2.txt")
+        def second = cache.get(zipFile)
+
+        then:
+        !second.is(first)
+        second.sortedEntries*.name == ["dir/", "dir/file1.txt", "dir/file2.txt"]
+        cache.statistics.misses == 2
+    }
+
+    def "discards least recently used directories when full"() {
+        def cache = new ZipCentralDirectoryCache(1)
+        def zip1 = zip("test1.zip", "file1.txt")
+        def zip2 = zip("test2.zip", "file1.txt")
+
+        when:
+        def first = cache.get(zip1)
+        cache.get(zip2)
+        def again = cache.get(zip1)
+
+        then:
+        !again.is(first)
+        cache.statistics.evictions == 2
+        cache.statistics.cachedCount == 1
+    }
+
+    def "opens content of entries"() {
+        def zipFile = zip("test.zip", "file1.txt")
+
+        when:
+        def directory = cache.get(zipFile)
+        def entry = directory.getEntry("dir/file1.txt")
+
+        then:
+        directory.open(entry).text == "content of file1.txt"
+    }
+
+    private TestFile zip(String name, String... files) {
+        def contents = tmpDir.createDir("${name}-contents")
+        files.each { contents.file("dir/$it").text = "content of $it" }
+        def zipFile = tmpDir.file(name)
+        contents.zipTo(zipFile)
+        return zipFile
+    }
+}
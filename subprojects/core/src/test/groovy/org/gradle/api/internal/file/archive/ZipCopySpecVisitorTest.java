@@ -17,10 +17,11 @@ package org.gradle.api.internal.file.archive;
 
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.archive.compression.ArchiveOutputStreamFactory;
-import org.gradle.api.internal.file.copy.ArchiveCopyAction;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.internal.file.copy.ZipDeflatedCompressor;
 import org.gradle.api.internal.file.copy.ReadableCopySpec;
 import org.gradle.api.internal.file.copy.ZipStoredCompressor;
@@ -38,7 +39,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.gradle.api.file.FileVisitorUtil.assertVisitsPermissions;
@@ -51,10 +54,12 @@ public class ZipCopySpecVisitorTest {
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
     private final JUnit4Mockery context = new JUnit4Mockery();
-    private final ArchiveCopyAction copyAction = context.mock(ZipCopyAction.class);
+    private final ZipCopyAction copyAction = context.mock(ZipCopyAction.class);
     private final ReadableCopySpec copySpec = context.mock(ReadableCopySpec.class);
     private final ZipCopySpecVisitor visitor = new ZipCopySpecVisitor();
+    private final List<String> copiedFiles = new ArrayList<String>();
     private TestFile zipFile;
+    private FileCollection changedInputFiles;
 
     @Before
     public void setup() {
@@ -67,6 +72,18 @@ public class ZipCopySpecVisitorTest {
             allowing(copyAction).getCompressor();
             will(returnValue(ZipStoredCompressor.INSTANCE));
         }});
+        context.checking(new Expectations() {{
+            allowing(copyAction).getChangedInputFiles();
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("return changed input files");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return changedInputFiles;
+                }
+            });
+        }});
     }
 
     private TestFile initializeZipFile(final TestFile testFile, final ArchiveOutputStreamFactory compressor) {
@@ -109,7 +126,7 @@ public class ZipCopySpecVisitorTest {
         expected.put("dir", 2);
         expected.put("file", 1);
 
-        assertVisitsPermissions(new ZipFileTree(zipFile, null), expected);
+        assertVisitsPermissions(new ZipFileTree(zipFile, null, new ZipCentralDirectoryCache(1024)), expected);
     }
 
     @Test
@@ -144,6 +161,81 @@ public class ZipCopySpecVisitorTest {
         }
     }
 
+    @Test
+    public void reusesEntriesOfUnchangedFilesWhenUpdatingZip() {
+        zip(dir("dir"), sourceFile("dir/file1", "content 1", 1), sourceFile("file2", "content 2", 1));
+        copiedFiles.clear();
+
+        changedInputFiles = new SimpleFileCollection();
+        zip(dir("dir", 2), sourceFile("dir/file1", "content 1", 2), sourceFile("file2", "content 2", 2));
+
+        assertThat(copiedFiles, equalTo(toList()));
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("dir/file1").assertContents(equalTo("content 1"));
+        expandDir.file("file2").assertContents(equalTo("content 2"));
+        tmpDir.getTestDirectory().file("test.zip.tmp").assertDoesNotExist();
+    }
+
+    @Test
+    public void compressesChangedFilesAgainWhenUpdatingZip() {
+        zip(sourceFile("file1", "content 1", 1), sourceFile("file2", "content 2", 1));
+        copiedFiles.clear();
+
+        changedInputFiles = new SimpleFileCollection(tmpDir.file("src/file2"));
+        zip(sourceFile("file1", "content 1", 2), sourceFile("file2", "changed", 2));
+
+        assertThat(copiedFiles, equalTo(toList("file2")));
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("file1").assertContents(equalTo("content 1"));
+        expandDir.file("file2").assertContents(equalTo("changed"));
+    }
+
+    @Test
+    public void compressesFilteredFilesAgainWhenUpdatingZip() {
+        zip(sourceFile("file1", "content 1", 1), filteredFile("file2", "filtered", 1));
+        copiedFiles.clear();
+
+        changedInputFiles = new SimpleFileCollection();
+        zip(sourceFile("file1", "content 1", 2), filteredFile("file2", "filtered", 2));
+
+        assertThat(copiedFiles, equalTo(toList("file2")));
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("file1").assertContents(equalTo("content 1"));
+        expandDir.file("file2").assertContents(equalTo("filtered"));
+    }
+
+    @Test
+    public void keepsExistingZipAndDiscardsPartialZipWhenUpdatingZipFails() {
+        zip(sourceFile("file1", "content 1", 1));
+        TestFile original = tmpDir.getTestDirectory().file("original.zip");
+        zipFile.copyTo(original);
+
+        changedInputFiles = new SimpleFileCollection();
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(sourceFile("file1", "content 1", 2));
+        try {
+            visitor.visitFile(brokenFile("file2", new RuntimeException("broken")));
+            fail();
+        } catch (GradleException e) {
+            // Expected
+        }
+
+        tmpDir.getTestDirectory().file("test.zip.tmp").assertDoesNotExist();
+        zipFile.assertIsCopyOf(original);
+    }
+
+    private static List<String> toList(String... values) {
+        List<String> list = new ArrayList<String>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
     private void zip(FileVisitDetails... files) {
         visitor.startVisit(copyAction);
         visitor.visitSpec(copySpec);
@@ -191,8 +283,72 @@ public class ZipCopySpecVisitorTest {
         return details;
     }
 
+    private FileVisitDetails sourceFile(final String path, final String content, int build) {
+        final TestFile sourceFile = tmpDir.file("src/" + path);
+        sourceFile.write(content);
+        final FileVisitDetails details = contentFile(path, content, build);
+
+        context.checking(new Expectations() {{
+            allowing(details).getFile();
+            will(returnValue(sourceFile));
+        }});
+
+        return details;
+    }
+
+    private FileVisitDetails filteredFile(final String path, final String content, int build) {
+        final FileVisitDetails details = contentFile(path, content, build);
+
+        context.checking(new Expectations() {{
+            allowing(details).getFile();
+            will(throwException(new UnsupportedOperationException()));
+        }});
+
+        return details;
+    }
+
+    private FileVisitDetails contentFile(final String path, final String content, int build) {
+        final FileVisitDetails details = context.mock(FileVisitDetails.class, String.format("%s (build %s)", path, build));
+
+        context.checking(new Expectations() {{
+            allowing(details).getRelativePath();
+            will(returnValue(RelativePath.parse(true, path)));
+
+            allowing(details).getLastModified();
+            will(returnValue(1000L));
+
+            allowing(details).isDirectory();
+            will(returnValue(false));
+
+            allowing(details).getMode();
+            will(returnValue(1));
+
+            allowing(details).getSize();
+            will(returnValue((long) content.length()));
+
+            allowing(details).copyTo(with(notNullValue(OutputStream.class)));
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("write content");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    copiedFiles.add(path);
+                    IOUtils.write(content, (OutputStream) invocation.getParameter(0));
+                    return null;
+                }
+            });
+        }});
+
+        return details;
+    }
+
     private FileVisitDetails dir(final String path) {
-        final FileVisitDetails details = context.mock(FileVisitDetails.class, path);
+        return dir(path, 1);
+    }
+
+    private FileVisitDetails dir(final String path, int build) {
+        final FileVisitDetails details = context.mock(FileVisitDetails.class, build == 1 ? path : String.format("%s (build %s)", path, build));
 
         context.checking(new Expectations() {{
             allowing(details).getRelativePath();
@@ -17,14 +17,24 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
+import org.gradle.util.TestPrecondition;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static java.util.Collections.EMPTY_LIST;
 import static org.gradle.api.file.FileVisitorUtil.*;
@@ -33,6 +43,7 @@ import static org.gradle.util.WrapUtil.toList;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 public class ZipFileTreeTest {
     @Rule public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
@@ -40,7 +51,7 @@ public class ZipFileTreeTest {
     private final TestFile zipFile = tmpDir.getTestDirectory().file("test.zip");
     private final TestFile rootDir = tmpDir.getTestDirectory().file("root");
     private final TestFile expandDir = tmpDir.getTestDirectory().file("tmp");
-    private final ZipFileTree tree = new ZipFileTree(zipFile, expandDir);
+    private final ZipFileTree tree = new ZipFileTree(zipFile, expandDir, new ZipCentralDirectoryCache(1024 * 1024));
 
     @Test
     public void displayName() {
@@ -57,6 +68,40 @@ public class ZipFileTreeTest {
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
     }
 
+    @Test
+    public void visitsContentsOfZip64File() throws IOException {
+        // Only the JDK 7 ZipOutputStream writes ZIP64 archives
+        assumeTrue(TestPrecondition.JDK7.isFulfilled());
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(zipFile));
+        try {
+            // An archive with more than 65535 entries uses the ZIP64 format
+            for (int i = 0; i < 0x10000; i++) {
+                outputStream.putNextEntry(new ZipEntry(String.format("dir/file%05d.txt", i)));
+                outputStream.write(String.format("content %s", i).getBytes());
+            }
+        } finally {
+            outputStream.close();
+        }
+
+        try {
+            ZipCentralDirectory.read(zipFile, Charset.defaultCharset());
+            fail();
+        } catch (ZipCentralDirectory.UnsupportedFormatException e) {
+            // Expected
+        }
+
+        final List<String> paths = new ArrayList<String>();
+        tree.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                paths.add(fileDetails.getRelativePath().getPathString());
+            }
+        });
+        assertThat(paths.size(), equalTo(0x10000));
+        assertThat(paths.get(0), equalTo("dir/file00000.txt"));
+        assertThat(paths.get(0xffff), equalTo("dir/file65535.txt"));
+    }
+
     @Test
     public void canStopVisitingFiles() {
         rootDir.file("subdir/file1.txt").write("content");
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.charset.Charset
+import java.util.zip.ZipEntry
+
+class ZipRawEntryWriterTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final Charset charset = Charset.forName("UTF-8")
+
+    def "writes entries which can be read back"() {
+        def zipFile = tmpDir.file("test.zip")
+
+        when:
+        def writer = new ZipRawEntryWriter(zipFile, method, charset)
+        writer.putNextEntry("dir/", 1000, 040755)
+        writer.closeEntry()
+        writer.putNextEntry("dir/file1.txt", 1000, 0100644).write("contents of file1".bytes)
+        writer.closeEntry()
+        writer.close()
+
+        then:
+        def expandDir = tmpDir.file("expanded")
+        zipFile.unzipTo(expandDir)
+        expandDir.file("dir/file1.txt").text == "contents of file1"
+
+        and:
+        def directory = ZipCentralDirectory.read(zipFile, charset)
+        directory.entries*.name == ["dir/", "dir/file1.txt"]
+        directory.getEntry("dir/file1.txt").method == method
+        directory.getEntry("dir/file1.txt").size == 17
+        directory.getEntry("dir/file1.txt").unixMode == 0100644
+        directory.getEntry("dir/").unixMode == 040755
+
+        where:
+        method << [ZipEntry.DEFLATED, ZipEntry.STORED]
+    }
+
+    def "copies entries from another zip without changing them"() {
+        def original = tmpDir.file("original.zip")
+        def writer = new ZipRawEntryWriter(original, ZipEntry.DEFLATED, charset)
+        writer.putNextEntry("file1.txt", 1000, 0100644).write(("some content " * 100).bytes)
+        writer.closeEntry()
+        writer.putNextEntry("file2.txt", 1000, 0100644).write("removed".bytes)
+        writer.closeEntry()
+        writer.close()
+        def previous = ZipCentralDirectory.read(original, charset)
+        def updated = tmpDir.file("updated.zip")
+
+        when:
+        def source = new RandomAccessFile(original, "r")
+        writer = new ZipRawEntryWriter(updated, ZipEntry.STORED, charset)
+        writer.copyEntry(source, previous.getEntry("file1.txt"))
+        writer.putNextEntry("file3.txt", 1000, 0100600).write("added".bytes)
+        writer.closeEntry()
+        writer.close()
+        source.close()
+
+        then:
+        def expandDir = tmpDir.file("expanded")
+        updated.unzipTo(expandDir)
+        expandDir.file("file1.txt").text == "some content " * 100
+        !expandDir.file("file2.txt").exists()
+        expandDir.file("file3.txt").text == "added"
+
+        and:
+        def directory = ZipCentralDirectory.read(updated, charset)
+        def copied = directory.getEntry("file1.txt")
+        copied.method == ZipEntry.DEFLATED
+        copied.crc == previous.getEntry("file1.txt").crc
+        copied.compressedSize == previous.getEntry("file1.txt").compressedSize
+        copied.dosTime == previous.getEntry("file1.txt").dosTime
+        directory.getEntry("file3.txt").method == ZipEntry.STORED
+    }
+}
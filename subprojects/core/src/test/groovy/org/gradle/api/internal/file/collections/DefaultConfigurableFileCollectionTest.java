@@ -19,6 +19,7 @@ import groovy.lang.Closure;
 import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.MemoizableFileCollection;
 import org.gradle.api.internal.tasks.TaskResolver;
 import org.gradle.api.tasks.TaskDependency;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
@@ -105,6 +106,62 @@ public class DefaultConfigurableFileCollectionTest {
         assertThat(collection.getFiles(), equalTo(toLinkedSet(file1, file2)));
     }
 
+    @Test
+    public void reusesResolvedFilesWhenPathsAreFixed() {
+        final File file1 = new File("1");
+
+        collection.from("src1");
+
+        context.checking(new Expectations() {{
+            one(resolverMock).resolve("src1");
+            will(returnValue(file1));
+        }});
+
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1)));
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1)));
+    }
+
+    @Test
+    public void resolvesFilesAgainWhenPathsChange() {
+        final File file1 = new File("1");
+        final File file2 = new File("2");
+
+        collection.from("src1");
+
+        context.checking(new Expectations() {{
+            exactly(2).of(resolverMock).resolve("src1");
+            will(returnValue(file1));
+            one(resolverMock).resolve("src2");
+            will(returnValue(file2));
+        }});
+
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1)));
+
+        collection.from("src2");
+
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1, file2)));
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1, file2)));
+    }
+
+    @Test
+    public void reusesFilesOfFileCollectionWhoseContentIsFinal() {
+        final File file1 = new File("1");
+
+        final MemoizableFileCollection src = context.mock(MemoizableFileCollection.class);
+
+        collection.from(src);
+
+        context.checking(new Expectations() {{
+            allowing(src).isContentFinal();
+            will(returnValue(true));
+            one(src).getFiles();
+            will(returnValue(toLinkedSet(file1)));
+        }});
+
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1)));
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file1)));
+    }
+
     @Test
     public void canUseAClosureToSpecifyTheContentsOfTheCollection() {
         final File file1 = new File("1");
@@ -364,5 +421,22 @@ public class DefaultConfigurableFileCollectionTest {
         assertThat(collection.getAsFileTree().getBuildDependencies().getDependencies(null), equalTo((Set) toSet(task)));
         assertThat(collection.getAsFileTree().matching(HelperUtil.TEST_CLOSURE).getBuildDependencies().getDependencies(null), equalTo((Set) toSet(task)));
     }
+
+    @Test
+    public void recordsResolutionInStatistics() {
+        FileCollectionResolveStatistics statistics = new FileCollectionResolveStatistics();
+        DefaultConfigurableFileCollection collection = new DefaultConfigurableFileCollection("collection", resolverMock, taskResolverStub, statistics, "a");
+        final File file = new File("a");
+
+        context.checking(new Expectations() {{
+            one(resolverMock).resolve("a");
+            will(returnValue(file));
+        }});
+
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file)));
+        assertThat(collection.getFiles(), equalTo(toLinkedSet(file)));
+        assertThat(statistics.getResolveCount(), equalTo(1L));
+        assertThat(statistics.getMemoizedCount(), equalTo(1L));
+    }
     
 }
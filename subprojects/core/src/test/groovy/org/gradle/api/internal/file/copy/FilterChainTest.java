@@ -16,6 +16,7 @@
 package org.gradle.api.internal.file.copy;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.tools.ant.filters.ReplaceTokens;
 import org.gradle.util.HelperUtil;
 import org.gradle.util.WrapUtil;
 import org.junit.Test;
@@ -71,6 +72,21 @@ public class FilterChainTest {
         assertThat(IOUtils.toString(transformedReader), equalTo("[1][2][3]"));
     }
 
+    @Test
+    public void usesTokenReplacingReaderForReplaceTokensFilterWithStringTokens() throws IOException {
+        filterChain.add(ReplaceTokens.class, toMap("tokens", toMap("prop", "value")));
+        Reader transformedReader = filterChain.transform(new StringReader("[@prop@][@other@]"));
+        assertThat(transformedReader, instanceOf(TokenReplacingReader.class));
+        assertThat(IOUtils.toString(transformedReader), equalTo("[value][@other@]"));
+    }
+
+    @Test
+    public void usesReplaceTokensFilterForOtherTokenValues() throws IOException {
+        filterChain.add(ReplaceTokens.class, toMap("tokens", toMap("prop", 1)));
+        Reader transformedReader = filterChain.transform(originalReader);
+        assertThat(transformedReader, instanceOf(ReplaceTokens.class));
+    }
+
     public static class TestFilterReader extends FilterReader {
         String property;
 
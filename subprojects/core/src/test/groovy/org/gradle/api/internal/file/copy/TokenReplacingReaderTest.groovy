@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy
+
+import org.apache.tools.ant.filters.ReplaceTokens
+import spock.lang.Specification
+
+class TokenReplacingReaderTest extends Specification {
+    def tokens = [name: "value", empty: "", nested: "@name@"]
+
+    def "produces same output as ReplaceTokens"() {
+        expect:
+        filter(input) == replaceTokens(input)
+
+        where:
+        input << ["", "no tokens", "@name@", "a @name@ b @empty@ c", "@nested@", "@unknown@name@", "@@name@", "trailing @name", "@", "a@b@c@name@"]
+    }
+
+    def "supports custom delimiters"() {
+        expect:
+        filter("#name# @name@ #unknown#", '#' as char, '#' as char) == "value @name@ #unknown#"
+        filter("[name] [name [unknown]", '[' as char, ']' as char) == "value [name [unknown]"
+    }
+
+    def "replaces tokens which are longer than the buffer"() {
+        def name = "x" * 20000
+        tokens[name] = "long"
+
+        expect:
+        filter("a@${name}@b") == "alongb"
+        filter("a@${name}") == "a@${name}"
+    }
+
+    private String filter(String input, char beginToken = '@', char endToken = '@') {
+        return new TokenReplacingReader(new StringReader(input), tokens, beginToken, endToken).text
+    }
+
+    private String replaceTokens(String input) {
+        def filter = new ReplaceTokens(new StringReader(input))
+        tokens.each { key, value ->
+            def token = new ReplaceTokens.Token()
+            token.key = key
+            token.value = value
+            filter.addConfiguredToken(token)
+        }
+        return filter.text
+    }
+}
@@ -21,19 +21,24 @@ import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
 import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.CachingScriptClassCompiler;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
+import org.gradle.initialization.GradleBuildEnvironment;
 import org.gradle.internal.nativeplatform.*;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.LoggingManagerInternal;
+import org.gradle.logging.LoggingServiceRegistry;
 import org.gradle.logging.ProgressLoggerFactory;
 import org.gradle.logging.internal.DefaultLoggingManagerFactory;
 import org.gradle.logging.internal.DefaultProgressLoggerFactory;
@@ -42,8 +47,10 @@ import org.gradle.util.ClassLoaderFactory;
 import org.gradle.util.DefaultClassLoaderFactory;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class GlobalServicesRegistryTest {
@@ -139,4 +146,30 @@ public class GlobalServicesRegistryTest {
     public void providesADocumentationRegistry() throws Exception {
         assertThat(registry.get(DocumentationRegistry.class), instanceOf(DocumentationRegistry.class));
     }
+
+    @Test
+    public void providesSharedScriptClasses() {
+        assertThat(registry.get(CachingScriptClassCompiler.SharedClasses.class), instanceOf(CachingScriptClassCompiler.SharedClasses.class));
+        assertThat(registry.get(CachingScriptClassCompiler.SharedClasses.class), sameInstance(registry.get(CachingScriptClassCompiler.SharedClasses.class)));
+    }
+
+    @Test
+    public void providesAZipCentralDirectoryCache() {
+        assertThat(registry.get(ZipCentralDirectoryCache.class), instanceOf(ZipCentralDirectoryCache.class));
+        assertThat(registry.get(ZipCentralDirectoryCache.class), sameInstance(registry.get(ZipCentralDirectoryCache.class)));
+    }
+
+    @Test
+    public void providesFileCollectionResolveStatistics() {
+        assertThat(registry.get(FileCollectionResolveStatistics.class), instanceOf(FileCollectionResolveStatistics.class));
+        assertThat(registry.get(FileCollectionResolveStatistics.class), sameInstance(registry.get(FileCollectionResolveStatistics.class)));
+    }
+
+    @Test
+    public void providesAGradleBuildEnvironment() {
+        assertThat(registry.get(GradleBuildEnvironment.class).isLongLivingProcess(), equalTo(false));
+
+        GlobalServicesRegistry daemonRegistry = new GlobalServicesRegistry(LoggingServiceRegistry.newProcessLogging(), true);
+        assertThat(daemonRegistry.get(GradleBuildEnvironment.class).isLongLivingProcess(), equalTo(true));
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project
+
+import org.gradle.initialization.ClassLoaderRegistry
+import org.gradle.internal.service.DefaultServiceRegistry
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.internal.service.UnknownServiceException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PluginServicesTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final ClassLoaderRegistry classLoaderRegistry = Mock()
+    final ServiceRegistry services = Mock()
+    final PluginServices pluginServices = new PluginServices(services) {
+        protected ServiceRegistry create(PluginServiceRegistry pluginServiceRegistry, ServiceRegistry services) {
+            return pluginServiceRegistry.createBuildServices(services)
+        }
+    }
+
+    def setup() {
+        _ * services.get(ClassLoaderRegistry) >> classLoaderRegistry
+    }
+
+    def "provides the services of the plugin service registry"() {
+        given:
+        _ * classLoaderRegistry.pluginsClassLoader >> classLoaderWithPluginServiceRegistry()
+
+        expect:
+        pluginServices.get(String) == "plugin service"
+        pluginServices.get(String).is(pluginServices.get(String))
+    }
+
+    def "provides no services when there is no plugin service registry"() {
+        given:
+        _ * classLoaderRegistry.pluginsClassLoader >> new URLClassLoader([] as URL[], (ClassLoader) null)
+
+        when:
+        pluginServices.get(String)
+
+        then:
+        UnknownServiceException e = thrown()
+        e.type == String
+    }
+
+    def "provides no services while the plugin services are being created"() {
+        given:
+        _ * classLoaderRegistry.pluginsClassLoader >> {
+            try {
+                pluginServices.get(Long)
+                assert false
+            } catch (UnknownServiceException e) {
+                assert e.type == Long
+            }
+            return classLoaderWithPluginServiceRegistry()
+        }
+
+        expect:
+        pluginServices.get(String) == "plugin service"
+    }
+
+    def "closes the plugin services when stopped"() {
+        given:
+        _ * classLoaderRegistry.pluginsClassLoader >> classLoaderWithPluginServiceRegistry()
+        pluginServices.get(String)
+
+        when:
+        pluginServices.stop()
+
+        then:
+        TestPluginServiceRegistry.closed
+    }
+
+    private ClassLoader classLoaderWithPluginServiceRegistry() {
+        tmpDir.file("META-INF/services/${PluginServiceRegistry.name}").text = TestPluginServiceRegistry.name
+        return new URLClassLoader([tmpDir.testDirectory.toURI().toURL()] as URL[], getClass().classLoader)
+    }
+
+    static class TestPluginServiceRegistry implements PluginServiceRegistry {
+        static boolean closed
+
+        ServiceRegistry createGlobalServices(ServiceRegistry globalServices) {
+            throw new UnsupportedOperationException()
+        }
+
+        ServiceRegistry createBuildServices(ServiceRegistry buildServices) {
+            closed = false
+            return new TestServices()
+        }
+    }
+
+    static class TestServices extends DefaultServiceRegistry {
+        protected String createString() {
+            return "plugin service"
+        }
+
+        void close() {
+            TestPluginServiceRegistry.closed = true
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvid
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.file.*;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.initialization.DefaultScriptHandler;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.internal.plugins.DefaultProjectsPluginContainer;
@@ -104,6 +106,10 @@ public class ProjectInternalServiceRegistryTest {
             will(returnValue(context.mock(ClassGenerator.class)));
             allowing(parent).get(ProjectAccessListener.class);
             will(returnValue(context.mock(ProjectAccessListener.class)));
+            allowing(parent).get(ZipCentralDirectoryCache.class);
+            will(returnValue(new ZipCentralDirectoryCache(1024)));
+            allowing(parent).get(FileCollectionResolveStatistics.class);
+            will(returnValue(new FileCollectionResolveStatistics()));
         }});
     }
 
@@ -19,6 +19,7 @@ package org.gradle.api.internal.project;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.TaskOutputsInternal;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics;
 import org.gradle.api.internal.tasks.DefaultTaskInputs;
 import org.gradle.api.internal.tasks.DefaultTaskOutputs;
 import org.gradle.api.internal.tasks.TaskStatusNagger;
@@ -52,6 +53,8 @@ public class TaskInternalServiceRegistryTest {
         context.checking(new Expectations() {{
             allowing(project).getFileResolver();
             will(returnValue(context.mock(FileResolver.class)));
+            allowing(parent).get(FileCollectionResolveStatistics.class);
+            will(returnValue(new FileCollectionResolveStatistics()));
         }});
     }
 
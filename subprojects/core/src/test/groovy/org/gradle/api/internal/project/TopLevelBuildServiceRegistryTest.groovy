@@ -30,6 +30,7 @@ import org.gradle.configuration.DefaultScriptPluginFactory
 import org.gradle.configuration.ScriptPluginFactory
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory
 import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.internal.CachingScriptClassCompiler
 import org.gradle.initialization.*
 import org.gradle.internal.Factory
 import org.gradle.internal.concurrent.DefaultExecutorFactory
@@ -70,6 +71,7 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
         parent.getFactory(CacheFactory) >> cacheFactoryFactory
         cacheFactoryFactory.create() >> cacheFactory
         parent.get(ClassLoaderRegistry) >> classLoaderRegistry
+        classLoaderRegistry.pluginsClassLoader >> getClass().classLoader
         parent.getFactory(LoggingManagerInternal) >> Mock(Factory)
         parent.get(ModuleRegistry) >> new DefaultModuleRegistry()
         parent.get(PluginModuleRegistry) >> Mock(PluginModuleRegistry)
@@ -111,6 +113,7 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
     def providesAScriptCompilerFactory() {
         setup:
         expectListenerManagerCreated()
+        parent.get(CachingScriptClassCompiler.SharedClasses) >> new CachingScriptClassCompiler.SharedClasses()
 
         expect:
         registry.get(ScriptCompilerFactory) instanceof DefaultScriptCompilerFactory
@@ -196,6 +199,12 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
         assertThat(registry.get(IProjectFactory), sameInstance(registry.get(IProjectFactory)))
     }
 
+    def providesAClassGenerator() {
+        expect:
+        assertThat(registry.get(ClassGenerator), instanceOf(AsmBackedClassGenerator))
+        assertThat(registry.get(ClassGenerator), sameInstance(registry.get(ClassGenerator)))
+    }
+
     def providesAnExecutorFactory() {
         expect:
         assertThat(registry.get(ExecutorFactory), instanceOf(DefaultExecutorFactory))
@@ -19,6 +19,7 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTree
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import spock.lang.Specification
 
 import java.util.concurrent.Callable
@@ -32,7 +33,7 @@ class DefaultTaskInputsTest extends Specification {
     ] as FileResolver
 
     private TaskStatusNagger taskStatusNagger = Mock()
-    private final DefaultTaskInputs inputs = new DefaultTaskInputs(resolver, {} as TaskInternal, taskStatusNagger)
+    private final DefaultTaskInputs inputs = new DefaultTaskInputs(resolver, {} as TaskInternal, taskStatusNagger, new FileCollectionResolveStatistics())
 
     def defaultValues() {
         expect:
@@ -19,13 +19,14 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.TaskExecutionHistory
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.internal.file.collections.FileCollectionResolveStatistics
 import spock.lang.Specification
 
 class DefaultTaskOutputsTest extends Specification {
 
     private TaskStatusNagger taskStatusNagger = Mock()
     private final TaskInternal task = [toString: {'task'}] as TaskInternal
-    private final DefaultTaskOutputs outputs = new DefaultTaskOutputs({new File(it)} as FileResolver, task, taskStatusNagger)
+    private final DefaultTaskOutputs outputs = new DefaultTaskOutputs({new File(it)} as FileResolver, task, taskStatusNagger, new FileCollectionResolveStatistics())
 
     public void hasNoOutputsByDefault() {
         setup:
@@ -138,6 +138,19 @@ class SimpleXmlWriterSpec extends Specification {
         xml.contains('<root><![CDATA[stuff ]]]]><![CDATA[> more stuff]]></root>')
     }
 
+    def "encodes special characters in CDATA between runs of plain characters"() {
+        when:
+        writer.startElement('root')
+        writer.startCDATA()
+        writer.characters('a\u0001b]]>c\u0000d'.toCharArray())
+        writer.characters('a\u0001b]]>c\u0000d')
+        writer.endCDATA()
+        writer.endElement()
+
+        then:
+        sw.toString("UTF-8").contains('<root><![CDATA[a]]>&#x1;<![CDATA[b]]]]><![CDATA[>c?da]]>&#x1;<![CDATA[b]]]]><![CDATA[>c?d]]></root>')
+    }
+
     def "encodes non-ASCII characters"() {
         when:
         writer.startElement("\u0200").attribute("\u0201", "\u0202")
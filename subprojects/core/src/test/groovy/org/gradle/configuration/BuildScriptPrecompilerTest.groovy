@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ConfigurationContainer
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.initialization.dsl.ScriptHandler
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectScript
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.api.internal.resource.Resource
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.internal.ScriptClassCompiler
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class BuildScriptPrecompilerTest extends Specification {
+    final ScriptClassCompiler compiler = Mock()
+    final ClassLoader classLoader = Mock()
+    final BuildScriptPrecompiler precompiler = new BuildScriptPrecompiler(compiler, new ImportsReader(), new DefaultExecutorFactory(), 4)
+
+    def "compiles scripts of child projects using class loader of root project"() {
+        def root = project("root", "buildscript { }", project("a", "apply plugin: 'java'"), project("b", "apply plugin: 'java'"))
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        1 * compiler.compile({ it.className == "a" }, classLoader, { it.id == "buildscript" }, ProjectScript)
+        1 * compiler.compile({ it.className == "a" }, classLoader, { it.id == "no_buildscript" }, ProjectScript)
+        1 * compiler.compile({ it.className == "b" }, classLoader, { it.id == "buildscript" }, ProjectScript)
+        1 * compiler.compile({ it.className == "b" }, classLoader, { it.id == "no_buildscript" }, ProjectScript)
+        0 * compiler._
+    }
+
+    def "does not compile scripts of projects which declare a buildscript block or whose parent declares one"() {
+        def root = project("root", "", project("a", "buildscript { }", project("a1", "")), project("b", ""), project("c", ""))
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        0 * compiler.compile({ it.className.startsWith("a") }, _, _, _)
+        2 * compiler.compile({ it.className == "b" }, _, _, _)
+        2 * compiler.compile({ it.className == "c" }, _, _, _)
+    }
+
+    def "does not compile scripts of projects which have a build script classpath or have already been evaluated"() {
+        def evaluated = project("a", "")
+        evaluated.state.executed()
+        def root = project("root", "", evaluated, project("b", "", false, project("b1", "")), project("c", ""), project("d", ""))
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        0 * compiler.compile({ it.className.startsWith("a") || it.className.startsWith("b") }, _, _, _)
+        2 * compiler.compile({ it.className == "c" }, _, _, _)
+        2 * compiler.compile({ it.className == "d" }, _, _, _)
+    }
+
+    def "ignores compilation failures"() {
+        def root = project("root", "", project("a", ""), project("b", ""))
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        1 * compiler.compile({ it.className == "a" }, _, _, _) >> { throw new RuntimeException("broken") }
+        2 * compiler.compile({ it.className == "b" }, _, _, _)
+    }
+
+    def "does not use thread pool to compile a single script"() {
+        def root = project("root", "", project("a", ""))
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        0 * compiler._
+    }
+
+    def project(String name, String text, ProjectInternal... children) {
+        return project(name, text, true, children)
+    }
+
+    def project(String name, String text, boolean emptyClasspath, ProjectInternal... children) {
+        ProjectInternal project = Mock()
+        ScriptSource source = Mock()
+        Resource resource = Mock()
+        ScriptHandler buildscript = Mock()
+        ConfigurationContainer configurations = Mock()
+        Configuration classpath = Mock()
+        DependencySet dependencies = Mock()
+        def state = new ProjectStateInternal()
+        def childProjects = [:]
+        children.eachWithIndex { child, i -> childProjects["child$i".toString()] = child }
+        _ * project.buildScriptSource >> source
+        _ * project.state >> state
+        _ * project.childProjects >> childProjects
+        _ * project.buildscript >> buildscript
+        _ * source.className >> name
+        _ * source.displayName >> name
+        _ * source.resource >> resource
+        _ * resource.text >> text
+        _ * buildscript.classLoader >> classLoader
+        _ * buildscript.configurations >> configurations
+        _ * configurations.getByName("classpath") >> classpath
+        _ * classpath.dependencies >> dependencies
+        _ * dependencies.isEmpty() >> emptyClasspath
+        return project
+    }
+}
@@ -24,7 +24,9 @@ class DefaultBuildConfigurerTest extends Specification {
     private startParameter = Mock(StartParameter)
     private gradle = Mock(GradleInternal)
     private rootProject = Mock(ProjectInternal)
-    private configurer = new DefaultBuildConfigurer()
+    private precompiler = Mock(BuildScriptPrecompiler)
+    private parallelConfigurer = Mock(ParallelProjectConfigurer)
+    private configurer = new DefaultBuildConfigurer(precompiler, parallelConfigurer)
 
     def setup() {
         gradle.startParameter >> startParameter
@@ -38,12 +40,44 @@ class DefaultBuildConfigurerTest extends Specification {
         then:
         1 * gradle.addProjectEvaluationListener(_ as ImplicitTasksConfigurer);
         1 * gradle.addProjectEvaluationListener(_ as ProjectDependencies2TaskResolver);
+        1 * rootProject.evaluate()
         1 * rootProject.allprojects(!null) >> { args ->
             assert args[0] instanceof DefaultBuildConfigurer.ConfigureProject
         }
         0 * rootProject._
     }
 
+    def "compiles build scripts ahead of evaluation once root project has been evaluated"() {
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * rootProject.evaluate()
+
+        then:
+        1 * precompiler.precompile(rootProject)
+
+        then:
+        1 * rootProject.allprojects(!null)
+    }
+
+    def "configures projects in parallel once root project has been evaluated for parallel configuration mode"() {
+        startParameter.isParallelConfiguration() >> true
+        startParameter.getParallelThreadCount() >> 3
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * rootProject.evaluate()
+
+        then:
+        1 * parallelConfigurer.configure(rootProject, 3)
+
+        then:
+        1 * rootProject.allprojects(!null)
+    }
+
     def "configures build for on demand mode"() {
         when:
         configurer.configure(gradle)
@@ -52,6 +86,8 @@ class DefaultBuildConfigurerTest extends Specification {
         1 * startParameter.isConfigureOnDemand() >> true
         1 * rootProject.evaluate()
         0 * rootProject._
+        0 * precompiler._
+        0 * parallelConfigurer._
 
         and:
         1 * gradle.addProjectEvaluationListener(_ as ImplicitTasksConfigurer);
@@ -16,11 +16,14 @@
 
 package org.gradle.configuration
 
+import org.gradle.api.CircularReferenceException
 import org.gradle.api.ProjectEvaluationListener
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectStateInternal
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+
 public class LifecycleProjectEvaluatorTest extends Specification {
     private project = Mock(ProjectInternal)
     private listener = Mock(ProjectEvaluationListener)
@@ -87,4 +90,64 @@ public class LifecycleProjectEvaluatorTest extends Specification {
         1 * state.executed()
         1 * listener.afterEvaluate(project, state)
     }
+
+    void "waits for evaluation of project by another thread to complete"() {
+        def state = new ProjectStateInternal()
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def events = Collections.synchronizedList([])
+        delegate.evaluate(project, state) >> { started.countDown(); release.await(); events << "evaluated" }
+        listener.afterEvaluate(project, state) >> { events << "afterEvaluate" }
+
+        when:
+        def evaluating = Thread.start { evaluator.evaluate(project, state) }
+        started.await()
+        def waiting = Thread.start { evaluator.evaluate(project, state); events << "waited" }
+        waitUntilWaiting(waiting)
+        release.countDown()
+        evaluating.join()
+        waiting.join()
+
+        then:
+        events == ["evaluated", "afterEvaluate", "waited"]
+    }
+
+    void "reports circular reference when evaluations in different threads wait for each other"() {
+        def stateA = new ProjectStateInternal()
+        def stateB = new ProjectStateInternal()
+        def projectB = Mock(ProjectInternal)
+        projectB.getProjectEvaluationBroadcaster() >> listener
+        def started = new CountDownLatch(2)
+        def failures = Collections.synchronizedList([])
+        delegate.evaluate(project, stateA) >> { dependOn(started, projectB, stateB, failures) }
+        delegate.evaluate(projectB, stateB) >> { dependOn(started, project, stateA, failures) }
+
+        when:
+        def evaluatingA = Thread.start { evaluator.evaluate(project, stateA) }
+        def evaluatingB = Thread.start { evaluator.evaluate(projectB, stateB) }
+        evaluatingA.join()
+        evaluatingB.join()
+
+        then:
+        failures.size() == 1
+        failures[0] instanceof CircularReferenceException
+        stateA.executed
+        stateB.executed
+    }
+
+    private void dependOn(CountDownLatch started, ProjectInternal target, ProjectStateInternal targetState, List failures) {
+        started.countDown()
+        started.await()
+        try {
+            evaluator.evaluate(target, targetState)
+        } catch (CircularReferenceException e) {
+            failures << e
+        }
+    }
+
+    private static void waitUntilWaiting(Thread thread) {
+        while (thread.state != Thread.State.WAITING) {
+            Thread.sleep(10)
+        }
+    }
 }
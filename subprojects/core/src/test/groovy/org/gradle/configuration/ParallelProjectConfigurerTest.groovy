@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelProjectConfigurerTest extends Specification {
+    final ParallelProjectConfigurer configurer = new ParallelProjectConfigurer(new DefaultExecutorFactory())
+    final List<String> evaluated = Collections.synchronizedList([])
+
+    def "evaluates each descendant of root project once after its parent"() {
+        def a1 = project(":a:a1")
+        def a = project(":a", a1)
+        def b = project(":b")
+        def root = project(":", a, b)
+        root.allprojects >> ([root, a, a1, b] as Set)
+
+        when:
+        configurer.configure(root, 4)
+
+        then:
+        evaluated as Set == [":a", ":a:a1", ":b"] as Set
+        evaluated.size() == 3
+        evaluated.indexOf(":a") < evaluated.indexOf(":a:a1")
+    }
+
+    def "does not evaluate child projects of a project which fails and rethrows failure"() {
+        def failure = new RuntimeException("broken")
+        def a1 = project(":a:a1")
+        def a = project(":a", a1)
+        def root = project(":", a)
+        root.allprojects >> ([root, a, a1] as Set)
+
+        when:
+        configurer.configure(root, 2)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        1 * a.evaluate() >> { throw failure }
+        !evaluated.contains(":a:a1")
+    }
+
+    def project(String path, ProjectInternal... children) {
+        ProjectInternal project = Mock()
+        def childProjects = new LinkedHashMap()
+        children.each { childProjects[it.path] = it }
+        _ * project.path >> path
+        _ * project.childProjects >> childProjects
+        _ * project.evaluate() >> { evaluated << path; project }
+        return project
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.DomainObjectSet
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.internal.artifacts.configurations.ConfigurationContainerInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import spock.lang.Specification
+
+class ProjectDependenciesEvaluatorTest extends Specification {
+    private final evaluator = new ProjectDependenciesEvaluator()
+    private final Map<ProjectInternal, List<ProjectDependency>> dependencies = [:]
+    private final Map<ProjectInternal, List<ProjectInternal>> evaluatedAlongWith = [:]
+    private ProjectInternal root, a, b, c, d
+
+    def setup() {
+        (root, a, b, c, d) = (1..5).collect { project() }
+        root.allprojects >> ([root, a, b, c, d] as Set)
+    }
+
+    def "evaluates project dependencies of evaluated projects transitively"() {
+        given:
+        evaluated(root)
+        evaluated(a)
+        dependsOn(a, b)
+        dependsOn(b, c)
+
+        when:
+        evaluator.evaluateDependencies(root)
+
+        then:
+        b.state.executed
+        c.state.executed
+        !d.state.executed
+    }
+
+    def "evaluates project dependencies of projects evaluated as a side effect of evaluating a dependency"() {
+        given:
+        evaluated(root)
+        evaluated(a)
+        dependsOn(a, b)
+        evaluatedAlongWith[b] = [c]
+        dependsOn(c, d)
+
+        when:
+        evaluator.evaluateDependencies(root)
+
+        then:
+        d.state.executed
+    }
+
+    def "does nothing when evaluated projects have no project dependencies"() {
+        given:
+        evaluated(root)
+
+        when:
+        evaluator.evaluateDependencies(root)
+
+        then:
+        !a.state.executed
+        !b.state.executed
+    }
+
+    private ProjectInternal project() {
+        def project = Mock(ProjectInternal)
+        def state = new ProjectStateInternal()
+        def configuration = Stub(Configuration)
+        def dependencySet = Stub(DependencySet)
+        def projectDependencies = Stub(DomainObjectSet)
+        def configurations = Stub(ConfigurationContainerInternal)
+        project.state >> state
+        project.configurations >> configurations
+        project.evaluate() >> {
+            state.executed()
+            evaluatedAlongWith[project]?.each { it.state.executed() }
+        }
+        configurations.iterator() >> { [configuration].iterator() }
+        configuration.dependencies >> dependencySet
+        dependencySet.withType(ProjectDependency) >> projectDependencies
+        projectDependencies.iterator() >> { (dependencies[project] ?: []).iterator() }
+        return project
+    }
+
+    private void evaluated(ProjectInternal project) {
+        project.state.executed()
+    }
+
+    private void dependsOn(ProjectInternal from, ProjectInternal to) {
+        def dependency = Stub(ProjectDependency)
+        dependency.dependencyProject >> to
+        dependencies.get(from, []) << dependency
+    }
+}
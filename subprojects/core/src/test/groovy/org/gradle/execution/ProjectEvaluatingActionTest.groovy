@@ -27,17 +27,20 @@ import spock.lang.Specification
 class ProjectEvaluatingActionTest extends Specification {
 
     private evaluator = Mock(TaskPathProjectEvaluator)
+    private dependenciesEvaluator = Mock(ProjectDependenciesEvaluator)
     private context = Mock(BuildExecutionContext)
     private startParameter = Mock(StartParameter)
     private gradle = Mock(GradleInternal)
     private project = Mock(DefaultProject)
+    private rootProject = Mock(DefaultProject)
 
-    private action = new ProjectEvaluatingAction(evaluator)
+    private action = new ProjectEvaluatingAction(evaluator, dependenciesEvaluator)
 
     def setup() {
         context.gradle >> gradle
         gradle.startParameter >> startParameter
         gradle.defaultProject >> project
+        gradle.rootProject >> rootProject
     }
 
     def "evaluates projects by task paths and proceeds"() {
@@ -47,11 +50,16 @@ class ProjectEvaluatingActionTest extends Specification {
         then:
         startParameter.taskNames >> ['foo', "bar:baz"]
 
-        1 * context.proceed()
         1 * evaluator.evaluateByPath(project, 'foo')
         1 * evaluator.evaluateByPath(project, 'bar:baz')
+
+        then:
+        1 * dependenciesEvaluator.evaluateDependencies(rootProject)
         0 * project.evaluate()
         0 * evaluator._
+
+        then:
+        1 * context.proceed()
     }
 
     def "evaluates the default project when the task names are empty"() {
@@ -63,6 +71,7 @@ class ProjectEvaluatingActionTest extends Specification {
 
         1 * context.proceed()
         1 * project.evaluate()
+        1 * dependenciesEvaluator.evaluateDependencies(rootProject)
         0 * project._
         0 * evaluator._
     }
@@ -15,6 +15,8 @@
  */
 package org.gradle.groovy.scripts.internal
 
+import org.gradle.api.internal.resource.Resource
+import org.gradle.cache.CacheValidator
 import spock.lang.Specification
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
@@ -23,7 +25,14 @@ import org.gradle.groovy.scripts.TestScript
 
 class CachingScriptClassCompilerTest extends Specification {
     private final ScriptClassCompiler target = Mock()
-    private final CachingScriptClassCompiler compiler = new CachingScriptClassCompiler(target)
+    private final CachingScriptClassCompiler.SharedClasses sharedClasses = new CachingScriptClassCompiler.SharedClasses()
+    private final CacheValidator validator = Mock()
+    private final CachingScriptClassCompiler compiler = new CachingScriptClassCompiler(target, sharedClasses, validator)
+    private boolean valid = true
+
+    def setup() {
+        _ * validator.isValid() >> { valid }
+    }
 
     def "caches the script class for a given script class and classloader and transformer and baseclass"() {
         ScriptSource script1 = scriptSource('script')
@@ -103,9 +112,64 @@ class CachingScriptClassCompilerTest extends Specification {
         1 * target.compile(script2, parentClassLoader, transformer, TestScript.class) >> TestScript.class
     }
 
-    def scriptSource(String className = 'script') {
+    def "shares the script class with later builds while script is unchanged"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('script')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def laterBuildCompiler = new CachingScriptClassCompiler(target, sharedClasses, validator)
+
+        when:
+        def c1 = compiler.compile(script1, parentClassLoader, transformer, Script.class)
+        def c2 = laterBuildCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+
+        then:
+        c1 == c2
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        0 * target._
+    }
+
+    def "does not share script class with later builds when script changes"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('script', 'changed content')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def laterBuildCompiler = new CachingScriptClassCompiler(target, sharedClasses, validator)
+
+        when:
+        compiler.compile(script1, parentClassLoader, transformer, Script.class)
+        laterBuildCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+
+        then:
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        1 * target.compile(script2, parentClassLoader, transformer, Script.class) >> Script.class
+    }
+
+    def "does not use script class shared by earlier build when cache is invalid"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('script')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def laterBuildCompiler = new CachingScriptClassCompiler(target, sharedClasses, validator)
+
+        when:
+        compiler.compile(script1, parentClassLoader, transformer, Script.class)
+        valid = false
+        def c1 = laterBuildCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+        def c2 = laterBuildCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+
+        then:
+        c1 == c2
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        1 * target.compile(script2, parentClassLoader, transformer, Script.class) >> TestScript.class
+    }
+
+    def scriptSource(String className = 'script', String text = 'content') {
         ScriptSource script = Mock()
+        Resource resource = Mock()
         _ * script.className >> className
+        _ * script.resource >> resource
+        _ * resource.text >> text
         script
     }
 
@@ -15,93 +15,179 @@
  */
 package org.gradle.groovy.scripts.internal
 
-import spock.lang.Specification
-import org.gradle.cache.CacheRepository
 import org.gradle.api.internal.resource.Resource
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.CacheValidator
 import org.gradle.cache.DirectoryCacheBuilder
 import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.FileLockManager
+import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
-import org.gradle.groovy.scripts.Script
-import org.gradle.cache.CacheValidator
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
 
 class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     final ScriptCompilationHandler scriptCompilationHandler = Mock()
     final CacheRepository cacheRepository = Mock()
     final DirectoryCacheBuilder cacheBuilder = Mock()
     final CacheValidator validator = Mock()
     final PersistentCache cache = Mock()
     final ScriptSource source = Mock()
+    final Resource resource = Mock()
     final ClassLoader classLoader = Mock()
     final Transformer transformer = Mock()
-    final File cacheDir = new File("base-dir")
     final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler)
+    File cacheDir
+    String scriptText = 'this is the script'
+    boolean valid = true
 
     def setup() {
-        Resource resource = Mock()
+        cacheDir = tmpDir.createDir("base-dir")
         _ * source.resource >> resource
-        _ * resource.text >> 'this is the script'
+        _ * resource.text >> { scriptText }
         _ * source.className >> 'ScriptClassName'
         _ * source.fileName >> 'ScriptFileName'
+        _ * source.displayName >> 'script'
         _ * transformer.id >> 'TransformerId'
+        _ * validator.isValid() >> { valid }
+        _ * cacheRepository.store("scriptClasses") >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withLockMode(FileLockManager.LockMode.None) >> cacheBuilder
+        _ * cacheBuilder.open() >> cache
         _ * cache.baseDir >> cacheDir
-        _ * validator.isValid() >> true
+        _ * cache.useCache(!null, !null) >> { args -> args[1].create() }
+        _ * scriptCompilationHandler.compileToDir(source, classLoader, !null, transformer, Script) >> { args -> args[2].mkdirs() }
+    }
+
+    def "compiles classes to cache directory when not already compiled"() {
+        when:
+        def result = compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        result == Script
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, { it.name.endsWith(".tmp") }, transformer, Script) >> { args -> args[2].mkdirs() }
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, { it.parentFile == cacheDir && it.directory }, Script) >> Script
+        cacheDir.listFiles().length == 1
+    }
+
+    def "loads classes from cache directory without locking cache when already compiled"() {
+        File classesDir = null
+        compiler.compile(source, classLoader, transformer, Script)
+
+        when:
+        def result = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler).compile(source, classLoader, transformer, Script)
+
+        then:
+        result == Script
+        0 * cache.useCache(_, _)
+        0 * scriptCompilationHandler.compileToDir(_, _, _, _, _)
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, !null, Script) >> { args -> classesDir = args[2]; Script }
+        classesDir.directory
+    }
+
+    def "compiles classes to new directory and keeps old directory when script changes"() {
+        compiler.compile(source, classLoader, transformer, Script)
+        def oldDir = cacheDir.listFiles().find { it.directory }
+        scriptText = 'this is the new script'
+
+        when:
+        compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, { it != oldDir && it.directory }, Script) >> Script
+        oldDir.directory
     }
 
-    def "loads classes from cache directory"() {
+    def "discards compiled classes when they have been published by another process in the meantime"() {
         when:
         def result = compiler.compile(source, classLoader, transformer, Script)
 
         then:
         result == Script
-        1 * cacheRepository.cache("scripts/ScriptClassName/Script/TransformerId") >> cacheBuilder
-        1 * cacheBuilder.withProperties(!null) >> { args ->
-            assert args[0].get('source.filename') == 'ScriptFileName'
-            assert args[0].containsKey('source.hash')
-            return cacheBuilder
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, !null, transformer, Script) >> { args ->
+            args[2].mkdirs()
+            new File(cacheDir, args[2].name.replaceFirst(/-.*/, '')).mkdirs()
         }
-        1 * cacheBuilder.withInitializer(!null) >> cacheBuilder
-        1 * cacheBuilder.withDisplayName(!null) >> cacheBuilder
-        1 * cacheBuilder.withValidator(!null) >> cacheBuilder
-        1 * cacheBuilder.open() >> cache
-        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), Script) >> Script
-        0 * scriptCompilationHandler._
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, { it.directory }, Script) >> Script
+        cacheDir.listFiles().length == 1
     }
 
-    def "passes CacheValidator to cacheBuilder"() {
-        setup:
-        cacheRepository.cache("scripts/ScriptClassName/Script/TransformerId") >> cacheBuilder
-        cacheBuilder.withProperties(!null) >> cacheBuilder
-        cacheBuilder.withInitializer(!null) >> cacheBuilder
-        cacheBuilder.withDisplayName(!null) >> cacheBuilder
-        cacheBuilder.open() >> cache
-        scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), Script) >> Script
+    def "removes temporary directory when compilation fails"() {
+        def failure = new RuntimeException("broken")
 
         when:
         compiler.compile(source, classLoader, transformer, Script)
 
         then:
-        1 * cacheBuilder.withValidator(validator) >> cacheBuilder
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, !null, transformer, Script) >> { args ->
+            args[2].mkdirs()
+            throw failure
+        }
+        RuntimeException e = thrown()
+        e == failure
+        cacheDir.listFiles().length == 0
+    }
 
+    def "removes stale temporary directories when cache is opened"() {
+        def staleDir = new File(cacheDir, "key-1234.tmp")
+        staleDir.mkdirs()
+        staleDir.lastModified = System.currentTimeMillis() - 2 * 24 * 60 * 60 * 1000L
+        def recentDir = new File(cacheDir, "key-5678.tmp")
+        recentDir.mkdirs()
 
+        when:
+        compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        !staleDir.exists()
+        recentDir.directory
     }
 
-    def "compiles classes to cache directory when cache is invalid"() {
-        def initializer
+    def "compiles classes again once when cache is invalid"() {
+        compiler.compile(source, classLoader, transformer, Script)
+        valid = false
 
         when:
-        def result = compiler.compile(source, classLoader, transformer, Script)
+        compiler.compile(source, classLoader, transformer, Script)
+        compiler.compile(source, classLoader, transformer, Script)
 
         then:
-        result == Script
-        1 * cacheRepository.cache("scripts/ScriptClassName/Script/TransformerId") >> cacheBuilder
-        1 * cacheBuilder.withProperties(!null) >> cacheBuilder
-        1 * cacheBuilder.withDisplayName(!null) >> cacheBuilder
-        1 * cacheBuilder.withValidator(!null) >> cacheBuilder
-        1 * cacheBuilder.withInitializer(!null) >> {args -> initializer = args[0]; return cacheBuilder}
-        1 * cacheBuilder.open() >> {initializer.execute(cache); return cache}
-        1 * scriptCompilationHandler.compileToDir(source, classLoader, new File(cacheDir, "classes"), transformer, Script)
-        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), Script) >> Script
-        0 * scriptCompilationHandler._
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, !null, transformer, Script) >> { args -> args[2].mkdirs() }
+    }
+
+    def "publishes recompiled classes as new generation and keeps earlier generation"() {
+        compiler.compile(source, classLoader, transformer, Script)
+        def oldDir = cacheDir.listFiles().find { it.directory }
+        new File(oldDir, "Script.class").text = "old"
+        valid = false
+        File newDir = null
+
+        when:
+        compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, !null, Script) >> { args -> newDir = args[2]; Script }
+        newDir.directory
+        newDir.name == "${oldDir.name}-1"
+        new File(oldDir, "Script.class").text == "old"
+    }
+
+    def "loads latest generation of classes in later builds"() {
+        compiler.compile(source, classLoader, transformer, Script)
+        valid = false
+        compiler.compile(source, classLoader, transformer, Script)
+        valid = true
+        File classesDir = null
+
+        when:
+        new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler).compile(source, classLoader, transformer, Script)
+
+        then:
+        0 * scriptCompilationHandler.compileToDir(_, _, _, _, _)
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, !null, Script) >> { args -> classesDir = args[2]; Script }
+        classesDir.name.endsWith("-1")
     }
 }
@@ -72,6 +72,7 @@ public class DefaultCommandLineConverterTest {
     private boolean expectedRecompileScripts;
     private int expectedParallelExecutorCount;
     private boolean expectedConfigureOnDemand;
+    private boolean expectedParallelConfiguration;
 
     @Test
     public void withoutAnyOptions() {
@@ -112,6 +113,7 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
         assertEquals(expectedParallelExecutorCount, startParameter.getParallelThreadCount());
         assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
+        assertEquals(expectedParallelConfiguration, startParameter.isParallelConfiguration());
     }
 
     @Test
@@ -413,4 +415,10 @@ public class DefaultCommandLineConverterTest {
         expectedConfigureOnDemand = true;
         checkConversion("--configure-on-demand");
     }
+
+    @Test
+    public void withParallelConfiguration() {
+        expectedParallelConfiguration = true;
+        checkConversion("--parallel-configuration");
+    }
 }
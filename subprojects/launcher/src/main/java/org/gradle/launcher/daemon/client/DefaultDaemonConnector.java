@@ -37,6 +37,8 @@ import java.util.List;
 public class DefaultDaemonConnector implements DaemonConnector {
     private static final Logger LOGGER = Logging.getLogger(DefaultDaemonConnector.class);
     public static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+    private static final long MIN_POLL_INTERVAL = 10L;
+    private static final long MAX_POLL_INTERVAL = 200L;
     private final DaemonRegistry daemonRegistry;
     protected final OutgoingConnector connector;
     private final DaemonStarter daemonStarter;
@@ -95,18 +97,27 @@ public class DefaultDaemonConnector implements DaemonConnector {
         LOGGER.info("Starting Gradle daemon");
         final DaemonStartupInfo startupInfo = daemonStarter.startDaemon();
         LOGGER.debug("Started Gradle Daemon: {}", startupInfo);
+
+        // The daemon advertises itself in the registry before it sends the greeting that the starter waits for, so the daemon can usually be
+        // connected to straight away. Poll the registry with an increasing interval in case the daemon cannot be seen yet.
         long expiry = System.currentTimeMillis() + connectTimeout;
-        do {
-            try {
-                Thread.sleep(200L);
-            } catch (InterruptedException e) {
-                throw UncheckedException.throwAsUncheckedException(e);
-            }
+        long pollInterval = MIN_POLL_INTERVAL;
+        while (true) {
             DaemonClientConnection daemonConnection = connectToDaemonWithId(startupInfo, constraint);
             if (daemonConnection != null) {
                 return daemonConnection;
             }
-        } while (System.currentTimeMillis() < expiry);
+            long remaining = expiry - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(pollInterval, remaining));
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL);
+        }
 
         throw new GradleException("Timeout waiting to connect to Gradle daemon.\n" + startupInfo.describe());
     }
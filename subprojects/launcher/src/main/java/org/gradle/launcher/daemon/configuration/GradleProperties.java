@@ -46,6 +46,7 @@ public class GradleProperties {
     public static final String DEBUG_MODE_PROPERTY = "org.gradle.debug";
     public static final String CONFIGURE_ON_DEMAND_PROPERTY = "org.gradle.configureondemand";
     public static final String PARALLEL_PROPERTY = "org.gradle.parallel";
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.parallelconfiguration";
 
     private File daemonBaseDir;
     private String jvmArgs;
@@ -56,6 +57,7 @@ public class GradleProperties {
     private boolean debugMode;
     private boolean configureOnDemand;
     private boolean parallelMode;
+    private boolean parallelConfiguration;
 
     public boolean isDaemonEnabled() {
         return daemonEnabled;
@@ -175,6 +177,11 @@ public class GradleProperties {
             parallelMode = isTrue(propertyValue);
         }
 
+        propertyValue = properties.get(PARALLEL_CONFIGURATION_PROPERTY);
+        if (propertyValue != null) {
+            parallelConfiguration = isTrue(propertyValue);
+        }
+
         return this;
     }
 
@@ -185,6 +192,9 @@ public class GradleProperties {
         if (parallelMode && !startParameter.isParallelThreadCountConfigured()) {
             startParameter.setParallelThreadCount(-1);
         }
+        if (parallelConfiguration) {
+            startParameter.setParallelConfiguration(true);
+        }
     }
 
     public boolean isConfigureOnDemand() {
@@ -195,6 +205,10 @@ public class GradleProperties {
         return parallelMode;
     }
 
+    public boolean isParallelConfiguration() {
+        return parallelConfiguration;
+    }
+
     private static boolean isTrue(Object propertyValue) {
         return propertyValue.toString().equalsIgnoreCase("true");
     }
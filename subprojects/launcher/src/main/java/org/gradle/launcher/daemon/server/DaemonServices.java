@@ -86,7 +86,7 @@ public class DaemonServices extends DefaultServiceRegistry {
                 get(DaemonContext.class),
                 "password",
                 new DefaultDaemonCommandExecuter(
-                        new DefaultGradleLauncherFactory(loggingServices),
+                        new DefaultGradleLauncherFactory(loggingServices, true),
                         get(ProcessEnvironment.class),
                         loggingManager,
                         getDaemonLogFile()),
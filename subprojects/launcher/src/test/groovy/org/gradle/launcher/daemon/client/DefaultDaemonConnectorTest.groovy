@@ -34,6 +34,7 @@ class DefaultDaemonConnectorTest extends Specification {
     def javaHome = new File("tmp")
     def connectTimeoutSecs = 1
     def daemonCounter = 0
+    Closure daemonStarter = { startBusyDaemon() }
 
     class OutgoingConnectorStub implements OutgoingConnector {
         Connection connect(Address address, ClassLoader messageClassLoader) throws ConnectException {
@@ -60,7 +61,7 @@ class DefaultDaemonConnectorTest extends Specification {
         def connector = Spy(DefaultDaemonConnector, constructorArgs: [
                 new EmbeddedDaemonRegistry(),
                 Spy(OutgoingConnectorStub),
-                { startBusyDaemon() } as DaemonStarter]
+                { daemonStarter.call() } as DaemonStarter]
         )
         connector.connectTimeout = connectTimeoutSecs * 1000
         connector
@@ -68,11 +69,15 @@ class DefaultDaemonConnectorTest extends Specification {
 
     def startBusyDaemon() {
         def daemonNum = daemonCounter++
+        registerBusyDaemon(daemonNum)
+        return new DaemonStartupInfo(daemonNum.toString(), null);
+    }
+
+    def registerBusyDaemon(int daemonNum) {
         DaemonContext context = new DefaultDaemonContext(daemonNum.toString(), javaHome, javaHome, daemonNum, 1000, [])
         def address = createAddress(daemonNum)
         registry.store(address, context, "password", false)
         registry.markBusy(address)
-        return new DaemonStartupInfo(daemonNum.toString(), null);
     }
 
     def startIdleDaemon() {
@@ -194,4 +199,32 @@ class DefaultDaemonConnectorTest extends Specification {
         then:
         thrown(GradleException)
     }
-}
\ No newline at end of file
+
+    def "connect() waits for a newly started daemon which is not yet registered"() {
+        given:
+        daemonStarter = {
+            def daemonNum = daemonCounter++
+            Thread.start {
+                Thread.sleep(300)
+                registerBusyDaemon(daemonNum)
+            }
+            return new DaemonStartupInfo(daemonNum.toString(), null)
+        }
+
+        expect:
+        def connection = connector.connect({true} as DummyExplainingSpec)
+        connection && connection.connection.num == 0
+    }
+
+    def "connect() fails when newly started daemon is not registered before the timeout"() {
+        given:
+        daemonStarter = { new DaemonStartupInfo("unknown", null) }
+
+        when:
+        connector.connect({true} as DummyExplainingSpec)
+
+        then:
+        def e = thrown(GradleException)
+        e.message.startsWith("Timeout waiting to connect to Gradle daemon.")
+    }
+}
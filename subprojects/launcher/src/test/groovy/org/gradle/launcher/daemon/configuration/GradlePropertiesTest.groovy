@@ -168,6 +168,28 @@ class GradlePropertiesTest extends Specification {
         flag << ["true", "false"]
     }
 
+    def "configures parallel configuration mode"() {
+        when:
+        properties.configureFrom((GradleProperties.PARALLEL_CONFIGURATION_PROPERTY): flag)
+
+        then:
+        properties.parallelConfiguration.toString() == flag
+
+        where:
+        flag << ["true", "false"]
+    }
+
+    def "informs start parameter about parallel configuration"() {
+        def param = Mock(StartParameter)
+
+        when:
+        properties.parallelConfiguration = true
+        properties.updateStartParameter(param)
+
+        then:
+        1 * param.setParallelConfiguration(true)
+    }
+
     def "informs start parameter about configure on demand"() {
         def param = Mock(StartParameter)
 
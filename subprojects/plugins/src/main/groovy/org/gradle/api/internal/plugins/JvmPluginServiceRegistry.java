@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.plugins;
+
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.internal.project.PluginServiceRegistry;
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+
+/**
+ * The services of the plugins module.
+ */
+public class JvmPluginServiceRegistry implements PluginServiceRegistry {
+    public ServiceRegistry createGlobalServices(ServiceRegistry globalServices) {
+        return new GlobalScopeServices();
+    }
+
+    public ServiceRegistry createBuildServices(ServiceRegistry buildServices) {
+        return new BuildScopeServices(buildServices);
+    }
+
+    private static class GlobalScopeServices extends DefaultServiceRegistry {
+        protected TestWorkerPool createTestWorkerPool() {
+            return new TestWorkerPool();
+        }
+    }
+
+    private static class BuildScopeServices extends DefaultServiceRegistry {
+        private BuildScopeServices(ServiceRegistry buildServices) {
+            super(buildServices);
+        }
+
+        protected JarClassIndexCache createJarClassIndexCache() {
+            return new JarClassIndexCache(get(ZipCentralDirectoryCache.class));
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.gradle.api.internal.tasks.compile;
 import org.gradle.api.AntBuilder;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.tasks.compile.incremental.SelectiveJavaCompiler;
+import org.gradle.api.tasks.WorkResult;
 
 public class IncrementalJavaCompiler extends IncrementalJavaCompilerSupport<JavaCompileSpec> implements Compiler<JavaCompileSpec> {
     private final Compiler<JavaCompileSpec> compiler;
@@ -31,6 +33,14 @@ public class IncrementalJavaCompiler extends IncrementalJavaCompilerSupport<Java
         this.taskOutputs = taskOutputs;
     }
 
+    @Override
+    public WorkResult execute(JavaCompileSpec spec) {
+        if (spec.getCompileOptions().isIncremental() && !spec.getCompileOptions().isUseDepend()) {
+            return new SelectiveJavaCompiler(compiler, taskOutputs).execute(spec);
+        }
+        return super.execute(spec);
+    }
+
     @Override
     protected Compiler<JavaCompileSpec> getCompiler() {
         return compiler;
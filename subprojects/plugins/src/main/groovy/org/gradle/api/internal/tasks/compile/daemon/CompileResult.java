@@ -23,10 +23,22 @@ import java.io.Serializable;
 public class CompileResult implements WorkResult, Serializable {
     private final boolean didWork;
     private final Throwable exception;
+    private final long retainedHeap;
+    private final long maxHeap;
 
     public CompileResult(boolean didWork, @Nullable Throwable exception) {
+        this(didWork, exception, -1, -1);
+    }
+
+    /**
+     * @param retainedHeap The heap of the compiler daemon which was still in use after its last garbage collection, in bytes, or -1 if unknown.
+     * @param maxHeap The maximum heap of the compiler daemon, in bytes, or -1 if unknown.
+     */
+    public CompileResult(boolean didWork, @Nullable Throwable exception, long retainedHeap, long maxHeap) {
         this.didWork = didWork;
         this.exception = exception;
+        this.retainedHeap = retainedHeap;
+        this.maxHeap = maxHeap;
     }
 
     public boolean getDidWork() {
@@ -41,4 +53,12 @@ public class CompileResult implements WorkResult, Serializable {
     public boolean isSuccess() {
         return exception == null;
     }
+
+    public long getRetainedHeap() {
+        return retainedHeap;
+    }
+
+    public long getMaxHeap() {
+        return maxHeap;
+    }
 }
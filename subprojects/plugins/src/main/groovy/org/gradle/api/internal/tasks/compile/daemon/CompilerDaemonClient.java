@@ -19,12 +19,16 @@ import net.jcip.annotations.ThreadSafe;
 
 import org.gradle.api.internal.tasks.compile.CompileSpec;
 import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.Stoppable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.process.internal.WorkerProcess;
 
+import java.io.Serializable;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -33,8 +37,11 @@ public class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClien
     private final DaemonForkOptions forkOptions;
     private final WorkerProcess workerProcess;
     private final CompilerDaemonServerProtocol server;
-    private final BlockingQueue<CompileResult> compileResults = new SynchronousQueue<CompileResult>();
+    // not a synchronous queue, so that a result which arrives after a health check has given up does not block the connection
+    private final BlockingQueue<CompileResult> compileResults = new LinkedBlockingQueue<CompileResult>();
     private final Lock lock = new ReentrantLock(true);
+    private volatile boolean failed;
+    private volatile CompileResult lastResult;
 
     public CompilerDaemonClient(DaemonForkOptions forkOptions, WorkerProcess workerProcess, CompilerDaemonServerProtocol server) {
         this.forkOptions = forkOptions;
@@ -43,19 +50,69 @@ public class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClien
     }
 
     public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
-        // currently we just allow a single compilation thread at a time (per compiler daemon)
-        // one problem to solve when allowing multiple threads is how to deal with memory requirements specified by compile tasks
+        // a single compilation at a time (per compiler daemon), as the memory requirements of compile tasks are specified per process.
+        // concurrent compilations are spread over several daemons by CompilerDaemonManager
         lock.lock();
         try {
             server.execute(compiler, spec);
-            return compileResults.take();
+            lastResult = compileResults.take();
+            return lastResult;
         } catch (InterruptedException e) {
             throw UncheckedException.throwAsUncheckedException(e);
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Checks that the daemon still responds, by running a compiler which does nothing. Returns false without waiting when the daemon is busy.
+     */
+    public boolean isHealthy(long timeout, TimeUnit unit) {
+        if (failed || !lock.tryLock()) {
+            return false;
+        }
+        try {
+            server.execute(new HealthCheckCompiler(), new HealthCheckSpec());
+            CompileResult result = compileResults.poll(timeout, unit);
+            if (result == null || !result.isSuccess()) {
+                failed = true;
+                return false;
+            }
+            lastResult = result;
+            return true;
+        } catch (Exception e) {
+            failed = true;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true when a compilation or a health check has failed, in which case the daemon should not be used again.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the proportion of the maximum heap of the daemon which was retained after its last compilation, or -1 if unknown.
+     */
+    public double getRetainedHeapRatio() {
+        CompileResult result = lastResult;
+        if (result == null || result.getRetainedHeap() < 0 || result.getMaxHeap() <= 0) {
+            return -1;
+        }
+        return (double) result.getRetainedHeap() / result.getMaxHeap();
+    }
+
+    public DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
     public boolean isCompatibleWith(DaemonForkOptions required) {
         return forkOptions.isCompatibleWith(required);
     }
@@ -71,10 +128,15 @@ public class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClien
     }
 
     public void executed(CompileResult result) {
-        try {
-            compileResults.put(result);
-        } catch (InterruptedException e) {
-            throw UncheckedException.throwAsUncheckedException(e);
+        compileResults.add(result);
+    }
+
+    private static class HealthCheckSpec implements CompileSpec, Serializable {
+    }
+
+    private static class HealthCheckCompiler implements Compiler<HealthCheckSpec>, Serializable {
+        public WorkResult execute(HealthCheckSpec spec) {
+            return new SimpleWorkResult(false);
         }
     }
 }
@@ -20,91 +20,654 @@ import net.jcip.annotations.ThreadSafe;
 import org.gradle.BuildAdapter;
 import org.gradle.BuildResult;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.compile.CompileSpec;
+import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.initialization.GradleBuildEnvironment;
 import org.gradle.internal.CompositeStoppable;
-import org.gradle.internal.jvm.Jvm;
-import org.gradle.process.internal.JavaExecHandleBuilder;
-import org.gradle.process.internal.WorkerProcess;
-import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.internal.UncheckedException;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Controls the lifecycle of the compiler daemon and provides access to it.
+ * Controls the lifecycle of the compiler daemons and provides access to them.
+ *
+ * <p>Each daemon runs one compilation at a time, so the manager keeps a pool of daemons. A compilation is given the idle compatible daemon with the
+ * smallest maximum heap. When there is none, a new daemon is started, unless as many compatible daemons as there are parallel build threads are
+ * already running, in which case the compilation waits for one of them. The total maximum heap of the daemons is bounded by half of the physical
+ * memory. When there is not enough room for another daemon, the compilation waits for a compatible daemon if there is one, otherwise idle daemons
+ * are stopped, least recently used first, to make room for a new daemon.</p>
+ *
+ * <p>When the build runs in a Gradle daemon, the compiler daemons are kept running between builds, so that later builds do not pay for starting
+ * and warming up the compilers again. When a build finishes, the daemons which do not respond, or which retain most of their heap, are stopped.
+ * Daemons which have not been used for the idle timeout are stopped. A daemon is only reused by a later build with the same root project directory
+ * and log level, and while its classpath is unchanged. Otherwise, all daemons are stopped when the build finishes.</p>
  */
 @ThreadSafe
 public class CompilerDaemonManager implements CompilerDaemonFactory {
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
-    private static final CompilerDaemonManager INSTANCE = new CompilerDaemonManager();
-    
-    private final List<CompilerDaemonClient> clients = new ArrayList<CompilerDaemonClient>();
+    private static final CompilerDaemonManager INSTANCE = new CompilerDaemonManager(new CompilerDaemonStarter(), getDefaultHeapBudgetMb(),
+            TimeUnit.MINUTES.toMillis(30));
+    // the heap assumed for a daemon whose maximum heap size is not specified
+    static final int DEFAULT_DAEMON_HEAP_MB = 256;
+    private static final long HEALTH_CHECK_TIMEOUT_MILLIS = 5000;
+    // a daemon which retains more of its heap than this is likely to collect garbage more than it compiles
+    private static final double MAX_RETAINED_HEAP_RATIO = 0.75;
+
+    private final CompilerDaemonStarter starter;
+    private final long heapBudgetMb;
+    private final long idleTimeoutMillis;
+    private final Lock lock = new ReentrantLock();
+    private final Condition daemonReleased = lock.newCondition();
+    private final List<PooledDaemon> daemons = new ArrayList<PooledDaemon>();
+    // least recently used first
+    private final LinkedList<PooledDaemon> idleDaemons = new LinkedList<PooledDaemon>();
+    private boolean buildListenerRegistered;
+    private boolean keepDaemonsBetweenBuilds;
+    private int buildNumber;
+    private Timer idleTimer;
+    private TimerTask idleCheck;
+
+    private long statisticsStartedAt = System.nanoTime();
+    private long compilations;
+    private long queuedCompilations;
+    private long totalQueueWaitNanos;
+    private long maxQueueWaitNanos;
+    private long busyNanos;
+    private long stoppedDaemonsLifetimeNanos;
+    private int daemonsStarted;
+    private int daemonsReused;
+    private int daemonsEvicted;
+    private int daemonsRetired;
+    private int peakDaemons;
 
     public static CompilerDaemonManager getInstance() {
         return INSTANCE;
     }
 
-    public synchronized CompilerDaemon getDaemon(ProjectInternal project, DaemonForkOptions forkOptions) {
-        if (clients.isEmpty()) {
-            registerStopOnBuildFinished(project);
+    /**
+     * @param heapBudgetMb The maximum total heap of the daemons, in megabytes.
+     * @param idleTimeoutMillis How long a daemon is kept running when it is not used.
+     */
+    CompilerDaemonManager(CompilerDaemonStarter starter, long heapBudgetMb, long idleTimeoutMillis) {
+        this.starter = starter;
+        this.heapBudgetMb = heapBudgetMb;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns a compiler daemon with the given fork options. The returned daemon takes a daemon from the pool for the duration of each compilation.
+     */
+    public CompilerDaemon getDaemon(final ProjectInternal project, final DaemonForkOptions forkOptions) {
+        lock.lock();
+        try {
+            if (!buildListenerRegistered) {
+                registerBuildFinishedListener(project);
+                buildListenerRegistered = true;
+                keepDaemonsBetweenBuilds = project.getServices().get(GradleBuildEnvironment.class).isLongLivingProcess();
+                statisticsStartedAt = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
         }
 
-        for (CompilerDaemonClient client: clients) {
-            if (client.isCompatibleWith(forkOptions)) {
-                return client;
+        return new CompilerDaemon() {
+            public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
+                PooledDaemon daemon = acquire(project, forkOptions);
+                long start = System.nanoTime();
+                try {
+                    return daemon.client.execute(compiler, spec);
+                } finally {
+                    release(daemon, System.nanoTime() - start);
+                }
             }
+        };
+    }
+
+    /**
+     * Stops all daemons.
+     */
+    public void stop() {
+        List<CompilerDaemonClient> clients = new ArrayList<CompilerDaemonClient>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (PooledDaemon daemon : daemons) {
+                if (daemon.client != null) {
+                    clients.add(daemon.client);
+                    stoppedDaemonsLifetimeNanos += getLifetimeNanos(daemon, now);
+                }
+            }
+            daemons.clear();
+            idleDaemons.clear();
+            if (idleCheck != null) {
+                idleCheck.cancel();
+                idleCheck = null;
+            }
+        } finally {
+            lock.unlock();
         }
+        stopDaemons(clients);
+    }
 
-        CompilerDaemonClient client = startDaemon(project, forkOptions);
-        clients.add(client);
-        return client;
+    public Statistics getStatistics() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long lifetimeNanos = stoppedDaemonsLifetimeNanos;
+            int running = 0;
+            for (PooledDaemon daemon : daemons) {
+                if (daemon.client != null) {
+                    lifetimeNanos += getLifetimeNanos(daemon, now);
+                    running++;
+                }
+            }
+            return new Statistics(compilations, queuedCompilations, totalQueueWaitNanos, maxQueueWaitNanos, busyNanos, lifetimeNanos, daemonsStarted,
+                    daemonsReused, daemonsEvicted, daemonsRetired, running, peakDaemons);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void stop() {
-        LOGGER.info("Stopping {} Gradle compiler daemon(s).", clients.size());
-        CompositeStoppable.stoppable(clients).stop();
-        LOGGER.info("Stopped {} Gradle compiler daemon(s).", clients.size());
-        clients.clear();
+    private void resetStatistics() {
+        lock.lock();
+        try {
+            statisticsStartedAt = System.nanoTime();
+            compilations = 0;
+            queuedCompilations = 0;
+            totalQueueWaitNanos = 0;
+            maxQueueWaitNanos = 0;
+            busyNanos = 0;
+            stoppedDaemonsLifetimeNanos = 0;
+            daemonsStarted = 0;
+            daemonsReused = 0;
+            daemonsEvicted = 0;
+            daemonsRetired = 0;
+            peakDaemons = 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private void registerStopOnBuildFinished(ProjectInternal project) {
+    private void registerBuildFinishedListener(ProjectInternal project) {
         project.getGradle().addBuildListener(new BuildAdapter() {
             @Override
             public void buildFinished(BuildResult result) {
-                stop();
+                CompilerDaemonManager.this.buildFinished();
             }
         });
     }
 
-    private CompilerDaemonClient startDaemon(ProjectInternal project, DaemonForkOptions forkOptions) {
-        LOGGER.info("Starting Gradle compiler daemon with fork options {}.", forkOptions);
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(forkOptions.toString());
+    void buildFinished() {
+        boolean keepDaemons;
+        lock.lock();
+        try {
+            keepDaemons = keepDaemonsBetweenBuilds;
+        } finally {
+            lock.unlock();
+        }
+        if (keepDaemons) {
+            retireDaemons(true);
+        } else {
+            stop();
+        }
+        Statistics statistics = getStatistics();
+        if (statistics.getCompilations() > 0) {
+            LOGGER.info(statistics.toString());
+        }
+        resetStatistics();
+
+        lock.lock();
+        try {
+            buildNumber++;
+            buildListenerRegistered = false;
+            if (daemons.isEmpty()) {
+                return;
+            }
+            LOGGER.info("Keeping {} Gradle compiler daemon(s) running for the next build.", daemons.size());
+            if (idleCheck != null) {
+                idleCheck.cancel();
+            }
+            if (idleTimer == null) {
+                idleTimer = new Timer("Compiler daemon idle timer", true);
+            }
+            idleCheck = new TimerTask() {
+                @Override
+                public void run() {
+                    retireDaemons(false);
+                }
+            };
+            idleTimer.schedule(idleCheck, idleTimeoutMillis + 1000);
+        } finally {
+            lock.unlock();
         }
+    }
 
-        WorkerProcessBuilder builder = project.getServices().getFactory(WorkerProcessBuilder.class).create();
-        builder.setLogLevel(project.getGradle().getStartParameter().getLogLevel()); // NOTE: might make sense to respect per-compile-task log level
-        builder.applicationClasspath(forkOptions.getClasspath());
-        builder.sharedPackages(forkOptions.getSharedPackages());
-        File toolsJar = Jvm.current().getToolsJar();
-        if (toolsJar != null) {
-            builder.getApplicationClasspath().add(toolsJar); // for SunJavaCompiler
+    /**
+     * Stops the idle daemons which have not been used for the idle timeout, or which retain too much of their heap, and optionally those which do
+     * not respond to a health check.
+     */
+    private void retireDaemons(boolean checkHealth) {
+        List<CompilerDaemonClient> toStop = new ArrayList<CompilerDaemonClient>();
+        List<PooledDaemon> toCheck = new ArrayList<PooledDaemon>();
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (Iterator<PooledDaemon> iterator = idleDaemons.iterator(); iterator.hasNext();) {
+                PooledDaemon daemon = iterator.next();
+                if (now - daemon.lastUsed >= idleTimeoutMillis) {
+                    LOGGER.info("Stopping Gradle compiler daemon with fork options {} as it has been idle for {} ms.", daemon.forkOptions, now - daemon.lastUsed);
+                } else if (daemon.client.getRetainedHeapRatio() > MAX_RETAINED_HEAP_RATIO) {
+                    LOGGER.info("Stopping Gradle compiler daemon with fork options {} as it retains {}% of its heap.", daemon.forkOptions,
+                            Math.round(daemon.client.getRetainedHeapRatio() * 100));
+                } else {
+                    if (checkHealth) {
+                        // not available to compilations while it is being checked
+                        iterator.remove();
+                        toCheck.add(daemon);
+                    }
+                    continue;
+                }
+                iterator.remove();
+                retire(daemon, toStop);
+            }
+        } finally {
+            lock.unlock();
         }
-        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
-        javaCommand.setMinHeapSize(forkOptions.getMinHeapSize());
-        javaCommand.setMaxHeapSize(forkOptions.getMaxHeapSize());
-        javaCommand.setJvmArgs(forkOptions.getJvmArgs());
-        javaCommand.setWorkingDir(project.getRootProject().getProjectDir());
-        WorkerProcess process = builder.worker(new CompilerDaemonServer()).build();
-        process.start();
-        CompilerDaemonServerProtocol server = process.getConnection().addOutgoing(CompilerDaemonServerProtocol.class);
-        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, process, server);
-        process.getConnection().addIncoming(CompilerDaemonClientProtocol.class, client);
 
-        LOGGER.info("Started Gradle compiler daemon with fork options {}.", forkOptions);
+        List<PooledDaemon> checked = new ArrayList<PooledDaemon>();
+        for (PooledDaemon daemon : toCheck) {
+            if (daemon.client.isHealthy(HEALTH_CHECK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                checked.add(daemon);
+            } else {
+                LOGGER.info("Stopping Gradle compiler daemon with fork options {} as it did not respond to a health check.", daemon.forkOptions);
+            }
+        }
 
-        return client;
+        lock.lock();
+        try {
+            for (PooledDaemon daemon : toCheck) {
+                if (!daemons.contains(daemon)) {
+                    continue;
+                }
+                if (checked.contains(daemon)) {
+                    idleDaemons.addLast(daemon);
+                } else {
+                    retire(daemon, toStop);
+                }
+            }
+            daemonReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        stopDaemons(toStop);
+    }
+
+    private void retire(PooledDaemon daemon, List<CompilerDaemonClient> toStop) {
+        daemons.remove(daemon);
+        toStop.add(daemon.client);
+        stoppedDaemonsLifetimeNanos += getLifetimeNanos(daemon, System.nanoTime());
+        daemonsRetired++;
+    }
+
+    private void stopDaemons(List<CompilerDaemonClient> clients) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Stopping {} Gradle compiler daemon(s).", clients.size());
+        CompositeStoppable.stoppable(clients).stop();
+        LOGGER.info("Stopped {} Gradle compiler daemon(s).", clients.size());
+    }
+
+    private PooledDaemon acquire(ProjectInternal project, DaemonForkOptions forkOptions) {
+        int maxDaemons = getMaxDaemons(project);
+        File workingDir = project.getRootProject().getProjectDir();
+        LogLevel logLevel = project.getGradle().getStartParameter().getLogLevel();
+        List<CompilerDaemonClient> toStop = new ArrayList<CompilerDaemonClient>();
+        PooledDaemon acquired = null;
+        PooledDaemon starting = null;
+        long waitStart = System.nanoTime();
+        boolean queued = false;
+        lock.lock();
+        try {
+            while (acquired == null && starting == null) {
+                PooledDaemon daemon = findIdleDaemon(forkOptions, workingDir, logLevel);
+                if (daemon != null) {
+                    idleDaemons.remove(daemon);
+                    if (daemon.lastBuild == buildNumber) {
+                        acquired = daemon;
+                    } else if (daemon.isClasspathUnchanged()) {
+                        LOGGER.info("Reusing Gradle compiler daemon with fork options {} from an earlier build.", daemon.forkOptions);
+                        daemonsReused++;
+                        daemon.lastBuild = buildNumber;
+                        acquired = daemon;
+                    } else {
+                        LOGGER.info("Stopping Gradle compiler daemon with fork options {} as its classpath has changed.", daemon.forkOptions);
+                        retire(daemon, toStop);
+                    }
+                } else if (makeRoom(forkOptions, workingDir, logLevel, maxDaemons, toStop)) {
+                    starting = new PooledDaemon(forkOptions, workingDir, logLevel);
+                    daemons.add(starting);
+                } else {
+                    queued = true;
+                    try {
+                        daemonReleased.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            }
+            recordAcquired(waitStart, queued);
+        } finally {
+            lock.unlock();
+        }
+
+        stopDaemons(toStop);
+        if (acquired != null) {
+            return acquired;
+        }
+
+        CompilerDaemonClient client = null;
+        try {
+            client = starter.startDaemon(project, forkOptions);
+        } finally {
+            lock.lock();
+            try {
+                if (client == null) {
+                    daemons.remove(starting);
+                    daemonReleased.signalAll();
+                } else {
+                    starting.started(client, buildNumber);
+                    daemonsStarted++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return starting;
+    }
+
+    private void release(PooledDaemon daemon, long busy) {
+        List<CompilerDaemonClient> toStop = new ArrayList<CompilerDaemonClient>();
+        lock.lock();
+        try {
+            busyNanos += busy;
+            daemon.lastUsed = System.currentTimeMillis();
+            // the daemon may have been stopped in the meantime
+            if (daemons.contains(daemon)) {
+                if (daemon.client.isFailed()) {
+                    LOGGER.info("Stopping Gradle compiler daemon with fork options {} as a compilation has failed in it.", daemon.forkOptions);
+                    retire(daemon, toStop);
+                } else {
+                    idleDaemons.addLast(daemon);
+                }
+            }
+            daemonReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            stopDaemons(toStop);
+        } catch (RuntimeException e) {
+            // the daemon is likely already gone, and the failure of the compilation is the one to report
+            LOGGER.info("Could not stop failed Gradle compiler daemon.", e);
+        }
+    }
+
+    private void recordAcquired(long waitStart, boolean queued) {
+        compilations++;
+        peakDaemons = Math.max(peakDaemons, daemons.size());
+        if (queued) {
+            long wait = System.nanoTime() - waitStart;
+            queuedCompilations++;
+            totalQueueWaitNanos += wait;
+            maxQueueWaitNanos = Math.max(maxQueueWaitNanos, wait);
+        }
+    }
+
+    private long getLifetimeNanos(PooledDaemon daemon, long now) {
+        // only the part of the lifetime since the statistics were reset counts, so that the time between builds does not count as idle time
+        return now - Math.max(daemon.startedAt, statisticsStartedAt);
+    }
+
+    /**
+     * Returns the idle daemon compatible with the given options which has the smallest heap, so that daemons with larger heaps remain available
+     * for the compilations which need them.
+     */
+    private PooledDaemon findIdleDaemon(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel) {
+        PooledDaemon best = null;
+        for (PooledDaemon daemon : idleDaemons) {
+            if (daemon.isCompatibleWith(forkOptions, workingDir, logLevel) && (best == null || daemon.heapMb <= best.heapMb)) {
+                best = daemon;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Determines whether a daemon with the given options can be started now, and removes the idle daemons which have to be stopped to make room
+     * for it from the pool.
+     *
+     * @return false if the compilation must wait for a daemon to be released.
+     */
+    private boolean makeRoom(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel, int maxDaemons, List<CompilerDaemonClient> evicted) {
+        int compatible = 0;
+        long heapMb = 0;
+        for (PooledDaemon daemon : daemons) {
+            if (daemon.isCompatibleWith(forkOptions, workingDir, logLevel)) {
+                compatible++;
+            }
+            heapMb += daemon.heapMb;
+        }
+        if (compatible >= maxDaemons) {
+            return false;
+        }
+
+        long requiredHeapMb = getHeapMb(forkOptions);
+        if (heapMb + requiredHeapMb <= heapBudgetMb) {
+            return true;
+        }
+        // starting a daemon takes much longer than most compilations, so prefer waiting for a compatible daemon over stopping idle ones
+        if (compatible > 0) {
+            return false;
+        }
+        List<PooledDaemon> toEvict = new ArrayList<PooledDaemon>();
+        Iterator<PooledDaemon> iterator = idleDaemons.iterator();
+        while (heapMb + requiredHeapMb > heapBudgetMb && iterator.hasNext()) {
+            PooledDaemon daemon = iterator.next();
+            toEvict.add(daemon);
+            heapMb -= daemon.heapMb;
+        }
+        // a daemon is always started when there would be no other daemon left, whatever its heap
+        if (heapMb + requiredHeapMb > heapBudgetMb && toEvict.size() < daemons.size()) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        for (PooledDaemon daemon : toEvict) {
+            idleDaemons.remove(daemon);
+            daemons.remove(daemon);
+            evicted.add(daemon.client);
+            stoppedDaemonsLifetimeNanos += getLifetimeNanos(daemon, now);
+            daemonsEvicted++;
+        }
+        return true;
+    }
+
+    private static int getMaxDaemons(ProjectInternal project) {
+        int parallelThreads = project.getGradle().getStartParameter().getParallelThreadCount();
+        if (parallelThreads < 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, parallelThreads);
+    }
+
+    private static long getHeapMb(DaemonForkOptions forkOptions) {
+        int heapMb = forkOptions.getMaxHeapSizeMb();
+        return heapMb < 0 ? DEFAULT_DAEMON_HEAP_MB : heapMb;
+    }
+
+    private static long getDefaultHeapBudgetMb() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        try {
+            // only available on some JVMs
+            Object physicalMemory = bean.getClass().getMethod("getTotalPhysicalMemorySize").invoke(bean);
+            return ((Number) physicalMemory).longValue() / (2 * 1024 * 1024);
+        } catch (Exception e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static class PooledDaemon {
+        private final DaemonForkOptions forkOptions;
+        private final long heapMb;
+        private final File workingDir;
+        // the daemon logs at the level of the build which started it
+        private final LogLevel logLevel;
+        private final List<Long> classpathSnapshot;
+        private CompilerDaemonClient client;
+        private long startedAt;
+        private long lastUsed;
+        private int lastBuild;
+
+        private PooledDaemon(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel) {
+            this.forkOptions = forkOptions;
+            this.heapMb = getHeapMb(forkOptions);
+            this.workingDir = workingDir;
+            this.logLevel = logLevel;
+            this.classpathSnapshot = snapshotClasspath();
+        }
+
+        private boolean isCompatibleWith(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel) {
+            return this.forkOptions.isCompatibleWith(forkOptions) && this.workingDir.equals(workingDir) && this.logLevel == logLevel;
+        }
+
+        private void started(CompilerDaemonClient client, int buildNumber) {
+            this.client = client;
+            this.startedAt = System.nanoTime();
+            this.lastUsed = System.currentTimeMillis();
+            this.lastBuild = buildNumber;
+        }
+
+        private boolean isClasspathUnchanged() {
+            return classpathSnapshot.equals(snapshotClasspath());
+        }
+
+        private List<Long> snapshotClasspath() {
+            List<Long> snapshot = new ArrayList<Long>();
+            for (File file : forkOptions.getClasspath()) {
+                snapshot.add(file.length());
+                snapshot.add(file.lastModified());
+            }
+            return snapshot;
+        }
+    }
+
+    public static class Statistics {
+        private final long compilations;
+        private final long queuedCompilations;
+        private final long totalQueueWaitNanos;
+        private final long maxQueueWaitNanos;
+        private final long busyNanos;
+        private final long lifetimeNanos;
+        private final int daemonsStarted;
+        private final int daemonsReused;
+        private final int daemonsEvicted;
+        private final int daemonsRetired;
+        private final int runningDaemons;
+        private final int peakDaemons;
+
+        private Statistics(long compilations, long queuedCompilations, long totalQueueWaitNanos, long maxQueueWaitNanos, long busyNanos,
+                           long lifetimeNanos, int daemonsStarted, int daemonsReused, int daemonsEvicted, int daemonsRetired, int runningDaemons,
+                           int peakDaemons) {
+            this.compilations = compilations;
+            this.queuedCompilations = queuedCompilations;
+            this.totalQueueWaitNanos = totalQueueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.busyNanos = busyNanos;
+            this.lifetimeNanos = lifetimeNanos;
+            this.daemonsStarted = daemonsStarted;
+            this.daemonsReused = daemonsReused;
+            this.daemonsEvicted = daemonsEvicted;
+            this.daemonsRetired = daemonsRetired;
+            this.runningDaemons = runningDaemons;
+            this.peakDaemons = peakDaemons;
+        }
+
+        public long getCompilations() {
+            return compilations;
+        }
+
+        /**
+         * Returns the number of compilations which had to wait for a daemon to be released.
+         */
+        public long getQueuedCompilations() {
+            return queuedCompilations;
+        }
+
+        public long getTotalQueueWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNanos);
+        }
+
+        public long getMaxQueueWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos);
+        }
+
+        public int getDaemonsStarted() {
+            return daemonsStarted;
+        }
+
+        /**
+         * Returns the number of daemons started by earlier builds which were used by this build.
+         */
+        public int getDaemonsReused() {
+            return daemonsReused;
+        }
+
+        /**
+         * Returns the number of idle daemons which were stopped to make room for other daemons.
+         */
+        public int getDaemonsEvicted() {
+            return daemonsEvicted;
+        }
+
+        /**
+         * Returns the number of daemons which were stopped because they were idle for too long, unhealthy or out of date.
+         */
+        public int getDaemonsRetired() {
+            return daemonsRetired;
+        }
+
+        public int getRunningDaemons() {
+            return runningDaemons;
+        }
+
+        public int getPeakDaemons() {
+            return peakDaemons;
+        }
+
+        /**
+         * Returns the proportion of the lifetime of the daemons which they spent compiling, between 0 and 1.
+         */
+        public double getUtilization() {
+            return lifetimeNanos == 0 ? 0 : Math.min(1, (double) busyNanos / lifetimeNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Compiler daemons: %d compilations, %d queued (%d ms total, %d ms max wait), %d daemons started, %d reused from "
+                    + "earlier builds, %d evicted, %d retired, %d at peak, %.0f%% utilization.", compilations, queuedCompilations,
+                    getTotalQueueWaitMillis(), getMaxQueueWaitMillis(), daemonsStarted, daemonsReused, daemonsEvicted, daemonsRetired, peakDaemons,
+                    getUtilization() * 100);
+        }
     }
 }
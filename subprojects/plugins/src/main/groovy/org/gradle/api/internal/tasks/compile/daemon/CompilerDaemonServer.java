@@ -25,6 +25,10 @@ import org.gradle.internal.UncheckedException;
 import org.gradle.process.internal.WorkerProcessContext;
 
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.concurrent.CountDownLatch;
 
 
@@ -51,13 +55,31 @@ public class CompilerDaemonServer implements Action<WorkerProcessContext>, Compi
             LOGGER.info("Executing {} in compiler daemon.", compiler);
             WorkResult result = compiler.execute(spec);
             LOGGER.info("Successfully executed {} in compiler daemon.", compiler);
-            client.executed(new CompileResult(result.getDidWork(), null));
+            client.executed(new CompileResult(result.getDidWork(), null, getRetainedHeap(), Runtime.getRuntime().maxMemory()));
         } catch (Throwable t) {
             LOGGER.info("Exception executing {} in compiler daemon: {}.", compiler, t);
-            client.executed(new CompileResult(true, t));
+            client.executed(new CompileResult(true, t, getRetainedHeap(), Runtime.getRuntime().maxMemory()));
         }
     }
 
+    /**
+     * Returns the heap of the tenured generation which was still in use after the last collection, which approximates the heap retained by
+     * this daemon between compilations.
+     */
+    private long getRetainedHeap() {
+        long retained = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // the young generation pools do not support usage thresholds
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    retained = Math.max(retained, 0) + usage.getUsed();
+                }
+            }
+        }
+        return retained;
+    }
+
     public void stop() {
         stop.countDown();
     }
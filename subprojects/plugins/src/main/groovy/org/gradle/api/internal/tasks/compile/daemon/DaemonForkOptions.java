@@ -65,6 +65,13 @@ public class DaemonForkOptions {
         return sharedPackages;
     }
 
+    /**
+     * Returns the maximum heap size in megabytes, or -1 if it is not specified.
+     */
+    public int getMaxHeapSizeMb() {
+        return getHeapSizeMb(maxHeapSize);
+    }
+
     public boolean isCompatibleWith(DaemonForkOptions other) {
         return getHeapSizeMb(minHeapSize) >= getHeapSizeMb(other.getMinHeapSize())
                 && getHeapSizeMb(maxHeapSize) >= getHeapSizeMb(other.getMaxHeapSize())
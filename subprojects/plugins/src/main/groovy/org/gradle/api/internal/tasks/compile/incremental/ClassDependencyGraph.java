@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.util.GFileUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The classes produced by a compilation, the source files they were compiled from, and the classes each of them refers to.
+ */
+public class ClassDependencyGraph implements Serializable {
+    private final Map<String, ClassDependencyInfo> classes = new HashMap<String, ClassDependencyInfo>();
+
+    public void add(ClassDependencyInfo info) {
+        classes.put(info.getClassName(), info);
+    }
+
+    public void remove(String className) {
+        classes.remove(className);
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public ClassDependencyInfo get(String className) {
+        return classes.get(className);
+    }
+
+    /**
+     * Returns true if the source file of every class is known.
+     */
+    public boolean isComplete() {
+        for (ClassDependencyInfo info : classes.values()) {
+            if (info.getSourcePath() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the paths of the source files of the classes in this graph.
+     */
+    public Set<String> getSourcePaths() {
+        Set<String> sourcePaths = new HashSet<String>();
+        for (ClassDependencyInfo info : classes.values()) {
+            sourcePaths.add(info.getSourcePath());
+        }
+        return sourcePaths;
+    }
+
+    /**
+     * Returns the classes compiled from the given source files.
+     */
+    public Set<ClassDependencyInfo> getClassesForSources(Collection<String> sourcePaths) {
+        Set<ClassDependencyInfo> result = new HashSet<ClassDependencyInfo>();
+        for (ClassDependencyInfo info : classes.values()) {
+            if (sourcePaths.contains(info.getSourcePath())) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the classes which refer to any of the given classes, directly or indirectly.
+     */
+    public Set<ClassDependencyInfo> getTransitiveDependents(Collection<ClassDependencyInfo> changed) {
+        Map<String, List<ClassDependencyInfo>> dependents = new HashMap<String, List<ClassDependencyInfo>>();
+        for (ClassDependencyInfo info : classes.values()) {
+            for (String dependency : info.getDependencies()) {
+                List<ClassDependencyInfo> list = dependents.get(dependency);
+                if (list == null) {
+                    list = new ArrayList<ClassDependencyInfo>();
+                    dependents.put(dependency, list);
+                }
+                list.add(info);
+            }
+        }
+
+        Set<ClassDependencyInfo> result = new HashSet<ClassDependencyInfo>();
+        LinkedList<ClassDependencyInfo> queue = new LinkedList<ClassDependencyInfo>(changed);
+        while (!queue.isEmpty()) {
+            List<ClassDependencyInfo> direct = dependents.get(queue.removeFirst().getClassName());
+            if (direct == null) {
+                continue;
+            }
+            for (ClassDependencyInfo dependent : direct) {
+                if (result.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Loads a graph from the given file.
+     *
+     * @return the graph, or null if the file does not exist or cannot be read.
+     */
+    public static ClassDependencyGraph load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return (ClassDependencyGraph) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void store(File file) throws IOException {
+        GFileUtils.parentMkdirs(file);
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeObject(this);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * The information extracted from a compiled class which is needed to decide which classes must be recompiled when a source file changes.
+ */
+public class ClassDependencyInfo implements Serializable {
+    private final String className;
+    private final String sourcePath;
+    private final Set<String> dependencies;
+    private final boolean hasConstants;
+
+    public ClassDependencyInfo(String className, String sourcePath, Set<String> dependencies, boolean hasConstants) {
+        this.className = className;
+        this.sourcePath = sourcePath;
+        this.dependencies = dependencies;
+        this.hasConstants = hasConstants;
+    }
+
+    /**
+     * Returns the internal name of the class, for example {@code org/gradle/Foo$Bar}.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the path of the source file of this class, relative to its source root, or null if the class file does not record its source file.
+     */
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    /**
+     * Returns the internal names of the classes this class refers to.
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns true if this class declares compile time constants. Such constants are inlined into the classes which use them, so those classes do
+     * not refer to this class.
+     */
+    public boolean hasConstants() {
+        return hasConstants;
+    }
+
+    @Override
+    public String toString() {
+        return className;
+    }
+}
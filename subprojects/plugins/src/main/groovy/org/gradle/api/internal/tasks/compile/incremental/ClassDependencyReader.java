@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Extracts the classes referred to by a class file from its constant pool. Besides the class constants, the descriptors and generic signatures in
+ * the constant pool are scanned for class names, so that classes only used in member types, type arguments or annotations are also found.
+ */
+public class ClassDependencyReader {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PRIVATE = 0x0002;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    public ClassDependencyInfo read(File classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)));
+        try {
+            return read(in);
+        } catch (IOException e) {
+            throw new IOException(String.format("Could not read class file '%s'.", classFile), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    public ClassDependencyInfo read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        int[] classNames = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    in.readUnsignedShort();
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    in.readInt();
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.readLong();
+                    i++;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                default:
+                    throw new IOException(String.format("Unknown constant pool tag %s.", tag));
+            }
+        }
+
+        in.readUnsignedShort();
+        String className = utf8[classNames[in.readUnsignedShort()]];
+        if (className == null) {
+            throw new IOException("Invalid class name.");
+        }
+        Set<String> dependencies = new HashSet<String>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            if (classNames[i] != 0) {
+                addType(utf8[classNames[i]], dependencies);
+            } else if (isSignature(utf8[i])) {
+                addSignature(utf8[i], dependencies);
+            }
+        }
+        in.readUnsignedShort();
+        int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            in.readUnsignedShort();
+        }
+
+        boolean hasConstants = false;
+        for (int member = 0; member < 2; member++) {
+            int memberCount = in.readUnsignedShort();
+            for (int i = 0; i < memberCount; i++) {
+                int access = in.readUnsignedShort();
+                in.readUnsignedShort();
+                in.readUnsignedShort();
+                int attributeCount = in.readUnsignedShort();
+                for (int j = 0; j < attributeCount; j++) {
+                    String name = utf8[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if (member == 0 && "ConstantValue".equals(name) && (access & ACC_PRIVATE) == 0) {
+                        hasConstants = true;
+                    }
+                    skip(in, length);
+                }
+            }
+        }
+
+        String sourceFile = null;
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if ("SourceFile".equals(name)) {
+                sourceFile = utf8[in.readUnsignedShort()];
+            } else {
+                skip(in, length);
+            }
+        }
+
+        dependencies.remove(className);
+        return new ClassDependencyInfo(className, toSourcePath(className, sourceFile), dependencies, hasConstants);
+    }
+
+    private static void skip(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static String toSourcePath(String className, String sourceFile) {
+        if (sourceFile == null) {
+            return null;
+        }
+        int packageEnd = className.lastIndexOf('/');
+        return packageEnd < 0 ? sourceFile : className.substring(0, packageEnd + 1) + sourceFile;
+    }
+
+    private static void addType(String type, Set<String> dependencies) {
+        if (type == null) {
+            return;
+        }
+        if (type.startsWith("[")) {
+            addSignature(type, dependencies);
+        } else {
+            dependencies.add(type);
+        }
+    }
+
+    private static boolean isSignature(String value) {
+        if (value == null || value.length() < 3 || value.indexOf(';') < 0) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == 'L' || first == '[' || first == '(' || first == '<';
+    }
+
+    /**
+     * Adds the classes referred to by a descriptor or generic signature, such as {@code (Ljava/lang/String;[I)Ljava/util/List<Lorg/gradle/Foo;>;}.
+     * May add names which are not classes, such as type variable names, which is harmless as they do not match any compiled class.
+     */
+    private static void addSignature(String signature, Set<String> dependencies) {
+        int pos = signature.indexOf('L');
+        while (pos >= 0) {
+            int end = pos + 1;
+            while (end < signature.length() && signature.charAt(end) != ';' && signature.charAt(end) != '<') {
+                end++;
+            }
+            if (end == signature.length()) {
+                return;
+            }
+            dependencies.add(signature.substring(pos + 1, end));
+            pos = signature.indexOf('L', end);
+        }
+    }
+}
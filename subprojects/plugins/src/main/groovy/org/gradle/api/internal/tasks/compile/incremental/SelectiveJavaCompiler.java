@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.TaskExecutionHistory;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.SimpleStaleClassCleaner;
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A Java compiler which recompiles only the source files which have changed since the last compilation, plus the source files of the classes
+ * which depend on them, directly or indirectly. The dependencies between classes are extracted from the compiled classes after each
+ * compilation, and stored in the dependency cache directory of the compile task.
+ *
+ * <p>Falls back to recompiling all source files when the changes are not known, when something other than the source files has changed, when a
+ * changed class declares compile time constants, or when a class cannot be mapped back to its source file.</p>
+ */
+public class SelectiveJavaCompiler implements Compiler<JavaCompileSpec> {
+    private static final Logger LOGGER = Logging.getLogger(SelectiveJavaCompiler.class);
+    private static final String GRAPH_FILE_NAME = "class-dependencies.bin";
+    private final Compiler<JavaCompileSpec> compiler;
+    private final TaskOutputsInternal taskOutputs;
+    private final ClassDependencyReader reader = new ClassDependencyReader();
+
+    public SelectiveJavaCompiler(Compiler<JavaCompileSpec> compiler, TaskOutputsInternal taskOutputs) {
+        this.compiler = compiler;
+        this.taskOutputs = taskOutputs;
+    }
+
+    public WorkResult execute(JavaCompileSpec spec) {
+        File graphFile = new File(spec.getDependencyCacheDir(), GRAPH_FILE_NAME);
+        ClassDependencyGraph graph = ClassDependencyGraph.load(graphFile);
+        // The graph is only valid for the output of a successful compilation, so discard it until this compilation has succeeded
+        GFileUtils.deleteQuietly(graphFile);
+
+        Map<File, String> sources = getSourcePaths(spec.getSource());
+        String reason = graph == null ? "no class dependency information is available" : selectSources(spec, graph, sources);
+        WorkResult result;
+        if (reason == null) {
+            result = spec.getSource().isEmpty() ? new SimpleWorkResult(true) : compiler.execute(spec);
+        } else {
+            LOGGER.info("Compiling all source files of {} because {}.", spec.getDestinationDir(), reason);
+            SimpleStaleClassCleaner cleaner = new SimpleStaleClassCleaner(taskOutputs);
+            cleaner.setDestinationDir(spec.getDestinationDir());
+            cleaner.execute();
+            result = compiler.execute(spec);
+            graph = new ClassDependencyGraph();
+        }
+
+        if (!addCompiledClasses(graph, spec.getDestinationDir(), "")) {
+            return result;
+        }
+        if (!sources.values().containsAll(graph.getSourcePaths())) {
+            // Source paths are derived from the package of each class, so only source trees which mirror the package structure are supported
+            LOGGER.info("The source files of {} are not laid out by package, the next compilation will not be incremental.", spec.getDestinationDir());
+            return result;
+        }
+        try {
+            graph.store(graphFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Restricts the source files of the given spec to those which need to be recompiled, and deletes the classes compiled from them.
+     *
+     * @return null on success, otherwise the reason why all source files must be recompiled.
+     */
+    private String selectSources(JavaCompileSpec spec, ClassDependencyGraph graph, Map<File, String> sources) {
+        TaskExecutionHistory history = taskOutputs.getHistory();
+        FileCollection changedFiles = history == null ? null : history.getChangedInputFiles();
+        if (changedFiles == null) {
+            return "the inputs or outputs have changed in a way which cannot be handled incrementally";
+        }
+        if (!graph.isComplete()) {
+            return "the source files of some classes are not known";
+        }
+
+        Set<String> changedSources = new HashSet<String>();
+        for (File file : changedFiles) {
+            if (!file.exists()) {
+                // Removed source files are found using the dependency graph
+                continue;
+            }
+            String sourcePath = sources.get(file);
+            if (sourcePath == null) {
+                return String.format("%s has changed", file);
+            }
+            changedSources.add(sourcePath);
+        }
+        Set<String> removedSources = graph.getSourcePaths();
+        removedSources.removeAll(sources.values());
+        changedSources.addAll(removedSources);
+        if (changedSources.isEmpty()) {
+            return "no changed source files were found";
+        }
+
+        Set<ClassDependencyInfo> changedClasses = graph.getClassesForSources(changedSources);
+        for (ClassDependencyInfo info : changedClasses) {
+            if (info.hasConstants()) {
+                return String.format("class %s, which declares constants, has changed", info.getClassName().replace('/', '.'));
+            }
+        }
+
+        Set<String> recompileSources = new HashSet<String>(changedSources);
+        for (ClassDependencyInfo dependent : graph.getTransitiveDependents(changedClasses)) {
+            recompileSources.add(dependent.getSourcePath());
+        }
+        for (ClassDependencyInfo info : graph.getClassesForSources(recompileSources)) {
+            new File(spec.getDestinationDir(), info.getClassName() + ".class").delete();
+            graph.remove(info.getClassName());
+        }
+
+        List<File> selected = new ArrayList<File>();
+        for (Map.Entry<File, String> entry : sources.entrySet()) {
+            if (recompileSources.contains(entry.getValue())) {
+                selected.add(entry.getKey());
+            }
+        }
+        LOGGER.info("Compiling {} of {} source files of {} incrementally.", selected.size(), sources.size(), spec.getDestinationDir());
+        spec.setSource(new SimpleFileCollection(selected));
+
+        // The classes which are not recompiled are needed to compile the selected source files
+        List<File> classpath = new ArrayList<File>();
+        classpath.add(spec.getDestinationDir());
+        for (File file : spec.getClasspath()) {
+            classpath.add(file);
+        }
+        spec.setClasspath(classpath);
+        return null;
+    }
+
+    private Map<File, String> getSourcePaths(FileCollection source) {
+        final Map<File, String> sources = new LinkedHashMap<File, String>();
+        source.getAsFileTree().visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                sources.put(fileDetails.getFile(), fileDetails.getRelativePath().getPathString());
+            }
+        });
+        return sources;
+    }
+
+    /**
+     * Adds the classes in the given directory which are not already in the graph.
+     *
+     * @return false if some class could not be analysed, in which case the graph cannot be used.
+     */
+    private boolean addCompiledClasses(ClassDependencyGraph graph, File dir, String packagePrefix) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return true;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                if (!addCompiledClasses(graph, file, packagePrefix + name + "/")) {
+                    return false;
+                }
+            } else if (name.endsWith(".class") && !graph.contains(packagePrefix + name.substring(0, name.length() - 6))) {
+                try {
+                    graph.add(reader.read(file));
+                } catch (IOException e) {
+                    LOGGER.info("Could not extract class dependencies, the next compilation will not be incremental: {}", e.getMessage());
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+/**
+ * A processor which executes tests in a worker process, and which can tell whether that worker process has gone away.
+ */
+public interface WorkerAwareTestClassProcessor extends TestClassProcessor {
+    /**
+     * Returns true when the worker process executing the test classes given to this processor has stopped before this processor was stopped.
+     * This method may be called from any thread.
+     */
+    boolean hasWorkerStopped();
+}
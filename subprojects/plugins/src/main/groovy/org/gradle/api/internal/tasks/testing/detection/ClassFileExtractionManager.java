@@ -15,128 +15,61 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
-import org.gradle.api.internal.file.TemporaryFileProvider;
-import org.gradle.internal.Factory;
-import org.gradle.util.JarUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages reading class files from library jar files. The class files are read straight from the jars, using a shared index of the
+ * library jars.
  *
  * @author Tom Eyckmans
  */
 public class ClassFileExtractionManager {
-    private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
-    private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
-    private final Set<String> unextractableClasses;
-    private final TemporaryFileProvider tempDirProvider;
+    private final List<File> libraryJars = new ArrayList<File>();
+    private final JarClassIndexCache indexCache;
+    private JarClassIndex index;
 
-    public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
-        assert tempDirFactory != null;
-        tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
-        packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+    public ClassFileExtractionManager(JarClassIndexCache indexCache) {
+        this.indexCache = indexCache;
     }
 
     /**
-     * Add all packages found in the jar file to the package <> jar(s) index.
+     * Adds the jar file to the library jars. Classes are looked up in the library jars in the order the jars were added.
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
-        new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
-            public void receivePackage(String packageName) {
-                Set<File> jarFiles = packageJarFilesMappings.get(packageName);
-                if (jarFiles == null) {
-                    jarFiles = new TreeSet<File>();
-                }
-                jarFiles.add(libraryJar);
-
-                packageJarFilesMappings.put(packageName, jarFiles);
-            }
-        });
+    public synchronized void addLibraryJar(final File libraryJar) {
+        libraryJars.add(libraryJar);
+        index = null;
     }
 
     /**
-     * Retrieve the file that contains the extracted class file. <p/> This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * Reads the class file of the given class from the library jars.
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Internal name of the class to read.
+     * @return The content of the class file, or null if the class is not contained in a library jar.
      */
-    public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
-            return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
-            }
-
-            return extractedJarClasses.get(className);
+    public byte[] getLibraryClassFile(final String className) {
+        JarClassIndex index = getIndex();
+        try {
+            return index.read(className);
+        } catch (IOException e) {
+            throw new GradleException("failed to read class file " + className + " from library jars", e);
         }
     }
 
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
-        final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
-
-                try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
-
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
-                }
+    private synchronized JarClassIndex getIndex() {
+        if (index == null) {
+            try {
+                index = indexCache.get(libraryJars);
+            } catch (IOException e) {
+                throw new GradleException("failed to index library jars " + libraryJars, e);
             }
-
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
-
-                extractedJarClasses.put(className, extractedClassFile);
-            }
-        } // super class not on the classpath - unable to scan parent class
-
-        return classFileExtracted;
-    }
-
-    private String classNamePackage(final String className) {
-        final int lastSlashIndex = className.lastIndexOf('/');
-
-        if (lastSlashIndex == -1) {
-            return null; // class in root package - should not happen
-        } else {
-            return className.substring(0, lastSlashIndex + 1);
         }
-    }
-
-    private File tempFile() {
-        return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
+        return index;
     }
 }
@@ -22,25 +22,41 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 
 import java.io.File;
+import java.util.concurrent.Semaphore;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
  *
+ * <p>A detection scan can read the candidate class files using several threads. Each test class is handed to the test class processor as soon as
+ * it is detected, so the test class processor must be thread-safe when more than one thread is used.</p>
+ *
  * @author Tom Eyckmans
  */
 public class DefaultTestClassScanner implements Runnable {
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, new DefaultExecutorFactory(), 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, ExecutorFactory executorFactory, int maxThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
     }
 
     public void run() {
@@ -53,11 +69,44 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
-            }
-        });
+        if (maxThreads <= 1) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+        } else {
+            parallelDetectionScan();
+        }
+    }
+
+    private void parallelDetectionScan() {
+        final StoppableExecutor executor = executorFactory.create("Test class scanner");
+        final Semaphore threads = new Semaphore(maxThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File testClassFile = fileDetails.getFile();
+                    threads.acquireUninterruptibly();
+                    try {
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    testFrameworkDetector.processTestClass(testClassFile);
+                                } finally {
+                                    threads.release();
+                                }
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        threads.release();
+                        throw e;
+                    }
+                }
+            });
+        } finally {
+            executor.stop();
+        }
     }
 
     private void filenameScan() {
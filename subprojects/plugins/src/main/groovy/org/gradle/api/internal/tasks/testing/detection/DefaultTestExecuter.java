@@ -16,20 +16,40 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassUsage;
+import org.gradle.api.internal.tasks.testing.processors.AffectedTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
+import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.ClassUsageRecordingProcessorFactory;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.PooledForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * The default test class scanner factory.
@@ -37,31 +57,98 @@ import org.gradle.process.internal.WorkerProcessBuilder;
  * @author Tom Eyckmans
  */
 public class DefaultTestExecuter implements TestExecuter {
+    private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final TestWorkerPool workerPool;
+    private final ExecutorFactory executorFactory;
 
-    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, ExecutorFactory executorFactory,
+                               TestWorkerPool workerPool) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.executorFactory = executorFactory;
+        this.workerPool = workerPool;
     }
 
-    public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
+    public void execute(final Test testTask, TestResultProcessor testResultProcessor, PreviousTestResults previousResults) {
         final TestFramework testFramework = testTask.getTestFramework();
-        final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
-        final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
-            public TestClassProcessor create() {
-                return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                        testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+        WorkerTestClassProcessorFactory processorFactory = testFramework.getProcessorFactory();
+        FileCollection classpath = testTask.getClasspath();
+        Iterable<File> workerClasspath = classpath;
+        List<File> classDirs = null;
+        File usageDir = null;
+        if (testTask.isSelectAffectedTests()) {
+            // Load the class directories in a recording ClassLoader for each test class, rather than in the worker's ClassLoader
+            classDirs = new ArrayList<File>();
+            List<File> jars = new ArrayList<File>();
+            for (File file : classpath) {
+                if (file.isDirectory()) {
+                    classDirs.add(file);
+                } else {
+                    jars.add(file);
+                }
             }
-        };
+            usageDir = new File(testTask.getBinResultsDir(), "class-usage");
+            processorFactory = new ClassUsageRecordingProcessorFactory(processorFactory, classDirs, usageDir);
+            workerClasspath = jars;
+        }
+
+        final WorkerTestClassProcessorFactory testInstanceFactory = processorFactory;
+        final Iterable<File> forkClasspath = workerClasspath;
+        final Factory<TestClassProcessor> forkingProcessorFactory;
+        if (testTask.isReuseForks()) {
+            workerPool.attachTo(testTask.getProject().getGradle());
+            final File buildRootDir = testTask.getProject().getRootDir();
+            forkingProcessorFactory = new Factory<TestClassProcessor>() {
+                public TestClassProcessor create() {
+                    return new PooledForkingTestClassProcessor(workerPool, workerFactory, testInstanceFactory, testTask,
+                            forkClasspath, testFramework.getWorkerConfigurationAction(), buildRootDir,
+                            testTask.getForkEvery() == 0, testTask.isReuseForksAcrossBuilds());
+                }
+            };
+        } else {
+            forkingProcessorFactory = new Factory<TestClassProcessor>() {
+                public TestClassProcessor create() {
+                    return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
+                            forkClasspath, testFramework.getWorkerConfigurationAction());
+                }
+            };
+        }
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testTask.getForkEvery());
             }
         };
 
+        Set<String> changedClasses = null;
+        if (classDirs != null && !previousResults.getClassUsage().isEmpty()) {
+            changedClasses = getChangedClasses(testTask, classDirs);
+        }
+
+        Set<String> failedClasses = Collections.emptySet();
+        if (testTask.isFailedTestsFirst()) {
+            failedClasses = new HashSet<String>();
+            for (String failedClass : previousResults.getFailedClasses()) {
+                // Only wait for the previously failed test classes which are not going to be skipped
+                if (changedClasses == null || AffectedTestClassProcessor.isAffected(previousResults.getClassUsage(), changedClasses, failedClass)) {
+                    failedClasses.add(failedClass);
+                }
+            }
+        }
+        int failFastThreshold = testTask.getFailFastThreshold();
+        if (failFastThreshold > 0 && testFramework instanceof TestNGTestFramework) {
+            LOGGER.warn("Ignoring the fail-fast threshold of {}, as it is not supported for TestNG.", testTask);
+            failFastThreshold = 0;
+        }
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-                reforkingProcessorFactory, actorFactor);
+                reforkingProcessorFactory, actorFactor, previousResults.getClassDurations(), failedClasses, failFastThreshold);
+
+        AffectedTestClassProcessor affectedTestClassProcessor = null;
+        if (changedClasses != null) {
+            affectedTestClassProcessor = new AffectedTestClassProcessor(processor, previousResults.getClassUsage(), changedClasses);
+            processor = affectedTestClassProcessor;
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -69,11 +156,67 @@ public class DefaultTestExecuter implements TestExecuter {
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
-            testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setTestClasspath(classpath);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory,
+                    Runtime.getRuntime().availableProcessors());
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
         new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
+
+        if (usageDir != null) {
+            TestClassUsage usage = TestClassUsage.readAll(usageDir);
+            if (affectedTestClassProcessor != null) {
+                List<String> skippedTestClasses = affectedTestClassProcessor.getSkippedTestClasses();
+                LOGGER.info("Skipped {} test classes of {} which are not affected by the changes since its last successful execution.",
+                        skippedTestClasses.size(), testTask);
+                for (String testClassName : skippedTestClasses) {
+                    usage.add(testClassName, previousResults.getClassUsage().getUsedClasses(testClassName));
+                }
+            }
+            usage.write(new File(testTask.getBinResultsDir(), TestClassUsage.FILE_NAME));
+            GFileUtils.deleteQuietly(usageDir);
+        }
+    }
+
+    /**
+     * Returns the names of the classes which have changed since the last successful execution of the given task, or null when something other
+     * than the class files in the given directories has changed, or when some input file has been removed.
+     */
+    static Set<String> getChangedClasses(Test testTask, List<File> classDirs) {
+        TaskExecutionHistory history = testTask.getOutputs().getHistory();
+        FileCollection changedFiles = history == null ? null : history.getChangedInputFiles();
+        if (changedFiles == null) {
+            LOGGER.info("Executing all tests of {} as its inputs have changed in a way which cannot be traced to individual classes.", testTask);
+            return null;
+        }
+        Set<String> changedClasses = new HashSet<String>();
+        for (File file : changedFiles) {
+            if (!file.exists()) {
+                LOGGER.info("Executing all tests of {} as {} has been removed.", testTask, file);
+                return null;
+            }
+            String className = getClassName(file, classDirs);
+            if (className == null) {
+                LOGGER.info("Executing all tests of {} as {} has changed.", testTask, file);
+                return null;
+            }
+            changedClasses.add(className);
+        }
+        return changedClasses;
+    }
+
+    static String getClassName(File file, List<File> classDirs) {
+        String path = file.getAbsolutePath();
+        if (!path.endsWith(".class")) {
+            return null;
+        }
+        for (File classDir : classDirs) {
+            String prefix = classDir.getAbsolutePath() + File.separator;
+            if (path.startsWith(prefix)) {
+                return path.substring(prefix.length(), path.length() - ".class".length()).replace(File.separatorChar, '.');
+            }
+        }
+        return null;
     }
 }
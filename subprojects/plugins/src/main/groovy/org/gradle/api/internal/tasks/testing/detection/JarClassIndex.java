@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.internal.file.archive.ZipCentralDirectory;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the class files contained in an ordered list of jars. Each class name is mapped to the first jar which contains the class, together
+ * with the location of the class file within that jar, so that the class file can be read straight from the jar.
+ */
+public class JarClassIndex {
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private final Map<String, Location> classes;
+
+    private JarClassIndex(Map<String, Location> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Builds the index of the given jars, using the given cache to read the central directory of each jar.
+     */
+    public static JarClassIndex build(List<File> jarFiles, ZipCentralDirectoryCache directoryCache) throws IOException {
+        Map<String, Location> classes = new HashMap<String, Location>();
+        for (File jarFile : jarFiles) {
+            ZipCentralDirectory directory = directoryCache.get(jarFile);
+            for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(CLASS_FILE_EXTENSION) || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                String className = name.substring(0, name.length() - CLASS_FILE_EXTENSION.length());
+                if (!classes.containsKey(className)) {
+                    classes.put(className, new Location(directory, entry));
+                }
+            }
+        }
+        return new JarClassIndex(classes);
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    /**
+     * Reads the class file of the given class.
+     *
+     * @param className The internal name of the class, for example {@code org/gradle/SomeClass}.
+     * @return The content of the class file, or null if the class is not contained in any of the jars.
+     */
+    public byte[] read(String className) throws IOException {
+        Location location = classes.get(className);
+        if (location == null) {
+            return null;
+        }
+        InputStream inputStream = location.directory.open(location.entry);
+        try {
+            return IOUtils.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static class Location {
+        private final ZipCentralDirectory directory;
+        private final ZipCentralDirectory.Entry entry;
+
+        private Location(ZipCentralDirectory directory, ZipCentralDirectory.Entry entry) {
+            this.directory = directory;
+            this.entry = entry;
+        }
+    }
+}
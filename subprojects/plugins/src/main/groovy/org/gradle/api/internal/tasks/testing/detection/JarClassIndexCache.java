@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A build scoped cache of the class indexes of test runtime classpaths, so that test tasks with the same classpath share an index. An index is reused
+ * for as long as the length and last modified time of each of its jars do not change. Only the most recently used indexes are kept. The indexes are
+ * discarded at the end of the build, whereas the parsed central directories of the jars are kept by the {@link ZipCentralDirectoryCache}.
+ */
+public class JarClassIndexCache {
+    private static final Logger LOGGER = Logging.getLogger(JarClassIndexCache.class);
+    private static final int MAX_INDEXES = 10;
+
+    private final ZipCentralDirectoryCache directoryCache;
+    private final Map<List<Object>, JarClassIndex> indexes;
+
+    public JarClassIndexCache(ZipCentralDirectoryCache directoryCache) {
+        this(directoryCache, MAX_INDEXES);
+    }
+
+    public JarClassIndexCache(ZipCentralDirectoryCache directoryCache, final int maxIndexes) {
+        this.directoryCache = directoryCache;
+        indexes = new LinkedHashMap<List<Object>, JarClassIndex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, JarClassIndex> eldest) {
+                return size() > maxIndexes;
+            }
+        };
+    }
+
+    /**
+     * Returns the index of the given jars, building it if it is not cached or any of the jars has changed since it was cached.
+     */
+    public JarClassIndex get(List<File> jarFiles) throws IOException {
+        List<Object> key = new ArrayList<Object>(jarFiles.size() * 3);
+        for (File jarFile : jarFiles) {
+            key.add(jarFile.getAbsolutePath());
+            key.add(jarFile.length());
+            key.add(jarFile.lastModified());
+        }
+        synchronized (this) {
+            JarClassIndex index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        JarClassIndex index = JarClassIndex.build(jarFiles, directoryCache);
+        LOGGER.debug("Indexed {} classes in {} jars.", index.getClassCount(), jarFiles.size());
+
+        synchronized (this) {
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    public synchronized void clear() {
+        indexes.clear();
+    }
+}
@@ -17,11 +17,12 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults;
 import org.gradle.api.tasks.testing.Test;
 
 /**
  * @author Tom Eyckmans
  */
 public interface TestExecuter {
-    void execute(Test testTask, TestResultProcessor testResultProcessor);
+    void execute(Test testTask, TestResultProcessor testResultProcessor, PreviousTestResults previousResults);
 }
@@ -21,6 +21,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.internal.id.IdGenerator;
@@ -39,10 +40,10 @@ public class JUnitTestFramework implements TestFramework {
     private JUnitDetector detector;
     private final Test testTask;
 
-    public JUnitTestFramework(Test testTask) {
+    public JUnitTestFramework(Test testTask, JarClassIndexCache classIndexCache) {
         this.testTask = testTask;
         options = new JUnitOptions();
-        detector = new JUnitDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new JUnitDetector(new ClassFileExtractionManager(classIndexCache));
     }
 
     public WorkerTestClassProcessorFactory getProcessorFactory() {
@@ -47,6 +47,22 @@ public class AllTestResults extends CompositeTestResults {
         return addPackageForClass(className).addClass(className);
     }
 
+    /**
+     * Adds a summary of the given results of a class, which belong to some other model. Only the number of tests, their duration and the failed
+     * tests are kept, and the stack traces of the failures are discarded.
+     */
+    public ClassTestResults addTestClassSummary(ClassTestResults classResults) {
+        ClassTestResults summary = addTestClass(classResults.getName());
+        summary.addTests(classResults.getTestCount(), classResults.getDuration());
+        for (TestResult test : classResults.getFailures()) {
+            TestResult failedTest = new TestResult(test.getName(), test.getDuration(), summary);
+            for (TestFailure failure : test.getFailures()) {
+                failedTest.addFailure(failure.getMessage(), null);
+            }
+        }
+        return summary;
+    }
+
     private PackageTestResults addPackageForClass(String className) {
         String packageName = StringUtils.substringBeforeLast(className, ".");
         if (packageName.equals(className)) {
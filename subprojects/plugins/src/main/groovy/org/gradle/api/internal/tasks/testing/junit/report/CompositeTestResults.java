@@ -87,4 +87,15 @@ public abstract class CompositeTestResults extends TestResultModel {
         duration += test.getDuration();
         return test;
     }
+
+    /**
+     * Adds the given number of tests and their total duration to these results and to the results of each parent.
+     */
+    protected void addTests(int count, long duration) {
+        tests += count;
+        this.duration += duration;
+        if (parent != null) {
+            parent.addTests(count, duration);
+        }
+    }
 }
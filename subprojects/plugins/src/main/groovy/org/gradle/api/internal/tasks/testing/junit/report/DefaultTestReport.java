@@ -22,19 +22,43 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.util.Clock;
+import org.gradle.util.hash.HashUtil;
 
-import java.io.File;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Generates the HTML test report. The results of each test class are streamed from the results provider, and the page of each class is rendered
+ * on a thread pool as soon as the results of the class have been read. Only a summary of the results of each class is kept in memory, which is
+ * used to render the overview and package pages once all classes have been visited.
+ *
+ * <p>The report directory contains a hash of the results of each class page. A class page is not rendered again when the results of the class
+ * have not changed since the page was rendered.</p>
+ */
 public class DefaultTestReport implements TestReporter {
+    private static final String STATE_FILE_NAME = ".test-report-state";
+    private static final int STATE_VERSION = 1;
     private final HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
 
     public DefaultTestReport() {
+        this(new DefaultExecutorFactory(), Runtime.getRuntime().availableProcessors());
+    }
+
+    DefaultTestReport(ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/report.js"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/base-style.css"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/css3-pie-1.0beta3.htc"));
@@ -45,33 +69,97 @@ public class DefaultTestReport implements TestReporter {
         LOG.info("Generating HTML test report...");
 
         Clock clock = new Clock();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        try {
+            Map<String, String> previousHashes = readState(reportDir);
+            Map<String, String> hashes = new HashMap<String, String>();
+            AllTestResults model = generateClassPages(resultsProvider, reportDir, previousHashes, hashes);
+            generatePage(model, new OverviewPageRenderer(), new File(reportDir, "index.html"));
+            for (PackageTestResults packageResults : model.getPackages()) {
+                generatePage(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getName() + ".html"));
+            }
+            writeState(reportDir, hashes);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
+        }
         LOG.info("Finished generating test html results (" + clock.getTime() + ")");
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
+    private AllTestResults generateClassPages(final TestResultsProvider resultsProvider, final File reportDir, final Map<String, String> previousHashes,
+                                              final Map<String, String> hashes) {
         final AllTestResults model = new AllTestResults();
-        resultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getClassName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getClassName(), collectedResult.getName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED) {
-                        testResult.ignored();
-                    } else {
-                        List<Throwable> failures = collectedResult.getExceptions();
-                        for (Throwable throwable : failures) {
-                            testResult.addFailure(throwable.getMessage(), stackTrace(throwable));
-                        }
+        final StoppableExecutor executor = executorFactory.create("Test report generator");
+        final Semaphore threads = new Semaphore(maxThreads);
+        try {
+            resultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(TestClassResult classResult) {
+                    final ClassTestResults classResults = loadClass(classResult);
+                    model.addTestClassSummary(classResults);
+
+                    String hash = hash(classResult, classResults);
+                    hashes.put(classResult.getClassName(), hash);
+                    final File pageFile = new File(reportDir, classResults.getName() + ".html");
+                    if (hash.equals(previousHashes.get(classResult.getClassName())) && pageFile.isFile()) {
+                        return;
+                    }
+
+                    threads.acquireUninterruptibly();
+                    try {
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    generatePage(classResults, new ClassPageRenderer(classResults.getName(), resultsProvider), pageFile);
+                                } catch (Exception e) {
+                                    throw UncheckedException.throwAsUncheckedException(e);
+                                } finally {
+                                    threads.release();
+                                }
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        threads.release();
+                        throw e;
                     }
                 }
-            }
-        });
+            });
+        } finally {
+            executor.stop();
+        }
         return model;
     }
 
+    private ClassTestResults loadClass(TestClassResult classResult) {
+        AllTestResults classModel = new AllTestResults();
+        classModel.addTestClass(classResult.getClassName());
+        List<TestMethodResult> collectedResults = classResult.getResults();
+        for (TestMethodResult collectedResult : collectedResults) {
+            final TestResult testResult = classModel.addTest(classResult.getClassName(), collectedResult.getName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED) {
+                testResult.ignored();
+            } else {
+                List<Throwable> failures = collectedResult.getExceptions();
+                for (Throwable throwable : failures) {
+                    testResult.addFailure(throwable.getMessage(), stackTrace(throwable));
+                }
+            }
+        }
+        return classModel.addTestClass(classResult.getClassName());
+    }
+
+    private String hash(TestClassResult classResult, ClassTestResults classResults) {
+        StringBuilder content = new StringBuilder();
+        content.append(classResult.getClassName()).append('\n').append(classResult.getStartTime()).append('\n');
+        for (TestMethodResult methodResult : classResult.getResults()) {
+            content.append(methodResult.getName()).append('\n');
+            content.append(methodResult.getResultType()).append(' ').append(methodResult.getDuration()).append(' ').append(methodResult.getEndTime()).append('\n');
+        }
+        for (TestResult failedTest : classResults.getFailures()) {
+            for (TestFailure failure : failedTest.getFailures()) {
+                content.append(failure.getStackTrace()).append('\n');
+            }
+        }
+        return HashUtil.createCompactMD5(content.toString());
+    }
+
     private String stackTrace(Throwable throwable) {
         try {
             StringWriter stringWriter = new StringWriter();
@@ -88,21 +176,55 @@ public class DefaultTestReport implements TestReporter {
         }
     }
 
-    private void generateFiles(AllTestResults model, TestResultsProvider resultsProvider, File reportDir) {
+    private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
+        htmlRenderer.renderer(renderer).writeTo(model, outputFile);
+    }
+
+    /**
+     * Reads and removes the hashes of the class pages rendered by the previous report. The state is only a cache, so when it cannot be read or
+     * removed, no hashes are returned and every class page is rendered again.
+     */
+    private Map<String, String> readState(File reportDir) {
+        Map<String, String> hashes = new HashMap<String, String>();
+        File stateFile = new File(reportDir, STATE_FILE_NAME);
+        if (!stateFile.isFile()) {
+            return hashes;
+        }
         try {
-            generatePage(model, new OverviewPageRenderer(), new File(reportDir, "index.html"));
-            for (PackageTestResults packageResults : model.getPackages()) {
-                generatePage(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getName() + ".html"));
-                for (ClassTestResults classResults : packageResults.getClasses()) {
-                    generatePage(classResults, new ClassPageRenderer(classResults.getName(), resultsProvider), new File(reportDir, classResults.getName() + ".html"));
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+            try {
+                if (inputStream.readInt() == STATE_VERSION) {
+                    int count = inputStream.readInt();
+                    for (int i = 0; i < count; i++) {
+                        hashes.put(inputStream.readUTF(), inputStream.readUTF());
+                    }
                 }
+            } finally {
+                inputStream.close();
             }
-        } catch (Exception e) {
-            throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
+        } catch (IOException e) {
+            LOG.info(String.format("Rendering all test class pages, as the test report state in %s could not be read.", stateFile), e);
+            hashes.clear();
+        }
+        // the state describes the pages as they were before this report, so must not be used should this report fail part way
+        if (!stateFile.delete()) {
+            LOG.warn("Rendering all test class pages, as the test report state file {} could not be deleted.", stateFile);
+            hashes.clear();
         }
+        return hashes;
     }
 
-    private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
-        htmlRenderer.renderer(renderer).writeTo(model, outputFile);
+    private void writeState(File reportDir, Map<String, String> hashes) throws IOException {
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(reportDir, STATE_FILE_NAME))));
+        try {
+            outputStream.writeInt(STATE_VERSION);
+            outputStream.writeInt(hashes.size());
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                outputStream.writeUTF(entry.getKey());
+                outputStream.writeUTF(entry.getValue());
+            }
+        } finally {
+            outputStream.close();
+        }
     }
 }
@@ -23,8 +23,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.Writer;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AggregateTestResultsProvider implements TestResultsProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AggregateTestResultsProvider.class);
@@ -36,7 +36,7 @@ public class AggregateTestResultsProvider implements TestResultsProvider {
     }
 
     public void visitClasses(final Action<? super TestClassResult> visitor) {
-        classOutputProviders = new HashMap<String, TestResultsProvider>();
+        classOutputProviders = new ConcurrentHashMap<String, TestResultsProvider>();
         for (File dir : binaryResultDirs) {
             final BinaryResultBackedTestResultsProvider provider = new BinaryResultBackedTestResultsProvider(dir);
             provider.visitClasses(new Action<TestClassResult>() {
@@ -21,6 +21,9 @@ import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.util.Clock;
 
 import java.io.BufferedOutputStream;
@@ -29,40 +32,79 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Generates a JUnit XML results file for each test class. The results of each test class are written on a thread pool as soon as they have been
+ * read from the results provider.
+ */
 public class Binary2JUnitXmlReportGenerator {
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
     JUnitXmlResultWriter saxWriter;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
 
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider) {
+        this(testResultsDir, testResultsProvider, new DefaultExecutorFactory(), Runtime.getRuntime().availableProcessors());
+    }
+
+    Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, ExecutorFactory executorFactory, int maxThreads) {
         this.testResultsDir = testResultsDir;
         this.testResultsProvider = testResultsProvider;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
         this.saxWriter = new JUnitXmlResultWriter(getHostname(), testResultsProvider);
     }
 
     public void generate() {
         Clock clock = new Clock();
-        testResultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult result) {
-                File file = new File(testResultsDir, "TEST-" + result.getClassName() + ".xml");
-                OutputStream output = null;
-                try {
-                    output = new BufferedOutputStream(new FileOutputStream(file));
-                    saxWriter.write(result, output);
-                    output.close();
-                } catch (Exception e) {
-                    throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
-                } finally {
-                    IOUtils.closeQuietly(output);
+        final StoppableExecutor executor = executorFactory.create("JUnit XML result generator");
+        final Semaphore threads = new Semaphore(maxThreads);
+        try {
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(final TestClassResult result) {
+                    threads.acquireUninterruptibly();
+                    try {
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    write(result);
+                                } finally {
+                                    threads.release();
+                                }
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        threads.release();
+                        throw e;
+                    }
                 }
-            }
-        });
+            });
+        } finally {
+            executor.stop();
+        }
         LOG.info("Finished generating test XML results (" + clock.getTime() + ")");
     }
 
+    private void write(TestClassResult result) {
+        File file = new File(testResultsDir, "TEST-" + result.getClassName() + ".xml");
+        OutputStream output = null;
+        try {
+            output = new BufferedOutputStream(Channels.newOutputStream(new FileOutputStream(file).getChannel()), BUFFER_SIZE);
+            saxWriter.write(result, output);
+            output.close();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
     private static String getHostname() {
         try {
             return InetAddress.getLocalHost().getHostName();
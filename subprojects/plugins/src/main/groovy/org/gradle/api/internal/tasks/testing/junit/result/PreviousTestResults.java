@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A summary of the binary results left behind by the previous execution of a test task. The results must be read before the results directory is
+ * cleaned for the next execution.
+ */
+public class PreviousTestResults {
+    private static final Logger LOGGER = Logging.getLogger(PreviousTestResults.class);
+    private final Map<String, Long> classDurations;
+    private final Set<String> failedClasses;
+    private final TestClassUsage classUsage;
+
+    PreviousTestResults(Map<String, Long> classDurations, Set<String> failedClasses, TestClassUsage classUsage) {
+        this.classDurations = classDurations;
+        this.failedClasses = failedClasses;
+        this.classUsage = classUsage;
+    }
+
+    public static PreviousTestResults empty() {
+        return new PreviousTestResults(Collections.<String, Long>emptyMap(), Collections.<String>emptySet(), new TestClassUsage());
+    }
+
+    /**
+     * Reads the results from the given directory. Returns empty results when there are no results or they cannot be read, for example when they
+     * were written by a different version of Gradle.
+     */
+    public static PreviousTestResults read(File resultsDir) {
+        TestResultSerializer serializer = new TestResultSerializer();
+        if (!serializer.isHasResults(resultsDir)) {
+            return empty();
+        }
+        TestClassUsage classUsage;
+        try {
+            classUsage = TestClassUsage.read(new File(resultsDir, TestClassUsage.FILE_NAME));
+        } catch (Exception e) {
+            LOGGER.info("Ignoring the test class usage of the previous execution in {} as it could not be read: {}", resultsDir, e.getMessage());
+            classUsage = new TestClassUsage();
+        }
+        final Map<String, Long> classDurations = new HashMap<String, Long>();
+        final Set<String> failedClasses = new HashSet<String>();
+        try {
+            serializer.read(resultsDir, new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    classDurations.put(result.getClassName(), result.getDuration());
+                    if (result.getFailuresCount() > 0) {
+                        failedClasses.add(result.getClassName());
+                    }
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.info("Ignoring the test results of the previous execution in {} as they could not be read: {}", resultsDir, e.getMessage());
+            return empty();
+        }
+        return new PreviousTestResults(classDurations, failedClasses, classUsage);
+    }
+
+    /**
+     * Returns the duration in milliseconds of each test class which was executed, keyed by class name.
+     */
+    public Map<String, Long> getClassDurations() {
+        return Collections.unmodifiableMap(classDurations);
+    }
+
+    /**
+     * Returns the names of the test classes which had failed tests.
+     */
+    public Set<String> getFailedClasses() {
+        return Collections.unmodifiableSet(failedClasses);
+    }
+
+    /**
+     * Returns the classes used by each test class which was executed. Empty when the usage was not recorded.
+     */
+    public TestClassUsage getClassUsage() {
+        return classUsage;
+    }
+}
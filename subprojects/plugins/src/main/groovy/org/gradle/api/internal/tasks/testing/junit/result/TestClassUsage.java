@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The classes loaded by each test class from the class directories of the test runtime classpath, keyed by test class name. The usage is stored
+ * as a sequence of records, one per test class, so that a test worker can append the usage of each test class as it completes.
+ */
+public class TestClassUsage {
+    /**
+     * The name of the file in the binary results directory which holds the usage of the test classes which were executed.
+     */
+    public static final String FILE_NAME = "class-usage.bin";
+    private static final Logger LOGGER = Logging.getLogger(TestClassUsage.class);
+    private static final int RECORD_MARKER = 1;
+    private final Map<String, Set<String>> usedClasses = new HashMap<String, Set<String>>();
+
+    /**
+     * Reads the usage from the given file. Returns empty usage when the file does not exist. A file which ends part way through a record, for
+     * example because the test worker which wrote it crashed, contributes the records which were written completely.
+     */
+    public static TestClassUsage read(File file) {
+        TestClassUsage usage = new TestClassUsage();
+        usage.readFrom(file);
+        return usage;
+    }
+
+    /**
+     * Reads and merges the usage from each file in the given directory.
+     */
+    public static TestClassUsage readAll(File dir) {
+        TestClassUsage usage = new TestClassUsage();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                usage.readFrom(file);
+            }
+        }
+        return usage;
+    }
+
+    private void readFrom(File file) {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                while (inputStream.read() == RECORD_MARKER) {
+                    String testClassName = inputStream.readUTF();
+                    int count = inputStream.readInt();
+                    Set<String> classNames = new HashSet<String>(count);
+                    for (int i = 0; i < count; i++) {
+                        classNames.add(inputStream.readUTF());
+                    }
+                    add(testClassName, classNames);
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (EOFException e) {
+            LOGGER.info("Ignoring the incomplete test class usage at the end of {}.", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a single record to the given stream.
+     */
+    public static void writeRecord(DataOutputStream outputStream, String testClassName, Collection<String> classNames) throws IOException {
+        outputStream.write(RECORD_MARKER);
+        outputStream.writeUTF(testClassName);
+        outputStream.writeInt(classNames.size());
+        for (String className : classNames) {
+            outputStream.writeUTF(className);
+        }
+    }
+
+    public void write(File file) {
+        try {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                for (Map.Entry<String, Set<String>> entry : usedClasses.entrySet()) {
+                    writeRecord(outputStream, entry.getKey(), entry.getValue());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the given classes to those used by the given test class. A test class may be executed more than once, for example by a test
+     * framework which runs a test class for each of its subclasses, so the usage is accumulated.
+     */
+    public void add(String testClassName, Collection<String> classNames) {
+        Set<String> classes = usedClasses.get(testClassName);
+        if (classes == null) {
+            classes = new HashSet<String>();
+            usedClasses.put(testClassName, classes);
+        }
+        classes.addAll(classNames);
+    }
+
+    public boolean isEmpty() {
+        return usedClasses.isEmpty();
+    }
+
+    /**
+     * Returns the classes used by the given test class, or null when the usage of the test class is not known.
+     */
+    public Set<String> getUsedClasses(String testClassName) {
+        Set<String> classes = usedClasses.get(testClassName);
+        return classes == null ? null : Collections.unmodifiableSet(classes);
+    }
+}
@@ -16,64 +16,71 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Assembles test results. Keeps a copy of the results in memory to provide them later and spools test output to file.
+ * Spools test output to file. The output of all test classes is appended to a single output file, and the regions of the file which hold the
+ * output of each test class are recorded in an index file. Consecutive output of the same test class is stored as a single region, so that it can
+ * be read back with a single positioned read.
  *
  * by Szczepan Faber, created at: 11/13/12
  */
 public class TestOutputSerializer {
+    private static final int INDEX_VERSION = 1;
+    private static final String OUTPUT_FILE_NAME = "output.bin";
+    private static final String INDEX_FILE_NAME = "output.bin.idx";
+
     private final File resultsDir;
-    private final CachingFileWriter cachingFileWriter;
+    private Map<String, OutputRegions> index;
+    private OutputStream outputStream;
+    private long outputLength;
+    private boolean written;
 
     public TestOutputSerializer(File resultsDir) {
-        //TODO SF calculate number of open files based on parallel forks
-        this(resultsDir, new CachingFileWriter(10));
-    }
-
-    private TestOutputSerializer(File resultsDir, CachingFileWriter cachingFileWriter) {
         this.resultsDir = resultsDir;
-        this.cachingFileWriter = cachingFileWriter;
     }
 
-    private File outputsFile(String className, TestOutputEvent.Destination destination) {
-        return destination == TestOutputEvent.Destination.StdOut ? standardOutputFile(className) : standardErrorFile(className);
+    private File outputFile() {
+        return new File(resultsDir, OUTPUT_FILE_NAME);
     }
 
-    private File standardErrorFile(String className) {
-        return new File(resultsDir, className + ".stderr");
+    private File indexFile() {
+        return new File(resultsDir, INDEX_FILE_NAME);
     }
 
-    private File standardOutputFile(String className) {
-        return new File(resultsDir, className + ".stdout");
+    private static String key(String className, TestOutputEvent.Destination destination) {
+        return destination == TestOutputEvent.Destination.StdOut ? className + ".stdout" : className + ".stderr";
     }
 
-    public boolean hasOutput(String className, TestOutputEvent.Destination destination){
-        return outputsFile(className, destination).exists();
+    public boolean hasOutput(String className, TestOutputEvent.Destination destination) {
+        return getIndex().containsKey(key(className, destination));
     }
 
     public void writeOutputs(String className, TestOutputEvent.Destination destination, Writer writer) {
-        final File file = outputsFile(className, destination);
-        if (!file.exists()) {
+        OutputRegions regions = getIndex().get(key(className, destination));
+        if (regions == null) {
             return;
         }
         try {
-            Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(file)), "UTF-8");
+            RandomAccessFile file = new RandomAccessFile(outputFile(), "r");
             try {
-                char[] buffer = new char[2048];
-                while (true) {
-                    int read = reader.read(buffer);
-                    if (read < 0) {
-                        return;
-                    }
-                    writer.write(buffer, 0, read);
+                for (int i = 0; i < regions.count; i++) {
+                    byte[] buffer = new byte[regions.lengths[i]];
+                    file.seek(regions.offsets[i]);
+                    file.readFully(buffer);
+                    writer.write(new String(buffer, "UTF-8"));
                 }
             } finally {
-                reader.close();
+                file.close();
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -81,10 +88,131 @@ public class TestOutputSerializer {
     }
 
     public void finishOutputs() {
-        cachingFileWriter.closeAll();
+        if (outputStream == null && written) {
+            return;
+        }
+        try {
+            if (outputStream != null) {
+                outputStream.close();
+                outputStream = null;
+            }
+            writeIndex();
+            written = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void onOutput(String className, TestOutputEvent.Destination destination, String message) {
-        cachingFileWriter.write(outputsFile(className, destination), message);
+        if (index == null || outputStream == null && !written) {
+            index = new HashMap<String, OutputRegions>();
+        }
+        String key = key(className, destination);
+        OutputRegions regions = index.get(key);
+        if (regions == null) {
+            regions = new OutputRegions();
+            index.put(key, regions);
+        }
+        try {
+            if (outputStream == null) {
+                // Append to output which has already been finished, rather than replacing it
+                outputStream = new BufferedOutputStream(new FileOutputStream(outputFile(), written));
+                outputLength = written ? outputFile().length() : 0;
+            }
+            byte[] bytes = message.getBytes("UTF-8");
+            outputStream.write(bytes);
+            regions.add(outputLength, bytes.length);
+            outputLength += bytes.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problems writing to file: " + outputFile(), e);
+        }
+    }
+
+    private synchronized Map<String, OutputRegions> getIndex() {
+        if (index == null) {
+            index = readIndex();
+        }
+        return index;
+    }
+
+    private void writeIndex() throws IOException {
+        Map<String, OutputRegions> index = this.index == null ? new HashMap<String, OutputRegions>() : this.index;
+        OutputStream indexStream = new FileOutputStream(indexFile());
+        try {
+            Output output = new Output(indexStream);
+            output.writeInt(INDEX_VERSION, true);
+            output.writeInt(index.size(), true);
+            for (Map.Entry<String, OutputRegions> entry : index.entrySet()) {
+                OutputRegions regions = entry.getValue();
+                output.writeString(entry.getKey());
+                output.writeInt(regions.count, true);
+                for (int i = 0; i < regions.count; i++) {
+                    output.writeLong(regions.offsets[i], true);
+                    output.writeInt(regions.lengths[i], true);
+                }
+            }
+            output.flush();
+        } finally {
+            indexStream.close();
+        }
+    }
+
+    private Map<String, OutputRegions> readIndex() {
+        Map<String, OutputRegions> index = new HashMap<String, OutputRegions>();
+        if (!indexFile().isFile()) {
+            return index;
+        }
+        try {
+            InputStream indexStream = new FileInputStream(indexFile());
+            try {
+                Input input = new Input(indexStream);
+                int version = input.readInt(true);
+                if (version != INDEX_VERSION) {
+                    throw new IllegalArgumentException(String.format("Unexpected test output index version %s found in %s.", version, indexFile()));
+                }
+                int keyCount = input.readInt(true);
+                for (int i = 0; i < keyCount; i++) {
+                    String key = input.readString();
+                    int regionCount = input.readInt(true);
+                    OutputRegions regions = new OutputRegions();
+                    for (int j = 0; j < regionCount; j++) {
+                        regions.add(input.readLong(true), input.readInt(true));
+                    }
+                    index.put(key, regions);
+                }
+            } finally {
+                indexStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return index;
+    }
+
+    /**
+     * The regions of the output file which hold the output of a test class, in the order the output was written.
+     */
+    private static class OutputRegions {
+        private long[] offsets = new long[1];
+        private int[] lengths = new int[1];
+        private int count;
+
+        void add(long offset, int length) {
+            if (count > 0 && offsets[count - 1] + lengths[count - 1] == offset && (long) lengths[count - 1] + length <= Integer.MAX_VALUE) {
+                lengths[count - 1] += length;
+                return;
+            }
+            if (count == offsets.length) {
+                long[] newOffsets = new long[count * 2];
+                System.arraycopy(offsets, 0, newOffsets, 0, count);
+                offsets = newOffsets;
+                int[] newLengths = new int[count * 2];
+                System.arraycopy(lengths, 0, newLengths, 0, count);
+                lengths = newLengths;
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
     }
-}
\ No newline at end of file
+}
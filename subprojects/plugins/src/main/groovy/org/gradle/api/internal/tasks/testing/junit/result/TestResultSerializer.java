@@ -78,9 +78,13 @@ public class TestResultSerializer {
         }
     }
 
+    public boolean isHasResults(File inputDir) {
+        return new File(inputDir, RESULTS_FILE_NAME).isFile();
+    }
+
     public void read(File inputDir, Action<? super TestClassResult> visitor) {
         try {
-            InputStream inputStream = new FileInputStream(new File(inputDir, "results.bin"));
+            InputStream inputStream = new FileInputStream(new File(inputDir, RESULTS_FILE_NAME));
             try {
                 Input input = new Input(inputStream);
                 int version = input.readInt(true);
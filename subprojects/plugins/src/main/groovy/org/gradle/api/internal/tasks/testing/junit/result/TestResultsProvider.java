@@ -26,7 +26,8 @@ import java.io.Writer;
  */
 public interface TestResultsProvider {
     /**
-     * Writes the output of the given test to the given writer. This method must be called only after {@link #visitClasses(org.gradle.api.Action)}.
+     * Writes the output of the given test to the given writer. This method must be called only once the given class has been visited by
+     * {@link #visitClasses(org.gradle.api.Action)}, and may be called concurrently from several threads.
      */
     void writeOutputs(String className, TestOutputEvent.Destination destination, Writer writer);
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassUsage;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passes on only those test classes which are affected by a set of changed classes. A test class is affected when it previously used one of the
+ * changed classes, or when its previous usage is not known.
+ */
+public class AffectedTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(AffectedTestClassProcessor.class);
+    private final TestClassProcessor processor;
+    private final TestClassUsage previousUsage;
+    private final Set<String> changedClasses;
+    private final List<String> skippedTestClasses = new ArrayList<String>();
+
+    public AffectedTestClassProcessor(TestClassProcessor processor, TestClassUsage previousUsage, Set<String> changedClasses) {
+        this.processor = processor;
+        this.previousUsage = previousUsage;
+        this.changedClasses = changedClasses;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        processor.startProcessing(resultProcessor);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        String testClassName = testClass.getTestClassName();
+        if (isAffected(previousUsage, changedClasses, testClassName)) {
+            processor.processTestClass(testClass);
+            return;
+        }
+        LOGGER.debug("Skipping test class {} as it does not use any changed class.", testClassName);
+        synchronized (skippedTestClasses) {
+            skippedTestClasses.add(testClassName);
+        }
+    }
+
+    /**
+     * Returns true when the given test class is affected by the given changed classes.
+     */
+    public static boolean isAffected(TestClassUsage previousUsage, Set<String> changedClasses, String testClassName) {
+        Set<String> usedClasses = previousUsage.getUsedClasses(testClassName);
+        if (usedClasses == null) {
+            return true;
+        }
+        for (String changedClass : changedClasses) {
+            if (usedClasses.contains(changedClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void stop() {
+        processor.stop();
+    }
+
+    /**
+     * Returns the test classes which were not affected by the changes, and so were not passed on.
+     */
+    public List<String> getSkippedTestClasses() {
+        synchronized (skippedTestClasses) {
+            return new ArrayList<String>(skippedTestClasses);
+        }
+    }
+}
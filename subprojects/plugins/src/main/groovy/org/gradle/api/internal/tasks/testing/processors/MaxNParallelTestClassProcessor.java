@@ -16,37 +16,92 @@
 
 package org.gradle.api.internal.tasks.testing.processors;
 
-import org.gradle.internal.Factory;
-import org.gradle.api.internal.tasks.testing.TestClassProcessor;
-import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.CompositeStoppable;
+import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Test classes are queued, and each processor is handed the longest queued test class whenever it
+ * becomes idle, that is, once it has reported the completion of every test class it was given. The length of a test class is estimated from its
+ * duration in the previous execution, and test classes which were not executed previously are assumed to take the average duration.
+ *
+ * <p>Once there are no more test classes to come, the test classes which are still queued are assigned longest first to the processor with the
+ * least estimated outstanding work. This does not wait for processors to become idle, as some test frameworks do not execute any test class until
+ * they are stopped.</p>
+ *
+ * <p>Test classes which failed in the previous execution can be given priority over all other test classes. Test classes which did not fail are
+ * held back until each of the previously failed test classes has been queued, or there are no more test classes to come.</p>
+ *
+ * <p>When a fail-fast threshold is given, no further test classes are started once that many tests have failed, and the test classes which are
+ * still queued are discarded. In this case the queued test classes are only handed out as the processors become idle, so this must only be used
+ * with test frameworks which execute each test class as they receive it. Processors whose worker process stops before they are stopped are
+ * given no further test classes, and once every processor has stopped in this way, the test classes which are still queued are discarded.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(MaxNParallelTestClassProcessor.class);
+    private static final long POLL_INTERVAL = 200;
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> classDurations;
+    private final long defaultDuration;
+    private final Set<String> failedClasses;
+    private final Set<String> pendingFailedClasses;
+    private final int failFastThreshold;
+    private final Object lock = new Object();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final Set<Object> failedTests = new HashSet<Object>();
+    private long queuedCount;
+    private boolean failedFast;
+    private int discardedCount;
     private TestResultProcessor resultProcessor;
-    private int pos;
+    private List<Fork> forks = new ArrayList<Fork>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> classDurations) {
+        this(maxProcessors, factory, actorFactory, classDurations, Collections.<String>emptySet(), 0);
+    }
+
+    /**
+     * @param failedClasses the test classes to execute before all others.
+     * @param failFastThreshold the number of failed tests after which no further test classes are started, or 0 to execute all test classes.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> classDurations,
+                                          Set<String> failedClasses, int failFastThreshold) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.classDurations = classDurations;
+        this.defaultDuration = average(classDurations.values());
+        this.failedClasses = failedClasses;
+        this.pendingFailedClasses = new HashSet<String>(failedClasses);
+        this.failFastThreshold = failFastThreshold;
+    }
+
+    private static long average(Collection<Long> durations) {
+        if (durations.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (Long duration : durations) {
+            total += duration;
+        }
+        return total / durations.size();
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,26 +110,247 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        synchronized (lock) {
+            if (failedFast) {
+                discardedCount++;
+                return;
+            }
+            String className = testClass.getTestClassName();
+            Long duration = classDurations.get(className);
+            boolean failedPreviously = failedClasses.contains(className);
+            pendingFailedClasses.remove(className);
+            queue.add(new QueuedTestClass(testClass, failedPreviously, duration == null ? defaultDuration : duration, queuedCount++));
+            dispatchToIdleProcessors();
         }
-        processor.processTestClass(testClass);
     }
 
     public void stop() {
+        synchronized (lock) {
+            pendingFailedClasses.clear();
+            dispatchToIdleProcessors();
+            if (failFastThreshold > 0) {
+                while (!queue.isEmpty()) {
+                    if (!hasRunningFork()) {
+                        LOGGER.lifecycle("Stopped executing tests as all test worker processes have stopped. {} test classes were not executed.", queue.size());
+                        discardedCount += queue.size();
+                        queue.clear();
+                        break;
+                    }
+                    try {
+                        // Wake up periodically, as a worker process which stops will not report the completion of its test classes
+                        lock.wait(POLL_INTERVAL);
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    dispatchToIdleProcessors();
+                }
+                if (failedFast) {
+                    LOGGER.lifecycle("Stopped executing tests after {} tests failed. {} test classes were not executed.", failedTests.size(), discardedCount);
+                }
+            } else {
+                while (!queue.isEmpty()) {
+                    leastLoadedFork().process(queue.poll());
+                }
+            }
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
     }
+
+    private void dispatchToIdleProcessors() {
+        while (!queue.isEmpty()) {
+            if (!queue.peek().failedPreviously && !pendingFailedClasses.isEmpty()) {
+                // Wait for the remaining previously failed test classes
+                return;
+            }
+            Fork fork = idleFork();
+            if (fork == null) {
+                return;
+            }
+            fork.process(queue.poll());
+        }
+    }
+
+    private boolean hasRunningFork() {
+        if (forks.size() < maxProcessors) {
+            return true;
+        }
+        for (Fork fork : forks) {
+            if (!fork.hasWorkerStopped()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Fork idleFork() {
+        for (Fork fork : forks) {
+            if (fork.inProgress.isEmpty() && !fork.hasWorkerStopped()) {
+                return fork;
+            }
+        }
+        return forks.size() < maxProcessors ? startFork() : null;
+    }
+
+    private Fork leastLoadedFork() {
+        if (forks.size() < maxProcessors) {
+            return startFork();
+        }
+        Fork leastLoaded = null;
+        for (Fork fork : forks) {
+            if (fork.hasWorkerStopped()) {
+                continue;
+            }
+            if (leastLoaded == null || fork.getEstimatedLoad() < leastLoaded.getEstimatedLoad()) {
+                leastLoaded = fork;
+            }
+        }
+        // When every worker process has stopped, hand the test class to any processor, which reports the failure of its worker when stopped
+        return leastLoaded != null ? leastLoaded : forks.get(0);
+    }
+
+    private Fork startFork() {
+        TestClassProcessor processor = factory.create();
+        WorkerAwareTestClassProcessor workerAwareProcessor = processor instanceof WorkerAwareTestClassProcessor ? (WorkerAwareTestClassProcessor) processor : null;
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        Fork fork = new Fork(processor, workerAwareProcessor);
+        forks.add(fork);
+        processor.startProcessing(new ForkResultProcessor(fork));
+        return fork;
+    }
+
+    private void testFailed(Object testId) {
+        if (failFastThreshold == 0 || failedFast) {
+            return;
+        }
+        failedTests.add(testId);
+        if (failedTests.size() >= failFastThreshold) {
+            failedFast = true;
+            discardedCount += queue.size();
+            queue.clear();
+            lock.notifyAll();
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final boolean failedPreviously;
+        private final long estimatedDuration;
+        private final long sequence;
+
+        private QueuedTestClass(TestClassRunInfo testClass, boolean failedPreviously, long estimatedDuration, long sequence) {
+            this.testClass = testClass;
+            this.failedPreviously = failedPreviously;
+            this.estimatedDuration = estimatedDuration;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(QueuedTestClass other) {
+            if (failedPreviously != other.failedPreviously) {
+                return failedPreviously ? -1 : 1;
+            }
+            if (estimatedDuration != other.estimatedDuration) {
+                return estimatedDuration > other.estimatedDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : sequence == other.sequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * A processor and the test classes it has been given which it has not yet reported as complete.
+     */
+    private static class Fork {
+        private final TestClassProcessor processor;
+        private final WorkerAwareTestClassProcessor workerAwareProcessor;
+        private final List<QueuedTestClass> inProgress = new LinkedList<QueuedTestClass>();
+
+        private Fork(TestClassProcessor processor, WorkerAwareTestClassProcessor workerAwareProcessor) {
+            this.processor = processor;
+            this.workerAwareProcessor = workerAwareProcessor;
+        }
+
+        boolean hasWorkerStopped() {
+            return workerAwareProcessor != null && workerAwareProcessor.hasWorkerStopped();
+        }
+
+        void process(QueuedTestClass testClass) {
+            inProgress.add(testClass);
+            processor.processTestClass(testClass.testClass);
+        }
+
+        void completed(String className) {
+            for (Iterator<QueuedTestClass> iterator = inProgress.iterator(); iterator.hasNext();) {
+                String testClassName = iterator.next().testClass.getTestClassName();
+                if (testClassName != null && testClassName.equals(className)) {
+                    iterator.remove();
+                    return;
+                }
+            }
+            if (!inProgress.isEmpty()) {
+                inProgress.remove(0);
+            }
+        }
+
+        long getEstimatedLoad() {
+            long load = 0;
+            for (QueuedTestClass testClass : inProgress) {
+                load += testClass.estimatedDuration;
+            }
+            return load;
+        }
+    }
+
+    /**
+     * Forwards the results of a processor, and hands the processor more work when it completes a top-level test, which is a test whose parent is
+     * the suite of a test worker.
+     */
+    private class ForkResultProcessor implements TestResultProcessor {
+        private final Fork fork;
+        private final Set<Object> workerSuites = new HashSet<Object>();
+        private final Map<Object, String> topLevelTests = new HashMap<Object, String>();
+
+        private ForkResultProcessor(Fork fork) {
+            this.fork = fork;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            synchronized (lock) {
+                if (event.getParentId() == null) {
+                    workerSuites.add(test.getId());
+                } else if (workerSuites.contains(event.getParentId())) {
+                    topLevelTests.put(test.getId(), test.getClassName());
+                }
+            }
+            resultProcessor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+            synchronized (lock) {
+                workerSuites.remove(testId);
+                if (topLevelTests.containsKey(testId)) {
+                    fork.completed(topLevelTests.remove(testId));
+                    dispatchToIdleProcessors();
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+            synchronized (lock) {
+                testFailed(testId);
+            }
+        }
+    }
 }
@@ -20,12 +20,13 @@ import org.gradle.internal.Factory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerAwareTestClassProcessor;
 
-public class RestartEveryNTestClassProcessor implements TestClassProcessor {
+public class RestartEveryNTestClassProcessor implements WorkerAwareTestClassProcessor {
     private final Factory<TestClassProcessor> factory;
     private final long restartEvery;
     private long testCount;
-    private TestClassProcessor processor;
+    private volatile TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
 
     public RestartEveryNTestClassProcessor(Factory<TestClassProcessor> factory, long restartEvery) {
@@ -49,6 +50,11 @@ public class RestartEveryNTestClassProcessor implements TestClassProcessor {
         }
     }
 
+    public boolean hasWorkerStopped() {
+        TestClassProcessor processor = this.processor;
+        return processor instanceof WorkerAwareTestClassProcessor && ((WorkerAwareTestClassProcessor) processor).hasWorkerStopped();
+    }
+
     public void stop() {
         if (processor != null) {
             endBatch();
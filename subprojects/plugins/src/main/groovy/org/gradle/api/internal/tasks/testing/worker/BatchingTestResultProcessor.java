@@ -0,0 +1,270 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.id.CompositeIdGenerator;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Encodes the results of a test worker process into batches which are sent to a {@link RemoteTestResultProcessor}, to avoid sending each
+ * event as a separate message. Consecutive output events for the same test and destination are combined into a single event.
+ *
+ * <p>A batch is sent when it reaches a maximum size, when a test suite completes, before a failure is sent, and otherwise at a regular interval,
+ * so that the results of a long running test are not held back. The events are decoded by a {@link TestEventBatchDecoder}.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    static final int STARTED = 1;
+    static final int COMPLETED = 2;
+    static final int OUTPUT = 3;
+
+    static final int NULL_ID = 0;
+    static final int LONG_ID = 1;
+    static final int STRING_ID = 2;
+    static final int COMPOSITE_ID = 3;
+
+    static final int TEST_DESCRIPTOR = 1;
+    static final int METHOD_DESCRIPTOR = 2;
+    static final int CLASS_DESCRIPTOR = 3;
+    static final int SUITE_DESCRIPTOR = 4;
+    static final int WORKER_SUITE_DESCRIPTOR = 5;
+    static final int OTHER_TEST_DESCRIPTOR = 6;
+    static final int OTHER_SUITE_DESCRIPTOR = 7;
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64 * 1024;
+    private static final long DEFAULT_FLUSH_INTERVAL = 100;
+    private final RemoteTestResultProcessor target;
+    private final int maxBatchSize;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream output = new DataOutputStream(buffer);
+    private final Set<Object> suites = new HashSet<Object>();
+    private final StringBuilder pendingOutput = new StringBuilder();
+    private final Timer timer;
+    private boolean hasPendingOutput;
+    private Object pendingOutputTestId;
+    private TestOutputEvent.Destination pendingOutputDestination;
+
+    public BatchingTestResultProcessor(RemoteTestResultProcessor target) {
+        this(target, DEFAULT_MAX_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param flushInterval the interval in milliseconds at which pending events are sent, or 0 to send events only when required.
+     */
+    BatchingTestResultProcessor(RemoteTestResultProcessor target, int maxBatchSize, long flushInterval) {
+        this.target = target;
+        this.maxBatchSize = maxBatchSize;
+        if (flushInterval > 0) {
+            timer = new Timer("Test event batch flusher", true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, flushInterval, flushInterval);
+        } else {
+            timer = null;
+        }
+    }
+
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        checkId(test.getId());
+        checkId(event.getParentId());
+        try {
+            writePendingOutput();
+            output.writeByte(STARTED);
+            writeDescriptor(test);
+            output.writeLong(event.getStartTime());
+            writeId(event.getParentId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (test.isComposite()) {
+            suites.add(test.getId());
+        }
+        flushIfFull();
+    }
+
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        checkId(testId);
+        try {
+            writePendingOutput();
+            output.writeByte(COMPLETED);
+            writeId(testId);
+            output.writeLong(event.getEndTime());
+            output.writeByte(event.getResultType() == null ? -1 : event.getResultType().ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (suites.remove(testId)) {
+            // Other processes may be waiting on the completion of a suite, so send it straight away
+            flush();
+        } else {
+            flushIfFull();
+        }
+    }
+
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        checkId(testId);
+        if (hasPendingOutput && (!equal(pendingOutputTestId, testId) || pendingOutputDestination != event.getDestination())) {
+            writePendingOutput();
+        }
+        hasPendingOutput = true;
+        pendingOutputTestId = testId;
+        pendingOutputDestination = event.getDestination();
+        pendingOutput.append(event.getMessage());
+        flushIfFull();
+    }
+
+    public synchronized void failure(Object testId, Throwable result) {
+        flush();
+        target.failure(testId, result);
+    }
+
+    /**
+     * Sends the pending events.
+     */
+    public synchronized void flush() {
+        writePendingOutput();
+        if (buffer.size() == 0) {
+            return;
+        }
+        byte[] events = buffer.toByteArray();
+        buffer.reset();
+        target.processEvents(events);
+    }
+
+    /**
+     * Sends the pending events, and stops sending events at a regular interval.
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.cancel();
+        }
+        flush();
+    }
+
+    private void flushIfFull() {
+        if (buffer.size() + pendingOutput.length() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    private void writePendingOutput() {
+        if (!hasPendingOutput) {
+            return;
+        }
+        try {
+            output.writeByte(OUTPUT);
+            writeId(pendingOutputTestId);
+            output.writeByte(pendingOutputDestination.ordinal());
+            writeString(pendingOutput.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        hasPendingOutput = false;
+        pendingOutputTestId = null;
+        pendingOutputDestination = null;
+        pendingOutput.setLength(0);
+    }
+
+    private void writeDescriptor(TestDescriptorInternal test) throws IOException {
+        Class<?> type = test.getClass();
+        if (type == DefaultTestDescriptor.class) {
+            output.writeByte(TEST_DESCRIPTOR);
+            writeString(test.getClassName());
+            writeString(test.getName());
+        } else if (type == DefaultTestMethodDescriptor.class) {
+            output.writeByte(METHOD_DESCRIPTOR);
+            writeString(test.getClassName());
+            writeString(test.getName());
+        } else if (type == DefaultTestClassDescriptor.class) {
+            output.writeByte(CLASS_DESCRIPTOR);
+            writeString(test.getClassName());
+        } else if (type == DefaultTestSuiteDescriptor.class) {
+            output.writeByte(SUITE_DESCRIPTOR);
+            writeString(test.getName());
+        } else if (type == WorkerTestClassProcessor.WorkerTestSuiteDescriptor.class) {
+            output.writeByte(WORKER_SUITE_DESCRIPTOR);
+            writeString(test.getName());
+        } else {
+            output.writeByte(test.isComposite() ? OTHER_SUITE_DESCRIPTOR : OTHER_TEST_DESCRIPTOR);
+            writeString(test.getClassName());
+            writeString(test.getName());
+        }
+        writeId(test.getId());
+    }
+
+    private void writeId(Object id) throws IOException {
+        if (id == null) {
+            output.writeByte(NULL_ID);
+        } else if (id instanceof Long) {
+            output.writeByte(LONG_ID);
+            output.writeLong((Long) id);
+        } else if (id instanceof String) {
+            output.writeByte(STRING_ID);
+            writeString((String) id);
+        } else if (id instanceof CompositeIdGenerator.CompositeId) {
+            CompositeIdGenerator.CompositeId compositeId = (CompositeIdGenerator.CompositeId) id;
+            output.writeByte(COMPOSITE_ID);
+            writeId(compositeId.getScope());
+            writeId(compositeId.getId());
+        } else {
+            throw unsupportedId(id);
+        }
+    }
+
+    /**
+     * Checks that an id can be encoded before any part of an event is written, so that an unsupported id does not leave a partial event in the
+     * batch.
+     */
+    private static void checkId(Object id) {
+        if (id instanceof CompositeIdGenerator.CompositeId) {
+            CompositeIdGenerator.CompositeId compositeId = (CompositeIdGenerator.CompositeId) id;
+            checkId(compositeId.getScope());
+            checkId(compositeId.getId());
+        } else if (id != null && !(id instanceof Long) && !(id instanceof String)) {
+            throw unsupportedId(id);
+        }
+    }
+
+    private static IllegalArgumentException unsupportedId(Object id) {
+        return new IllegalArgumentException(String.format("Cannot send test id of unsupported type %s.", id.getClass().getName()));
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassUsage;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates processors which record the classes used by each test class. Each test class is executed by a new processor created by the given
+ * factory, with the given class directories loaded in a new ClassLoader which records each class it defines. The usage of each test class is
+ * appended to a file in the given directory as soon as the test class completes.
+ */
+public class ClassUsageRecordingProcessorFactory implements WorkerTestClassProcessorFactory, Serializable {
+    private final WorkerTestClassProcessorFactory factory;
+    private final List<File> classDirs;
+    private final File usageDir;
+
+    public ClassUsageRecordingProcessorFactory(WorkerTestClassProcessorFactory factory, List<File> classDirs, File usageDir) {
+        this.factory = factory;
+        this.classDirs = classDirs;
+        this.usageDir = usageDir;
+    }
+
+    public TestClassProcessor create(ServiceRegistry serviceRegistry) {
+        return new RecordingProcessor(serviceRegistry);
+    }
+
+    private class RecordingProcessor implements TestClassProcessor {
+        private final ServiceRegistry serviceRegistry;
+        private TestResultProcessor resultProcessor;
+        private DataOutputStream usageOutput;
+
+        private RecordingProcessor(ServiceRegistry serviceRegistry) {
+            this.serviceRegistry = serviceRegistry;
+        }
+
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        public void processTestClass(TestClassRunInfo testClass) {
+            RecordingClassLoader classLoader = new RecordingClassLoader(toUrls(classDirs), Thread.currentThread().getContextClassLoader());
+            ClassLoader previous = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(classLoader);
+            try {
+                TestClassProcessor processor = factory.create(serviceRegistry);
+                processor.startProcessing(resultProcessor);
+                try {
+                    processor.processTestClass(testClass);
+                } finally {
+                    processor.stop();
+                }
+            } finally {
+                Thread.currentThread().setContextClassLoader(previous);
+            }
+            writeUsage(testClass.getTestClassName(), classLoader.getDefinedClasses());
+        }
+
+        private void writeUsage(String testClassName, Set<String> classNames) {
+            try {
+                if (usageOutput == null) {
+                    usageDir.mkdirs();
+                    File usageFile = File.createTempFile("usage", ".bin", usageDir);
+                    usageOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(usageFile)));
+                }
+                TestClassUsage.writeRecord(usageOutput, testClassName, classNames);
+                usageOutput.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void stop() {
+            if (usageOutput == null) {
+                return;
+            }
+            try {
+                usageOutput.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                usageOutput = null;
+            }
+        }
+    }
+
+    private static URL[] toUrls(List<File> files) {
+        List<URL> urls = new ArrayList<URL>();
+        for (File file : files) {
+            try {
+                urls.add(file.toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    /**
+     * Records the name of each class it defines. The classes loaded by the parent ClassLoader are not recorded.
+     */
+    private static class RecordingClassLoader extends URLClassLoader {
+        private final Set<String> definedClasses = new HashSet<String>();
+
+        private RecordingClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            Class<?> type = super.findClass(name);
+            synchronized (definedClasses) {
+                definedClasses.add(name);
+            }
+            return type;
+        }
+
+        Set<String> getDefinedClasses() {
+            synchronized (definedClasses) {
+                return new HashSet<String>(definedClasses);
+            }
+        }
+    }
+}
@@ -18,9 +18,9 @@ package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
 import org.gradle.internal.Factory;
-import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerAwareTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.WorkerProcess;
@@ -28,14 +28,15 @@ import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
 
-public class ForkingTestClassProcessor implements TestClassProcessor {
+public class ForkingTestClassProcessor implements WorkerAwareTestClassProcessor {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private RemoteTestClassProcessor remoteProcessor;
-    private WorkerProcess workerProcess;
+    private volatile WorkerProcess workerProcess;
+    private volatile boolean stopping;
     private TestResultProcessor resultProcessor;
 
     public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
@@ -62,7 +63,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             workerProcess = builder.build();
             workerProcess.start();
 
-            workerProcess.getConnection().addIncoming(TestResultProcessor.class, resultProcessor);
+            workerProcess.getConnection().addIncoming(RemoteTestResultProcessor.class, new TestEventBatchDecoder(resultProcessor));
             remoteProcessor = workerProcess.getConnection().addOutgoing(RemoteTestClassProcessor.class);
 
             remoteProcessor.startProcessing();
@@ -71,7 +72,13 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         remoteProcessor.processTestClass(testClass);
     }
 
+    public boolean hasWorkerStopped() {
+        WorkerProcess workerProcess = this.workerProcess;
+        return workerProcess != null && !stopping && !workerProcess.isRunning();
+    }
+
     public void stop() {
+        stopping = true;
         if (remoteProcessor != null) {
             remoteProcessor.stop();
             workerProcess.waitForStop();
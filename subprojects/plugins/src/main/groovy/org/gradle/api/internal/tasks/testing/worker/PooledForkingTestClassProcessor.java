@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerAwareTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.Factory;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.process.internal.WorkerProcessBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes tests in a worker process taken from a {@link TestWorkerPool}. The jars of the test classpath which live outside of the build are
+ * loaded in the system ClassLoader of the worker process, and so form part of the key of the worker. The remainder of the test classpath is
+ * loaded in a new ClassLoader for each use of the worker.
+ */
+public class PooledForkingTestClassProcessor implements WorkerAwareTestClassProcessor {
+    private final TestWorkerPool pool;
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private final WorkerTestClassProcessorFactory processorFactory;
+    private final JavaForkOptions options;
+    private final Iterable<File> classPath;
+    private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final File buildRootDir;
+    private final boolean returnToPool;
+    private final boolean keepAfterBuild;
+    private volatile PooledTestWorker worker;
+    private TestResultProcessor resultProcessor;
+
+    /**
+     * @param returnToPool whether the worker is returned to the pool when processing stops. When false, the worker is stopped instead.
+     * @param keepAfterBuild whether the worker is kept in the pool once the build has finished.
+     */
+    public PooledForkingTestClassProcessor(TestWorkerPool pool, Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory,
+                                           JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction,
+                                           File buildRootDir, boolean returnToPool, boolean keepAfterBuild) {
+        this.pool = pool;
+        this.workerFactory = workerFactory;
+        this.processorFactory = processorFactory;
+        this.options = options;
+        this.classPath = classPath;
+        this.buildConfigAction = buildConfigAction;
+        this.buildRootDir = buildRootDir;
+        this.returnToPool = returnToPool;
+        this.keepAfterBuild = keepAfterBuild;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (worker == null) {
+            final List<File> frameworkClasspath = new ArrayList<File>();
+            List<File> applicationClasspath = new ArrayList<File>();
+            for (File file : classPath) {
+                if (file.isFile() && !isInBuild(file)) {
+                    frameworkClasspath.add(file);
+                } else {
+                    applicationClasspath.add(file);
+                }
+            }
+
+            final WorkerProcessBuilder builder = workerFactory.create();
+            builder.applicationClasspath(frameworkClasspath);
+            builder.setLoadApplicationInSystemClassLoader(true);
+            builder.worker(new TestWorker());
+            options.copyTo(builder.getJavaCommand());
+            buildConfigAction.execute(builder);
+
+            final Object key = createKey(builder, frameworkClasspath);
+            worker = pool.acquire(key, new Factory<PooledTestWorker>() {
+                public PooledTestWorker create() {
+                    WorkerProcess workerProcess = builder.build();
+                    workerProcess.start();
+                    return new PooledTestWorker(key, frameworkClasspath, workerProcess);
+                }
+            });
+            worker.setKeepAfterBuild(keepAfterBuild);
+            worker.startSession(processorFactory, applicationClasspath, resultProcessor);
+        }
+
+        worker.processTestClass(testClass);
+    }
+
+    public boolean hasWorkerStopped() {
+        PooledTestWorker worker = this.worker;
+        return worker != null && !worker.isRunning();
+    }
+
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        PooledTestWorker worker = this.worker;
+        this.worker = null;
+        worker.endSession();
+        if (returnToPool) {
+            pool.release(worker);
+        } else {
+            worker.stop();
+        }
+    }
+
+    private boolean isInBuild(File file) {
+        return file.getAbsolutePath().startsWith(buildRootDir.getAbsolutePath() + File.separator);
+    }
+
+    private static Object createKey(WorkerProcessBuilder builder, List<File> frameworkClasspath) {
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        List<Object> key = new ArrayList<Object>();
+        key.add(javaCommand.getExecutable());
+        key.add(javaCommand.getAllJvmArgs());
+        key.add(javaCommand.getEnvironment());
+        key.add(javaCommand.getWorkingDir());
+        key.add(builder.getSharedPackages());
+        key.add(builder.getLogLevel());
+        // Include the size and timestamp of the jars, in case a jar outside of the build is replaced
+        key.addAll(PooledTestWorker.getClasspathState(frameworkClasspath));
+        return key;
+    }
+}
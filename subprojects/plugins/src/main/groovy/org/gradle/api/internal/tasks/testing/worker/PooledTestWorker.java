@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.process.internal.WorkerProcess;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A reusable test worker process, which executes the tests of one test task at a time. Each use of the worker is a session, which ends once the
+ * worker has reported the completion of its test suite for the session.
+ */
+public class PooledTestWorker implements Stoppable {
+    private static final long POLL_INTERVAL = 200;
+    private final Object key;
+    private final List<File> systemClasspath;
+    private final List<Object> systemClasspathState;
+    private final WorkerProcess workerProcess;
+    private final RemoteTestClassProcessor remoteProcessor;
+    private final SessionResultProcessor results;
+    private boolean keepAfterBuild;
+    private volatile boolean stopped;
+
+    /**
+     * @param systemClasspath The jars loaded in the system ClassLoader of the worker process.
+     */
+    PooledTestWorker(Object key, List<File> systemClasspath, WorkerProcess workerProcess) {
+        this.key = key;
+        this.systemClasspath = systemClasspath;
+        this.systemClasspathState = getClasspathState(systemClasspath);
+        this.workerProcess = workerProcess;
+        results = new SessionResultProcessor();
+        workerProcess.getConnection().addIncoming(RemoteTestResultProcessor.class, new TestEventBatchDecoder(results));
+        remoteProcessor = workerProcess.getConnection().addOutgoing(RemoteTestClassProcessor.class);
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public boolean isKeepAfterBuild() {
+        return keepAfterBuild;
+    }
+
+    public void setKeepAfterBuild(boolean keepAfterBuild) {
+        this.keepAfterBuild = keepAfterBuild;
+    }
+
+    public boolean isRunning() {
+        return !stopped && workerProcess.isRunning();
+    }
+
+    /**
+     * Returns true when a jar loaded in the system ClassLoader of the worker process has changed since the worker was started.
+     */
+    public boolean isStale() {
+        return !getClasspathState(systemClasspath).equals(systemClasspathState);
+    }
+
+    /**
+     * Returns the path, size and timestamp of each of the given files.
+     */
+    static List<Object> getClasspathState(List<File> classpath) {
+        List<Object> state = new ArrayList<Object>();
+        for (File file : classpath) {
+            state.add(file.getAbsolutePath());
+            state.add(file.length());
+            state.add(file.lastModified());
+        }
+        return state;
+    }
+
+    public void startSession(WorkerTestClassProcessorFactory processorFactory, Iterable<File> applicationClasspath, TestResultProcessor resultProcessor) {
+        List<File> classpath = new ArrayList<File>();
+        for (File file : applicationClasspath) {
+            classpath.add(file);
+        }
+        results.startSession(resultProcessor);
+        remoteProcessor.startProcessing(processorFactory, classpath);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        remoteProcessor.processTestClass(testClass);
+    }
+
+    /**
+     * Stops the current session, and blocks until the worker has reported all of its results.
+     */
+    public void endSession() {
+        remoteProcessor.stop();
+        results.waitForSessionEnd();
+    }
+
+    /**
+     * Stops the worker process, and blocks until it has stopped.
+     */
+    public void stop() {
+        if (stopped) {
+            return;
+        }
+        if (workerProcess.isRunning()) {
+            remoteProcessor.shutdown();
+        }
+        waitForStop();
+    }
+
+    private void waitForStop() {
+        stopped = true;
+        workerProcess.waitForStop();
+    }
+
+    /**
+     * Forwards the results of the worker to the result processor of the current session.
+     */
+    private class SessionResultProcessor implements TestResultProcessor {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private TestResultProcessor resultProcessor;
+        private Object suiteId;
+        private boolean completed;
+
+        void startSession(TestResultProcessor resultProcessor) {
+            lock.lock();
+            try {
+                this.resultProcessor = resultProcessor;
+                suiteId = null;
+                completed = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void waitForSessionEnd() {
+            lock.lock();
+            try {
+                while (!completed) {
+                    if (!workerProcess.isRunning()) {
+                        waitForStop();
+                        throw new IllegalStateException("Test worker process stopped before it completed executing tests.");
+                    }
+                    condition.await(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private TestResultProcessor getResultProcessor() {
+            lock.lock();
+            try {
+                return resultProcessor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            lock.lock();
+            try {
+                if (suiteId == null && event.getParentId() == null) {
+                    suiteId = test.getId();
+                }
+            } finally {
+                lock.unlock();
+            }
+            getResultProcessor().started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            getResultProcessor().completed(testId, event);
+            lock.lock();
+            try {
+                if (testId.equals(suiteId)) {
+                    completed = true;
+                    condition.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            getResultProcessor().output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            getResultProcessor().failure(testId, result);
+        }
+    }
+}
@@ -17,6 +17,10 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.io.File;
+import java.util.List;
 
 /**
  * @see org.gradle.api.internal.tasks.testing.TestClassProcessor
@@ -27,6 +31,12 @@ public interface RemoteTestClassProcessor {
      */
     void startProcessing();
 
+    /**
+     * Starts processing in a reusable worker, using a processor created by the given factory. The given classpath is loaded in a new ClassLoader
+     * for this processor. Does not block.
+     */
+    void startProcessing(WorkerTestClassProcessorFactory factory, List<File> applicationClasspath);
+
     /**
      * Does not block.
      */
@@ -36,4 +46,9 @@ public interface RemoteTestClassProcessor {
      * Does not block.
      */
     void stop();
+
+    /**
+     * Stops a reusable worker. Does not block.
+     */
+    void shutdown();
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+/**
+ * Receives the results of a test worker process.
+ *
+ * @see org.gradle.api.internal.tasks.testing.TestResultProcessor
+ * @see BatchingTestResultProcessor
+ */
+public interface RemoteTestResultProcessor {
+    /**
+     * Receives a batch of encoded start, completion and output events, in the order they occurred.
+     */
+    void processEvents(byte[] events);
+
+    /**
+     * Receives a test failure. The events which occurred before the failure have already been received.
+     */
+    void failure(Object testId, Throwable failure);
+}
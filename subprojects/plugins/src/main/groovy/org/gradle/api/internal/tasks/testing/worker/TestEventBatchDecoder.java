@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.id.CompositeIdGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.gradle.api.internal.tasks.testing.worker.BatchingTestResultProcessor.*;
+
+/**
+ * Decodes the batches of events sent by a {@link BatchingTestResultProcessor}, and forwards the events to a {@link TestResultProcessor}.
+ */
+public class TestEventBatchDecoder implements RemoteTestResultProcessor {
+    private final TestResultProcessor resultProcessor;
+
+    public TestEventBatchDecoder(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    public void processEvents(byte[] events) {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(events));
+        try {
+            while (input.available() > 0) {
+                int type = input.readByte();
+                switch (type) {
+                    case STARTED:
+                        TestDescriptorInternal test = readDescriptor(input);
+                        long startTime = input.readLong();
+                        resultProcessor.started(test, new TestStartEvent(startTime, readId(input)));
+                        break;
+                    case COMPLETED:
+                        Object testId = readId(input);
+                        long endTime = input.readLong();
+                        int resultType = input.readByte();
+                        resultProcessor.completed(testId, new TestCompleteEvent(endTime, resultType < 0 ? null : TestResult.ResultType.values()[resultType]));
+                        break;
+                    case OUTPUT:
+                        Object outputTestId = readId(input);
+                        TestOutputEvent.Destination destination = TestOutputEvent.Destination.values()[input.readByte()];
+                        resultProcessor.output(outputTestId, new DefaultTestOutputEvent(destination, readString(input)));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unexpected test event type %s.", type));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void failure(Object testId, Throwable failure) {
+        resultProcessor.failure(testId, failure);
+    }
+
+    private TestDescriptorInternal readDescriptor(DataInputStream input) throws IOException {
+        int type = input.readByte();
+        switch (type) {
+            case TEST_DESCRIPTOR:
+            case OTHER_TEST_DESCRIPTOR: {
+                String className = readString(input);
+                String name = readString(input);
+                return new DefaultTestDescriptor(readId(input), className, name);
+            }
+            case METHOD_DESCRIPTOR: {
+                String className = readString(input);
+                String name = readString(input);
+                return new DefaultTestMethodDescriptor(readId(input), className, name);
+            }
+            case CLASS_DESCRIPTOR: {
+                String className = readString(input);
+                return new DefaultTestClassDescriptor(readId(input), className);
+            }
+            case SUITE_DESCRIPTOR: {
+                String name = readString(input);
+                return new DefaultTestSuiteDescriptor(readId(input), name);
+            }
+            case WORKER_SUITE_DESCRIPTOR: {
+                String name = readString(input);
+                return new WorkerTestClassProcessor.WorkerTestSuiteDescriptor(readId(input), name);
+            }
+            case OTHER_SUITE_DESCRIPTOR: {
+                readString(input);
+                String name = readString(input);
+                return new DefaultTestSuiteDescriptor(readId(input), name);
+            }
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected test descriptor type %s.", type));
+        }
+    }
+
+    private Object readId(DataInputStream input) throws IOException {
+        int type = input.readByte();
+        switch (type) {
+            case NULL_ID:
+                return null;
+            case LONG_ID:
+                return input.readLong();
+            case STRING_ID:
+                return readString(input);
+            case COMPOSITE_ID:
+                Object scope = readId(input);
+                return new CompositeIdGenerator.CompositeId(scope, readId(input));
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected test id type %s.", type));
+        }
+    }
+
+    private String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker;
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.UncheckedException;
@@ -38,7 +37,11 @@ import org.gradle.process.internal.WorkerProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable {
@@ -47,12 +50,22 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
     }
 
+    /**
+     * Creates a reusable worker, which processes tests for any number of test tasks. The processor for each task is provided when processing is
+     * started, and the worker keeps running when processing is stopped until it is shut down.
+     */
+    public TestWorker() {
+        this(null);
+    }
+
     public void execute(final WorkerProcessContext workerProcessContext) {
         LOGGER.info("{} executing tests.", workerProcessContext.getDisplayName());
 
@@ -73,23 +86,34 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
             LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
             // Clean out any security manager the tests might have installed
             System.setSecurityManager(null);
+            if (resultProcessor != null) {
+                resultProcessor.stop();
+            }
             testServices.close();
         }
     }
 
     private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+        if (factory != null) {
+            processor = createProcessor(factory, workerProcessContext.getApplicationClassLoader());
+        }
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        this.resultProcessor = new BatchingTestResultProcessor(serverConnection.addOutgoing(RemoteTestResultProcessor.class));
+        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+    }
+
+    private TestClassProcessor createProcessor(WorkerTestClassProcessorFactory factory, ClassLoader applicationClassLoader) {
         TestClassProcessor targetProcessor = factory.create(testServices);
         IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
 
         targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
                 workerProcessContext.getDisplayName(), new TrueTimeProvider());
         ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
-
-        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
-        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
     }
 
     public void startProcessing() {
@@ -97,6 +121,22 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         processor.startProcessing(resultProcessor);
     }
 
+    public void startProcessing(WorkerTestClassProcessorFactory factory, List<File> applicationClasspath) {
+        Thread.currentThread().setName("Test worker");
+        try {
+            URL[] urls = new URL[applicationClasspath.size()];
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = applicationClasspath.get(i).toURI().toURL();
+            }
+            processor = createProcessor(factory, new URLClassLoader(urls, workerProcessContext.getApplicationClassLoader()));
+        } catch (Throwable t) {
+            LOGGER.error(String.format("%s could not start processing tests.", workerProcessContext.getDisplayName()), t);
+            completed.countDown();
+            return;
+        }
+        processor.startProcessing(resultProcessor);
+    }
+
     public void processTestClass(final TestClassRunInfo testClass) {
         Thread.currentThread().setName("Test worker");
         try {
@@ -112,10 +152,21 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         try {
             processor.stop();
         } finally {
-            completed.countDown();
+            resultProcessor.flush();
+            if (factory != null) {
+                completed.countDown();
+            } else {
+                // Discard the processor along with its ClassLoader, and clean out any security manager the tests might have installed
+                processor = null;
+                System.setSecurityManager(null);
+            }
         }
     }
 
+    public void shutdown() {
+        completed.countDown();
+    }
+
     private static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
         private final WorkerProcessContext workerProcessContext;
 
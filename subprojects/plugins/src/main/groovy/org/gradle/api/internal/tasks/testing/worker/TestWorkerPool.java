@@ -0,0 +1,208 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.CompositeStoppable;
+import org.gradle.internal.Factory;
+import org.gradle.internal.Stoppable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The idle test worker processes of this process, keyed by the configuration they were started with. A worker is handed out to one test task at a
+ * time, and is returned to the pool when the test task has finished with it. The idle workers are stopped when a build which used the pool
+ * finishes, except for those which are to be kept for later builds run by this process.
+ *
+ * <p>At most the given number of workers are kept idle, and the least recently used idle workers are stopped to make room for others. Idle workers
+ * which have not been used for the idle timeout are stopped, as are idle workers whose jars have changed since they were started, as such workers
+ * would never be used again.</p>
+ */
+public class TestWorkerPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerPool.class);
+    private final int maxIdleWorkers;
+    private final long idleTimeoutMillis;
+    // most recently used first
+    private final LinkedList<IdleWorker> idleWorkers = new LinkedList<IdleWorker>();
+    private final Map<Gradle, Boolean> builds = new WeakHashMap<Gradle, Boolean>();
+    private Timer idleTimer;
+    private TimerTask idleCheck;
+
+    public TestWorkerPool() {
+        this(Runtime.getRuntime().availableProcessors(), TimeUnit.MINUTES.toMillis(30));
+    }
+
+    /**
+     * @param maxIdleWorkers The maximum number of idle workers.
+     * @param idleTimeoutMillis How long a worker is kept running when it is not used.
+     */
+    TestWorkerPool(int maxIdleWorkers, long idleTimeoutMillis) {
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Stops the idle workers which are not to be kept for later builds once the given build finishes.
+     */
+    public void attachTo(Gradle gradle) {
+        synchronized (this) {
+            if (builds.put(gradle, Boolean.TRUE) != null) {
+                return;
+            }
+        }
+        gradle.addBuildListener(new BuildAdapter() {
+            @Override
+            public void buildFinished(BuildResult result) {
+                TestWorkerPool.this.buildFinished();
+            }
+        });
+    }
+
+    void buildFinished() {
+        stopIdleWorkers(false);
+        synchronized (this) {
+            if (idleWorkers.isEmpty()) {
+                return;
+            }
+            LOGGER.info("Keeping {} test worker process(es) running for the next build.", idleWorkers.size());
+            if (idleCheck != null) {
+                idleCheck.cancel();
+            }
+            if (idleTimer == null) {
+                idleTimer = new Timer("Test worker idle timer", true);
+            }
+            idleCheck = new TimerTask() {
+                @Override
+                public void run() {
+                    stopUnusableWorkers();
+                }
+            };
+            idleTimer.schedule(idleCheck, idleTimeoutMillis + 1000);
+        }
+    }
+
+    /**
+     * Returns an idle worker with the given key, or a new worker created using the given factory when there is no such worker.
+     */
+    public PooledTestWorker acquire(Object key, Factory<PooledTestWorker> factory) {
+        synchronized (this) {
+            for (Iterator<IdleWorker> iterator = idleWorkers.iterator(); iterator.hasNext();) {
+                PooledTestWorker worker = iterator.next().worker;
+                if (!worker.getKey().equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                if (worker.isRunning()) {
+                    LOGGER.debug("Reusing test worker process {}.", key);
+                    return worker;
+                }
+            }
+        }
+        return factory.create();
+    }
+
+    /**
+     * Returns the given worker to the pool, so that it can be used by another test task.
+     */
+    public void release(PooledTestWorker worker) {
+        List<Stoppable> stoppables = new ArrayList<Stoppable>();
+        synchronized (this) {
+            idleWorkers.addFirst(new IdleWorker(worker, System.currentTimeMillis()));
+            while (idleWorkers.size() > maxIdleWorkers) {
+                PooledTestWorker evicted = idleWorkers.removeLast().worker;
+                LOGGER.debug("Stopping test worker process {} to make room for other workers.", evicted.getKey());
+                stoppables.add(evicted);
+            }
+        }
+        CompositeStoppable.stoppable(stoppables).stop();
+    }
+
+    /**
+     * Stops the idle workers. Workers which are to be kept after the build are only stopped when requested, or when they have been idle for the
+     * idle timeout, or when their jars have changed.
+     */
+    public void stopIdleWorkers(boolean includeKeptWorkers) {
+        List<Stoppable> stoppables = new ArrayList<Stoppable>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<IdleWorker> iterator = idleWorkers.iterator(); iterator.hasNext();) {
+                IdleWorker idleWorker = iterator.next();
+                if (includeKeptWorkers || !idleWorker.worker.isKeepAfterBuild() || isUnusable(idleWorker, now)) {
+                    iterator.remove();
+                    stoppables.add(idleWorker.worker);
+                }
+            }
+        }
+        CompositeStoppable.stoppable(stoppables).stop();
+    }
+
+    private void stopUnusableWorkers() {
+        List<Stoppable> stoppables = new ArrayList<Stoppable>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<IdleWorker> iterator = idleWorkers.iterator(); iterator.hasNext();) {
+                IdleWorker idleWorker = iterator.next();
+                if (isUnusable(idleWorker, now)) {
+                    iterator.remove();
+                    stoppables.add(idleWorker.worker);
+                }
+            }
+        }
+        CompositeStoppable.stoppable(stoppables).stop();
+    }
+
+    private boolean isUnusable(IdleWorker idleWorker, long now) {
+        if (now - idleWorker.releasedAt >= idleTimeoutMillis) {
+            LOGGER.info("Stopping test worker process {} as it has been idle for {} ms.", idleWorker.worker.getKey(), now - idleWorker.releasedAt);
+            return true;
+        }
+        if (idleWorker.worker.isStale()) {
+            LOGGER.info("Stopping test worker process {} as its jars have changed.", idleWorker.worker.getKey());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops all idle workers.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (idleTimer != null) {
+                idleTimer.cancel();
+                idleTimer = null;
+                idleCheck = null;
+            }
+        }
+        stopIdleWorkers(true);
+    }
+
+    private static class IdleWorker {
+        private final PooledTestWorker worker;
+        private final long releasedAt;
+
+        private IdleWorker(PooledTestWorker worker, long releasedAt) {
+            this.worker = worker;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
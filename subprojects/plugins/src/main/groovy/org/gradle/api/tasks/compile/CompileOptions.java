@@ -35,7 +35,7 @@ public class CompileOptions extends AbstractOptions {
     private static final long serialVersionUID = 0;
 
     private static final ImmutableSet<String> EXCLUDE_FROM_ANT_PROPERTIES =
-            ImmutableSet.of("debugOptions", "forkOptions", "compilerArgs", "dependOptions", "useDepend", "useAnt");
+            ImmutableSet.of("debugOptions", "forkOptions", "compilerArgs", "dependOptions", "useDepend", "useAnt", "incremental");
 
     private boolean failOnError = true;
 
@@ -75,6 +75,8 @@ public class CompileOptions extends AbstractOptions {
 
     private boolean useAnt;
 
+    private boolean incremental;
+
     /**
      * Tells whether to fail the build when compilation fails. Defaults to {@code true}.
      */
@@ -300,6 +302,26 @@ public class CompileOptions extends AbstractOptions {
         this.useDepend = useDepend;
     }
 
+    /**
+     * Tells whether to compile incrementally. When {@code true}, only the source files which have changed since the
+     * last compilation, and the source files of the classes which depend on them, are recompiled. All source files
+     * are recompiled when this cannot be done safely, for example when a class which declares constants has changed.
+     * Has no effect if {@code useDepend} is {@code true}. Defaults to {@code false}.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets whether to compile incrementally. When {@code true}, only the source files which have changed since the
+     * last compilation, and the source files of the classes which depend on them, are recompiled. All source files
+     * are recompiled when this cannot be done safely, for example when a class which declares constants has changed.
+     * Has no effect if {@code useDepend} is {@code true}. Defaults to {@code false}.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     /**
      * Returns options for using the Ant {@code <depend>} task.
      */
@@ -28,14 +28,17 @@ import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults;
 import org.gradle.api.internal.tasks.testing.junit.result.TestReportDataCollector;
 import org.gradle.api.internal.tasks.testing.logging.*;
 import org.gradle.api.internal.tasks.testing.results.TestListenerAdapter;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.*;
@@ -44,6 +47,7 @@ import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.listener.ListenerBroadcast;
@@ -117,6 +121,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private final ProgressLoggerFactory progressLoggerFactory;
     private final TestLoggingContainer testLogging;
     private final DefaultJavaForkOptions options;
+    private final JarClassIndexCache classIndexCache;
 
     private TestExecuter testExecuter;
     private List<File> testSrcDirs = new ArrayList<File>();
@@ -132,19 +137,26 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private boolean reuseForks;
+    private boolean reuseForksAcrossBuilds;
+    private boolean selectAffectedTests;
+    private boolean failedTestsFirst;
+    private int failFastThreshold;
     private TestReporter testReporter;
 
     @Inject
     public Test(ListenerManager listenerManager, StyledTextOutputFactory textOutputFactory, FileResolver fileResolver,
                 Factory<WorkerProcessBuilder> processBuilderFactory, ActorFactory actorFactory, Instantiator instantiator,
-                ProgressLoggerFactory progressLoggerFactory) {
+                ProgressLoggerFactory progressLoggerFactory, ExecutorFactory executorFactory, TestWorkerPool workerPool,
+                JarClassIndexCache classIndexCache) {
         this.progressLoggerFactory = progressLoggerFactory;
+        this.classIndexCache = classIndexCache;
         testListenerBroadcaster = listenerManager.createAnonymousBroadcaster(TestListener.class);
         testOutputListenerBroadcaster = listenerManager.createAnonymousBroadcaster(TestOutputListener.class);
         this.textOutputFactory = textOutputFactory;
         options = new DefaultJavaForkOptions(fileResolver);
         options.setEnableAssertions(true);
-        testExecuter = new DefaultTestExecuter(processBuilderFactory, actorFactory);
+        testExecuter = new DefaultTestExecuter(processBuilderFactory, actorFactory, executorFactory, workerPool);
         testLogging = instantiator.newInstance(DefaultTestLoggingContainer.class, instantiator);
         testReporter = new DefaultTestReport();
     }
@@ -431,6 +443,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         addTestOutputListener(eventLogger);
 
         File binaryResultsDir = getBinResultsDir();
+        PreviousTestResults previousResults = PreviousTestResults.read(binaryResultsDir);
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -445,7 +458,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
                 getTestListenerBroadcaster().getSource(), testOutputListenerBroadcaster.getSource());
 
         try {
-            testExecuter.execute(this, resultProcessor);
+            testExecuter.execute(this, resultProcessor, previousResults);
         } finally {
             testListenerBroadcaster.removeAll(asList(eventLogger, testReportDataCollector, testCountLogger));
             testOutputListenerBroadcaster.removeAll(asList(eventLogger, testReportDataCollector));
@@ -837,7 +850,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
      * @param testFrameworkConfigure A closure used to configure the JUnit options. This closure is passed an instance of type {@link org.gradle.api.tasks.testing.junit.JUnitOptions}.
      */
     public void useJUnit(Closure testFrameworkConfigure) {
-        useTestFramework(new JUnitTestFramework(this), testFrameworkConfigure);
+        useTestFramework(new JUnitTestFramework(this, classIndexCache), testFrameworkConfigure);
     }
 
     /**
@@ -853,7 +866,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
      * @param testFrameworkConfigure A closure used to configure the TestNG options. This closure is passed an instance of type {@link org.gradle.api.tasks.testing.testng.TestNGOptions}.
      */
     public void useTestNG(Closure testFrameworkConfigure) {
-        useTestFramework(new TestNGTestFramework(this), testFrameworkConfigure);
+        useTestFramework(new TestNGTestFramework(this, classIndexCache), testFrameworkConfigure);
     }
 
     /**
@@ -955,6 +968,124 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Returns whether forked test processes are taken from a pool of worker processes shared with other test tasks. A worker process is reused
+     * by test tasks with the same JVM options, working directory and test framework classpath. The test framework classpath consists of the
+     * jars of the test runtime classpath which live outside of the build, and is loaded once per worker process. The remaining classpath is loaded
+     * in a new ClassLoader for each test task. The default value is false.
+     *
+     * @return true if forked test processes are reused.
+     */
+    @Incubating
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * Sets whether forked test processes are taken from a pool of worker processes shared with other test tasks.
+     *
+     * @param reuseForks true to reuse forked test processes.
+     */
+    @Incubating
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
+
+    /**
+     * Returns whether the reusable forked test processes of this task are kept once the build has finished, so that later builds run by the same
+     * build daemon can reuse them. Only used when {@link #isReuseForks()} is true. The default value is false.
+     *
+     * @return true if reusable forked test processes are kept for later builds.
+     */
+    @Incubating
+    public boolean isReuseForksAcrossBuilds() {
+        return reuseForksAcrossBuilds;
+    }
+
+    /**
+     * Sets whether the reusable forked test processes of this task are kept once the build has finished.
+     *
+     * @param reuseForksAcrossBuilds true to keep reusable forked test processes for later builds.
+     */
+    @Incubating
+    public void setReuseForksAcrossBuilds(boolean reuseForksAcrossBuilds) {
+        this.reuseForksAcrossBuilds = reuseForksAcrossBuilds;
+    }
+
+    /**
+     * Returns whether only the test classes affected by the changes since the last successful execution of this task are executed. When set to
+     * {@code true}, the classes which each test class loads from the class directories of the test runtime classpath are recorded, and a test
+     * class is executed only when it loaded one of the class files which have changed, or when it has not been executed before. All test classes
+     * are executed when anything other than the class files of these directories has changed, such as a jar or a resource file. The test classes
+     * which are not executed do not appear in the test reports. The default value is false.
+     *
+     * <p>Each test class is executed with the classes of these directories loaded in a new ClassLoader, so static state is not shared between test
+     * classes.</p>
+     *
+     * @return true if only affected test classes are executed.
+     */
+    @Incubating
+    public boolean isSelectAffectedTests() {
+        return selectAffectedTests;
+    }
+
+    /**
+     * Sets whether only the test classes affected by the changes since the last successful execution of this task are executed.
+     *
+     * @param selectAffectedTests true to execute only affected test classes.
+     * @see #isSelectAffectedTests()
+     */
+    @Incubating
+    public void setSelectAffectedTests(boolean selectAffectedTests) {
+        this.selectAffectedTests = selectAffectedTests;
+    }
+
+    /**
+     * Returns whether the test classes which failed in the previous execution of this task are executed before all other test classes. The
+     * remaining test classes are executed longest first, using their duration in the previous execution. The default value is false.
+     *
+     * @return true if previously failed test classes are executed first.
+     */
+    @Incubating
+    public boolean isFailedTestsFirst() {
+        return failedTestsFirst;
+    }
+
+    /**
+     * Sets whether the test classes which failed in the previous execution of this task are executed before all other test classes.
+     *
+     * @param failedTestsFirst true to execute previously failed test classes first.
+     */
+    @Incubating
+    public void setFailedTestsFirst(boolean failedTestsFirst) {
+        this.failedTestsFirst = failedTestsFirst;
+    }
+
+    /**
+     * Returns the number of failed tests after which no further test classes are started. The test classes which are already executing are
+     * allowed to complete, and the remaining test classes are not executed. Not supported for TestNG, which executes the test classes of a
+     * test process together. The default value is 0, which means that all test classes are executed regardless of failures.
+     *
+     * @return the number of failed tests after which test execution stops.
+     */
+    @Incubating
+    public int getFailFastThreshold() {
+        return failFastThreshold;
+    }
+
+    /**
+     * Sets the number of failed tests after which no further test classes are started.
+     *
+     * @param failFastThreshold the number of failed tests after which test execution stops, or 0 to execute all test classes.
+     */
+    @Incubating
+    public void setFailFastThreshold(int failFastThreshold) {
+        if (failFastThreshold < 0) {
+            throw new IllegalArgumentException("Cannot set failFastThreshold to a value less than 0.");
+        }
+        this.failFastThreshold = failFastThreshold;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.plugins
+
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool
+import org.gradle.internal.service.ServiceRegistry
+import spock.lang.Specification
+
+class JvmPluginServiceRegistryTest extends Specification {
+    final JvmPluginServiceRegistry registry = new JvmPluginServiceRegistry()
+    final ServiceRegistry buildServices = Mock()
+
+    def setup() {
+        _ * buildServices.get(ZipCentralDirectoryCache) >> new ZipCentralDirectoryCache(1024)
+    }
+
+    def "provides a test worker pool as a global service"() {
+        def services = registry.createGlobalServices(Mock(ServiceRegistry))
+
+        expect:
+        services.get(TestWorkerPool) instanceof TestWorkerPool
+        services.get(TestWorkerPool).is(services.get(TestWorkerPool))
+    }
+
+    def "provides a jar class index cache as a build service"() {
+        def services = registry.createBuildServices(buildServices)
+
+        expect:
+        services.get(JarClassIndexCache) instanceof JarClassIndexCache
+        services.get(JarClassIndexCache).is(services.get(JarClassIndexCache))
+    }
+
+    def "each build has its own jar class index cache"() {
+        expect:
+        !registry.createBuildServices(buildServices).get(JarClassIndexCache).is(registry.createBuildServices(buildServices).get(JarClassIndexCache))
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.BuildListener
+import org.gradle.StartParameter
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.tasks.compile.CompileSpec
+import org.gradle.api.internal.tasks.compile.Compiler
+import org.gradle.api.logging.LogLevel
+import org.gradle.initialization.GradleBuildEnvironment
+import org.gradle.internal.service.ServiceRegistry
+import spock.lang.Specification
+
+class CompilerDaemonManagerTest extends Specification {
+    final CompilerDaemonStarter starter = Mock()
+    final StartParameter startParameter = new StartParameter()
+    final GradleInternal gradle = Mock()
+    final ProjectInternal project = Mock()
+    final ServiceRegistry services = Mock()
+    final GradleBuildEnvironment buildEnvironment = Mock()
+    final Compiler<CompileSpec> compiler = Mock()
+    final CompileSpec spec = Mock()
+    final CompileResult result = new CompileResult(true, null)
+    BuildListener buildListener
+    boolean longLivingProcess = true
+    CompilerDaemonManager manager = new CompilerDaemonManager(starter, 2048, 60000)
+
+    def setup() {
+        startParameter.parallelThreadCount = 2
+        _ * project.gradle >> gradle
+        _ * project.rootProject >> project
+        _ * project.projectDir >> new File("root")
+        _ * project.services >> services
+        _ * services.get(GradleBuildEnvironment) >> buildEnvironment
+        _ * buildEnvironment.longLivingProcess >> { longLivingProcess }
+        _ * gradle.startParameter >> startParameter
+        _ * gradle.addBuildListener(_) >> { BuildListener listener -> buildListener = listener }
+    }
+
+    def "reuses idle compatible daemon"() {
+        def client = Mock(CompilerDaemonClient)
+
+        when:
+        compile(options("512m"))
+        compile(options("256m"))
+
+        then:
+        1 * starter.startDaemon(project, _) >> client
+        2 * client.execute(compiler, spec) >> result
+        manager.statistics.compilations == 2
+        manager.statistics.daemonsStarted == 1
+    }
+
+    def "starts another daemon when compatible daemon is busy"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+
+        when:
+        compile(options("512m"))
+
+        then:
+        2 * starter.startDaemon(project, _) >>> [client1, client2]
+        1 * client1.execute(compiler, spec) >> { compile(options("512m")); result }
+        1 * client2.execute(compiler, spec) >> result
+        manager.statistics.peakDaemons == 2
+    }
+
+    def "uses idle compatible daemon with smallest heap"() {
+        def large = Mock(CompilerDaemonClient)
+        def small = Mock(CompilerDaemonClient)
+
+        when:
+        compile(options("1g"))
+
+        then:
+        1 * starter.startDaemon(project, { it.maxHeapSize == "1g" }) >> large
+        1 * large.execute(compiler, spec) >> { compile(options("256m")); result }
+        1 * starter.startDaemon(project, { it.maxHeapSize == "256m" }) >> small
+        1 * small.execute(compiler, spec) >> result
+
+        when:
+        compile(options("128m"))
+
+        then:
+        1 * small.execute(compiler, spec) >> result
+        0 * large.execute(_, _)
+        0 * starter._
+    }
+
+    def "stops least recently used idle daemon to make room for incompatible daemon"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+        def client3 = Mock(CompilerDaemonClient)
+        manager = new CompilerDaemonManager(starter, 1024, 60000)
+
+        when:
+        compile(options("512m", "-Done"))
+        compile(options("512m", "-Dtwo"))
+        compile(options("512m", "-Dthree"))
+
+        then:
+        3 * starter.startDaemon(project, _) >>> [client1, client2, client3]
+        1 * client1.execute(compiler, spec) >> result
+        1 * client2.execute(compiler, spec) >> result
+        1 * client3.execute(compiler, spec) >> result
+        1 * client1.stop()
+        0 * client2.stop()
+        manager.statistics.daemonsEvicted == 1
+        manager.statistics.runningDaemons == 2
+    }
+
+    def "stops daemon in which a compilation failed instead of reusing it"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+        def failure = new RuntimeException("broken")
+
+        when:
+        manager.getDaemon(project, options("512m")).execute(compiler, spec)
+
+        then:
+        1 * starter.startDaemon(project, _) >> client1
+        1 * client1.execute(compiler, spec) >> { throw failure }
+        _ * client1.failed >> true
+        1 * client1.stop()
+        RuntimeException e = thrown()
+        e == failure
+
+        when:
+        compile(options("512m"))
+
+        then:
+        1 * starter.startDaemon(project, _) >> client2
+        1 * client2.execute(compiler, spec) >> result
+        0 * client1._
+        manager.statistics.daemonsRetired == 1
+        manager.statistics.runningDaemons == 1
+    }
+
+    def "keeps healthy daemons running for the next build"() {
+        def client = Mock(CompilerDaemonClient)
+
+        given:
+        starter.startDaemon(project, _) >> client
+        client.execute(compiler, spec) >> result
+        compile(options("512m"))
+
+        when:
+        buildListener.buildFinished(null)
+
+        then:
+        1 * client.isHealthy(_, _) >> true
+        0 * client.stop()
+        manager.statistics.runningDaemons == 1
+        manager.statistics.compilations == 0
+
+        when:
+        compile(options("512m"))
+
+        then:
+        0 * starter._
+        manager.statistics.daemonsReused == 1
+    }
+
+    def "stops daemons which do not respond to health check when build finishes"() {
+        def client = Mock(CompilerDaemonClient)
+
+        given:
+        starter.startDaemon(project, _) >> client
+        client.execute(compiler, spec) >> result
+        compile(options("512m"))
+
+        when:
+        buildListener.buildFinished(null)
+
+        then:
+        1 * client.isHealthy(_, _) >> false
+        1 * client.stop()
+        manager.statistics.runningDaemons == 0
+    }
+
+    def "stops daemons which retain most of their heap when build finishes"() {
+        def client = Mock(CompilerDaemonClient)
+
+        given:
+        starter.startDaemon(project, _) >> client
+        client.execute(compiler, spec) >> result
+        compile(options("512m"))
+
+        when:
+        buildListener.buildFinished(null)
+
+        then:
+        _ * client.retainedHeapRatio >> 0.9d
+        0 * client.isHealthy(_, _)
+        1 * client.stop()
+    }
+
+    def "stops daemons which have been idle for longer than the idle timeout"() {
+        def client = Mock(CompilerDaemonClient)
+        manager = new CompilerDaemonManager(starter, 2048, 0)
+
+        given:
+        starter.startDaemon(project, _) >> client
+        client.execute(compiler, spec) >> result
+        compile(options("512m"))
+
+        when:
+        buildListener.buildFinished(null)
+
+        then:
+        1 * client.stop()
+        manager.statistics.runningDaemons == 0
+    }
+
+    def "does not reuse daemon for a build with another root project directory"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+        def otherProject = Mock(ProjectInternal)
+        _ * otherProject.gradle >> gradle
+        _ * otherProject.rootProject >> otherProject
+        _ * otherProject.projectDir >> new File("other")
+        _ * otherProject.services >> services
+
+        when:
+        compile(options("512m"))
+        buildListener.buildFinished(null)
+        assert manager.getDaemon(otherProject, options("512m")).execute(compiler, spec).is(result)
+
+        then:
+        1 * starter.startDaemon(project, _) >> client1
+        1 * starter.startDaemon(otherProject, _) >> client2
+        _ * client1.isHealthy(_, _) >> true
+        1 * client1.execute(compiler, spec) >> result
+        1 * client2.execute(compiler, spec) >> result
+        manager.statistics.daemonsReused == 0
+    }
+
+    def "does not reuse daemon for a build with another log level"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+
+        when:
+        compile(options("512m"))
+        buildListener.buildFinished(null)
+        startParameter.logLevel = LogLevel.DEBUG
+        compile(options("512m"))
+
+        then:
+        2 * starter.startDaemon(project, _) >>> [client1, client2]
+        _ * client1.isHealthy(_, _) >> true
+        1 * client1.execute(compiler, spec) >> result
+        1 * client2.execute(compiler, spec) >> result
+        manager.statistics.daemonsReused == 0
+    }
+
+    def "stops all daemons when build finishes when not running in a long living process"() {
+        def client1 = Mock(CompilerDaemonClient)
+        def client2 = Mock(CompilerDaemonClient)
+        longLivingProcess = false
+
+        given:
+        starter.startDaemon(project, _) >>> [client1, client2]
+        client1.execute(compiler, spec) >> { compile(options("512m")); result }
+        client2.execute(compiler, spec) >> result
+        compile(options("512m"))
+
+        when:
+        buildListener.buildFinished(null)
+
+        then:
+        0 * client1.isHealthy(_, _)
+        0 * client2.isHealthy(_, _)
+        1 * client1.stop()
+        1 * client2.stop()
+        manager.statistics.runningDaemons == 0
+    }
+
+    private void compile(DaemonForkOptions forkOptions) {
+        assert manager.getDaemon(project, forkOptions).execute(compiler, spec).is(result)
+    }
+
+    private static DaemonForkOptions options(String maxHeapSize, String... jvmArgs) {
+        return new DaemonForkOptions(null, maxHeapSize, jvmArgs as List)
+    }
+}
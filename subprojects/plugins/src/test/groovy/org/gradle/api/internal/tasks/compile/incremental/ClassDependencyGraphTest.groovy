@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassDependencyGraphTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final ClassDependencyGraph graph = new ClassDependencyGraph()
+
+    def setup() {
+        graph.add(info("p/A", "p/A.java", "p/B"))
+        graph.add(info('p/A$Inner', "p/A.java", "p/A"))
+        graph.add(info("p/B", "p/B.java", "p/C"))
+        graph.add(info("p/C", "p/C.java", "java/lang/Object"))
+        graph.add(info("p/D", "p/D.java", "java/lang/Object"))
+    }
+
+    def "finds classes compiled from source files"() {
+        expect:
+        graph.getClassesForSources(["p/A.java"])*.className as Set == ["p/A", 'p/A$Inner'] as Set
+        graph.sourcePaths == ["p/A.java", "p/B.java", "p/C.java", "p/D.java"] as Set
+    }
+
+    def "finds direct and indirect dependents of classes"() {
+        expect:
+        graph.getTransitiveDependents([graph.get("p/C")])*.className as Set == ["p/B", "p/A", 'p/A$Inner'] as Set
+        graph.getTransitiveDependents([graph.get("p/A")])*.className as Set == ['p/A$Inner'] as Set
+        graph.getTransitiveDependents([graph.get("p/D")]).empty
+    }
+
+    def "is not complete when the source of a class is unknown"() {
+        expect:
+        graph.complete
+
+        when:
+        graph.add(info("p/E", null))
+
+        then:
+        !graph.complete
+    }
+
+    def "can store and load graph"() {
+        def file = tmpDir.file("cache/graph.bin")
+
+        when:
+        graph.store(file)
+        def loaded = ClassDependencyGraph.load(file)
+
+        then:
+        loaded.size() == 5
+        loaded.get("p/B").dependencies == ["p/C"] as Set
+    }
+
+    def "load returns null when the file is missing or unreadable"() {
+        def file = tmpDir.file("graph.bin")
+
+        expect:
+        ClassDependencyGraph.load(file) == null
+
+        when:
+        file.text = "broken"
+
+        then:
+        ClassDependencyGraph.load(file) == null
+    }
+
+    private static ClassDependencyInfo info(String className, String sourcePath, String... dependencies) {
+        return new ClassDependencyInfo(className, sourcePath, dependencies as Set, false)
+    }
+}
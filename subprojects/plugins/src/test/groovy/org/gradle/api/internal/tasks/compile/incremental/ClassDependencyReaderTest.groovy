@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import spock.lang.Specification
+
+class ClassDependencyReaderTest extends Specification {
+    final ClassDependencyReader reader = new ClassDependencyReader()
+
+    def "reads class name, source file and dependencies of a class"() {
+        when:
+        def info = read(ClassDependencyGraph)
+
+        then:
+        info.className == "org/gradle/api/internal/tasks/compile/incremental/ClassDependencyGraph"
+        info.sourcePath == "org/gradle/api/internal/tasks/compile/incremental/ClassDependencyGraph.java"
+        info.dependencies.containsAll(["org/gradle/api/internal/tasks/compile/incremental/ClassDependencyInfo", "java/util/Map", "java/io/File",
+                "org/gradle/util/GFileUtils"])
+        !info.dependencies.contains(info.className)
+        !info.hasConstants()
+    }
+
+    def "detects classes which declare constants"() {
+        expect:
+        read(ClassWithConstant).hasConstants()
+        !read(ClassWithPrivateConstant).hasConstants()
+    }
+
+    private ClassDependencyInfo read(Class<?> type) {
+        def stream = new DataInputStream(type.getResourceAsStream("/${type.name.replace('.', '/')}.class"))
+        try {
+            return reader.read(stream)
+        } finally {
+            stream.close()
+        }
+    }
+
+    static class ClassWithConstant {
+        public static final int VALUE = 12
+    }
+
+    static class ClassWithPrivateConstant {
+        private static final int VALUE = 12
+    }
+}
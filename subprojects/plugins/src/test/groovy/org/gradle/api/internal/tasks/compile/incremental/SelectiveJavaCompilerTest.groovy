@@ -0,0 +1,254 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskExecutionHistory
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.compile.Compiler
+import org.gradle.api.internal.tasks.compile.DefaultJavaCompileSpec
+import org.gradle.api.internal.tasks.compile.JavaCompileSpec
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class SelectiveJavaCompilerTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final Compiler<JavaCompileSpec> target = Mock()
+    final TaskOutputsInternal outputs = Mock()
+    final TaskExecutionHistory history = Mock()
+    final SelectiveJavaCompiler compiler = new SelectiveJavaCompiler(target, outputs)
+    final Map<String, String> superClasses = [:]
+    final Set<String> classesWithConstants = []
+    final Set<String> compiled = []
+    List<File> compileClasspath
+    FileCollection changedFiles
+    TestFile srcDir
+    TestFile classesDir
+    TestFile dependencyCacheDir
+
+    def setup() {
+        srcDir = tmpDir.createDir("src")
+        classesDir = tmpDir.createDir("classes")
+        dependencyCacheDir = tmpDir.file("dependency-cache")
+        _ * outputs.history >> history
+        _ * history.changedInputFiles >> { changedFiles }
+        _ * outputs.previousFiles >> { new SimpleFileCollection(classesDir.listFiles().collect { it.listFiles() as List }.flatten()) }
+        _ * target.execute(_) >> { JavaCompileSpec spec -> compileSources(spec); new SimpleWorkResult(true) }
+
+        source("p/A")
+        source("p/B", "p/A")
+        source("p/C", "p/B")
+        source("p/D")
+    }
+
+    def "compiles all source files and stores class dependencies when there is no previous compilation"() {
+        when:
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+        graphFile.file
+    }
+
+    def "recompiles changed source file and the source files of its transitive dependents"() {
+        compile()
+        def unchangedClass = classFile("p/D")
+        unchangedClass.text = "unchanged"
+
+        when:
+        changed("p/A")
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C"] as Set
+        compileClasspath[0] == classesDir
+        unchangedClass.text == "unchanged"
+        graphFile.file
+    }
+
+    def "recompiles only changed source file when no other class depends on it"() {
+        compile()
+
+        when:
+        changed("p/C")
+        compile()
+
+        then:
+        compiled == ["p/C"] as Set
+    }
+
+    def "deletes classes of removed source file and recompiles its dependents"() {
+        compile()
+        superClasses.remove("p/C")
+
+        when:
+        srcDir.file("p/B.java").delete()
+        changed("p/B")
+        compile()
+
+        then:
+        compiled == ["p/C"] as Set
+        !classFile("p/B").exists()
+        classFile("p/C").file
+    }
+
+    def "does not compile anything when only source file without dependents is removed"() {
+        compile()
+
+        when:
+        srcDir.file("p/D.java").delete()
+        changed("p/D")
+        compile()
+
+        then:
+        compiled.empty
+        0 * target.execute(_)
+        !classFile("p/D").exists()
+    }
+
+    def "compiles all source files when class dependencies are missing"() {
+        compile()
+        graphFile.delete()
+
+        when:
+        changed("p/D")
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+    }
+
+    def "compiles all source files when class dependencies are corrupt"() {
+        compile()
+        graphFile.text = "corrupt"
+
+        when:
+        changed("p/D")
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+        graphFile.file
+    }
+
+    def "compiles all source files when the changed input files are not known"() {
+        compile()
+
+        when:
+        changedFiles = null
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+    }
+
+    def "compiles all source files when an input other than a source file has changed"() {
+        compile()
+        def lib = tmpDir.createFile("lib.jar")
+
+        when:
+        changedFiles = new SimpleFileCollection(lib)
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+    }
+
+    def "compiles all source files when a changed class declares constants"() {
+        classesWithConstants << "p/A"
+        compile()
+
+        when:
+        changed("p/A")
+        compile()
+
+        then:
+        compiled == ["p/A", "p/B", "p/C", "p/D"] as Set
+    }
+
+    def "deletes stale classes when compiling all source files"() {
+        compile()
+        def staleClass = classesDir.createFile("p/Stale.class")
+
+        when:
+        changedFiles = null
+        compile()
+
+        then:
+        !staleClass.exists()
+        classFile("p/A").file
+    }
+
+    private void compile() {
+        compiled.clear()
+        def spec = new DefaultJavaCompileSpec()
+        spec.source = new FileTreeAdapter(new DirectoryFileTree(srcDir))
+        spec.destinationDir = classesDir
+        spec.dependencyCacheDir = dependencyCacheDir
+        spec.classpath = []
+        compiler.execute(spec)
+    }
+
+    private void compileSources(JavaCompileSpec spec) {
+        compileClasspath = spec.classpath as List
+        for (File file : spec.source) {
+            def className = (file.absolutePath - srcDir.absolutePath - File.separator - ".java").replace(File.separator, "/")
+            compiled << className
+            writeClass(className)
+        }
+    }
+
+    private void source(String className, String superClass = null) {
+        srcDir.createFile("${className}.java")
+        if (superClass) {
+            superClasses[className] = superClass
+        }
+    }
+
+    private void changed(String className) {
+        changedFiles = new SimpleFileCollection(srcDir.file("${className}.java"))
+    }
+
+    private TestFile classFile(String className) {
+        return classesDir.file("${className}.class")
+    }
+
+    private TestFile getGraphFile() {
+        return dependencyCacheDir.file("class-dependencies.bin")
+    }
+
+    private void writeClass(String className) {
+        ClassWriter writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, className, null, superClasses[className] ?: "java/lang/Object", null)
+        writer.visitSource("${className.substring(className.lastIndexOf('/') + 1)}.java", null)
+        if (classesWithConstants.contains(className)) {
+            writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE", "I", null, 12).visitEnd()
+        }
+        writer.visitEnd()
+        def classFile = classFile(className)
+        classFile.parentFile.mkdirs()
+        classFile.bytes = writer.toByteArray()
+    }
+}
@@ -27,6 +27,9 @@ import org.jmock.Sequence
 import org.gradle.api.file.FileTree
 import static org.hamcrest.Matchers.*
 import org.gradle.api.file.FileVisitDetails
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+
+import static org.junit.Assert.assertThat
 
 @RunWith(JMock.class)
 public class DefaultTestClassScannerTest {
@@ -55,4 +58,27 @@ public class DefaultTestClassScannerTest {
         
         scanner.run()
     }
+
+    @Test
+    public void passesEachClassFileToTestClassDetectorUsingMultipleThreads() {
+        Set<File> processed = Collections.synchronizedSet(new HashSet<File>())
+        TestFrameworkDetector recordingDetector = [
+                startDetection: { TestClassProcessor p -> },
+                processTestClass: { File file -> processed.add(file) }
+        ] as TestFrameworkDetector
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, recordingDetector, processor, new DefaultExecutorFactory(), 2)
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                (1..10).each { i ->
+                    visitor.visitFile({new File("class${i}.class")} as FileVisitDetails)
+                }
+            }
+        }
+
+        scanner.run()
+
+        assertThat(processed, equalTo((1..10).collect { new File("class${it}.class") } as Set))
+    }
 }
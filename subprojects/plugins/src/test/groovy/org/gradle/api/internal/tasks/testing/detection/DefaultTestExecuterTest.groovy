@@ -16,16 +16,29 @@
 
 package org.gradle.api.internal.tasks.testing.detection
 
+import org.gradle.api.Project
 import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTree
+import org.gradle.api.internal.TaskExecutionHistory
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.collections.SimpleFileCollection
 import org.gradle.api.internal.tasks.testing.TestFramework
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool
+import org.gradle.api.invocation.Gradle
 import org.gradle.api.tasks.testing.Test
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
 class DefaultTestExecuterTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
 
     TestResultProcessor testResultProcessor = Mock()
     Test testTask = Mock()
@@ -37,8 +50,10 @@ class DefaultTestExecuterTest extends Specification {
     TestFrameworkDetector testFrameworkTestDetector = Mock()
     File testClassesDir = Mock()
     FileCollection testClasspath = Mock()
+    ExecutorFactory executorFactory = Mock()
+    TestWorkerPool workerPool = Mock()
 
-    DefaultTestExecuter executer = new DefaultTestExecuter(workerFactory, actorFactory)
+    DefaultTestExecuter executer = new DefaultTestExecuter(workerFactory, actorFactory, executorFactory, workerPool)
 
     def setup() {
         _ * testTask.testFramework >> testFramework
@@ -47,11 +62,12 @@ class DefaultTestExecuterTest extends Specification {
         _ * resultProcessorActor.getProxy(_) >> resultProcessor
         _ * testTask.isScanForTestClasses() >> true
         _ * testFramework.getDetector() >> testFrameworkTestDetector
+        _ * executorFactory.create(_) >> Mock(StoppableExecutor)
     }
 
     def "testClassDirectory for testclassdetector is configured before executing"() {
         when:
-        executer.execute(testTask, testResultProcessor);
+        executer.execute(testTask, testResultProcessor, PreviousTestResults.empty());
         then:
         1 * testFramework.getDetector() >> testFrameworkTestDetector
         1 * testTask.getTestClassesDir() >> testClassesDir
@@ -60,9 +76,74 @@ class DefaultTestExecuterTest extends Specification {
 
     def "testClasspath for testclassdetector is configured before executing"() {
         when:
-        executer.execute(testTask, testResultProcessor);
+        executer.execute(testTask, testResultProcessor, PreviousTestResults.empty());
         then:
         1 * testTask.getClasspath() >> testClasspath
         1 * testFrameworkTestDetector.setTestClasspath(testClasspath)
     }
+
+    def "attaches the worker pool to the build when reusing forks"() {
+        Project project = Mock()
+        Gradle gradle = Mock()
+        _ * testTask.isReuseForks() >> true
+        _ * testTask.project >> project
+        _ * project.gradle >> gradle
+
+        when:
+        executer.execute(testTask, testResultProcessor, PreviousTestResults.empty())
+
+        then:
+        1 * workerPool.attachTo(gradle)
+    }
+
+    def "determines the name of a class from its class file"() {
+        def classDirs = [tmpDir.file("classes1"), tmpDir.file("classes2")]
+
+        expect:
+        DefaultTestExecuter.getClassName(tmpDir.file("classes1/org/gradle/Test1.class"), classDirs) == "org.gradle.Test1"
+        DefaultTestExecuter.getClassName(tmpDir.file("classes2/Test2\$Inner.class"), classDirs) == "Test2\$Inner"
+        DefaultTestExecuter.getClassName(tmpDir.file("classes1/org/gradle/resource.txt"), classDirs) == null
+        DefaultTestExecuter.getClassName(tmpDir.file("other/org/gradle/Test1.class"), classDirs) == null
+        DefaultTestExecuter.getClassName(tmpDir.file("classes10/Test1.class"), classDirs) == null
+    }
+
+    def "determines the changed classes from the changed input files"() {
+        def classDirs = [tmpDir.file("classes")]
+        def changed = [tmpDir.createFile("classes/org/gradle/Test1.class"), tmpDir.createFile("classes/Other.class")]
+        givenChangedInputFiles(changed)
+
+        expect:
+        DefaultTestExecuter.getChangedClasses(testTask, classDirs) == ["org.gradle.Test1", "Other"] as Set
+    }
+
+    def "changed classes are not known when the changes to the inputs are not known"() {
+        givenChangedInputFiles(null)
+
+        expect:
+        DefaultTestExecuter.getChangedClasses(testTask, [tmpDir.file("classes")]) == null
+    }
+
+    def "changed classes are not known when some other input file has changed"() {
+        def changed = [tmpDir.createFile("classes/Test1.class"), tmpDir.createFile("lib/some.jar")]
+        givenChangedInputFiles(changed)
+
+        expect:
+        DefaultTestExecuter.getChangedClasses(testTask, [tmpDir.file("classes")]) == null
+    }
+
+    def "changed classes are not known when an input file has been removed"() {
+        def changed = [tmpDir.createFile("classes/Test1.class"), tmpDir.file("classes/Removed.class")]
+        givenChangedInputFiles(changed)
+
+        expect:
+        DefaultTestExecuter.getChangedClasses(testTask, [tmpDir.file("classes")]) == null
+    }
+
+    private void givenChangedInputFiles(List<File> files) {
+        TaskOutputsInternal outputs = Mock()
+        TaskExecutionHistory history = Mock()
+        _ * testTask.outputs >> outputs
+        _ * outputs.history >> history
+        _ * history.changedInputFiles >> (files == null ? null : new SimpleFileCollection(files))
+    }
 }
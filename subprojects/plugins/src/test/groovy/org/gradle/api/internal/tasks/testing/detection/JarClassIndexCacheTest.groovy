@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class JarClassIndexCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final JarClassIndexCache cache = new JarClassIndexCache(new ZipCentralDirectoryCache(1024 * 1024), 2)
+
+    def "reads class files from the first jar which contains the class"() {
+        def jar1 = jar("test1.jar", "org/Class1", "org/Class2")
+        def jar2 = jar("test2.jar", "org/Class2", "org/other/Class3")
+
+        when:
+        def index = cache.get([jar1, jar2])
+
+        then:
+        index.classCount == 3
+        new String(index.read("org/Class1")) == "test1.jar org/Class1"
+        new String(index.read("org/Class2")) == "test1.jar org/Class2"
+        new String(index.read("org/other/Class3")) == "test2.jar org/other/Class3"
+        index.read("org/Unknown") == null
+        !index.contains("org")
+        !index.contains("META-INF/MANIFEST")
+    }
+
+    def "reuses index while jars are unchanged"() {
+        def jar1 = jar("test1.jar", "org/Class1")
+        def jar2 = jar("test2.jar", "org/Class2")
+
+        expect:
+        cache.get([jar1, jar2]).is(cache.get([jar1, jar2]))
+        !cache.get([jar1, jar2]).is(cache.get([jar2, jar1]))
+    }
+
+    def "builds index again when a jar changes"() {
+        def jar1 = jar("test1.jar", "org/Class1")
+        def first = cache.get([jar1])
+
+        when:
+        jar1.delete()
+        jar("test1.jar", "org/Class1", "org/Class2")
+        def second = cache.get([jar1])
+
+        then:
+        !second.is(first)
+        second.contains("org/Class2")
+    }
+
+    def "discards least recently used indexes"() {
+        def jar1 = jar("test1.jar", "org/Class1")
+        def jar2 = jar("test2.jar", "org/Class2")
+        def jar3 = jar("test3.jar", "org/Class3")
+
+        when:
+        def first = cache.get([jar1])
+        cache.get([jar2])
+        cache.get([jar3])
+
+        then:
+        !cache.get([jar1]).is(first)
+    }
+
+    private TestFile jar(String name, String... classNames) {
+        def contents = tmpDir.createDir("${name}-contents")
+        contents.file("META-INF/MANIFEST.class").text = "not a class"
+        classNames.each { contents.file("${it}.class").text = "$name $it" }
+        def jarFile = tmpDir.file(name)
+        contents.zipTo(jarFile)
+        return jarFile
+    }
+}
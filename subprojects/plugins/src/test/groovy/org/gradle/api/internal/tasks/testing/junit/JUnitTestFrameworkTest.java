@@ -17,8 +17,10 @@
 package org.gradle.api.internal.tasks.testing.junit;
 
 import org.gradle.api.AntBuilder;
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache;
 import org.gradle.api.internal.tasks.testing.AbstractTestFrameworkTest;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.internal.Factory;
 import org.gradle.internal.id.IdGenerator;
@@ -41,6 +43,7 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
     private JUnitOptions jUnitOptionsMock;
     private IdGenerator<?> idGenerator;
     private ServiceRegistry serviceRegistry;
+    private final JarClassIndexCache classIndexCache = new JarClassIndexCache(new ZipCentralDirectoryCache(1024 * 1024));
 
     @Before
     public void setUp() throws Exception {
@@ -68,7 +71,7 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
 
     @org.junit.Test
     public void testInitialize() {
-        jUnitTestFramework = new JUnitTestFramework(testMock);
+        jUnitTestFramework = new JUnitTestFramework(testMock, classIndexCache);
         setMocks();
 
         assertNotNull(jUnitTestFramework.getOptions());
@@ -76,7 +79,7 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
 
     @org.junit.Test
     public void testCreatesTestProcessor() {
-        jUnitTestFramework = new JUnitTestFramework(testMock);
+        jUnitTestFramework = new JUnitTestFramework(testMock, classIndexCache);
         setMocks();
         final ActorFactory actorFactory = context.mock(ActorFactory.class);
 
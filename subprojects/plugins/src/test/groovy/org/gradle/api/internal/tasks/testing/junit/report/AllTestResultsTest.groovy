@@ -41,4 +41,28 @@ class AllTestResultsTest extends Specification {
         test.classResults.packageResults.name == 'default-package'
         results.packages.contains(test.classResults.packageResults)
     }
+
+    def addsSummaryOfClassResults() {
+        def classModel = new AllTestResults()
+        classModel.addTest('org.gradle.Test', 'test1', 90)
+        classModel.addTest('org.gradle.Test', 'test2', 10).addFailure('broken', 'stack trace')
+        def classResults = classModel.addTestClass('org.gradle.Test')
+
+        when:
+        def summary = results.addTestClassSummary(classResults)
+
+        then:
+        summary.name == 'org.gradle.Test'
+        summary.testCount == 2
+        summary.duration == 100
+        summary.failures*.name == ['test2']
+        summary.failures.first().failures*.message == ['broken']
+        summary.failures.first().failures*.stackTrace == [null]
+        summary.testResults.empty
+        summary.packageResults.testCount == 2
+        summary.packageResults.failureCount == 1
+        results.testCount == 2
+        results.duration == 100
+        results.failureCount == 1
+    }
 }
@@ -268,6 +268,81 @@ class DefaultTestReportTest extends Specification {
         testClassFile.assertHasStandardError('err:\u0102')
     }
 
+    def doesNotRenderClassPageAgainWhenClassResultsHaveNotChanged() {
+        given:
+        def testTestResults = buildResults {
+            testClassResult("org.gradle.Test") {
+                testcase("test1") {
+                    duration = 1
+                }
+            }
+            testClassResult("org.gradle.Test2") {
+                testcase("test2") {
+                    duration = 1
+                }
+            }
+        }
+        report.generateReport(testTestResults, reportDir)
+        reportDir.file('org.gradle.Test.html').text = 'unchanged'
+        reportDir.file('org.gradle.Test2.html').text = 'changed'
+
+        when:
+        testTestResults.testClasses['org.gradle.Test2'].results[0].duration = 2
+        report.generateReport(testTestResults, reportDir)
+
+        then:
+        reportDir.file('org.gradle.Test.html').text == 'unchanged'
+        results(reportDir.file('org.gradle.Test2.html')).assertHasDuration("0.002s")
+        results(indexFile).assertHasTests(2)
+    }
+
+    def rendersClassPageAgainWhenItHasBeenDeleted() {
+        given:
+        def testTestResults = buildResults {
+            testClassResult("org.gradle.Test") {
+                testcase("test1") {
+                    duration = 1
+                }
+            }
+        }
+        report.generateReport(testTestResults, reportDir)
+        reportDir.file('org.gradle.Test.html').delete()
+
+        when:
+        report.generateReport(testTestResults, reportDir)
+
+        then:
+        results(reportDir.file('org.gradle.Test.html')).assertHasTest('test1')
+    }
+
+    def rendersAllClassPagesAgainWhenReportStateCannotBeRead() {
+        given:
+        def testTestResults = buildResults {
+            testClassResult("org.gradle.Test") {
+                testcase("test1") {
+                    duration = 1
+                }
+            }
+        }
+        report.generateReport(testTestResults, reportDir)
+        reportDir.file('org.gradle.Test.html').text = 'stale'
+        def stateFile = reportDir.file('.test-report-state')
+        stateFile.withDataOutputStream { output ->
+            output.writeInt(1)
+            output.writeInt(1)
+            // not valid modified UTF-8
+            output.writeShort(2)
+            output.write([(byte) 0xC0, (byte) 0x20] as byte[])
+        }
+
+        when:
+        report.generateReport(testTestResults, reportDir)
+
+        then:
+        results(reportDir.file('org.gradle.Test.html')).assertHasTest('test1')
+        stateFile.assertIsFile()
+    }
+
     def results(TestFile file) {
         return new TestResultsFixture(file)
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PreviousTestResultsTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def "reads the duration of each test class"() {
+        def dir = tmp.createDir("results")
+        def class1 = new TestClassResult('Class1', 1000)
+        class1.add(new TestMethodResult("method1", TestResult.ResultType.SUCCESS, 100, 1100, []))
+        class1.add(new TestMethodResult("method2", TestResult.ResultType.SUCCESS, 200, 1300, []))
+        def class2 = new TestClassResult('Class2', 2000)
+        new TestResultSerializer().write([class1, class2], dir)
+
+        when:
+        def results = PreviousTestResults.read(dir)
+
+        then:
+        results.classDurations == [Class1: 300L, Class2: 0L]
+    }
+
+    def "reads the test classes which had failed tests"() {
+        def dir = tmp.createDir("results")
+        def class1 = new TestClassResult('Class1', 1000)
+        class1.add(new TestMethodResult("method1", TestResult.ResultType.SUCCESS, 100, 1100, []))
+        def class2 = new TestClassResult('Class2', 2000)
+        class2.add(new TestMethodResult("method1", TestResult.ResultType.FAILURE, 100, 2100, [new RuntimeException("broken")]))
+        new TestResultSerializer().write([class1, class2], dir)
+
+        when:
+        def results = PreviousTestResults.read(dir)
+
+        then:
+        results.failedClasses == ['Class2'] as Set
+    }
+
+    def "has no results when there are no previous results"() {
+        expect:
+        PreviousTestResults.read(tmp.createDir("results")).classDurations.isEmpty()
+        PreviousTestResults.read(tmp.file("missing")).classDurations.isEmpty()
+        PreviousTestResults.read(tmp.file("missing")).failedClasses.isEmpty()
+    }
+
+    def "ignores results which cannot be read"() {
+        def dir = tmp.createDir("results")
+        dir.file("results.bin").bytes = [99, 1, 2] as byte[]
+
+        expect:
+        PreviousTestResults.read(dir).classDurations.isEmpty()
+    }
+}
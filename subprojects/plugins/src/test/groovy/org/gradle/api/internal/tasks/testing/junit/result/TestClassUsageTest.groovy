@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassUsageTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def "writes and reads usage"() {
+        def usage = new TestClassUsage()
+        usage.add("Test1", ["Test1", "Class1"])
+        usage.add("Test2", [])
+        def file = tmp.file("usage.bin")
+
+        when:
+        usage.write(file)
+        def read = TestClassUsage.read(file)
+
+        then:
+        read.getUsedClasses("Test1") == ["Test1", "Class1"] as Set
+        read.getUsedClasses("Test2").empty
+        read.getUsedClasses("Test3") == null
+    }
+
+    def "merges the usage from each file in a directory"() {
+        def dir = tmp.createDir("usage")
+        def usage1 = new TestClassUsage()
+        usage1.add("Test1", ["Class1"])
+        usage1.write(dir.file("1.bin"))
+        def usage2 = new TestClassUsage()
+        usage2.add("Test1", ["Class2"])
+        usage2.add("Test2", ["Class3"])
+        usage2.write(dir.file("2.bin"))
+
+        when:
+        def usage = TestClassUsage.readAll(dir)
+
+        then:
+        usage.getUsedClasses("Test1") == ["Class1", "Class2"] as Set
+        usage.getUsedClasses("Test2") == ["Class3"] as Set
+    }
+
+    def "ignores incomplete record at the end of a file"() {
+        def file = tmp.file("usage.bin")
+        def outputStream = new DataOutputStream(new FileOutputStream(file))
+        TestClassUsage.writeRecord(outputStream, "Test1", ["Class1"])
+        outputStream.write(1)
+        outputStream.writeUTF("Test2")
+        outputStream.close()
+
+        when:
+        def usage = TestClassUsage.read(file)
+
+        then:
+        usage.getUsedClasses("Test1") == ["Class1"] as Set
+        usage.getUsedClasses("Test2") == null
+    }
+
+    def "has no usage when the file does not exist"() {
+        expect:
+        TestClassUsage.read(tmp.file("missing")).empty
+    }
+}
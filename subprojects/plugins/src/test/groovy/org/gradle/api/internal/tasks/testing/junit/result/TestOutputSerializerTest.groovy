@@ -64,7 +64,75 @@ class TestOutputSerializerTest extends Specification {
         !serializer.hasOutput("Unknown", StdErr)
     }
 
+    def "writes output of all test classes to a single file"() {
+        when:
+        serializer.onOutput("Class1", StdOut, "[out]")
+        serializer.onOutput("Class2", StdErr, "[err]")
+        serializer.finishOutputs()
+
+        then:
+        temp.testDirectory.list() as Set == ["output.bin", "output.bin.idx"] as Set
+    }
+
+    def "can read output written by another instance"() {
+        when:
+        serializer.onOutput("Class1", StdOut, "[out]")
+        serializer.onOutput("Class2", StdOut, "[other]")
+        serializer.onOutput("Class1", StdOut, "[\u03b1\u03b2]")
+        serializer.onOutput("Class1", StdErr, "[err]")
+        serializer.finishOutputs()
+        def reader = new TestOutputSerializer(temp.testDirectory)
+
+        then:
+        reader.hasOutput("Class1", StdOut)
+        !reader.hasOutput("Class2", StdErr)
+        collectOutput(reader, "Class1", StdOut) == "[out][\u03b1\u03b2]"
+        collectOutput(reader, "Class1", StdErr) == "[err]"
+        collectOutput(reader, "Class2", StdOut) == "[other]"
+        collectOutput(reader, "Unknown", StdOut) == ""
+    }
+
+    def "has no output when no output was written"() {
+        expect:
+        !new TestOutputSerializer(temp.testDirectory).hasOutput("Class1", StdOut)
+    }
+
+    def "keeps output which is received after output finishes"() {
+        when:
+        serializer.onOutput("Class1", StdOut, "[out]")
+        serializer.finishOutputs()
+        serializer.onOutput("Class1", StdOut, "[late]")
+        serializer.onOutput("Class2", StdOut, "[late]")
+        serializer.finishOutputs()
+        def reader = new TestOutputSerializer(temp.testDirectory)
+
+        then:
+        collectOutput(reader, "Class1", StdOut) == "[out][late]"
+        collectOutput(reader, "Class2", StdOut) == "[late]"
+    }
+
+    def "replaces output from a previous execution"() {
+        given:
+        serializer.onOutput("Class1", StdOut, "[old]")
+        serializer.finishOutputs()
+
+        when:
+        def newSerializer = new TestOutputSerializer(temp.testDirectory)
+        newSerializer.onOutput("Class2", StdOut, "[new]")
+        newSerializer.finishOutputs()
+        def reader = new TestOutputSerializer(temp.testDirectory)
+
+        then:
+        !reader.hasOutput("Class1", StdOut)
+        collectOutput(reader, "Class2", StdOut) == "[new]"
+        temp.testDirectory.file("output.bin").length() == 5
+    }
+
     String collectOutput(String className, TestOutputEvent.Destination destination) {
+        return collectOutput(serializer, className, destination)
+    }
+
+    String collectOutput(TestOutputSerializer serializer, String className, TestOutputEvent.Destination destination) {
         def writer = new StringWriter()
         serializer.writeOutputs(className, destination, writer)
         return writer.toString()
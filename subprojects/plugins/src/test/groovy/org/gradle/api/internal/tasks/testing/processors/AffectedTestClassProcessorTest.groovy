@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassUsage
+import spock.lang.Specification
+
+class AffectedTestClassProcessorTest extends Specification {
+    private final TestClassProcessor target = Mock()
+    private final TestClassUsage usage = new TestClassUsage()
+
+    def "passes on test classes which used a changed class"() {
+        usage.add("Test1", ["Test1", "Changed", "Other"])
+        usage.add("Test2", ["Test2", "Other"])
+        def processor = new AffectedTestClassProcessor(target, usage, ["Changed"] as Set)
+        def test1 = testClass("Test1")
+        def test2 = testClass("Test2")
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * target.processTestClass(test1)
+        0 * target.processTestClass(_)
+        processor.skippedTestClasses == ["Test2"]
+    }
+
+    def "passes on test classes whose usage is not known"() {
+        def processor = new AffectedTestClassProcessor(target, usage, ["Changed"] as Set)
+        def test = testClass("NewTest")
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * target.processTestClass(test)
+        processor.skippedTestClasses.empty
+    }
+
+    def "determines whether a test class is affected without processing it"() {
+        usage.add("Test1", ["Test1", "Changed"])
+        usage.add("Test2", ["Test2", "Other"])
+
+        expect:
+        AffectedTestClassProcessor.isAffected(usage, ["Changed"] as Set, "Test1")
+        !AffectedTestClassProcessor.isAffected(usage, ["Changed"] as Set, "Test2")
+        AffectedTestClassProcessor.isAffected(usage, ["Changed"] as Set, "NewTest")
+    }
+
+    def "delegates start and stop"() {
+        TestResultProcessor resultProcessor = Mock()
+        def processor = new AffectedTestClassProcessor(target, usage, [] as Set)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        1 * target.startProcessing(resultProcessor)
+
+        then:
+        1 * target.stop()
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        _ * testClass.testClassName >> name
+        return testClass
+    }
+}
@@ -16,9 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
-import org.gradle.api.internal.tasks.testing.TestClassProcessor
-import org.gradle.api.internal.tasks.testing.TestClassRunInfo
-import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.*
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
 import spock.lang.Specification
@@ -73,7 +71,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor1
         1 * actorFactory.createActor(processor1) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.startProcessing(_ as TestResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
@@ -103,7 +101,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor1
         1 * actorFactory.createActor(processor1) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.startProcessing(_ as TestResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
@@ -113,7 +111,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor2
         1 * actorFactory.createActor(processor2) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.startProcessing(_ as TestResultProcessor)
         1 * asyncProcessor2.processTestClass(test)
 
         when:
@@ -124,47 +122,350 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
-        TestClassRunInfo test = Mock()
-        TestClassProcessor processor1 = Mock()
-        TestClassProcessor processor2 = Mock()
+    def handsQueuedTestClassesToProcessorsAsTheyBecomeIdle() {
+        TestClassRunInfo test1 = testClass("Test1")
+        TestClassRunInfo test2 = testClass("Test2")
+        TestClassRunInfo test3 = testClass("Test3")
         TestClassProcessor asyncProcessor1 = Mock()
         TestClassProcessor asyncProcessor2 = Mock()
-        Actor actor1 = Mock()
-        Actor actor2 = Mock()
+        TestResultProcessor forkResults1
+        def processor1 = fork(asyncProcessor1)
+        def processor2 = fork(asyncProcessor2)
 
         startProcessor()
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
 
         then:
-        1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
-        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        2 * factory.create() >>> [processor1, processor2]
+        1 * asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
 
         when:
-        processor.processTestClass(test)
+        classCompleted(forkResults1, "Test1")
 
         then:
-        1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
-        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(test3)
+        0 * asyncProcessor2.processTestClass(_)
+    }
+
+    def forwardsResultsOfProcessors() {
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestResultProcessor forkResults1
+        def suite = new DefaultTestSuiteDescriptor("worker", "worker")
+        def startEvent = new TestStartEvent(100)
+        def completeEvent = new TestCompleteEvent(200)
+        def failure = new RuntimeException()
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        startProcessor()
+        processor.processTestClass(testClass("Test1"))
+
+        when:
+        forkResults1.started(suite, startEvent)
+        forkResults1.failure("worker", failure)
+        forkResults1.completed("worker", completeEvent)
+
+        then:
+        1 * asyncResultProcessor.started(suite, startEvent)
+        1 * asyncResultProcessor.failure("worker", failure)
+        1 * asyncResultProcessor.completed("worker", completeEvent)
+    }
+
+    def handsLongestTestClassesToIdleProcessorsFirst() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [Short: 10L, Long: 1000L, Medium: 100L])
+        TestClassRunInfo first = testClass("First")
+        TestClassRunInfo shortTest = testClass("Short")
+        TestClassRunInfo longTest = testClass("Long")
+        TestClassRunInfo mediumTest = testClass("Medium")
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestResultProcessor forkResults1
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        startProcessor(processor)
+
+        when:
+        processor.processTestClass(first)
+        processor.processTestClass(shortTest)
+        processor.processTestClass(longTest)
+        processor.processTestClass(mediumTest)
+
+        then:
+        1 * asyncProcessor1.processTestClass(first)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        classCompleted(forkResults1, "First")
+
+        then:
+        1 * asyncProcessor1.processTestClass(longTest)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        classCompleted(forkResults1, "Long")
+
+        then:
+        1 * asyncProcessor1.processTestClass(mediumTest)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def assignsQueuedTestClassesLongestFirstToLeastLoadedProcessorsOnStop() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [Test1: 500L, Test2: 100L, Test3: 300L, Test4: 200L, Test5: 150L])
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        def tests = (1..5).collect { testClass("Test$it") }
+
+        given:
+        factory.create() >>> [fork(asyncProcessor1), fork(asyncProcessor2)]
+        startProcessor(processor)
+
+        when:
+        tests.each { processor.processTestClass(it) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(tests[0])
+        1 * asyncProcessor2.processTestClass(tests[1])
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * asyncProcessor2.processTestClass(tests[2])
+
+        then:
+        1 * asyncProcessor2.processTestClass(tests[3])
+
+        then:
+        1 * asyncProcessor1.processTestClass(tests[4])
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def usesAverageDurationForTestClassesWhichWereNotExecutedPreviously() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [Short: 100L, Long: 300L])
+        TestClassRunInfo first = testClass("First")
+        TestClassRunInfo shortTest = testClass("Short")
+        TestClassRunInfo newTest = testClass("New")
+        TestClassRunInfo longTest = testClass("Long")
+        TestClassProcessor asyncProcessor1 = Mock()
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        startProcessor(processor)
+
+        when:
+        [first, shortTest, newTest, longTest].each { processor.processTestClass(it) }
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.processTestClass(first)
+
+        then:
+        1 * asyncProcessor1.processTestClass(longTest)
+
+        then:
+        1 * asyncProcessor1.processTestClass(newTest)
+
+        then:
+        1 * asyncProcessor1.processTestClass(shortTest)
+    }
+
+    def handsPreviouslyFailedTestClassesToProcessorsFirst() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [Long: 1000L, Failed: 10L], ["Failed"] as Set, 0)
+        TestClassRunInfo longTest = testClass("Long")
+        TestClassRunInfo failedTest = testClass("Failed")
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestResultProcessor forkResults1
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        startProcessor(processor)
+
+        when:
+        processor.processTestClass(longTest)
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        processor.processTestClass(failedTest)
+
+        then:
+        1 * asyncProcessor1.processTestClass(failedTest)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        classCompleted(forkResults1, "Failed")
+
+        then:
+        1 * asyncProcessor1.processTestClass(longTest)
+    }
+
+    def doesNotWaitForPreviouslyFailedTestClassesWhichAreNotFound() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [:], ["Missing"] as Set, 0)
+        TestClassRunInfo test = testClass("Test1")
+        TestClassProcessor asyncProcessor1 = Mock()
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        startProcessor(processor)
 
         when:
         processor.processTestClass(test)
 
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        processor.stop()
+
         then:
         1 * asyncProcessor1.processTestClass(test)
 
+        then:
+        1 * asyncProcessor1.stop()
+    }
+
+    def discardsQueuedTestClassesOnceFailFastThresholdIsReached() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [:], [] as Set, 2)
+        def tests = (1..4).collect { testClass("Test$it") }
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestResultProcessor forkResults1
+
+        given:
+        factory.create() >> fork(asyncProcessor1)
+        asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        startProcessor(processor)
+
         when:
-        processor.processTestClass(test)
+        tests[0..2].each { processor.processTestClass(it) }
+        forkResults1.failure("test1", new RuntimeException())
+        forkResults1.failure("test1", new RuntimeException())
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(tests[0])
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        forkResults1.failure("test2", new RuntimeException())
+        processor.processTestClass(tests[3])
+        processor.stop()
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+        1 * asyncProcessor1.stop()
+    }
+
+    def discardsQueuedTestClassesOnStopWhenWorkerProcessStopsWithoutCompletingItsTestClass() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [:], [] as Set, 2)
+        def tests = (1..3).collect { testClass("Test$it") }
+        WorkerAwareTestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        boolean workerStopped = false
+
+        given:
+        factory.create() >> processor1
+        actorFactory.createActor(processor1) >> actor1
+        actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        processor1.hasWorkerStopped() >> { workerStopped }
+        startProcessor(processor)
+
+        when:
+        tests.each { processor.processTestClass(it) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(tests[0])
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        workerStopped = true
+        processor.stop()
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+        1 * asyncProcessor1.stop()
+        1 * actor1.stop()
+    }
+
+    def handsQueuedTestClassesOnlyToProcessorsWhoseWorkerProcessIsRunning() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [:], [] as Set, 2)
+        def tests = (1..3).collect { testClass("Test$it") }
+        WorkerAwareTestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        TestResultProcessor forkResults1
+        TestResultProcessor forkResults2
+        boolean workerStopped = false
+
+        given:
+        factory.create() >>> [processor1, fork(asyncProcessor2)]
+        actorFactory.createActor(processor1) >> actor1
+        actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        processor1.hasWorkerStopped() >> { workerStopped }
+        asyncProcessor1.startProcessing(_) >> { forkResults1 = it[0] }
+        asyncProcessor2.startProcessing(_) >> { forkResults2 = it[0] }
+        startProcessor(processor)
+
+        when:
+        tests.each { processor.processTestClass(it) }
+        workerStopped = true
+        classCompleted(forkResults1, "Test1")
+
+        then:
+        1 * asyncProcessor1.processTestClass(tests[0])
+        1 * asyncProcessor2.processTestClass(tests[1])
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        classCompleted(forkResults2, "Test2")
+        processor.stop()
+
+        then:
+        1 * asyncProcessor2.processTestClass(tests[2])
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    private void startProcessor(MaxNParallelTestClassProcessor processor) {
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+
+    private TestClassProcessor fork(TestClassProcessor asyncProcessor) {
+        TestClassProcessor processor = Mock()
+        Actor actor = Mock()
+        actorFactory.createActor(processor) >> actor
+        actor.getProxy(TestClassProcessor) >> asyncProcessor
+        return processor
+    }
+
+    private void classCompleted(TestResultProcessor forkResults, String className) {
+        def workerSuite = new DefaultTestSuiteDescriptor("worker-$className", "worker")
+        def classId = "class-$className"
+        forkResults.started(workerSuite, new TestStartEvent(0))
+        forkResults.started(new DefaultTestClassDescriptor(classId, className), new TestStartEvent(0, workerSuite.id))
+        forkResults.completed(classId, new TestCompleteEvent(0))
     }
 }
@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.tasks.testing.testng
 
+import org.gradle.api.internal.file.archive.ZipCentralDirectoryCache
+import org.gradle.api.internal.tasks.testing.detection.JarClassIndexCache
 import org.gradle.api.tasks.testing.Test
 import org.gradle.api.tasks.testing.testng.TestNGOptions
 import org.gradle.internal.service.ServiceRegistry
@@ -30,6 +32,7 @@ public class TestNGTestFrameworkTest extends Specification {
 
     private project = new ProjectBuilder().build()
     Test testTask = HelperUtil.createTask(Test, project)
+    JarClassIndexCache classIndexCache = new JarClassIndexCache(new ZipCentralDirectoryCache(1024 * 1024))
 
     void setup() {
         project.ext.sourceCompatibility = "1.7"
@@ -40,7 +43,7 @@ public class TestNGTestFrameworkTest extends Specification {
         project.ext.sourceCompatibility = "1.4"
 
         when:
-        def framework = new TestNGTestFramework(testTask);
+        def framework = new TestNGTestFramework(testTask, classIndexCache);
 
         then:
         framework.options.annotations == TestNGOptions.JAVADOC_ANNOTATIONS
@@ -51,12 +54,12 @@ public class TestNGTestFrameworkTest extends Specification {
 
     void "initializes for newer java"() {
         expect:
-        new TestNGTestFramework(testTask).options.annotations == TestNGOptions.JDK_ANNOTATIONS
+        new TestNGTestFramework(testTask, classIndexCache).options.annotations == TestNGOptions.JDK_ANNOTATIONS
     }
 
     void "creates test class processor"() {
         when:
-        def framework = new TestNGTestFramework(testTask);
+        def framework = new TestNGTestFramework(testTask, classIndexCache);
         def processor = framework.getProcessorFactory().create(Mock(ServiceRegistry))
 
         then:
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.*
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.id.CompositeIdGenerator
+import spock.lang.Specification
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class BatchingTestResultProcessorTest extends Specification {
+    final TestResultProcessor target = Mock()
+    final RemoteTestResultProcessor remote = Mock()
+    final decoder = new TestEventBatchDecoder(target)
+    final processor = new BatchingTestResultProcessor(remote, 1024, 0)
+
+    def setup() {
+        _ * remote.processEvents(_) >> { byte[] events -> decoder.processEvents(events) }
+        _ * remote.failure(_, _) >> { Object id, Throwable failure -> decoder.failure(id, failure) }
+    }
+
+    def "sends events in order once a suite completes"() {
+        def suiteId = new CompositeIdGenerator.CompositeId(12L, 1L)
+        def testId = new CompositeIdGenerator.CompositeId(12L, 2L)
+
+        when:
+        processor.started(new DefaultTestClassDescriptor(suiteId, "SomeTest"), new TestStartEvent(100))
+        processor.started(new DefaultTestDescriptor(testId, "SomeTest", "method"), new TestStartEvent(200, suiteId))
+        processor.completed(testId, new TestCompleteEvent(300, TestResult.ResultType.SKIPPED))
+
+        then:
+        0 * target._
+
+        when:
+        processor.completed(suiteId, new TestCompleteEvent(400))
+
+        then:
+        1 * target.started({ it instanceof DefaultTestClassDescriptor && it.id == suiteId && it.className == "SomeTest" }, { it.startTime == 100 && it.parentId == null })
+
+        then:
+        1 * target.started({ it instanceof DefaultTestDescriptor && it.id == testId && it.className == "SomeTest" && it.name == "method" }, { it.startTime == 200 && it.parentId == suiteId })
+
+        then:
+        1 * target.completed(testId, { it.endTime == 300 && it.resultType == TestResult.ResultType.SKIPPED })
+
+        then:
+        1 * target.completed(suiteId, { it.endTime == 400 && it.resultType == null })
+        0 * target._
+    }
+
+    def "combines consecutive output for the same test and destination"() {
+        when:
+        processor.output("test1", new DefaultTestOutputEvent(StdOut, "a"))
+        processor.output("test1", new DefaultTestOutputEvent(StdOut, "b"))
+        processor.output("test1", new DefaultTestOutputEvent(StdErr, "c"))
+        processor.output("test2", new DefaultTestOutputEvent(StdErr, "d"))
+        processor.output("test2", new DefaultTestOutputEvent(StdErr, "e"))
+        processor.output("test1", new DefaultTestOutputEvent(StdErr, "f"))
+        processor.flush()
+
+        then:
+        1 * remote.processEvents(_) >> { byte[] events -> decoder.processEvents(events) }
+        1 * target.output("test1", { it.destination == StdOut && it.message == "ab" })
+
+        then:
+        1 * target.output("test1", { it.destination == StdErr && it.message == "c" })
+
+        then:
+        1 * target.output("test2", { it.destination == StdErr && it.message == "de" })
+
+        then:
+        1 * target.output("test1", { it.destination == StdErr && it.message == "f" })
+        0 * target._
+    }
+
+    def "sends pending events before a failure"() {
+        def failure = new RuntimeException()
+
+        when:
+        processor.started(new DefaultTestMethodDescriptor(1L, "SomeTest", "method"), new TestStartEvent(100))
+        processor.output(1L, new DefaultTestOutputEvent(StdOut, "output"))
+        processor.failure(1L, failure)
+
+        then:
+        1 * target.started({ it instanceof DefaultTestMethodDescriptor && it.id == 1L }, _)
+
+        then:
+        1 * target.output(1L, { it.message == "output" })
+
+        then:
+        1 * target.failure(1L, failure)
+    }
+
+    def "sends events once the batch is full"() {
+        def text = "x" * 600
+
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, text))
+
+        then:
+        0 * remote.processEvents(_)
+
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, text))
+
+        then:
+        1 * target.output("test", { it.message == text + text })
+    }
+
+    def "rejects ids of unsupported type"() {
+        when:
+        processor.output(new CompositeIdGenerator.CompositeId(12L, 1), new DefaultTestOutputEvent(StdOut, "text"))
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Cannot send test id of unsupported type java.lang.Integer."
+
+        when:
+        processor.started(new DefaultTestMethodDescriptor(1L, "SomeTest", "method"), new TestStartEvent(100))
+        processor.flush()
+
+        then:
+        1 * target.started({ it.id == 1L }, _)
+        0 * target._
+    }
+
+    def "encodes worker suites and strings which are longer than can be written using modified UTF-8"() {
+        def name = "\u00e9" * 40000
+
+        when:
+        processor.started(new WorkerTestClassProcessor.WorkerTestSuiteDescriptor("worker", "Gradle Worker 1"), new TestStartEvent(100))
+        processor.output("worker", new DefaultTestOutputEvent(StdOut, name))
+        processor.flush()
+
+        then:
+        1 * target.started({ it instanceof WorkerTestClassProcessor.WorkerTestSuiteDescriptor && it.name == "Gradle Worker 1" && it.id == "worker" }, _)
+        1 * target.output("worker", { it.message == name })
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassUsage
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class ClassUsageRecordingProcessorFactoryTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final WorkerTestClassProcessorFactory targetFactory = Mock()
+    final ServiceRegistry services = Mock()
+    final TestResultProcessor resultProcessor = Mock()
+    File classesDir
+    File usageDir
+    ClassUsageRecordingProcessorFactory factory
+
+    def setup() {
+        classesDir = tmpDir.file("classes")
+        usageDir = tmpDir.file("usage")
+        factory = new ClassUsageRecordingProcessorFactory(targetFactory, [classesDir], usageDir)
+        writeClass("org/gradle/UsedClass1")
+        writeClass("org/gradle/UsedClass2")
+        writeClass("org/gradle/UnusedClass")
+    }
+
+    def "records the classes from the class directories which each test class loads"() {
+        TestClassProcessor target1 = Mock()
+        TestClassProcessor target2 = Mock()
+        def processor = factory.create(services)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("Test1"))
+        processor.processTestClass(new DefaultTestClassRunInfo("Test2"))
+        processor.stop()
+
+        then:
+        2 * targetFactory.create(services) >>> [target1, target2]
+        1 * target1.startProcessing(resultProcessor)
+        1 * target1.processTestClass({ it.testClassName == "Test1" }) >> { loadClasses("org.gradle.UsedClass1", "org.gradle.UsedClass2") }
+        1 * target1.stop()
+        1 * target2.startProcessing(resultProcessor)
+        1 * target2.processTestClass({ it.testClassName == "Test2" }) >> { loadClasses("org.gradle.UsedClass2", "java.lang.String") }
+        1 * target2.stop()
+
+        and:
+        def usage = TestClassUsage.readAll(usageDir)
+        usage.getUsedClasses("Test1") == ["org.gradle.UsedClass1", "org.gradle.UsedClass2"] as Set
+        usage.getUsedClasses("Test2") == ["org.gradle.UsedClass2"] as Set
+    }
+
+    def "restores the context ClassLoader when a test class fails"() {
+        TestClassProcessor target = Mock()
+        def contextClassLoader = Thread.currentThread().contextClassLoader
+        def processor = factory.create(services)
+        def failure = new RuntimeException()
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("Test1"))
+
+        then:
+        1 * targetFactory.create(services) >> target
+        1 * target.processTestClass(_) >> { loadClasses("org.gradle.UsedClass1"); throw failure }
+        1 * target.stop()
+        RuntimeException e = thrown()
+        e == failure
+        Thread.currentThread().contextClassLoader == contextClassLoader
+    }
+
+    def "does not write usage when no test classes are processed"() {
+        def processor = factory.create(services)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        0 * targetFactory._
+        !usageDir.exists()
+    }
+
+    private void loadClasses(String... classNames) {
+        for (String className : classNames) {
+            Thread.currentThread().contextClassLoader.loadClass(className)
+        }
+    }
+
+    private void writeClass(String internalName) {
+        ClassWriter writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null)
+        writer.visitEnd()
+        def classFile = new File(classesDir, "${internalName}.class")
+        classFile.parentFile.mkdirs()
+        classFile.bytes = writer.toByteArray()
+    }
+}
@@ -128,7 +128,7 @@ public class ForkingTestClassProcessorTest {
             allowing(workerProcess).getConnection();
             will(returnValue(connection));
 
-            one(connection).addIncoming(TestResultProcessor.class, resultProcessor);
+            one(connection).addIncoming(with(equal(RemoteTestResultProcessor.class)), with(any(TestEventBatchDecoder.class)));
             
             one(connection).addOutgoing(RemoteTestClassProcessor.class);
             will(returnValue(worker));
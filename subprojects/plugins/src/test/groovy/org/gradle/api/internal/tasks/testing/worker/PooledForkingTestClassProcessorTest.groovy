@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.Action
+import org.gradle.api.internal.tasks.testing.*
+import org.gradle.internal.Factory
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.WorkerProcess
+import org.gradle.process.internal.WorkerProcessBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PooledForkingTestClassProcessorTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    final pool = new TestWorkerPool()
+    final Factory<WorkerProcessBuilder> workerFactory = Mock()
+    final WorkerTestClassProcessorFactory processorFactory = Mock()
+    final JavaForkOptions options = Mock()
+    final Action<WorkerProcessBuilder> configAction = Mock()
+    final TestResultProcessor resultProcessor = Mock()
+    final WorkerProcessBuilder builder = Mock()
+    final WorkerProcess workerProcess = Mock()
+    final ObjectConnection connection = Mock()
+    final RemoteTestClassProcessor remoteProcessor = Mock()
+    final TestClassRunInfo test = Mock()
+    TestResultProcessor workerResults
+    File rootDir
+    File externalJar
+    File internalJar
+    File classesDir
+
+    def setup() {
+        rootDir = tmp.createDir("build")
+        externalJar = tmp.createFile("cache/junit.jar")
+        internalJar = tmp.createFile("build/lib/lib.jar")
+        classesDir = tmp.createDir("build/classes")
+        _ * workerFactory.create() >> builder
+        _ * builder.javaCommand >> Mock(JavaExecHandleBuilder)
+        _ * workerProcess.connection >> connection
+        _ * connection.addIncoming(RemoteTestResultProcessor, _) >> { workerResults = new BatchingTestResultProcessor(it[1], 1024, 0) }
+        _ * connection.addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+    }
+
+    def "loads jars from outside the build in the worker process and the remaining classpath for each session"() {
+        def processor = processor(true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
+
+        then:
+        1 * builder.applicationClasspath([externalJar])
+        1 * builder.setLoadApplicationInSystemClassLoader(true)
+        1 * builder.worker({ it instanceof TestWorker })
+        1 * configAction.execute(builder)
+        1 * builder.build() >> workerProcess
+        1 * workerProcess.start()
+        1 * remoteProcessor.startProcessing(processorFactory, [classesDir, internalJar])
+        1 * remoteProcessor.processTestClass(test)
+    }
+
+    def "returns worker to the pool once the worker has completed its session"() {
+        def processor1 = processor(true)
+        def processor2 = processor(true)
+        _ * workerProcess.running >> true
+        completesSessionOnStop()
+
+        when:
+        processor1.startProcessing(resultProcessor)
+        processor1.processTestClass(test)
+        processor1.stop()
+        processor2.startProcessing(resultProcessor)
+        processor2.processTestClass(test)
+
+        then:
+        1 * builder.build() >> workerProcess
+        2 * remoteProcessor.startProcessing(processorFactory, _)
+        0 * remoteProcessor.shutdown()
+        1 * resultProcessor.started(_, _)
+        1 * resultProcessor.completed("suite", _)
+    }
+
+    def "stops worker instead of returning it to the pool when requested"() {
+        def processor = processor(false)
+        _ * workerProcess.running >> true
+        completesSessionOnStop()
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
+        processor.stop()
+
+        then:
+        1 * builder.build() >> workerProcess
+        1 * remoteProcessor.shutdown()
+        1 * workerProcess.waitForStop()
+    }
+
+    def "fails when worker process stops before completing its session"() {
+        def processor = processor(true)
+        _ * workerProcess.running >> false
+
+        given:
+        builder.build() >> workerProcess
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
+
+        when:
+        processor.stop()
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "Test worker process stopped before it completed executing tests."
+        1 * workerProcess.waitForStop()
+    }
+
+    def "does nothing when no tests processed"() {
+        def processor = processor(true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        0 * workerFactory.create()
+    }
+
+    private void completesSessionOnStop() {
+        _ * remoteProcessor.stop() >> {
+            workerResults.started(new DefaultTestSuiteDescriptor("suite", "worker"), new TestStartEvent(0))
+            workerResults.completed("suite", new TestCompleteEvent(0))
+        }
+    }
+
+    private PooledForkingTestClassProcessor processor(boolean returnToPool) {
+        return new PooledForkingTestClassProcessor(pool, workerFactory, processorFactory, options, [externalJar, classesDir, internalJar],
+                configAction, rootDir, returnToPool, false)
+    }
+}
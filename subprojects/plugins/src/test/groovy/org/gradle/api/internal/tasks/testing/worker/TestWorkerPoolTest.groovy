@@ -0,0 +1,233 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.BuildListener
+import org.gradle.api.invocation.Gradle
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class TestWorkerPoolTest extends Specification {
+    final pool = new TestWorkerPool(4, 60000)
+    final Factory<PooledTestWorker> factory = Mock()
+
+    def "creates worker when there is no idle worker with the same key"() {
+        def worker1 = worker("key1")
+        def worker2 = worker("key2")
+
+        when:
+        def first = pool.acquire("key1", factory)
+        pool.release(first)
+        def second = pool.acquire("key2", factory)
+
+        then:
+        first == worker1
+        second == worker2
+        2 * factory.create() >>> [worker1, worker2]
+    }
+
+    def "reuses idle worker with the same key"() {
+        def worker1 = worker("key")
+
+        when:
+        def first = pool.acquire("key", factory)
+        pool.release(first)
+        def second = pool.acquire("key", factory)
+
+        then:
+        second == worker1
+        1 * factory.create() >> worker1
+    }
+
+    def "does not hand out the same worker twice"() {
+        def worker1 = worker("key")
+        def worker2 = worker("key")
+
+        when:
+        def first = pool.acquire("key", factory)
+        def second = pool.acquire("key", factory)
+
+        then:
+        first == worker1
+        second == worker2
+        2 * factory.create() >>> [worker1, worker2]
+    }
+
+    def "discards idle worker which has stopped"() {
+        def stoppedWorker = worker("key", false)
+        def worker2 = worker("key")
+
+        when:
+        pool.release(stoppedWorker)
+        def acquired = pool.acquire("key", factory)
+
+        then:
+        acquired == worker2
+        1 * factory.create() >> worker2
+    }
+
+    def "stops idle workers which are not kept after the build"() {
+        def worker1 = worker("key")
+        def keptWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        pool.release(worker1)
+        pool.release(keptWorker)
+
+        when:
+        pool.stopIdleWorkers(false)
+
+        then:
+        1 * worker1.stop()
+        0 * keptWorker.stop()
+
+        when:
+        def acquired = pool.acquire("key", factory)
+
+        then:
+        acquired == keptWorker
+        0 * factory.create()
+    }
+
+    def "stops all idle workers when requested"() {
+        def worker1 = worker("key")
+        def keptWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        pool.release(worker1)
+        pool.release(keptWorker)
+
+        when:
+        pool.stopIdleWorkers(true)
+
+        then:
+        1 * worker1.stop()
+        1 * keptWorker.stop()
+    }
+
+    def "stops idle workers when build finishes"() {
+        def gradle = Mock(Gradle)
+        def worker1 = worker("key")
+        BuildListener listener = null
+
+        when:
+        pool.attachTo(gradle)
+        pool.attachTo(gradle)
+
+        then:
+        1 * gradle.addBuildListener(_) >> { listener = it[0] }
+
+        when:
+        pool.release(worker1)
+        listener.buildFinished(null)
+
+        then:
+        1 * worker1.stop()
+    }
+
+    def "stops least recently used idle worker when there are too many idle workers"() {
+        def pool = new TestWorkerPool(2, 60000)
+        def worker1 = worker("key1")
+        def worker2 = worker("key2")
+        def worker3 = worker("key3")
+
+        when:
+        pool.release(worker1)
+        pool.release(worker2)
+
+        then:
+        0 * _.stop()
+
+        when:
+        pool.release(worker3)
+
+        then:
+        1 * worker1.stop()
+        0 * _.stop()
+
+        when:
+        def acquired = pool.acquire("key2", factory)
+
+        then:
+        acquired == worker2
+        0 * factory.create()
+    }
+
+    def "stops kept idle workers which have been idle for the idle timeout when build finishes"() {
+        def pool = new TestWorkerPool(4, 0)
+        def keptWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        pool.release(keptWorker)
+
+        when:
+        pool.buildFinished()
+
+        then:
+        1 * keptWorker.stop()
+    }
+
+    def "stops kept idle workers whose jars have changed when build finishes"() {
+        def keptWorker = worker("key")
+        def staleWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        staleWorker.keepAfterBuild >> true
+        staleWorker.stale >> true
+        pool.release(keptWorker)
+        pool.release(staleWorker)
+
+        when:
+        pool.buildFinished()
+
+        then:
+        1 * staleWorker.stop()
+        0 * keptWorker.stop()
+
+        cleanup:
+        pool.stop()
+    }
+
+    def "stops kept idle workers once they have been idle for the idle timeout"() {
+        def pool = new TestWorkerPool(4, 100)
+        def keptWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        pool.release(keptWorker)
+
+        when:
+        pool.buildFinished()
+        Thread.sleep(2000)
+
+        then:
+        1 * keptWorker.stop()
+    }
+
+    def "stops all idle workers when stopped"() {
+        def keptWorker = worker("key")
+        keptWorker.keepAfterBuild >> true
+        pool.release(keptWorker)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * keptWorker.stop()
+    }
+
+    private PooledTestWorker worker(Object key, boolean running = true) {
+        def worker = Mock(PooledTestWorker)
+        worker.key >> key
+        worker.running >> running
+        return worker
+    }
+}
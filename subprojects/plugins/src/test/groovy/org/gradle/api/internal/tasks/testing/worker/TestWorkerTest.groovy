@@ -17,7 +17,6 @@
 
 package org.gradle.api.internal.tasks.testing.worker
 
-import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.messaging.remote.ObjectConnection
@@ -43,7 +42,7 @@ public class TestWorkerTest extends MultithreadedTestCase {
     private final WorkerTestClassProcessorFactory factory = context.mock(WorkerTestClassProcessorFactory.class)
     private final TestClassProcessor processor = context.mock(TestClassProcessor.class)
     private final TestClassRunInfo test = context.mock(TestClassRunInfo.class)
-    private final TestResultProcessor resultProcessor = context.mock(TestResultProcessor.class)
+    private final RemoteTestResultProcessor resultProcessor = context.mock(RemoteTestResultProcessor.class)
     private final TestWorker worker = new TestWorker(factory)
 
     @Before
@@ -67,7 +66,7 @@ public class TestWorkerTest extends MultithreadedTestCase {
             one(factory).create(withParam(notNullValue()))
             will(returnValue(processor))
 
-            one(connection).addOutgoing(TestResultProcessor.class)
+            one(connection).addOutgoing(RemoteTestResultProcessor.class)
             will(returnValue(resultProcessor))
 
             one(connection).addIncoming(RemoteTestClassProcessor.class, worker)
@@ -95,4 +94,47 @@ public class TestWorkerTest extends MultithreadedTestCase {
 
         assertThat(System.properties['org.gradle.test.worker'], equalTo('<worker-id>'))
     }
+
+    @Test
+    public void reusableWorkerCreatesTestProcessorForEachSessionAndBlocksUntilShutdown() {
+        TestWorker worker = new TestWorker()
+        TestClassProcessor processor2 = context.mock(TestClassProcessor.class, 'processor2')
+
+        context.checking {
+            one(connection).addOutgoing(RemoteTestResultProcessor.class)
+            will(returnValue(resultProcessor))
+
+            one(connection).addIncoming(RemoteTestClassProcessor.class, worker)
+            will {
+                start {
+                    worker.startProcessing(factory, [new File('classes')])
+                    worker.processTestClass(test)
+                    worker.stop()
+                    worker.startProcessing(factory, [])
+                    worker.stop()
+                    syncAt(1)
+                    worker.shutdown()
+                }
+            }
+
+            ignoring(resultProcessor)
+
+            one(factory).create(withParam(notNullValue()))
+            will(returnValue(processor))
+            one(processor).startProcessing(withParam(notNullValue()))
+            one(processor).processTestClass(test)
+            one(processor).stop()
+
+            one(factory).create(withParam(notNullValue()))
+            will(returnValue(processor2))
+            one(processor2).startProcessing(withParam(notNullValue()))
+            one(processor2).stop()
+        }
+
+        run {
+            expectBlocksUntil(1) {
+                worker.execute(workerContext)
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.internal.tasks.testing.TestFramework
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults
 import org.gradle.listener.ListenerBroadcast
 import org.gradle.util.HelperUtil
 import spock.lang.Specification
@@ -51,7 +52,7 @@ class TestTaskSpec extends Specification {
         2 * testOutputListenerBroadcaster.add(_)
 
         then:
-        1 * testExecuter.execute(task, _ as TestResultProcessor)
+        1 * testExecuter.execute(task, _ as TestResultProcessor, _ as PreviousTestResults)
 
         then:
         1 * testListenerBroadcaster.removeAll({it.size() == 3})
@@ -59,7 +60,7 @@ class TestTaskSpec extends Specification {
     }
 
     def "removes listeners even if execution fails"() {
-        testExecuter.execute(task, _ as TestResultProcessor) >> { throw new RuntimeException("Boo!")}
+        testExecuter.execute(task, _ as TestResultProcessor, _ as PreviousTestResults) >> { throw new RuntimeException("Boo!")}
 
         when:
         task.executeTests()